@@ -0,0 +1,146 @@
+package com.niklasarndt.healthchecksio;
+
+import com.niklasarndt.healthchecksio.util.HealthcheckUtils;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * <p>Applies a per-call setting to the futures of another client or manager. This is what the
+ * default implementations of {@code withTimeout}, {@code withDeadline} and {@code withExecutor}
+ * use, so that clients and managers which are not based on a {@link HealthchecksTransport}
+ * support them as well.</p>
+ *
+ * @since 1.1.0
+ */
+abstract class CallDecorator {
+
+    /**
+     * @param call Starts the call.
+     * @param <T>  The result type of the call.
+     *
+     * @return The future which is returned to the caller.
+     */
+    abstract <T> CompletableFuture<T> apply(Supplier<CompletableFuture<T>> call);
+
+    /**
+     * @param timeout The maximum duration of each call.
+     *
+     * @return A decorator which cancels calls after {@code timeout}.
+     */
+    static CallDecorator timeout(Duration timeout) {
+        if (timeout.isNegative() || timeout.isZero())
+            throw new IllegalArgumentException("The timeout must be positive!");
+        long nanos = timeout.toNanos();
+        return new CallDecorator() {
+            @Override
+            <T> CompletableFuture<T> apply(Supplier<CompletableFuture<T>> call) {
+                return limit(call.get(), nanos, "The call timed out after " + timeout.toMillis() + " ms");
+            }
+        };
+    }
+
+    /**
+     * @param deadline The point in time by which all calls must have completed.
+     *
+     * @return A decorator which cancels calls at the {@code deadline}.
+     */
+    static CallDecorator deadline(Instant deadline) {
+        Objects.requireNonNull(deadline);
+        return new CallDecorator() {
+            @Override
+            <T> CompletableFuture<T> apply(Supplier<CompletableFuture<T>> call) {
+                String message = "The deadline " + deadline + " has passed";
+                long nanos;
+                try {
+                    nanos = Duration.between(Instant.now(), deadline).toNanos();
+                } catch (ArithmeticException e) {
+                    //The deadline is too far away to matter
+                    return call.get();
+                }
+                if (nanos <= 0) {
+                    CompletableFuture<T> expired = new CompletableFuture<>();
+                    expired.completeExceptionally(new InterruptedIOException(message));
+                    return expired;
+                }
+                return limit(call.get(), nanos, message);
+            }
+        };
+    }
+
+    /**
+     * @param executor The executor which completes the returned futures.
+     *
+     * @return A decorator which moves the completion of calls to {@code executor}.
+     */
+    static CallDecorator executor(Executor executor) {
+        Objects.requireNonNull(executor);
+        return new CallDecorator() {
+            @Override
+            <T> CompletableFuture<T> apply(Supplier<CompletableFuture<T>> call) {
+                CompletableFuture<T> source = call.get();
+                CompletableFuture<T> result = new CompletableFuture<>();
+                source.whenComplete((value, error) -> {
+                    Runnable complete = () -> {
+                        if (error != null)
+                            result.completeExceptionally(error);
+                        else if (!result.complete(value))
+                            close(value);
+                    };
+                    try {
+                        executor.execute(complete);
+                    } catch (RejectedExecutionException e) {
+                        //Like the built-in implementations, fall back to completing inline
+                        complete.run();
+                    }
+                });
+                return HealthcheckUtils.propagateCancellation(result, source);
+            }
+        };
+    }
+
+    /**
+     * <p>Fails the returned future with an {@link InterruptedIOException} and cancels
+     * {@code source} if it has not completed within {@code nanos}.</p>
+     */
+    private static <T> CompletableFuture<T> limit(CompletableFuture<T> source, long nanos, String message) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicBoolean expired = new AtomicBoolean();
+        //The call is cancelled before the caller sees the failure
+        ScheduledFuture<?> timer = SharedTimer.TIMER.schedule(() -> {
+            expired.set(true);
+            source.cancel(false);
+            result.completeExceptionally(new InterruptedIOException(message));
+        }, nanos, TimeUnit.NANOSECONDS);
+        source.whenComplete((value, error) -> {
+            timer.cancel(false);
+            if (error != null)
+                result.completeExceptionally(expired.get() ? new InterruptedIOException(message) : error);
+            else if (!result.complete(value))
+                close(value);
+        });
+        return HealthcheckUtils.propagateCancellation(result, source);
+    }
+
+    /**
+     * <p>Closes a result (e.g. a {@link okhttp3.Response}) which nobody will receive.</p>
+     */
+    static void close(Object value) {
+        if (value instanceof Closeable) {
+            try {
+                ((Closeable) value).close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,546 @@
+package com.niklasarndt.healthchecksio;
+
+import com.niklasarndt.healthchecksio.exception.CircuitOpenException;
+import com.niklasarndt.healthchecksio.util.CircuitBreaker;
+import com.niklasarndt.healthchecksio.util.HealthcheckUtils;
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A {@link HealthchecksTransport} which guards another transport with one
+ * {@link CircuitBreaker} per host. While a host is failing (the failure rate of the last calls
+ * exceeds a threshold), calls are not sent, so they don't wait out their timeouts and pile up
+ * in the dispatcher.</p>
+ *
+ * <p>Calls to an open circuit fail fast with a {@link CircuitOpenException}. If an outbox has
+ * been configured, heartbeats are queued instead (the caller receives a synthetic {@code 202}
+ * response, see {@link #isQueued(Response)}) and sent after the next successful call, once the
+ * circuit has been closed again. The outbox keeps only the newest heartbeat per check, except
+ * that a success never replaces a queued failure ({@code fail()} or a non-zero exit code): the
+ * failure is kept and the newest success is sent after it. A queued heartbeat is sent before
+ * the next live heartbeat of its check, so the events of a check never arrive out of order.
+ * Queued heartbeats arrive late, and the ones of the check which has been queued the longest
+ * are dropped if the outbox is full.</p>
+ *
+ * <pre>{@code
+ * CircuitBreakerTransport transport = CircuitBreakerTransport.builder(
+ *         Healthchecks.okHttpTransport(HealthchecksOptions.DEFAULT))
+ *         .outboxCapacity(1000)
+ *         .build();
+ * HealthchecksOptions options = HealthchecksOptions.builder().transport(transport).build();
+ * }</pre>
+ *
+ * @since 1.1.0
+ */
+public class CircuitBreakerTransport implements HealthchecksTransport {
+
+    /**
+     * The header which marks synthetic responses of queued heartbeats.
+     */
+    public static final String OUTBOX_HEADER = "X-Healthchecks-Outbox";
+
+    private static final Logger LOG = LoggerFactory.getLogger(CircuitBreakerTransport.class);
+
+    private final HealthchecksTransport delegate;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final Duration window;
+    private final Duration openDuration;
+    private final int halfOpenCalls;
+    private final int outboxCapacity;
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    /**
+     * The newest queued heartbeat per check, in the order they have been queued. Guards {@link #inFlight}.
+     */
+    private final Map<String, Queued> outbox = new LinkedHashMap<>();
+    /**
+     * The queued heartbeats which are being sent, per check.
+     */
+    private final Map<String, Queued> inFlight = new HashMap<>();
+    private final AtomicBoolean replaying = new AtomicBoolean();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+
+    private CircuitBreakerTransport(Builder builder) {
+        this.delegate = builder.delegate;
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.minimumCalls = builder.minimumCalls;
+        this.window = builder.window;
+        this.openDuration = builder.openDuration;
+        this.halfOpenCalls = builder.halfOpenCalls;
+        this.outboxCapacity = builder.outboxCapacity;
+    }
+
+    /**
+     * @param delegate The transport which sends the permitted calls. <b>Must not be null.</b>
+     *
+     * @return A new {@link Builder} with the default settings (50% failures of at least 20 calls
+     *         within a minute open the circuit for 30 seconds, no outbox).
+     */
+    public static Builder builder(HealthchecksTransport delegate) {
+        return new Builder(delegate);
+    }
+
+    /**
+     * @param response A response returned by this transport.
+     *
+     * @return Whether the heartbeat has been queued in the outbox instead of being sent.
+     */
+    public static boolean isQueued(Response response) {
+        return response != null && response.header(OUTBOX_HEADER) != null;
+    }
+
+    @Override
+    public CompletableFuture<Response> send(Request request, Duration timeout, Instant deadline,
+                                            Executor executor) {
+        if (outboxCapacity == 0 || !isHeartbeat(request))
+            return sendNow(request, timeout, deadline, executor);
+
+        //A queued heartbeat of the same check must be delivered (or given up) first
+        String check = HeartbeatCheck.of(request);
+        Queued queuedRequest;
+        Queued sending;
+        synchronized (outbox) {
+            queuedRequest = outbox.remove(check);
+            if (queuedRequest != null)
+                inFlight.put(check, queuedRequest);
+            sending = inFlight.get(check);
+            //The live heartbeat is newer, so a queued one which can't be delivered may be given up
+            if (sending != null)
+                sending.supersede(request);
+        }
+        if (sending == null)
+            return sendNow(request, timeout, deadline, executor);
+        if (queuedRequest != null)
+            sendQueued(check, queuedRequest, false);
+        CompletableFuture<Void> before = sending.done;
+
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        before.whenComplete((ignored, error) -> {
+            if (result.isDone())
+                return;
+            //A failure which could not be delivered is queued again, the live heartbeat follows it
+            boolean behind;
+            synchronized (outbox) {
+                behind = outbox.containsKey(check) || inFlight.containsKey(check);
+            }
+            CompletableFuture<Response> call = behind ? divert(request, getBreaker(request.url()))
+                    : sendNow(request, timeout, deadline, executor);
+            forward(call, result);
+            HealthcheckUtils.propagateCancellation(result, call);
+        });
+        return result;
+    }
+
+    private CompletableFuture<Response> sendNow(Request request, Duration timeout, Instant deadline,
+                                                Executor executor) {
+        CircuitBreaker breaker = getBreaker(request.url());
+        CircuitBreaker.Permit permit = breaker.tryAcquire();
+        if (permit == null)
+            return divert(request, breaker);
+
+        CompletableFuture<Response> call;
+        try {
+            call = delegate.send(request, timeout, deadline, executor);
+        } catch (RuntimeException e) {
+            //A probe must not keep its slot if the call could not even be started
+            permit.onIgnored();
+            throw e;
+        }
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        call.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                permit.onIgnored();
+                if (response != null)
+                    response.close();
+                return;
+            }
+            boolean success = record(permit, response, error);
+            if (error != null)
+                result.completeExceptionally(error);
+            else
+                result.complete(response);
+            if (success && getOutboxSize() > 0)
+                replay();
+        });
+        return HealthcheckUtils.propagateCancellation(result, call);
+    }
+
+    private static void forward(CompletableFuture<Response> call, CompletableFuture<Response> result) {
+        call.whenComplete((response, error) -> {
+            if (error != null)
+                result.completeExceptionally(error);
+            else if (!result.complete(response) && response != null)
+                response.close();
+        });
+    }
+
+    @Override
+    public void close() {
+        int size = getOutboxSize();
+        if (size > 0)
+            LOG.warn("Closing with {} queued heartbeats, which will not be sent", size);
+        delegate.close();
+    }
+
+    /**
+     * @return The circuit breakers by host and port (e.g. {@code hc-ping.com:443}).
+     */
+    public Map<String, CircuitBreaker> getBreakers() {
+        return Collections.unmodifiableMap(breakers);
+    }
+
+    /**
+     * @return The number of heartbeats which have been queued while a circuit was open.
+     */
+    public long getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * @return The number of queued heartbeats which have been sent.
+     */
+    public long getReplayedCount() {
+        return replayed.get();
+    }
+
+    /**
+     * @return The number of queued heartbeats which have been dropped because the outbox was full.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return The number of heartbeats in the outbox.
+     */
+    public int getOutboxSize() {
+        synchronized (outbox) {
+            return outbox.size();
+        }
+    }
+
+    /**
+     * @return The number of queued heartbeats which have been replaced by a newer heartbeat
+     *         of the same check.
+     */
+    public long getMergedCount() {
+        return merged.get();
+    }
+
+    private CircuitBreaker getBreaker(HttpUrl url) {
+        return breakers.computeIfAbsent(url.host() + ":" + url.port(), host ->
+                new CircuitBreaker(host, failureRateThreshold, minimumCalls, window, openDuration, halfOpenCalls));
+    }
+
+    private static boolean isAlert(Request request) {
+        return RequestPriority.of(request) == RequestPriority.ALERT;
+    }
+
+    private static boolean isHeartbeat(Request request) {
+        RequestPriority priority = RequestPriority.of(request);
+        return priority == RequestPriority.ALERT || priority == RequestPriority.HEARTBEAT;
+    }
+
+    /**
+     * @return Whether the call has been successful (server errors count as failures).
+     */
+    private static boolean record(CircuitBreaker.Permit permit, Response response, Throwable error) {
+        if (error == null && response.code() < 500) {
+            permit.onSuccess();
+            return true;
+        }
+        permit.onFailure();
+        return false;
+    }
+
+    private CompletableFuture<Response> divert(Request request, CircuitBreaker breaker) {
+        //Only heartbeats can be sent later, management calls fail fast
+        if (outboxCapacity == 0 || !isHeartbeat(request)) {
+            CompletableFuture<Response> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new CircuitOpenException(breaker.getName()));
+            return rejected;
+        }
+
+        String check = HeartbeatCheck.of(request);
+        queued.incrementAndGet();
+        synchronized (outbox) {
+            //The newest heartbeat of a check replaces the queued one and moves to the end
+            Queued entry = new Queued(request);
+            Queued pending = outbox.remove(check);
+            if (pending != null) {
+                if (pending.alert && !entry.alert) {
+                    //A success must not hide a failure, it is sent after it
+                    if (pending.next != null)
+                        merged.incrementAndGet();
+                    pending.next = entry;
+                    entry = pending;
+                } else {
+                    merged.addAndGet(pending.next != null ? 2 : 1);
+                }
+            }
+            Queued replaying = inFlight.get(check);
+            if (replaying != null)
+                replaying.supersede(request);
+            outbox.put(check, entry);
+            if (outbox.size() > outboxCapacity) {
+                Iterator<Queued> eldest = outbox.values().iterator();
+                eldest.next();
+                eldest.remove();
+                dropped.incrementAndGet();
+            }
+        }
+        return CompletableFuture.completedFuture(new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(202)
+                .message("Queued")
+                .header(OUTBOX_HEADER, breaker.getName())
+                .body(ResponseBody.create("Queued", Healthchecks.PLAIN_TEXT))
+                .build());
+    }
+
+    /**
+     * <p>Sends the queued heartbeats one after another, until the outbox is empty or a
+     * circuit rejects or fails a call.</p>
+     */
+    private void replay() {
+        if (!replaying.compareAndSet(false, true))
+            return;
+        replayNext();
+    }
+
+    private void replayNext() {
+        String check;
+        Queued queuedRequest;
+        synchronized (outbox) {
+            Iterator<Map.Entry<String, Queued>> eldest = outbox.entrySet().iterator();
+            if (!eldest.hasNext()) {
+                replaying.set(false);
+                return;
+            }
+            Map.Entry<String, Queued> entry = eldest.next();
+            eldest.remove();
+            check = entry.getKey();
+            queuedRequest = entry.getValue();
+            inFlight.put(check, queuedRequest);
+        }
+        sendQueued(check, queuedRequest, true);
+    }
+
+    /**
+     * @param continueReplay Whether the next queued heartbeat should be sent afterwards (if this one
+     *                       has been delivered). False if it is sent ahead of a live heartbeat.
+     */
+    private void sendQueued(String check, Queued queuedRequest, boolean continueReplay) {
+        Request request = queuedRequest.request;
+        CircuitBreaker.Permit permit = getBreaker(request.url()).tryAcquire();
+        if (permit == null) {
+            complete(check, queuedRequest, false, continueReplay);
+            return;
+        }
+
+        CompletableFuture<Response> call;
+        try {
+            call = delegate.send(request, null, null, null);
+        } catch (RuntimeException e) {
+            permit.onIgnored();
+            LOG.error("Could not send queued heartbeat", e);
+            complete(check, queuedRequest, false, continueReplay);
+            return;
+        }
+        call.whenComplete((response, error) -> {
+            boolean success = record(permit, response, error);
+            if (response != null)
+                response.close();
+            complete(check, queuedRequest, success, continueReplay);
+        });
+    }
+
+    private void complete(String check, Queued queuedRequest, boolean success, boolean continueReplay) {
+        synchronized (outbox) {
+            inFlight.remove(check);
+            Queued retry = null;
+            Queued next = queuedRequest.next;
+            queuedRequest.next = null;
+            if (success) {
+                replayed.incrementAndGet();
+                //The success which followed a failure is sent next, unless there is a newer heartbeat
+                if (next != null && queuedRequest.superseded)
+                    merged.incrementAndGet();
+                else
+                    retry = next;
+            } else if (queuedRequest.replaced) {
+                //A newer heartbeat of the check has been sent or queued in the meantime
+                merged.addAndGet(next != null ? 2 : 1);
+            } else {
+                //A failure is only given up for a newer failure, a newer success is sent after it
+                Queued newer = outbox.remove(check);
+                if (newer != null) {
+                    if (next != null)
+                        merged.incrementAndGet();
+                    next = newer;
+                }
+                if (newer == null && outbox.size() >= outboxCapacity) {
+                    dropped.addAndGet(next != null ? 2 : 1);
+                } else {
+                    queuedRequest.next = next;
+                    retry = queuedRequest;
+                }
+            }
+            if (retry != null) {
+                //Back to the front, it is older than all other queued heartbeats. Newer live
+                //heartbeats of the check are queued behind it
+                retry.superseded = false;
+                retry.replaced = false;
+                Map<String, Queued> rest = new LinkedHashMap<>(outbox);
+                outbox.clear();
+                outbox.put(check, retry);
+                outbox.putAll(rest);
+            }
+        }
+        queuedRequest.done.complete(null);
+
+        if (!continueReplay)
+            return;
+        if (success)
+            replayNext();
+        else
+            replaying.set(false);
+    }
+
+    /**
+     * A heartbeat in the outbox. Guarded by {@link #outbox}.
+     */
+    private static final class Queued {
+        private final Request request;
+        private final boolean alert;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        /**
+         * The newest success of the check which has been queued after this failure.
+         */
+        private Queued next;
+        /**
+         * Whether a newer heartbeat of the same check has been sent or queued while this one was in flight.
+         */
+        private boolean superseded;
+        /**
+         * Whether that newer heartbeat may replace this one (failures are only replaced by failures).
+         */
+        private boolean replaced;
+
+        private Queued(Request request) {
+            this.request = request;
+            this.alert = isAlert(request);
+        }
+
+        private void supersede(Request newer) {
+            superseded = true;
+            if (!alert || isAlert(newer))
+                replaced = true;
+        }
+    }
+
+    /**
+     * Builder for {@link CircuitBreakerTransport} objects.
+     */
+    public static final class Builder {
+
+        private final HealthchecksTransport delegate;
+        private double failureRateThreshold = 0.5;
+        private int minimumCalls = 20;
+        private Duration window = Duration.ofMinutes(1);
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 3;
+        private int outboxCapacity;
+
+        private Builder(HealthchecksTransport delegate) {
+            this.delegate = Objects.requireNonNull(delegate);
+        }
+
+        /**
+         * @param failureRateThreshold The failure rate (0 to 1) which opens a circuit (default: 0.5).
+         */
+        public Builder failureRateThreshold(double failureRateThreshold) {
+            if (failureRateThreshold <= 0 || failureRateThreshold > 1)
+                throw new IllegalArgumentException("The failure rate threshold must be in (0, 1]!");
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * @param minimumCalls The number of calls within the window which are required
+         *                     before a circuit can open (default: 20).
+         */
+        public Builder minimumCalls(int minimumCalls) {
+            if (minimumCalls < 1)
+                throw new IllegalArgumentException("At least one call is required!");
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * @param window The rolling window of the failure rate (default: 1 minute).
+         */
+        public Builder window(Duration window) {
+            this.window = Objects.requireNonNull(window);
+            return this;
+        }
+
+        /**
+         * @param openDuration The time calls are rejected before probe calls are sent
+         *                     (default: 30 seconds).
+         */
+        public Builder openDuration(Duration openDuration) {
+            this.openDuration = Objects.requireNonNull(openDuration);
+            return this;
+        }
+
+        /**
+         * @param halfOpenCalls The number of successful probe calls which close a circuit
+         *                      (default: 3).
+         */
+        public Builder halfOpenCalls(int halfOpenCalls) {
+            if (halfOpenCalls < 1)
+                throw new IllegalArgumentException("At least one call is required!");
+            this.halfOpenCalls = halfOpenCalls;
+            return this;
+        }
+
+        /**
+         * @param outboxCapacity The number of heartbeats which are queued while a circuit is open.
+         *                       0 rejects them with a {@link CircuitOpenException} (default).
+         */
+        public Builder outboxCapacity(int outboxCapacity) {
+            if (outboxCapacity < 0)
+                throw new IllegalArgumentException("The capacity must not be negative!");
+            this.outboxCapacity = outboxCapacity;
+            return this;
+        }
+
+        public CircuitBreakerTransport build() {
+            return new CircuitBreakerTransport(this);
+        }
+    }
+}
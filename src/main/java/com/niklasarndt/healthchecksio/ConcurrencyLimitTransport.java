@@ -0,0 +1,165 @@
+package com.niklasarndt.healthchecksio;
+
+import com.niklasarndt.healthchecksio.exception.ConcurrencyLimitException;
+import com.niklasarndt.healthchecksio.util.ConcurrencyLimit;
+import com.niklasarndt.healthchecksio.util.VegasLimit;
+import okhttp3.Request;
+import okhttp3.Response;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>A {@link HealthchecksTransport} which limits the number of concurrent requests to
+ * another transport. Instead of a fixed number, the limit is adjusted by a
+ * {@link ConcurrencyLimit} from the observed round-trip times and errors (by default a
+ * {@link VegasLimit}), so it grows for slow bulk jobs and shrinks before the server answers
+ * with {@code 429} or the latency spikes.</p>
+ *
+ * <p>The requests are queued in a {@link PriorityDispatcher} whose shared limit is the adaptive
+ * one. Requests above the limit wait in a bounded queue, ordered by {@link RequestPriority}
+ * (with the same starvation protection). If the queue is full, a new request fails fast with a
+ * {@link ConcurrencyLimitException}, unless a queued request of a lower priority class can be
+ * rejected in its place. Requests whose deadline passes while they are queued fail with an
+ * {@link InterruptedIOException}. Like in the dispatcher, up to 4 alerts are sent on top of
+ * the limit, so they never wait behind other requests.</p>
+ *
+ * <p>Pass the same instance to all clients and managers which should share the limit:</p>
+ *
+ * <pre>{@code
+ * ConcurrencyLimitTransport transport = ConcurrencyLimitTransport.builder(
+ *         Healthchecks.okHttpTransport(HealthchecksOptions.DEFAULT))
+ *         .limit(AimdLimit.withDefaults())
+ *         .queueCapacity(500)
+ *         .build();
+ * HealthchecksOptions options = HealthchecksOptions.builder().transport(transport).build();
+ * }</pre>
+ *
+ * @since 1.1.0
+ */
+public class ConcurrencyLimitTransport implements HealthchecksTransport {
+
+    private static final RequestPriority[] PRIORITIES = RequestPriority.values();
+
+    private final HealthchecksTransport delegate;
+    private final PriorityDispatcher dispatcher;
+
+    private ConcurrencyLimitTransport(Builder builder) {
+        this.delegate = builder.delegate;
+        PriorityDispatcher.Builder dispatcher = PriorityDispatcher.builder()
+                .limit(builder.limit)
+                .queueCapacity(builder.queueCapacity);
+        //Only the adaptive limit applies to the other classes
+        for (RequestPriority priority : PRIORITIES) {
+            if (priority != RequestPriority.ALERT)
+                dispatcher.budget(priority, Integer.MAX_VALUE);
+        }
+        this.dispatcher = dispatcher.build();
+    }
+
+    /**
+     * @param delegate The transport which sends the permitted calls. <b>Must not be null.</b>
+     *
+     * @return A new {@link Builder} with the default settings ({@link VegasLimit#withDefaults()},
+     *         100 queued requests).
+     */
+    public static Builder builder(HealthchecksTransport delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public CompletableFuture<Response> send(Request request, Duration timeout, Instant deadline,
+                                            Executor executor) {
+        return dispatcher.dispatch(RequestPriority.of(request), deadline,
+                () -> delegate.send(request, timeout, deadline, executor));
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /**
+     * @return The current concurrency limit.
+     */
+    public int getLimit() {
+        return dispatcher.getLimit();
+    }
+
+    /**
+     * @return The number of requests which have been sent, but not completed yet.
+     */
+    public int getInFlightCount() {
+        int count = 0;
+        for (RequestPriority priority : PRIORITIES)
+            count += dispatcher.getRunningCount(priority);
+        return count;
+    }
+
+    /**
+     * @return The number of requests which wait for a free slot.
+     */
+    public int getQueuedCount() {
+        int count = 0;
+        for (RequestPriority priority : PRIORITIES)
+            count += dispatcher.getQueuedCount(priority);
+        return count;
+    }
+
+    /**
+     * @return The number of requests which have been rejected because the queue was full.
+     */
+    public long getRejectedCount() {
+        return dispatcher.getRejectedCount();
+    }
+
+    /**
+     * @return The number of requests whose deadline has passed while they were queued.
+     */
+    public long getExpiredCount() {
+        return dispatcher.getExpiredCount();
+    }
+
+    /**
+     * Builder for {@link ConcurrencyLimitTransport} objects.
+     */
+    public static final class Builder {
+
+        private final HealthchecksTransport delegate;
+        private ConcurrencyLimit limit;
+        private int queueCapacity = 100;
+
+        private Builder(HealthchecksTransport delegate) {
+            this.delegate = Objects.requireNonNull(delegate);
+        }
+
+        /**
+         * @param limit The algorithm which adjusts the limit (default: {@link VegasLimit#withDefaults()}).
+         *              Don't share it between transports.
+         */
+        public Builder limit(ConcurrencyLimit limit) {
+            this.limit = Objects.requireNonNull(limit);
+            return this;
+        }
+
+        /**
+         * @param queueCapacity The number of requests which may wait for a free slot (default: 100).
+         *                      0 rejects all requests above the limit.
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity < 0)
+                throw new IllegalArgumentException("The capacity must not be negative!");
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public ConcurrencyLimitTransport build() {
+            if (limit == null)
+                limit = VegasLimit.withDefaults();
+            return new ConcurrencyLimitTransport(this);
+        }
+    }
+}
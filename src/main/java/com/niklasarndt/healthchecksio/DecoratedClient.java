@@ -0,0 +1,48 @@
+package com.niklasarndt.healthchecksio;
+
+import okhttp3.Response;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>The view which the default implementations of {@link HealthchecksClient#withTimeout(Duration)}
+ * and related methods return.</p>
+ *
+ * @since 1.1.0
+ */
+final class DecoratedClient implements HealthchecksClient {
+
+    private final HealthchecksClient delegate;
+    private final CallDecorator decorator;
+
+    DecoratedClient(HealthchecksClient delegate, CallDecorator decorator) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.decorator = decorator;
+    }
+
+    @Override
+    public CompletableFuture<Response> start(String body) {
+        return decorator.apply(() -> delegate.start(body));
+    }
+
+    @Override
+    public CompletableFuture<Response> success(String body) {
+        return decorator.apply(() -> delegate.success(body));
+    }
+
+    @Override
+    public CompletableFuture<Response> fail(String body) {
+        return decorator.apply(() -> delegate.fail(body));
+    }
+
+    @Override
+    public CompletableFuture<Response> exitCode(int code, String body) {
+        return decorator.apply(() -> delegate.exitCode(code, body));
+    }
+
+    @Override
+    public boolean closeGracefully(Duration timeout) {
+        return delegate.closeGracefully(timeout);
+    }
+}
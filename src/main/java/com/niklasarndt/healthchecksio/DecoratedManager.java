@@ -0,0 +1,97 @@
+package com.niklasarndt.healthchecksio;
+
+import com.niklasarndt.healthchecksio.model.Check;
+import com.niklasarndt.healthchecksio.model.CheckSnapshot;
+import com.niklasarndt.healthchecksio.model.Integration;
+import com.niklasarndt.healthchecksio.model.Ping;
+import com.niklasarndt.healthchecksio.model.StatusFlip;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>The view which the default implementations of {@link HealthchecksManager#withTimeout(Duration)}
+ * and related methods return.</p>
+ *
+ * @since 1.1.0
+ */
+final class DecoratedManager implements HealthchecksManager {
+
+    private final HealthchecksManager delegate;
+    private final CallDecorator decorator;
+
+    DecoratedManager(HealthchecksManager delegate, CallDecorator decorator) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.decorator = decorator;
+    }
+
+    @Override
+    public CompletableFuture<Check> getCheck(String key) {
+        return decorator.apply(() -> delegate.getCheck(key));
+    }
+
+    @Override
+    public CompletableFuture<Check> getCheckByName(String name) {
+        return decorator.apply(() -> delegate.getCheckByName(name));
+    }
+
+    @Override
+    public CompletableFuture<Check[]> getExistingChecks(String... tags) {
+        return decorator.apply(() -> delegate.getExistingChecks(tags));
+    }
+
+    @Override
+    public CompletableFuture<CheckSnapshot> getCheckSnapshot(String key) {
+        return decorator.apply(() -> delegate.getCheckSnapshot(key));
+    }
+
+    @Override
+    public CompletableFuture<CheckSnapshot[]> getExistingCheckSnapshots(String... tags) {
+        return decorator.apply(() -> delegate.getExistingCheckSnapshots(tags));
+    }
+
+    @Override
+    public CompletableFuture<Check> createCheck(Check check) {
+        return decorator.apply(() -> delegate.createCheck(check));
+    }
+
+    @Override
+    public CompletableFuture<Check> updateCheck(Check check) {
+        return decorator.apply(() -> delegate.updateCheck(check));
+    }
+
+    @Override
+    public CompletableFuture<Check> pauseCheck(String uuid) {
+        return decorator.apply(() -> delegate.pauseCheck(uuid));
+    }
+
+    @Override
+    public CompletableFuture<Check> deleteCheck(String uuid) {
+        return decorator.apply(() -> delegate.deleteCheck(uuid));
+    }
+
+    @Override
+    public CompletableFuture<Ping[]> getPings(String uuid) {
+        return decorator.apply(() -> delegate.getPings(uuid));
+    }
+
+    @Override
+    public CompletableFuture<StatusFlip[]> getFlips(String key, long seconds) {
+        return decorator.apply(() -> delegate.getFlips(key, seconds));
+    }
+
+    @Override
+    public CompletableFuture<StatusFlip[]> getFlips(String key, long start, long end) {
+        return decorator.apply(() -> delegate.getFlips(key, start, end));
+    }
+
+    @Override
+    public CompletableFuture<Integration[]> getChannels() {
+        return decorator.apply(delegate::getChannels);
+    }
+
+    @Override
+    public boolean closeGracefully(Duration timeout) {
+        return delegate.closeGracefully(timeout);
+    }
+}
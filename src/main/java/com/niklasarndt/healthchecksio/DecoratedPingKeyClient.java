@@ -0,0 +1,58 @@
+package com.niklasarndt.healthchecksio;
+
+import okhttp3.Response;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>The view which the default implementations of
+ * {@link HealthchecksPingKeyClient#withTimeout(Duration)} and related methods return.</p>
+ *
+ * @since 1.1.0
+ */
+final class DecoratedPingKeyClient implements HealthchecksPingKeyClient {
+
+    private final HealthchecksPingKeyClient delegate;
+    private final CallDecorator decorator;
+
+    DecoratedPingKeyClient(HealthchecksPingKeyClient delegate, CallDecorator decorator) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.decorator = decorator;
+    }
+
+    @Override
+    public CompletableFuture<Response> start(String slug, String body) {
+        return decorator.apply(() -> delegate.start(slug, body));
+    }
+
+    @Override
+    public CompletableFuture<Response> success(String slug, String body) {
+        return decorator.apply(() -> delegate.success(slug, body));
+    }
+
+    @Override
+    public CompletableFuture<Response> fail(String slug, String body) {
+        return decorator.apply(() -> delegate.fail(slug, body));
+    }
+
+    @Override
+    public CompletableFuture<Response> exitCode(String slug, int code, String body) {
+        return decorator.apply(() -> delegate.exitCode(slug, code, body));
+    }
+
+    @Override
+    public HealthchecksClient forSlug(String slug) {
+        return new DecoratedClient(delegate.forSlug(slug), decorator);
+    }
+
+    @Override
+    public HealthchecksPingKeyClient withAutoCreate() {
+        return new DecoratedPingKeyClient(delegate.withAutoCreate(), decorator);
+    }
+
+    @Override
+    public boolean closeGracefully(Duration timeout) {
+        return delegate.closeGracefully(timeout);
+    }
+}
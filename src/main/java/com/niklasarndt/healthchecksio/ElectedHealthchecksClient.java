@@ -0,0 +1,153 @@
+package com.niklasarndt.healthchecksio;
+
+import com.niklasarndt.healthchecksio.cluster.SenderElection;
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * <p>A {@link HealthchecksClient} which only sends {@code start} and success pings (including
+ * exit code 0) while this node is the elected sender of the check (see {@link SenderElection}).
+ * On standby nodes, these calls complete immediately with a synthetic {@code 200} response, see
+ * {@link #isStandby(Response)}. Failures ({@code fail} and non-zero exit codes) are always sent,
+ * so a failing standby node is not hidden behind a healthy leader.</p>
+ *
+ * <p>This is meant for jobs which run on every node of a cluster for redundancy: the check
+ * receives the pings of exactly one node, and another node takes over if that one stops.</p>
+ *
+ * @since 1.1.0
+ */
+public class ElectedHealthchecksClient implements HealthchecksClient {
+
+    /**
+     * The header which marks synthetic responses of standby nodes.
+     */
+    public static final String STANDBY_HEADER = "X-Healthchecks-Standby";
+
+    //Synthetic responses need a request, which is never sent (.invalid is a reserved TLD)
+    private static final HttpUrl STANDBY_URL = HttpUrl.get("http://standby.invalid/");
+
+    private final HealthchecksClient delegate;
+    private final SenderElection election;
+    private final AtomicLong forwarded;
+    private final AtomicLong skipped;
+
+    /**
+     * @param delegate The client which sends the pings of the leader. <b>Must not be null.</b>
+     * @param election The election of this check. <b>Must not be null.</b>
+     */
+    public ElectedHealthchecksClient(HealthchecksClient delegate, SenderElection election) {
+        this(delegate, election, new AtomicLong(), new AtomicLong());
+    }
+
+    private ElectedHealthchecksClient(HealthchecksClient delegate, SenderElection election,
+                                      AtomicLong forwarded, AtomicLong skipped) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.election = Objects.requireNonNull(election);
+        this.forwarded = forwarded;
+        this.skipped = skipped;
+    }
+
+    /**
+     * @param response A response returned by this client.
+     *
+     * @return Whether the ping has not been sent, because this node is on standby.
+     */
+    public static boolean isStandby(Response response) {
+        return response != null && response.header(STANDBY_HEADER) != null;
+    }
+
+    @Override
+    public CompletableFuture<Response> start(String body) {
+        return send(() -> delegate.start(body));
+    }
+
+    @Override
+    public CompletableFuture<Response> success(String body) {
+        return send(() -> delegate.success(body));
+    }
+
+    @Override
+    public CompletableFuture<Response> fail(String body) {
+        forwarded.incrementAndGet();
+        return delegate.fail(body);
+    }
+
+    @Override
+    public CompletableFuture<Response> exitCode(int code, String body) {
+        if (code < 0 || code > 255)
+            throw new IllegalArgumentException("Only values from 0 to 255 are valid exit codes!");
+        if (code != 0) {
+            forwarded.incrementAndGet();
+            return delegate.exitCode(code, body);
+        }
+        return send(() -> delegate.exitCode(code, body));
+    }
+
+    @Override
+    public HealthchecksClient withTimeout(Duration timeout) {
+        return new ElectedHealthchecksClient(delegate.withTimeout(timeout), election, forwarded, skipped);
+    }
+
+    @Override
+    public HealthchecksClient withDeadline(Instant deadline) {
+        return new ElectedHealthchecksClient(delegate.withDeadline(deadline), election, forwarded, skipped);
+    }
+
+    @Override
+    public HealthchecksClient withExecutor(Executor executor) {
+        return new ElectedHealthchecksClient(delegate.withExecutor(executor), election, forwarded, skipped);
+    }
+
+    @Override
+    public boolean closeGracefully(Duration timeout) {
+        return delegate.closeGracefully(timeout);
+    }
+
+    public SenderElection getElection() {
+        return election;
+    }
+
+    /**
+     * @return The number of pings which have been sent (as leader, or failures on standby).
+     */
+    public long getForwardedCount() {
+        return forwarded.get();
+    }
+
+    /**
+     * @return The number of pings which have not been sent on standby.
+     */
+    public long getStandbyCount() {
+        return skipped.get();
+    }
+
+    private CompletableFuture<Response> send(Supplier<CompletableFuture<Response>> call) {
+        if (election.isLeader()) {
+            forwarded.incrementAndGet();
+            return call.get();
+        }
+
+        skipped.incrementAndGet();
+        return CompletableFuture.completedFuture(new Response.Builder()
+                .request(new Request.Builder()
+                        .url(STANDBY_URL.newBuilder().addPathSegment(election.getKey()).build())
+                        .build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("Standby")
+                .header(STANDBY_HEADER, election.getLease() == null ? "unknown"
+                        : election.getLease().getHolder())
+                .body(ResponseBody.create("OK", Healthchecks.PLAIN_TEXT))
+                .build());
+    }
+}
@@ -0,0 +1,438 @@
+package com.niklasarndt.healthchecksio;
+
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * <p>A {@link HealthchecksClient} which sends its pings to one of several endpoints (e.g.
+ * hc-ping.com and a self-hosted instance), each with its own client, since the UUID of a check
+ * differs between instances.</p>
+ *
+ * <p>Every endpoint keeps an exponentially weighted moving average (EWMA) of its latency and
+ * error rate. A ping is sent to the available endpoint with the best score (latency, penalized
+ * by the error rate; ties are broken by the order of the endpoints). Endpoints without a
+ * successful sample are assumed to have a pessimistic {@link Builder#initialLatency(Duration)
+ * latency}, so a known endpoint is preferred over one which has not been tried yet. If a ping
+ * fails (no response or a non-2xx status), the endpoint is unavailable for a cooldown and the
+ * ping is sent to the next endpoint. Only if all endpoints fail, the returned future fails (or
+ * completes with the last unsuccessful response).</p>
+ *
+ * <p>In mirror mode, every ping is sent to all endpoints at once (e.g. while migrating to
+ * another instance). The returned future completes with the first successful response, so a
+ * slow endpoint does not delay the caller. It only fails once all endpoints have failed.</p>
+ *
+ * <pre>{@code
+ * HealthchecksClient client = FailoverHealthchecksClient.builder()
+ *         .endpoint("https://hc-ping.com/", "<uuid>")
+ *         .endpoint("https://healthchecks.example.com/ping/", "<other-uuid>")
+ *         .build();
+ * }</pre>
+ *
+ * @since 1.1.0
+ */
+public class FailoverHealthchecksClient implements HealthchecksClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HealthchecksClient.class);
+    //The weight of a new sample in the moving averages
+    private static final double ALPHA = 0.2;
+    //An error rate of 100% counts like this many times the latency
+    private static final double ERROR_PENALTY = 10;
+
+    private final List<Endpoint> endpoints;
+    private final boolean mirror;
+    private final long cooldownNanos;
+    private final long initialLatencyNanos;
+
+    private FailoverHealthchecksClient(List<Endpoint> endpoints, boolean mirror, long cooldownNanos,
+                                       long initialLatencyNanos) {
+        this.endpoints = endpoints;
+        this.mirror = mirror;
+        this.cooldownNanos = cooldownNanos;
+        this.initialLatencyNanos = initialLatencyNanos;
+    }
+
+    /**
+     * @return A new {@link Builder} (no mirroring, 30 seconds cooldown, 1 second initial latency).
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public CompletableFuture<Response> start(String body) {
+        return send(client -> client.start(body));
+    }
+
+    @Override
+    public CompletableFuture<Response> success(String body) {
+        return send(client -> client.success(body));
+    }
+
+    @Override
+    public CompletableFuture<Response> fail(String body) {
+        return send(client -> client.fail(body));
+    }
+
+    @Override
+    public CompletableFuture<Response> exitCode(int code, String body) {
+        if (code < 0 || code > 255)
+            throw new IllegalArgumentException("Only values from 0 to 255 are valid exit codes!");
+        return send(client -> client.exitCode(code, body));
+    }
+
+    @Override
+    public HealthchecksClient withTimeout(Duration timeout) {
+        return view(client -> client.withTimeout(timeout));
+    }
+
+    @Override
+    public HealthchecksClient withDeadline(Instant deadline) {
+        return view(client -> client.withDeadline(deadline));
+    }
+
+    @Override
+    public HealthchecksClient withExecutor(Executor executor) {
+        return view(client -> client.withExecutor(executor));
+    }
+
+    @Override
+    public boolean closeGracefully(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean drained = true;
+        for (Endpoint endpoint : endpoints)
+            drained &= endpoint.client.closeGracefully(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())));
+        return drained;
+    }
+
+    /**
+     * @return The endpoints (in the configured order) with their statistics.
+     */
+    public List<Endpoint> getEndpoints() {
+        return Collections.unmodifiableList(endpoints);
+    }
+
+    public boolean isMirror() {
+        return mirror;
+    }
+
+    private FailoverHealthchecksClient view(Function<HealthchecksClient, HealthchecksClient> derive) {
+        List<Endpoint> derived = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints)
+            derived.add(new Endpoint(endpoint, derive.apply(endpoint.client)));
+        return new FailoverHealthchecksClient(derived, mirror, cooldownNanos, initialLatencyNanos);
+    }
+
+    /**
+     * @return The endpoints in the order in which they should be tried.
+     */
+    private List<Endpoint> rank() {
+        long now = System.nanoTime();
+        List<Endpoint> ranked = new ArrayList<>(endpoints);
+        //A stable sort keeps the configured order for equal scores
+        ranked.sort(Comparator.comparing((Endpoint endpoint) -> !endpoint.stats.isAvailable(now))
+                .thenComparingDouble(endpoint -> endpoint.stats.score(initialLatencyNanos)));
+        return ranked;
+    }
+
+    private CompletableFuture<Response> send(Function<HealthchecksClient, CompletableFuture<Response>> call) {
+        List<Endpoint> ranked = rank();
+        if (mirror)
+            return mirror(ranked, call);
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        attempt(ranked, 0, call, result);
+        return result;
+    }
+
+    private void attempt(List<Endpoint> ranked, int index,
+                         Function<HealthchecksClient, CompletableFuture<Response>> call,
+                         CompletableFuture<Response> result) {
+        Endpoint endpoint = ranked.get(index);
+        long start = System.nanoTime();
+        CompletableFuture<Response> future = start(call, endpoint.client);
+        //Cancelling the result cancels the current attempt
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled())
+                future.cancel(false);
+        });
+        future.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                if (response != null)
+                    response.close();
+                return;
+            }
+            boolean success = endpoint.stats.record(response, error, System.nanoTime() - start, cooldownNanos);
+            if (success || index + 1 == ranked.size()) {
+                if (error != null)
+                    result.completeExceptionally(error);
+                else
+                    result.complete(response);
+                return;
+            }
+
+            LOG.warn("Endpoint {} failed ({}), failing over to {}", endpoint.name,
+                    error != null ? error : response.code(), ranked.get(index + 1).name);
+            if (response != null)
+                response.close();
+            attempt(ranked, index + 1, call, result);
+        });
+    }
+
+    private CompletableFuture<Response> mirror(List<Endpoint> ranked,
+                                               Function<HealthchecksClient, CompletableFuture<Response>> call) {
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        List<CompletableFuture<Response>> futures = new ArrayList<>(ranked.size());
+        //The failures in the order of the endpoints, the best one is reported if all fail
+        Throwable[] failures = new Throwable[ranked.size()];
+        AtomicInteger remaining = new AtomicInteger(ranked.size());
+        for (int i = 0; i < ranked.size(); i++) {
+            Endpoint endpoint = ranked.get(i);
+            int index = i;
+            long start = System.nanoTime();
+            CompletableFuture<Response> future = start(call, endpoint.client);
+            futures.add(future);
+            future.whenComplete((response, error) -> {
+                boolean success = endpoint.stats.record(response, error, System.nanoTime() - start, cooldownNanos);
+                //The first successful response wins, all others are closed
+                if (!success || !result.complete(response)) {
+                    if (response != null)
+                        response.close();
+                    if (!success) {
+                        synchronized (failures) {
+                            failures[index] = error != null ? error
+                                    : new IllegalStateException("Endpoint " + endpoint.name
+                                    + " responded with " + response.code());
+                        }
+                    }
+                }
+                if (remaining.decrementAndGet() == 0 && !result.isDone())
+                    result.completeExceptionally(firstFailure(failures));
+            });
+        }
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled())
+                futures.forEach(future -> future.cancel(false));
+        });
+        return result;
+    }
+
+    /**
+     * @return The call to an endpoint, or a failed future if it could not even be started
+     *         (this counts as a failed attempt as well).
+     */
+    private static CompletableFuture<Response> start(Function<HealthchecksClient, CompletableFuture<Response>> call,
+                                                     HealthchecksClient client) {
+        try {
+            return call.apply(client);
+        } catch (RuntimeException e) {
+            CompletableFuture<Response> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    private static Throwable firstFailure(Throwable[] failures) {
+        synchronized (failures) {
+            for (Throwable failure : failures) {
+                if (failure != null)
+                    return failure;
+            }
+        }
+        return new IllegalStateException("All endpoints responded unsuccessfully");
+    }
+
+    /**
+     * <p>An endpoint of a {@link FailoverHealthchecksClient} and its statistics, which are shared
+     * with all views of the client.</p>
+     */
+    public static final class Endpoint {
+
+        private final String name;
+        private final HealthchecksClient client;
+        private final Stats stats;
+
+        private Endpoint(String name, HealthchecksClient client) {
+            this.name = name;
+            this.client = client;
+            this.stats = new Stats();
+        }
+
+        private Endpoint(Endpoint source, HealthchecksClient client) {
+            this.name = source.name;
+            this.client = client;
+            this.stats = source.stats;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The moving average of the latency (zero without samples).
+         */
+        public Duration getLatency() {
+            return Duration.ofNanos((long) stats.latency());
+        }
+
+        /**
+         * @return The moving average of the error rate (0 to 1).
+         */
+        public double getErrorRate() {
+            return stats.errorRate();
+        }
+
+        /**
+         * @return Whether the endpoint is used (it has not failed within the cooldown).
+         */
+        public boolean isAvailable() {
+            return stats.isAvailable(System.nanoTime());
+        }
+
+        /**
+         * @return The number of pings which have been sent to this endpoint.
+         */
+        public long getRequestCount() {
+            return stats.requests();
+        }
+
+        @Override
+        public String toString() {
+            return "Endpoint{name=" + name + ", latency=" + getLatency() + ", errorRate="
+                    + getErrorRate() + ", available=" + isAvailable() + "}";
+        }
+    }
+
+    private static final class Stats {
+        private double latency;
+        private double errorRate;
+        private long requests;
+        private long unavailableUntil;
+        private boolean unavailable;
+
+        private synchronized boolean record(Response response, Throwable error, long nanos, long cooldownNanos) {
+            boolean success = error == null && response.isSuccessful();
+            //Failed calls have no meaningful latency (e.g. they failed fast), only the error rate changes
+            if (success)
+                latency = requests == 0 || latency == 0 ? nanos : latency + ALPHA * (nanos - latency);
+            errorRate += ALPHA * ((success ? 0 : 1) - errorRate);
+            requests++;
+            if (success) {
+                unavailable = false;
+            } else {
+                unavailable = true;
+                unavailableUntil = System.nanoTime() + cooldownNanos;
+            }
+            return success;
+        }
+
+        private synchronized boolean isAvailable(long now) {
+            return !unavailable || now - unavailableUntil >= 0;
+        }
+
+        private synchronized double score(long initialLatencyNanos) {
+            //Endpoints without a successful call (including ones which only failed) are not fast
+            double assumed = latency == 0 ? initialLatencyNanos : latency;
+            return assumed * (1 + ERROR_PENALTY * errorRate);
+        }
+
+        private synchronized double latency() {
+            return latency;
+        }
+
+        private synchronized double errorRate() {
+            return errorRate;
+        }
+
+        private synchronized long requests() {
+            return requests;
+        }
+    }
+
+    /**
+     * Builder for {@link FailoverHealthchecksClient} objects.
+     */
+    public static final class Builder {
+
+        private final List<Endpoint> endpoints = new ArrayList<>();
+        private HealthchecksOptions options = HealthchecksOptions.DEFAULT;
+        private boolean mirror;
+        private Duration cooldown = Duration.ofSeconds(30);
+        private Duration initialLatency = Duration.ofSeconds(1);
+
+        private Builder() {
+        }
+
+        /**
+         * @param options The options for the clients created by {@link #endpoint(String, String)}.
+         */
+        public Builder options(HealthchecksOptions options) {
+            this.options = Objects.requireNonNull(options);
+            return this;
+        }
+
+        /**
+         * @param hostUrl The ping URL of the instance, e.g. {@code https://hc-ping.com/}.
+         * @param uuid    The UUID of the check on this instance.
+         */
+        public Builder endpoint(String hostUrl, String uuid) {
+            return endpoint(hostUrl, Healthchecks.forUuid(hostUrl, uuid, options));
+        }
+
+        /**
+         * @param name   The name of the endpoint (for statistics and log messages).
+         * @param client The client which sends the pings to this endpoint, e.g. a slug client.
+         */
+        public Builder endpoint(String name, HealthchecksClient client) {
+            endpoints.add(new Endpoint(Objects.requireNonNull(name), Objects.requireNonNull(client)));
+            return this;
+        }
+
+        /**
+         * @param mirror Whether every ping is sent to all endpoints (default: false).
+         */
+        public Builder mirror(boolean mirror) {
+            this.mirror = mirror;
+            return this;
+        }
+
+        /**
+         * @param cooldown The time a failed endpoint is skipped (default: 30 seconds).
+         */
+        public Builder cooldown(Duration cooldown) {
+            if (cooldown.isNegative())
+                throw new IllegalArgumentException("The cooldown must not be negative!");
+            this.cooldown = cooldown;
+            return this;
+        }
+
+        /**
+         * @param initialLatency The latency which is assumed for endpoints without a successful
+         *                       call (default: 1 second). Keep it pessimistic, so a known endpoint
+         *                       is preferred over one which has not been tried yet.
+         */
+        public Builder initialLatency(Duration initialLatency) {
+            if (initialLatency.isNegative() || initialLatency.isZero())
+                throw new IllegalArgumentException("The initial latency must be positive!");
+            this.initialLatency = initialLatency;
+            return this;
+        }
+
+        public FailoverHealthchecksClient build() {
+            if (endpoints.isEmpty())
+                throw new IllegalStateException("At least one endpoint is required!");
+            return new FailoverHealthchecksClient(new ArrayList<>(endpoints), mirror, cooldown.toNanos(),
+                    initialLatency.toNanos());
+        }
+    }
+}
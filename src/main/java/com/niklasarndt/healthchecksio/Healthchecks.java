@@ -2,12 +2,24 @@ package com.niklasarndt.healthchecksio;
 
 import com.niklasarndt.healthchecksio.exception.UnauthorizedException;
 import com.niklasarndt.healthchecksio.model.Check;
+import com.niklasarndt.healthchecksio.relay.HeartbeatRelay;
 import com.niklasarndt.healthchecksio.util.UserAgentInterceptor;
 import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
 import okhttp3.Response;
+import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>This is the main class for all library users.</p>
@@ -22,6 +34,13 @@ public class Healthchecks {
     protected static final UserAgentInterceptor USER_AGENT = new UserAgentInterceptor();
     protected static final MediaType PLAIN_TEXT = MediaType.parse("text/plain");
 
+    /**
+     * The time {@code close()} of clients and managers waits for pending calls.
+     *
+     * @since 1.1.0
+     */
+    public static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
     /**
      * <p>Create a new healthchecks.io Manager.</p>
      *
@@ -65,6 +84,23 @@ public class Healthchecks {
         return new HealthchecksManagerImpl(hostUrl, apiKey);
     }
 
+    /**
+     * <p>Create a new healthchecks.io Manager for a custom host URL, using custom
+     * {@link HealthchecksOptions} (e.g. timeouts).</p>
+     *
+     * @param hostUrl The URL of your healthchecks instance, e.g. {@code https://healthchecks.io}.
+     *                <b>Must not be null.</b>
+     * @param apiKey  Your read-only or normal API key.
+     * @param options The options for this manager. <b>Must not be null.</b>
+     *
+     * @return A new {@link HealthchecksManager}, which you can use to utilize the Management API.
+     *
+     * @since 1.1.0
+     */
+    public static HealthchecksManager manager(String hostUrl, String apiKey, HealthchecksOptions options) {
+        return new HealthchecksManagerImpl(hostUrl, apiKey, options);
+    }
+
     /**
      * <p>Creates a new healthchecks.io Client.</p>
      * <br>
@@ -123,6 +159,97 @@ public class Healthchecks {
         return new HealthchecksClientImpl(hostUrl, uuid);
     }
 
+    /**
+     * <p>Creates a new healthchecks.io Client <b>for a custom host</b>, using custom
+     * {@link HealthchecksOptions} (e.g. timeouts).</p>
+     *
+     * @param hostUrl The URL of your healthchecks instance, e.g. {@code https://hc-ping.com/}.
+     *                <b>Must not be null.</b>
+     * @param uuid    The universal unique identifier (UUID) of your check. <b>Must not be null.</b>
+     * @param options The options for this client. <b>Must not be null.</b>
+     *
+     * @return A new {@link HealthchecksClient} client, which you can use
+     *         to utilize the Pinging API.
+     *
+     * @throws IllegalArgumentException If the {@code hostUrl} is invalid.
+     * @since 1.1.0
+     */
+    public static HealthchecksClient forUuid(String hostUrl, String uuid, HealthchecksOptions options) {
+        return new HealthchecksClientImpl(hostUrl, uuid, options);
+    }
+
+    /**
+     * <p>Creates a new healthchecks.io Client which addresses checks by their <b>slug</b>,
+     * using the ping key of your project (Project Settings → Ping Key).</p>
+     * <p>One client serves all checks of the project, e.g.
+     * {@code Healthchecks.forPingKey("<key>").success("nightly-backup")}.</p>
+     *
+     * @param pingKey The ping key of your project. <b>Must not be null.</b>
+     *
+     * @return A new {@link HealthchecksPingKeyClient}, which you can use
+     *         to utilize the Pinging API.
+     *
+     * @since 1.1.0
+     */
+    public static HealthchecksPingKeyClient forPingKey(String pingKey) {
+        return new HealthchecksPingKeyClientImpl(pingKey);
+    }
+
+    /**
+     * <p>Creates a new slug-based Client <b>for a custom host</b>.</p>
+     *
+     * @param hostUrl The URL of your healthchecks instance, e.g. {@code https://hc-ping.com/}.
+     *                <b>Must not be null.</b>
+     * @param pingKey The ping key of your project. <b>Must not be null.</b>
+     * @param options The options for this client. <b>Must not be null.</b>
+     *
+     * @return A new {@link HealthchecksPingKeyClient}, which you can use
+     *         to utilize the Pinging API.
+     *
+     * @throws IllegalArgumentException If the {@code hostUrl} is invalid.
+     * @since 1.1.0
+     */
+    public static HealthchecksPingKeyClient forPingKey(String hostUrl, String pingKey,
+                                                       HealthchecksOptions options) {
+        return new HealthchecksPingKeyClientImpl(hostUrl, pingKey, options);
+    }
+
+    /**
+     * <p>Creates a new Client which sends its heartbeats to a {@link HeartbeatRelay} running
+     * on the same machine (port {@value HeartbeatRelay#DEFAULT_PORT}).</p>
+     * <p>The relay acknowledges heartbeats as soon as it has queued them and forwards them
+     * over a few persistent connections, which is useful if many short-lived processes
+     * send heartbeats.</p>
+     *
+     * @param uuid The universal unique identifier (UUID) of your check. <b>Must not be null.</b>
+     *
+     * @return A new {@link HealthchecksClient} client which talks to the local relay.
+     *
+     * @since 1.1.0
+     */
+    public static HealthchecksClient forRelay(String uuid) {
+        return forRelay("http://127.0.0.1:" + HeartbeatRelay.DEFAULT_PORT + "/", uuid);
+    }
+
+    /**
+     * <p>Creates a new Client which sends its heartbeats to a {@link HeartbeatRelay}.</p>
+     *
+     * @param relayUrl The URL of the relay, e.g. {@code http://127.0.0.1:8787/}. <b>Must not be null.</b>
+     * @param uuid     The universal unique identifier (UUID) of your check. <b>Must not be null.</b>
+     *
+     * @return A new {@link HealthchecksClient} client which talks to the relay.
+     *
+     * @throws IllegalArgumentException If the {@code relayUrl} is invalid.
+     * @since 1.1.0
+     */
+    public static HealthchecksClient forRelay(String relayUrl, String uuid) {
+        //The relay answers right after queueing, a slow answer means it is not running
+        return forUuid(relayUrl, uuid, HealthchecksOptions.builder()
+                .connectTimeout(Duration.ofSeconds(1))
+                .callTimeout(Duration.ofSeconds(5))
+                .build());
+    }
+
     /**
      * <p>Creates a new healthchecks.io Client <b>for an already retrieved {@link Check}</b>.</p>
      * <br>
@@ -153,6 +280,111 @@ public class Healthchecks {
         return new HealthchecksClientImpl(check.getPingUrl());
     }
 
+    /**
+     * <p>Creates a {@link HealthchecksTransport} which sends requests via OkHttp (the default).
+     * Set it as {@link HealthchecksOptions#getTransport() transport} of the options
+     * to share it between clients and managers.</p>
+     *
+     * @param options The timeouts, shared {@link OkHttpClient} and {@link PriorityDispatcher}
+     *                of the transport. <b>Must not be null.</b>
+     *
+     * @return A new transport, which has to be closed by the caller.
+     *
+     * @since 1.1.0
+     */
+    public static HealthchecksTransport okHttpTransport(HealthchecksOptions options) {
+        return OkHttpTransport.create(options);
+    }
+
+    /**
+     * <p>Creates a {@link HealthchecksTransport} which sends requests via
+     * {@code java.net.http.HttpClient} (HTTP/2 if the server supports it). It only depends on
+     * the JDK and requires Java 11 or newer.</p>
+     *
+     * <p>The connect timeout and call timeout of the options are applied; the read and write
+     * timeouts are not supported by the JDK client. A {@link PriorityDispatcher} of the
+     * options still has to be set on the options of every client and manager.</p>
+     *
+     * @param options  The timeouts of the transport. <b>Must not be null.</b>
+     * @param executor <i>(optional)</i> The executor of the {@code HttpClient}, e.g. one
+     *                 which starts a virtual thread per task. If null, the transport creates
+     *                 a pool of daemon threads, which is shut down on close.
+     *
+     * @return A new transport, which has to be closed by the caller.
+     *
+     * @throws UnsupportedOperationException If the JVM is older than Java 11.
+     * @since 1.1.0
+     */
+    public static HealthchecksTransport jdkTransport(HealthchecksOptions options, Executor executor) {
+        Objects.requireNonNull(options);
+        Class<?> type;
+        try {
+            //Only contained in the Java 11 part of the multi-release JAR
+            type = Class.forName("com.niklasarndt.healthchecksio.JdkHttpTransport");
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new UnsupportedOperationException("The JDK transport requires Java 11 or newer", e);
+        }
+        try {
+            return (HealthchecksTransport) type.getDeclaredConstructor(HealthchecksOptions.class, Executor.class)
+                    .newInstance(options, executor);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException("Could not create the JDK transport", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the JDK transport", e);
+        }
+    }
+
+    /**
+     * @return The transport of the options, or a new (owned) OkHttp transport.
+     */
+    static HealthchecksTransport createTransport(HealthchecksOptions options) {
+        return options.getTransport() != null ? options.getTransport() : OkHttpTransport.create(options);
+    }
+
+    protected static OkHttpClient createHttpClient(HealthchecksOptions options) {
+        OkHttpClient shared = options.getHttpClient();
+        if (shared == null)
+            return options.applyTo(new OkHttpClient.Builder().addInterceptor(USER_AGENT)).build();
+
+        //newBuilder() keeps the connection pool and dispatcher of the shared client
+        OkHttpClient.Builder builder = shared.newBuilder();
+        if (!builder.interceptors().contains(USER_AGENT))
+            builder.addInterceptor(USER_AGENT);
+        return options.applyTo(builder).build();
+    }
+
+    /**
+     * <p>Sends a request via a {@link HealthchecksTransport}, queueing it in a
+     * {@link PriorityDispatcher} first (if not null).</p>
+     *
+     * @since 1.1.0
+     */
+    protected static CompletableFuture<Response> enqueue(HealthchecksTransport transport, Request request,
+                                                         Duration timeout, Instant deadline,
+                                                         PriorityDispatcher dispatcher,
+                                                         Executor executor) {
+        if (dispatcher == null)
+            return transport.send(request, timeout, deadline, executor);
+        return dispatcher.dispatch(RequestPriority.of(request), deadline,
+                () -> transport.send(request, timeout, deadline, executor));
+    }
+
+    /**
+     * <p>The executor which {@link HealthchecksManager}s use to read and parse responses if
+     * no {@link HealthchecksOptions#getCompletionExecutor() completion executor} has been set.
+     * It has one daemon thread per CPU core (at least two) and a bounded queue; if the queue
+     * is full, responses are parsed on the OkHttp thread instead.</p>
+     *
+     * @return The shared executor, which is created on first use.
+     *
+     * @since 1.1.0
+     */
+    public static Executor decodeExecutor() {
+        return DecodeExecutorHolder.EXECUTOR;
+    }
+
     protected static String validateUrl(String host) {
         try {
             URL url = new URL(host);
@@ -166,4 +398,24 @@ public class Healthchecks {
             throw new IllegalArgumentException("The host URL " + host + " is invalid!", e);
         }
     }
+
+    /**
+     * Lazy holder, so the threads only exist once a manager has received a response.
+     */
+    private static final class DecodeExecutorHolder {
+        private static final Executor EXECUTOR;
+
+        static {
+            int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+            AtomicInteger counter = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                    30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1024), runnable -> {
+                Thread thread = new Thread(runnable, "healthchecks-decode-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            EXECUTOR = executor;
+        }
+    }
 }
@@ -1,7 +1,11 @@
 package com.niklasarndt.healthchecksio;
 
+import com.niklasarndt.healthchecksio.cluster.SenderElection;
 import okhttp3.Response;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * <p>Utilizes the <a href="https://healthchecks.io/docs/http_api/">Pinging API</a>
@@ -9,7 +13,7 @@ import java.util.concurrent.CompletableFuture;
  *
  * @since 1.0.0
  */
-public interface HealthchecksClient {
+public interface HealthchecksClient extends AutoCloseable {
 
     /**
      * <p>Notifies healthchecks.io about the start of an event.</p>
@@ -97,4 +101,140 @@ public interface HealthchecksClient {
      *         * {@link Response} object. Use {@link CompletableFuture#get()} to retrieve your response!
      */
     CompletableFuture<Response> exitCode(int code, String body);
+
+    /**
+     * <p>Returns a view of this client which uses the {@code timeout} for every call
+     * (including connecting, writing and reading). Exceeding it cancels the call and
+     * completes the future exceptionally.</p>
+     *
+     * <p>The view shares the connections of this client, so creating it is cheap.</p>
+     *
+     * <p>The default implementation applies the timeout to the returned futures instead of the
+     * HTTP calls: once it is exceeded, the future fails with an
+     * {@link java.io.InterruptedIOException} and the call is cancelled.</p>
+     *
+     * @param timeout The maximum duration of each call. <b>Must not be null.</b>
+     *
+     * @return A {@link HealthchecksClient} with the timeout applied.
+     *
+     * @since 1.1.0
+     */
+    default HealthchecksClient withTimeout(Duration timeout) {
+        return new DecoratedClient(this, CallDecorator.timeout(timeout));
+    }
+
+    /**
+     * <p>Returns a view of this client which cancels all calls which have not completed
+     * before the {@code deadline}. Calls started after the deadline fail immediately.</p>
+     *
+     * <p>The default implementation applies the deadline to the returned futures, see
+     * {@link #withTimeout(Duration)}.</p>
+     *
+     * @param deadline The absolute point in time. <b>Must not be null.</b>
+     *
+     * @return A {@link HealthchecksClient} with the deadline applied.
+     *
+     * @since 1.1.0
+     */
+    default HealthchecksClient withDeadline(Instant deadline) {
+        return new DecoratedClient(this, CallDecorator.deadline(deadline));
+    }
+
+    /**
+     * <p>Returns a view of this client which completes its futures via {@code executor}, so
+     * that callbacks chained on them don't run on (and block) the OkHttp dispatcher threads.</p>
+     *
+     * @param executor The executor which completes the futures. <b>Must not be null.</b>
+     *
+     * @return A {@link HealthchecksClient} with the executor applied.
+     *
+     * @see HealthchecksOptions#getCompletionExecutor()
+     * @since 1.1.0
+     */
+    default HealthchecksClient withExecutor(Executor executor) {
+        return new DecoratedClient(this, CallDecorator.executor(executor));
+    }
+
+    /**
+     * <p>Waits up to {@code timeout} for pending calls (e.g. the last heartbeats of a batch
+     * job), cancels the remaining ones, closes idle connections and stops the OkHttp threads,
+     * so they don't keep the JVM alive. Calls made afterwards fail.</p>
+     *
+     * <p>All views of this client (e.g. created by {@code withTimeout}) share these resources, so
+     * closing one of them closes all. A shared {@link HealthchecksOptions#getHttpClient()
+     * OkHttpClient} or {@link PriorityDispatcher} is not shut down.</p>
+     *
+     * @param timeout The maximum time to wait for pending calls.
+     *
+     * @return Whether all pending calls have completed in time (always true for implementations
+     *         without resources to release, which is the default).
+     *
+     * @since 1.1.0
+     */
+    default boolean closeGracefully(Duration timeout) {
+        return true;
+    }
+
+    /**
+     * <p>Closes this client, waiting up to {@link Healthchecks#CLOSE_TIMEOUT} for pending calls.</p>
+     *
+     * @see #closeGracefully(Duration)
+     * @since 1.1.0
+     */
+    @Override
+    default void close() {
+        closeGracefully(Healthchecks.CLOSE_TIMEOUT);
+    }
+
+    /**
+     * <p>Returns a view of this client which reports a final event if the JVM exits (e.g. via
+     * {@code System.exit} or a {@code SIGTERM}) before the job has reported its completion.
+     * The view is armed from creation and after every {@code start}, and disarmed by every
+     * success, fail or exit code.</p>
+     *
+     * <p>Either way, the client is closed gracefully on exit, so pending heartbeats are
+     * flushed.</p>
+     *
+     * @param timeout The maximum time the shutdown hook may take.
+     *
+     * @return A {@link ShutdownHookClient} wrapping this client.
+     *
+     * @see ShutdownHookClient
+     * @since 1.1.0
+     */
+    default ShutdownHookClient withShutdownHook(Duration timeout) {
+        return new ShutdownHookClient(this, timeout);
+    }
+
+    /**
+     * <p>Returns a view of this client which only forwards a success ping (without a body) if
+     * the last forwarded one is older than {@code minInterval}. All other events are forwarded
+     * immediately.</p>
+     *
+     * @param minInterval The minimum time between two forwarded success pings.
+     *
+     * @return A {@link SuppressingHealthchecksClient} wrapping this client.
+     *
+     * @see SuppressingHealthchecksClient
+     * @since 1.1.0
+     */
+    default SuppressingHealthchecksClient withSuppression(Duration minInterval) {
+        return new SuppressingHealthchecksClient(this, minInterval);
+    }
+
+    /**
+     * <p>Returns a view of this client which only sends start and success pings while this node
+     * is the elected sender of the check. On standby nodes, these calls complete immediately
+     * without being sent, failures are always sent.</p>
+     *
+     * @param election The election of this check, shared by all nodes via its backend.
+     *
+     * @return An {@link ElectedHealthchecksClient} wrapping this client.
+     *
+     * @see ElectedHealthchecksClient
+     * @since 1.1.0
+     */
+    default ElectedHealthchecksClient withElection(SenderElection election) {
+        return new ElectedHealthchecksClient(this, election);
+    }
 }
@@ -1,15 +1,17 @@
 package com.niklasarndt.healthchecksio;
 
-import com.niklasarndt.healthchecksio.util.OkHttpResponseFuture;
-import okhttp3.OkHttpClient;
+import okhttp3.HttpUrl;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * <p>Please check out {@link HealthchecksClient} for documentation (this is just the
@@ -22,11 +24,15 @@ public class HealthchecksClientImpl implements HealthchecksClient {
     private static final Logger LOG = LoggerFactory.getLogger(HealthchecksClient.class);
     private static final String HEALTHCHECKS_HOST = "https://hc-ping.com/";
 
-    private final OkHttpClient client = new OkHttpClient.Builder()
-            .addInterceptor(Healthchecks.USER_AGENT)
-            .build();
+    private final HealthchecksTransport transport;
     private final String host;
     private final String baseUrl;
+    private final HeartbeatCheck check;
+    private final Duration timeout;
+    private final Instant deadline;
+    private final PriorityDispatcher dispatcher;
+    private final Executor executor;
+    private final Lifecycle lifecycle;
 
     protected HealthchecksClientImpl(URL base) {
         this(base.toString().substring(0, base.toString().lastIndexOf("/")),
@@ -38,20 +44,73 @@ public class HealthchecksClientImpl implements HealthchecksClient {
     }
 
     protected HealthchecksClientImpl(String host, String uuid) {
+        this(host, uuid, HealthchecksOptions.DEFAULT);
+    }
+
+    protected HealthchecksClientImpl(String host, String uuid, HealthchecksOptions options) {
         Objects.requireNonNull(host);
         Objects.requireNonNull(uuid);
+        Objects.requireNonNull(options);
         host = host.trim();
 
         //URL validation
-        if (!host.equals(HEALTHCHECKS_HOST))
-            this.host = Healthchecks.validateUrl(host);
-        else //Skip URL validation for default host (already validated)
+        if (!host.equals(HEALTHCHECKS_HOST)) {
+            String validated = Healthchecks.validateUrl(host);
+            this.host = validated.endsWith("/") ? validated : validated + "/";
+        } else //Skip URL validation for default host (already validated)
             this.host = host;
 
         this.baseUrl = this.host + uuid;
+        this.check = new HeartbeatCheck(HttpUrl.get(baseUrl));
+        this.transport = Healthchecks.createTransport(options);
+        this.dispatcher = options.getPriorityDispatcher();
+        this.executor = options.getCompletionExecutor();
+        this.lifecycle = new Lifecycle(transport, options.getTransport() == null);
+        this.timeout = null;
+        this.deadline = null;
         LOG.debug("Host url has been set to {}", this.host);
     }
 
+    private HealthchecksClientImpl(HealthchecksClientImpl source, Duration timeout, Instant deadline,
+                                   Executor executor) {
+        this.transport = source.transport;
+        this.host = source.host;
+        this.baseUrl = source.baseUrl;
+        this.check = source.check;
+        this.timeout = timeout;
+        this.deadline = deadline;
+        this.dispatcher = source.dispatcher;
+        this.executor = executor;
+        this.lifecycle = source.lifecycle;
+    }
+
+    /**
+     * @return The URL of success pings (the base URL of all pings of this check).
+     */
+    String getPingUrl() {
+        return baseUrl;
+    }
+
+    @Override
+    public HealthchecksClient withTimeout(Duration timeout) {
+        return new HealthchecksClientImpl(this, Objects.requireNonNull(timeout), deadline, executor);
+    }
+
+    @Override
+    public HealthchecksClient withDeadline(Instant deadline) {
+        return new HealthchecksClientImpl(this, timeout, Objects.requireNonNull(deadline), executor);
+    }
+
+    @Override
+    public HealthchecksClient withExecutor(Executor executor) {
+        return new HealthchecksClientImpl(this, timeout, deadline, Objects.requireNonNull(executor));
+    }
+
+    @Override
+    public boolean closeGracefully(Duration timeout) {
+        return lifecycle.close(timeout);
+    }
+
     @Override
     public CompletableFuture<Response> start(String body) {
         return sendHeartbeat(EventType.START, body);
@@ -72,7 +131,8 @@ public class HealthchecksClientImpl implements HealthchecksClient {
         if (code < 0 || code > 255)
             throw new IllegalArgumentException("Only values from 0 to 255 are valid exit codes!");
 
-        return sendHeartbeat("/" + code, body);
+        return sendHeartbeat("/" + code, body,
+                code == 0 ? RequestPriority.HEARTBEAT : RequestPriority.ALERT);
     }
 
     /**
@@ -90,7 +150,8 @@ public class HealthchecksClientImpl implements HealthchecksClient {
      *         * {@link Response} object. Use {@link CompletableFuture#get()} to retrieve your response!
      */
     private CompletableFuture<Response> sendHeartbeat(EventType type, String body) {
-        return sendHeartbeat(type.path, body);
+        return sendHeartbeat(type.path, body,
+                type == EventType.FAIL ? RequestPriority.ALERT : RequestPriority.HEARTBEAT);
     }
 
 
@@ -102,27 +163,28 @@ public class HealthchecksClientImpl implements HealthchecksClient {
      * <p>Afterwards a new call in enqueued, and the {@link CompletableFuture}
      * object is returned.</p>
      *
-     * @param path The sub path in the URL, e.g. {@code /fail} or {@code /1} (for exit code one).
-     * @param body A message (plain text) which will be stored on healthchecks.io, together with this status message.
+     * @param path     The sub path in the URL, e.g. {@code /fail} or {@code /1} (for exit code one).
+     * @param body     A message (plain text) which will be stored on healthchecks.io, together with this status message.
+     * @param priority The priority of the request if a {@link PriorityDispatcher} is used.
      *
      * @return A {@link CompletableFuture} with a
      *         * {@link Response} object. Use {@link CompletableFuture#get()} to retrieve your response!
      */
-    private CompletableFuture<Response> sendHeartbeat(String path, String body) {
+    private CompletableFuture<Response> sendHeartbeat(String path, String body, RequestPriority priority) {
         LOG.debug("Sending signal to path {} (host: {}, has body: {})",
                 path, host, body != null);
 
         Request.Builder builder = new Request.Builder()
-                .url(baseUrl + path);
+                .url(baseUrl + path)
+                .tag(RequestPriority.class, priority)
+                .tag(HeartbeatCheck.class, check);
         if (body != null)
             builder.post(RequestBody.create(body, Healthchecks.PLAIN_TEXT));
         else
             builder.get();
 
-        OkHttpResponseFuture callback = new OkHttpResponseFuture();
-
-        client.newCall(builder.build()).enqueue(callback);
-        return callback.future;
+        Request request = builder.build();
+        return lifecycle.track(() -> Healthchecks.enqueue(transport, request, timeout, deadline, dispatcher, executor));
     }
 
     private enum EventType {
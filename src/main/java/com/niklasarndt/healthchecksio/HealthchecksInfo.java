@@ -1,8 +1,7 @@
 package com.niklasarndt.healthchecksio;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
+import java.io.InputStream;
 import java.util.Properties;
 
 /**
@@ -12,39 +11,31 @@ import java.util.Properties;
  */
 public class HealthchecksInfo {
 
-    private static String NAME;
-    private static String DESCRIPTION;
-    private static String VERSION;
-    private static String TARGET_JDK;
-    private static String TIMESTAMP;
-    private static String URL;
+    private static final String UNKNOWN = "UNKNOWN";
 
-    static {
-        try {
-            Properties properties = new Properties();
-            properties.load(HealthchecksInfo.class.getClassLoader()
-                    .getResourceAsStream("healthchecks-build.properties"));
+    private static final String NAME;
+    private static final String DESCRIPTION;
+    private static final String VERSION;
+    private static final String TARGET_JDK;
+    private static final String TIMESTAMP;
+    private static final String URL;
 
-            NAME = properties.getProperty("build.name");
-            DESCRIPTION = properties.getProperty("build.description");
-            VERSION = properties.getProperty("build.version");
-            TARGET_JDK = properties.getProperty("build.targetJdk");
-            TIMESTAMP = properties.getProperty("build.timestamp");
-            URL = properties.getProperty("build.url");
+    static {
+        Properties properties = new Properties();
+        try (InputStream stream = HealthchecksInfo.class.getClassLoader()
+                .getResourceAsStream("healthchecks-build.properties")) {
+            if (stream != null)
+                properties.load(stream);
         } catch (IOException ignored) {
         }
 
-        //Set null fields to UNKNOWN
-        for (Field field : HealthchecksInfo.class.getDeclaredFields()) {
-            try {
-                if (field.getType().isAssignableFrom(String.class)
-                        && field.getModifiers() == (Modifier.PRIVATE | Modifier.STATIC)
-                        && field.get(null) == null) {
-                    field.set(null, "UNKNOWN");
-                }
-            } catch (Exception ignored) {
-            }
-        }
+        //Plain lookups instead of reflection keep the class init cheap (and native-image friendly)
+        NAME = properties.getProperty("build.name", UNKNOWN);
+        DESCRIPTION = properties.getProperty("build.description", UNKNOWN);
+        VERSION = properties.getProperty("build.version", UNKNOWN);
+        TARGET_JDK = properties.getProperty("build.targetJdk", UNKNOWN);
+        TIMESTAMP = properties.getProperty("build.timestamp", UNKNOWN);
+        URL = properties.getProperty("build.url", UNKNOWN);
     }
 
     /**
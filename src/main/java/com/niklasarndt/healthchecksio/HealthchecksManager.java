@@ -2,10 +2,16 @@ package com.niklasarndt.healthchecksio;
 
 import com.niklasarndt.healthchecksio.exception.UnauthorizedException;
 import com.niklasarndt.healthchecksio.model.Check;
+import com.niklasarndt.healthchecksio.model.CheckSnapshot;
 import com.niklasarndt.healthchecksio.model.Integration;
 import com.niklasarndt.healthchecksio.model.Ping;
 import com.niklasarndt.healthchecksio.model.StatusFlip;
+import com.niklasarndt.healthchecksio.util.HealthcheckUtils;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * <p>Utilizes the <a href="https://healthchecks.io/docs/api/">Management API</a>
@@ -13,7 +19,7 @@ import java.util.concurrent.CompletableFuture;
  *
  * @since 1.0.1
  */
-public interface HealthchecksManager {
+public interface HealthchecksManager extends AutoCloseable {
 
     /**
      * <p>Requests a {@link Check} from the API <i>again</i>,
@@ -67,6 +73,41 @@ public interface HealthchecksManager {
      */
     CompletableFuture<Check[]> getExistingChecks(String... tags);
 
+    /**
+     * <p>Requests a {@link Check} from the API, based on the UUID or unique key {@code key},
+     * and returns it as an immutable {@link CheckSnapshot}.</p>
+     *
+     * <p>Snapshots can be cached and shared between threads without copying them.</p>
+     *
+     * @param key A valid UUID or unique key for a check.
+     *
+     * @return A {@link CheckSnapshot}, wrapped in a {@link CompletableFuture} object
+     *         for async execution.
+     *
+     * @since 1.1.0
+     */
+    default CompletableFuture<CheckSnapshot> getCheckSnapshot(String key) {
+        CompletableFuture<Check> check = getCheck(key);
+        return HealthcheckUtils.propagateCancellation(check.thenApply(CheckSnapshot::of), check);
+    }
+
+    /**
+     * <p>Requests multiple {@link Check}s from the API and returns them as
+     * immutable {@link CheckSnapshot}s.</p>
+     *
+     * @param tags <i>(optional)</i> The tags which all returned checks should have
+     *
+     * @return An array of {@link CheckSnapshot}s, wrapped in a {@link CompletableFuture} object
+     *         for async execution.
+     *
+     * @see #getExistingChecks(String...)
+     * @since 1.1.0
+     */
+    default CompletableFuture<CheckSnapshot[]> getExistingCheckSnapshots(String... tags) {
+        CompletableFuture<Check[]> checks = getExistingChecks(tags);
+        return HealthcheckUtils.propagateCancellation(checks.thenApply(CheckSnapshot::of), checks);
+    }
+
     /**
      * <p>Creates a new {@link Check} based on the input data provided.</p>
      *
@@ -329,4 +370,125 @@ public interface HealthchecksManager {
      */
     CompletableFuture<Integration[]> getChannels();
 
+    /**
+     * <p>Lists all webhook {@link Integration}s registered for this account, e.g. to verify
+     * that status changes will be delivered to a
+     * {@link com.niklasarndt.healthchecksio.webhook.WebhookReceiver}.</p>
+     *
+     * <p><b>Not available in read-only mode!</b></p>
+     *
+     * @return An array of {@link Integration}s with the kind {@code webhook},
+     *         wrapped in a {@link CompletableFuture} object for async execution.
+     *
+     * @since 1.1.0
+     */
+    default CompletableFuture<Integration[]> getWebhookIntegrations() {
+        CompletableFuture<Integration[]> channels = getChannels();
+        return HealthcheckUtils.propagateCancellation(channels.thenApply(all -> Arrays.stream(all)
+                .filter(channel -> "webhook".equals(channel.getKind()))
+                .toArray(Integration[]::new)), channels);
+    }
+
+    /**
+     * <p>Checks whether a webhook {@link Integration} is registered for this account.</p>
+     *
+     * <p><b>Not available in read-only mode!</b></p>
+     *
+     * @param name The name of the integration or {@code null} to accept any webhook.
+     *
+     * @return {@code true} if a matching webhook exists,
+     *         wrapped in a {@link CompletableFuture} object for async execution.
+     *
+     * @since 1.1.0
+     */
+    default CompletableFuture<Boolean> hasWebhookIntegration(String name) {
+        CompletableFuture<Integration[]> webhooks = getWebhookIntegrations();
+        return HealthcheckUtils.propagateCancellation(webhooks.thenApply(all -> Arrays.stream(all)
+                .anyMatch(webhook -> name == null || name.equals(webhook.getName()))), webhooks);
+    }
+
+    /**
+     * <p>Returns a view of this manager which uses the {@code timeout} for every call
+     * (including connecting, writing and reading). Exceeding it cancels the call and
+     * completes the future exceptionally.</p>
+     *
+     * <p>The view shares the connections of this manager, so creating it is cheap.</p>
+     *
+     * <p>The default implementation applies the timeout to the returned futures instead of the
+     * HTTP calls: once it is exceeded, the future fails with an
+     * {@link java.io.InterruptedIOException} and the call is cancelled.</p>
+     *
+     * @param timeout The maximum duration of each call. <b>Must not be null.</b>
+     *
+     * @return A {@link HealthchecksManager} with the timeout applied.
+     *
+     * @since 1.1.0
+     */
+    default HealthchecksManager withTimeout(Duration timeout) {
+        return new DecoratedManager(this, CallDecorator.timeout(timeout));
+    }
+
+    /**
+     * <p>Returns a view of this manager which cancels all calls which have not completed
+     * before the {@code deadline}. Calls started after the deadline fail immediately.</p>
+     *
+     * <p>The default implementation applies the deadline to the returned futures, see
+     * {@link #withTimeout(Duration)}.</p>
+     *
+     * @param deadline The absolute point in time. <b>Must not be null.</b>
+     *
+     * @return A {@link HealthchecksManager} with the deadline applied.
+     *
+     * @since 1.1.0
+     */
+    default HealthchecksManager withDeadline(Instant deadline) {
+        return new DecoratedManager(this, CallDecorator.deadline(deadline));
+    }
+
+    /**
+     * <p>Returns a view of this manager which completes its futures via {@code executor}, so
+     * that callbacks chained on them don't run on (and block) the OkHttp dispatcher threads. Responses are read
+     * and parsed on it as well.</p>
+     *
+     * @param executor The executor which completes the futures. <b>Must not be null.</b>
+     *
+     * @return A {@link HealthchecksManager} with the executor applied.
+     *
+     * @see HealthchecksOptions#getCompletionExecutor()
+     * @since 1.1.0
+     */
+    default HealthchecksManager withExecutor(Executor executor) {
+        return new DecoratedManager(this, CallDecorator.executor(executor));
+    }
+
+    /**
+     * <p>Waits up to {@code timeout} for pending calls (e.g. the last heartbeats of a batch
+     * job), cancels the remaining ones, closes idle connections and stops the OkHttp threads,
+     * so they don't keep the JVM alive. Calls made afterwards fail.</p>
+     *
+     * <p>All views of this manager (e.g. created by {@code withTimeout}) share these resources, so
+     * closing one of them closes all. A shared {@link HealthchecksOptions#getHttpClient()
+     * OkHttpClient} or {@link PriorityDispatcher} is not shut down.</p>
+     *
+     * @param timeout The maximum time to wait for pending calls.
+     *
+     * @return Whether all pending calls have completed in time (always true for implementations
+     *         without resources to release, which is the default).
+     *
+     * @since 1.1.0
+     */
+    default boolean closeGracefully(Duration timeout) {
+        return true;
+    }
+
+    /**
+     * <p>Closes this manager, waiting up to {@link Healthchecks#CLOSE_TIMEOUT} for pending calls.</p>
+     *
+     * @see #closeGracefully(Duration)
+     * @since 1.1.0
+     */
+    @Override
+    default void close() {
+        closeGracefully(Healthchecks.CLOSE_TIMEOUT);
+    }
 }
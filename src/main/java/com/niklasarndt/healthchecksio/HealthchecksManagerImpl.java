@@ -6,21 +6,27 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.niklasarndt.healthchecksio.exception.ParseException;
 import com.niklasarndt.healthchecksio.exception.UnauthorizedException;
 import com.niklasarndt.healthchecksio.model.Check;
+import com.niklasarndt.healthchecksio.model.CheckSnapshot;
 import com.niklasarndt.healthchecksio.model.Integration;
 import com.niklasarndt.healthchecksio.model.Ping;
 import com.niklasarndt.healthchecksio.model.StatusFlip;
-import com.niklasarndt.healthchecksio.util.OkHttpResponseFuture;
+import com.niklasarndt.healthchecksio.util.HealthcheckUtils;
 import com.niklasarndt.healthchecksio.util.QueryParam;
-import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * <p>Please check out {@link HealthchecksManager} for documentation (this is just the
@@ -31,16 +37,20 @@ import java.util.concurrent.CompletableFuture;
 public class HealthchecksManagerImpl implements HealthchecksManager {
 
     private static final Logger LOG = LoggerFactory.getLogger(HealthchecksManager.class);
-    private static final String HEALTHCHECKS_HOST = "https://healthchecks.io";
-    private static final ObjectMapper MAPPER = new ObjectMapper();
+    static final String HEALTHCHECKS_HOST = "https://healthchecks.io";
+    /**
+     * The number of check listings (tag combinations) kept for conditional requests.
+     */
+    static final int MAX_CACHED_LISTINGS = 16;
 
     private static <T> CompletableFuture<T> parseFirstNode(CompletableFuture<Response> response, Class<T> clazz) {
-        return parseJsonResponse(response, JsonNode.class)
-                .thenApply(json -> readJson(json.iterator().next().toString(), clazz));
+        CompletableFuture<JsonNode> json = parseJsonResponse(response, JsonNode.class);
+        return HealthcheckUtils.propagateCancellation(json
+                .thenApply(node -> readJson(node.iterator().next().toString(), clazz)), json);
     }
 
     private static <T> CompletableFuture<T> parseJsonResponse(CompletableFuture<Response> future, Class<T> clazz) {
-        return future.thenApply(response -> {
+        return HealthcheckUtils.propagateCancellation(future.thenApply(response -> {
             verifyResponse(response);
 
             String body;
@@ -50,7 +60,7 @@ public class HealthchecksManagerImpl implements HealthchecksManager {
                 throw new IllegalStateException("Could not read response from healthchecks.io!", e);
             }
             return readJson(body, clazz);
-        });
+        }), future);
     }
 
     private static void verifyResponse(Response response) {
@@ -63,7 +73,7 @@ public class HealthchecksManagerImpl implements HealthchecksManager {
 
     private static <T> T readJson(String input, Class<T> clazz) {
         try {
-            return MAPPER.readValue(input, clazz);
+            return JsonHolder.MAPPER.readValue(input, clazz);
         } catch (JsonProcessingException e) {
             throw new ParseException("The JSON data could not be parsed", e);
         }
@@ -71,24 +81,57 @@ public class HealthchecksManagerImpl implements HealthchecksManager {
 
     private static String writeJson(Object value) {
         try {
-            return MAPPER.writeValueAsString(value);
+            return JsonHolder.MAPPER.writeValueAsString(value);
         } catch (JsonProcessingException e) {
             throw new ParseException("The object could not be translated to JSON", e);
         }
     }
 
-    private final OkHttpClient client = new OkHttpClient.Builder()
-            .addInterceptor(Healthchecks.USER_AGENT).build();
+    private final HealthchecksTransport transport;
     private final String token;
     private final String baseUrl;
+    private final Map<String, CachedListing> listings;
+    private final Duration timeout;
+    private final Instant deadline;
+    private final PriorityDispatcher dispatcher;
+    private final Executor executor;
+    private final Lifecycle lifecycle;
+    private final RateLimitGate rateLimit;
 
     protected HealthchecksManagerImpl(String token) {
         this(HEALTHCHECKS_HOST, token);
     }
 
     protected HealthchecksManagerImpl(String host, String token) {
+        this(host, token, HealthchecksOptions.DEFAULT);
+    }
+
+    protected HealthchecksManagerImpl(String host, String token, HealthchecksOptions options) {
+        this(host, token, Healthchecks.createTransport(Objects.requireNonNull(options)), options);
+    }
+
+    private HealthchecksManagerImpl(String host, String token, HealthchecksTransport transport,
+                                    HealthchecksOptions options) {
+        this(host, token, transport, options.getPriorityDispatcher(), options.getCompletionExecutor(),
+                new Lifecycle(transport, options.getTransport() == null), null);
+    }
+
+    /**
+     * <p>Creates a manager which uses an existing {@link HealthchecksTransport}, e.g. to share
+     * its connection pool and dispatcher (see {@link HealthchecksManagerPool}).</p>
+     *
+     * @param dispatcher The {@link PriorityDispatcher} for all requests (may be null).
+     * @param executor   The executor which parses responses and completes the futures
+     *                   (null: {@link Healthchecks#decodeExecutor()}).
+     * @param lifecycle  Tracks pending calls and releases the resources it owns on close.
+     * @param rateLimit  Delays requests which exceed a request budget (may be null).
+     */
+    HealthchecksManagerImpl(String host, String token, HealthchecksTransport transport,
+                            PriorityDispatcher dispatcher, Executor executor, Lifecycle lifecycle,
+                            RateLimitGate rateLimit) {
         Objects.requireNonNull(host);
         Objects.requireNonNull(token);
+        Objects.requireNonNull(transport);
         host = host.trim();
 
         //URL validation
@@ -97,6 +140,54 @@ public class HealthchecksManagerImpl implements HealthchecksManager {
 
         this.token = token;
         this.baseUrl = validatedHost + (validatedHost.endsWith("/") ? "api/v1" : "/api/v1");
+        this.transport = transport;
+        //Least recently used listings are dropped, callers may use any number of tag filters
+        this.listings = Collections.synchronizedMap(new LinkedHashMap<String, CachedListing>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedListing> eldest) {
+                return size() > MAX_CACHED_LISTINGS;
+            }
+        });
+        this.dispatcher = dispatcher;
+        this.executor = executor != null ? executor : Healthchecks.decodeExecutor();
+        this.lifecycle = Objects.requireNonNull(lifecycle);
+        this.rateLimit = rateLimit;
+        this.timeout = null;
+        this.deadline = null;
+    }
+
+    private HealthchecksManagerImpl(HealthchecksManagerImpl source, Duration timeout, Instant deadline,
+                                    Executor executor) {
+        this.transport = source.transport;
+        this.token = source.token;
+        this.baseUrl = source.baseUrl;
+        this.listings = source.listings;
+        this.dispatcher = source.dispatcher;
+        this.executor = executor;
+        this.lifecycle = source.lifecycle;
+        this.rateLimit = source.rateLimit;
+        this.timeout = timeout;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public HealthchecksManager withTimeout(Duration timeout) {
+        return new HealthchecksManagerImpl(this, Objects.requireNonNull(timeout), deadline, executor);
+    }
+
+    @Override
+    public HealthchecksManager withDeadline(Instant deadline) {
+        return new HealthchecksManagerImpl(this, timeout, Objects.requireNonNull(deadline), executor);
+    }
+
+    @Override
+    public HealthchecksManager withExecutor(Executor executor) {
+        return new HealthchecksManagerImpl(this, timeout, deadline, Objects.requireNonNull(executor));
+    }
+
+    @Override
+    public boolean closeGracefully(Duration timeout) {
+        return lifecycle.close(timeout);
     }
 
     @Override
@@ -106,7 +197,8 @@ public class HealthchecksManagerImpl implements HealthchecksManager {
 
     @Override
     public CompletableFuture<Check> createCheck(Check check) {
-        return request("/checks/", writeJson(check)).thenApply(response -> {
+        CompletableFuture<Response> future = request("/checks/", writeJson(check));
+        return HealthcheckUtils.propagateCancellation(future.thenApply(response -> {
             verifyResponse(response);
 
             if (response.code() != 201)
@@ -121,7 +213,7 @@ public class HealthchecksManagerImpl implements HealthchecksManager {
                 throw new IllegalStateException("Could not read response from healthchecks.io!", e);
             }
             return readJson(body, Check.class);
-        });
+        }), future);
     }
 
     @Override
@@ -157,15 +249,63 @@ public class HealthchecksManagerImpl implements HealthchecksManager {
                 Check[].class);
     }
 
+    /**
+     * <p>Sends a conditional request ({@code If-None-Match}) if this listing has been
+     * requested before. If healthchecks.io responds with {@code 304 Not Modified} or the
+     * payload is equal to the previous one, the cached snapshots are returned without
+     * parsing the response again. The last {@value #MAX_CACHED_LISTINGS} listings (tag
+     * combinations) are kept.</p>
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<CheckSnapshot[]> getExistingCheckSnapshots(String... tags) {
+        String path = appendParams("/checks", Arrays.stream(tags)
+                .map(tag -> new QueryParam("tag", tag)).toArray(QueryParam[]::new));
+        CachedListing cached = listings.get(path);
+
+        Request.Builder builder = new Request.Builder()
+                .addHeader("X-Api-Key", token)
+                .url(baseUrl + path)
+                .get();
+        if (cached != null && cached.etag != null)
+            builder.header("If-None-Match", cached.etag);
+
+        CompletableFuture<Response> future = request(builder.build());
+        return HealthcheckUtils.propagateCancellation(future.thenApply(response -> {
+            if (response.code() == 304 && cached != null) {
+                response.close();
+                LOG.debug("Listing {} has not been modified", path);
+                return cached.checks.clone();
+            }
+            verifyResponse(response);
+
+            String body;
+            try {
+                body = Objects.requireNonNull(response.body()).string();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read response from healthchecks.io!", e);
+            }
+            if (cached != null && cached.body.equals(body))
+                return cached.checks.clone();
+
+            CheckSnapshot[] checks = CheckSnapshot.of(readJson(readJson(body, JsonNode.class)
+                    .iterator().next().toString(), Check[].class));
+            listings.put(path, new CachedListing(response.header("ETag"), body, checks));
+            return checks.clone();
+        }), future);
+    }
+
     @Override
     public CompletableFuture<Check> getCheckByName(String name) {
-        return getExistingChecks().thenApply(checks -> {
+        CompletableFuture<Check[]> future = getExistingChecks();
+        return HealthcheckUtils.propagateCancellation(future.thenApply(checks -> {
             for (Check check : checks) {
                 if (check.getName().equals(name))
                     return check;
             }
             return null;
-        });
+        }), future);
     }
 
     @Override
@@ -203,19 +343,21 @@ public class HealthchecksManagerImpl implements HealthchecksManager {
 
     private CompletableFuture<Response> request(String path, String body,
                                                 QueryParam[] params) {
-        if (params != null) {
-            StringBuilder builder = new StringBuilder(path);
-            if (!path.endsWith("?"))
-                builder.append("?");
+        return request(appendParams(path, params), body);
+    }
 
+    private static String appendParams(String path, QueryParam[] params) {
+        if (params == null || params.length == 0)
+            return path;
 
-            for (QueryParam param : params)
-                builder.append(param.getLeft()).append("=").append(param.getRight()).append("&");
+        StringBuilder builder = new StringBuilder(path);
+        if (!path.endsWith("?"))
+            builder.append("?");
 
-            path = builder.substring(0, builder.length() - 1);
-        }
+        for (QueryParam param : params)
+            builder.append(param.getLeft()).append("=").append(param.getRight()).append("&");
 
-        return request(path, body);
+        return builder.substring(0, builder.length() - 1);
     }
 
     private CompletableFuture<Response> request(String path, String body) {
@@ -234,12 +376,36 @@ public class HealthchecksManagerImpl implements HealthchecksManager {
     }
 
     private CompletableFuture<Response> request(Request request) {
-        OkHttpResponseFuture callback = new OkHttpResponseFuture();
-
         LOG.debug("Sending request to  {} via {} (has body: {})",
                 request.url().toString(), request.method(), request.body() != null);
 
-        client.newCall(request).enqueue(callback);
-        return callback.future;
+        //Responses complete on the executor, so all parsing stages run there as well
+        if (rateLimit == null)
+            return lifecycle.track(() -> Healthchecks.enqueue(transport, request, timeout, deadline, dispatcher, executor));
+        //Permits are reserved before the request is queued, so it does not take a slot while waiting
+        return lifecycle.track(() -> rateLimit.submit(deadline,
+                () -> Healthchecks.enqueue(transport, request, timeout, deadline, dispatcher, executor)));
+    }
+
+    /**
+     * The last response of a check listing, used for conditional requests.
+     */
+    private static class CachedListing {
+        private final String etag;
+        private final String body;
+        private final CheckSnapshot[] checks;
+
+        private CachedListing(String etag, String body, CheckSnapshot[] checks) {
+            this.etag = etag;
+            this.body = body;
+            this.checks = checks;
+        }
+    }
+
+    /**
+     * Lazy holder, so Jackson is only initialized once the first response is parsed.
+     */
+    private static final class JsonHolder {
+        private static final ObjectMapper MAPPER = new ObjectMapper();
     }
 }
@@ -0,0 +1,324 @@
+package com.niklasarndt.healthchecksio;
+
+import com.niklasarndt.healthchecksio.model.Check;
+import com.niklasarndt.healthchecksio.util.RateLimiter;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * <p>Hands out {@link HealthchecksManager}s for many API keys (e.g. one per healthchecks.io
+ * project) which all share one connection pool and dispatcher.</p>
+ *
+ * <p>Every API key gets its own request budget (requests per second), and all keys together
+ * are limited by a global budget and a maximum number of concurrent requests. Requests which
+ * exceed a budget are delayed until a permit is available. They wait on a timer before they
+ * are dispatched, so a key which exceeds its budget does not occupy the concurrent requests
+ * of the other keys. Requests which could only be sent after their
+ * {@link HealthchecksManager#withDeadline(java.time.Instant) deadline} fail right away.</p>
+ *
+ * <p>The pool always uses OkHttp with its own dispatcher (which limits the concurrent requests),
+ * so a {@link HealthchecksOptions#getTransport() transport} in its options is ignored.</p>
+ *
+ * <p>Projects which have been registered via {@link #register(String, String)} can be queried
+ * together, e.g. via {@link #getDownChecks()}. These queries are executed in parallel.</p>
+ *
+ * <pre>{@code
+ * HealthchecksManagerPool pool = HealthchecksManagerPool.builder()
+ *         .requestsPerSecondPerKey(1)
+ *         .globalRequestsPerSecond(20)
+ *         .build();
+ * pool.register("backend", "<api-key>");
+ * pool.register("frontend", "<api-key>");
+ * Map<String, Check[]> down = pool.getDownChecks().get();
+ * }</pre>
+ *
+ * @since 1.1.0
+ */
+public class HealthchecksManagerPool implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HealthchecksManagerPool.class);
+
+    private final String hostUrl;
+    private final OkHttpClient client;
+    /**
+     * Whether the connection pool has been created by this pool (and not by the user's client).
+     */
+    private final boolean ownsConnections;
+    private final PriorityDispatcher priorityDispatcher;
+    private final Executor completionExecutor;
+    private final RateLimiter globalLimiter;
+    private final double requestsPerSecondPerKey;
+    private final int burstPerKey;
+    private final ScheduledExecutorService timer;
+    private final AtomicLong delayed = new AtomicLong();
+    private final Map<String, HealthchecksManager> managers = new ConcurrentHashMap<>();
+    private final Map<String, String> projects = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    private HealthchecksManagerPool(Builder builder) {
+        this.hostUrl = builder.hostUrl;
+        this.requestsPerSecondPerKey = builder.requestsPerSecondPerKey;
+        this.burstPerKey = builder.burstPerKey;
+        this.globalLimiter = builder.globalRequestsPerSecond > 0
+                ? new RateLimiter(builder.globalRequestsPerSecond, builder.globalBurst) : null;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "healthchecks-rate-limit");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.priorityDispatcher = builder.options.getPriorityDispatcher();
+        this.completionExecutor = builder.options.getCompletionExecutor();
+        OkHttpClient.Builder clientBuilder = Healthchecks.createHttpClient(builder.options).newBuilder();
+        //A priority dispatcher brings its own (shared) OkHttp dispatcher
+        if (priorityDispatcher == null) {
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(builder.maxConcurrentRequests);
+            //All keys talk to the same host, so the per-host limit must not be lower
+            dispatcher.setMaxRequestsPerHost(builder.maxConcurrentRequests);
+            clientBuilder.dispatcher(dispatcher);
+        }
+        this.client = clientBuilder.build();
+        this.ownsConnections = builder.options.getHttpClient() == null;
+    }
+
+    /**
+     * @return A new {@link Builder} with the default settings (healthchecks.io, no rate limits,
+     *         64 concurrent requests).
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * <p>Returns the manager for an API key. Managers are created once per key and
+     * share the connections of this pool.</p>
+     *
+     * @param apiKey A read-only or normal API key. <b>Must not be null.</b>
+     *
+     * @return The {@link HealthchecksManager} for this key.
+     */
+    public HealthchecksManager forKey(String apiKey) {
+        Objects.requireNonNull(apiKey);
+        return managers.computeIfAbsent(apiKey, key -> {
+            RateLimiter keyLimiter = requestsPerSecondPerKey > 0
+                    ? new RateLimiter(requestsPerSecondPerKey, burstPerKey) : null;
+            RateLimitGate rateLimit = keyLimiter != null || globalLimiter != null
+                    ? new RateLimitGate(timer, delayed, keyLimiter, globalLimiter) : null;
+            //The pool owns the connections and the dispatcher, closing a manager only drains its calls
+            OkHttpTransport transport = new OkHttpTransport(client);
+            return new HealthchecksManagerImpl(hostUrl, key, transport, priorityDispatcher, completionExecutor,
+                    new Lifecycle(transport, false), rateLimit);
+        });
+    }
+
+    /**
+     * <p>Registers a project, so that it will be included in cross-project queries.</p>
+     *
+     * @param project A name for the project (used as key in the query results).
+     * @param apiKey  The API key of the project.
+     *
+     * @return The {@link HealthchecksManager} for this project.
+     */
+    public HealthchecksManager register(String project, String apiKey) {
+        Objects.requireNonNull(project);
+        HealthchecksManager manager = forKey(apiKey);
+        projects.put(project, apiKey);
+        return manager;
+    }
+
+    /**
+     * @param project The name of a registered project.
+     *
+     * @return The manager of this project (or null if it has not been registered).
+     */
+    public HealthchecksManager get(String project) {
+        String key = projects.get(project);
+        return key == null ? null : forKey(key);
+    }
+
+    /**
+     * @return The names of all registered projects.
+     */
+    public Set<String> getProjects() {
+        synchronized (projects) {
+            return Collections.unmodifiableSet(new LinkedHashSet<>(projects.keySet()));
+        }
+    }
+
+    /**
+     * <p>Runs a query for every registered project in parallel.</p>
+     *
+     * @param query The query, e.g. {@code manager -> manager.getChannels()}.
+     * @param <T>   The result type of the query.
+     *
+     * @return The results per project name, wrapped in a {@link CompletableFuture} object for
+     *         async execution. It fails if the query fails for any project.
+     */
+    public <T> CompletableFuture<Map<String, T>> queryAll(
+            Function<HealthchecksManager, CompletableFuture<T>> query) {
+        List<String> names;
+        synchronized (projects) {
+            names = new ArrayList<>(projects.keySet());
+        }
+
+        List<CompletableFuture<T>> futures = new ArrayList<>(names.size());
+        for (String name : names)
+            futures.add(query.apply(get(name)));
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            Map<String, T> result = new LinkedHashMap<>();
+            for (int i = 0; i < names.size(); i++)
+                result.put(names.get(i), futures.get(i).join());
+            return result;
+        });
+    }
+
+    /**
+     * @param tags <i>(optional)</i> The tags which all returned checks should have
+     *
+     * @return The checks of all registered projects, per project name.
+     */
+    public CompletableFuture<Map<String, Check[]>> getAllChecks(String... tags) {
+        return queryAll(manager -> manager.getExistingChecks(tags));
+    }
+
+    /**
+     * @return All checks with the status {@code down}, per project name (projects without
+     *         down checks are omitted).
+     */
+    public CompletableFuture<Map<String, Check[]>> getDownChecks() {
+        return getAllChecks().thenApply(all -> {
+            Map<String, Check[]> result = new LinkedHashMap<>();
+            all.forEach((project, checks) -> {
+                Check[] down = Arrays.stream(checks)
+                        .filter(check -> "down".equals(check.getStatus()))
+                        .toArray(Check[]::new);
+                if (down.length > 0)
+                    result.put(project, down);
+            });
+            return result;
+        });
+    }
+
+    /**
+     * @return The number of requests which have been delayed by a rate limit.
+     */
+    public long getDelayedCount() {
+        return delayed.get();
+    }
+
+    /**
+     * <p>Shuts down the shared dispatcher and closes all idle connections (unless they belong to
+     * the client of the {@link HealthchecksOptions}). Requests which wait for a rate limit fail.
+     * Managers of this pool can't be used afterwards.</p>
+     */
+    @Override
+    public void close() {
+        LOG.debug("Closing manager pool with {} keys", managers.size());
+        timer.shutdownNow();
+        //A priority dispatcher is shared with other users
+        if (priorityDispatcher == null)
+            client.dispatcher().executorService().shutdown();
+        //The connections of a user-supplied client are still in use elsewhere
+        if (ownsConnections)
+            client.connectionPool().evictAll();
+    }
+
+    /**
+     * Builder for {@link HealthchecksManagerPool} objects.
+     */
+    public static final class Builder {
+
+        private String hostUrl = HealthchecksManagerImpl.HEALTHCHECKS_HOST;
+        private HealthchecksOptions options = HealthchecksOptions.DEFAULT;
+        private double requestsPerSecondPerKey;
+        private int burstPerKey = 1;
+        private double globalRequestsPerSecond;
+        private int globalBurst = 1;
+        private int maxConcurrentRequests = 64;
+
+        private Builder() {
+        }
+
+        /**
+         * @param hostUrl The URL of your healthchecks instance (default: healthchecks.io).
+         */
+        public Builder hostUrl(String hostUrl) {
+            this.hostUrl = Objects.requireNonNull(hostUrl);
+            return this;
+        }
+
+        /**
+         * @param options The options (e.g. timeouts) for the shared client.
+         */
+        public Builder options(HealthchecksOptions options) {
+            this.options = Objects.requireNonNull(options);
+            return this;
+        }
+
+        /**
+         * @param requestsPerSecond The budget of every API key. 0 disables the limit (default).
+         */
+        public Builder requestsPerSecondPerKey(double requestsPerSecond) {
+            this.requestsPerSecondPerKey = requestsPerSecond;
+            return this;
+        }
+
+        /**
+         * @param burst The number of requests an idle API key may send at once (default: 1).
+         */
+        public Builder burstPerKey(int burst) {
+            this.burstPerKey = burst;
+            return this;
+        }
+
+        /**
+         * @param requestsPerSecond The budget of all keys together. 0 disables the limit (default).
+         */
+        public Builder globalRequestsPerSecond(double requestsPerSecond) {
+            this.globalRequestsPerSecond = requestsPerSecond;
+            return this;
+        }
+
+        /**
+         * @param burst The number of requests which may be sent at once after the pool
+         *              has been idle (default: 1).
+         */
+        public Builder globalBurst(int burst) {
+            this.globalBurst = burst;
+            return this;
+        }
+
+        /**
+         * @param maxConcurrentRequests The maximum number of requests in flight (default: 64).
+         */
+        public Builder maxConcurrentRequests(int maxConcurrentRequests) {
+            if (maxConcurrentRequests < 1)
+                throw new IllegalArgumentException("At least one concurrent request is required!");
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
+        public HealthchecksManagerPool build() {
+            return new HealthchecksManagerPool(this);
+        }
+    }
+}
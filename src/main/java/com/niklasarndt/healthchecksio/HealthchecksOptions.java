@@ -0,0 +1,100 @@
+package com.niklasarndt.healthchecksio;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import okhttp3.OkHttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>Optional settings for {@link HealthchecksClient} and {@link HealthchecksManager}
+ * instances, e.g. timeouts.</p>
+ *
+ * <p>Create a new object via {@link #builder()} and pass it to one of the factory
+ * methods in {@link Healthchecks}. Values which are not set keep the OkHttp defaults.</p>
+ *
+ * <pre>{@code
+ * HealthchecksOptions options = HealthchecksOptions.builder()
+ *         .connectTimeout(Duration.ofSeconds(2))
+ *         .callTimeout(Duration.ofSeconds(5))
+ *         .build();
+ * HealthchecksClient client = Healthchecks.forUuid("https://hc-ping.com/", "<uuid>", options);
+ * }</pre>
+ *
+ * @since 1.1.0
+ */
+@Getter
+@ToString
+@Builder(toBuilder = true)
+public class HealthchecksOptions {
+
+    /**
+     * The options which are used if none have been specified (OkHttp defaults).
+     */
+    public static final HealthchecksOptions DEFAULT = HealthchecksOptions.builder().build();
+
+    /**
+     * The maximum time to establish a connection (OkHttp default: 10 seconds).
+     */
+    private final Duration connectTimeout;
+    /**
+     * The maximum time between two packets while reading a response (OkHttp default: 10 seconds).
+     */
+    private final Duration readTimeout;
+    /**
+     * The maximum time between two packets while writing a request (OkHttp default: 10 seconds).
+     */
+    private final Duration writeTimeout;
+    /**
+     * The maximum time for a complete call, including DNS, connecting, writing the
+     * request and reading the response (OkHttp default: no limit).
+     */
+    private final Duration callTimeout;
+    /**
+     * An existing {@link OkHttpClient} whose connection pool and dispatcher will be shared
+     * (e.g. between many clients). The timeouts above are applied on top of its settings.
+     */
+    private final OkHttpClient httpClient;
+    /**
+     * Queues requests by {@link RequestPriority} before they are sent, so that alerts are
+     * not delayed by bulk traffic. Share one instance between all clients and managers.
+     */
+    private final PriorityDispatcher priorityDispatcher;
+    /**
+     * The executor which completes the returned futures, so that callbacks chained on them
+     * don't block the OkHttp dispatcher threads. Clients complete heartbeats inline if it is
+     * not set (they are cheap); managers read and parse their responses on it and fall back
+     * to the bounded {@link Healthchecks#decodeExecutor()}. Use {@code Runnable::run} to
+     * parse inline.
+     */
+    private final Executor completionExecutor;
+    /**
+     * The transport which sends the requests, see {@link Healthchecks#jdkTransport(HealthchecksOptions,
+     * Executor)}. It is shared and not closed by the clients and managers which use it, and the
+     * timeouts and HTTP client above are ignored (pass them to the transport instead). If not set,
+     * every client or manager creates its own OkHttp transport.
+     */
+    private final HealthchecksTransport transport;
+
+    /**
+     * <p>Applies these options to an {@link OkHttpClient.Builder}.</p>
+     *
+     * @param builder The builder which will be altered.
+     *
+     * @return The same builder for chaining.
+     */
+    protected OkHttpClient.Builder applyTo(OkHttpClient.Builder builder) {
+        if (connectTimeout != null)
+            builder.connectTimeout(connectTimeout);
+        if (readTimeout != null)
+            builder.readTimeout(readTimeout);
+        if (writeTimeout != null)
+            builder.writeTimeout(writeTimeout);
+        if (callTimeout != null)
+            builder.callTimeout(callTimeout);
+        if (priorityDispatcher != null)
+            builder.dispatcher(priorityDispatcher.getDispatcher());
+        return builder;
+    }
+}
@@ -0,0 +1,211 @@
+package com.niklasarndt.healthchecksio;
+
+import okhttp3.Response;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>Utilizes the <a href="https://healthchecks.io/docs/http_api/">Pinging API</a>
+ * with a project's <b>ping key</b>: checks are addressed by their slug
+ * ({@code /<ping-key>/<slug>}) instead of their UUID, so a single object can send
+ * heartbeats for every check of a project.</p>
+ *
+ * <p>Slugs consist of lowercase letters, digits, hyphens and underscores
+ * (e.g. {@code nightly-backup}).</p>
+ *
+ * @since 1.1.0
+ */
+public interface HealthchecksPingKeyClient extends AutoCloseable {
+
+    /**
+     * <p>Notifies healthchecks.io about the start of an event.</p>
+     *
+     * @param slug The slug of the check. <b>Must not be null.</b>
+     *
+     * @return A {@link CompletableFuture} with a
+     *         {@link Response} object. Use {@link CompletableFuture#get()} to retrieve your response!
+     */
+    default CompletableFuture<Response> start(String slug) {
+        return start(slug, null);
+    }
+
+    /**
+     * <p>Notifies healthchecks.io about the start of an event.</p>
+     *
+     * @param slug The slug of the check. <b>Must not be null.</b>
+     * @param body A message (plain text) which will be stored on healthchecks.io, together with this status message.
+     *
+     * @return A {@link CompletableFuture} with a
+     *         {@link Response} object. Use {@link CompletableFuture#get()} to retrieve your response!
+     */
+    CompletableFuture<Response> start(String slug, String body);
+
+    /**
+     * <p>Notifies healthchecks.io about the (successful) completion of an event.</p>
+     *
+     * @param slug The slug of the check. <b>Must not be null.</b>
+     *
+     * @return A {@link CompletableFuture} with a
+     *         {@link Response} object. Use {@link CompletableFuture#get()} to retrieve your response!
+     */
+    default CompletableFuture<Response> success(String slug) {
+        return success(slug, null);
+    }
+
+    /**
+     * <p>Notifies healthchecks.io about the (successful) completion of an event.</p>
+     *
+     * @param slug The slug of the check. <b>Must not be null.</b>
+     * @param body A message (plain text) which will be stored on healthchecks.io, together with this status message.
+     *
+     * @return A {@link CompletableFuture} with a
+     *         {@link Response} object. Use {@link CompletableFuture#get()} to retrieve your response!
+     */
+    CompletableFuture<Response> success(String slug, String body);
+
+    /**
+     * <p>Notifies healthchecks.io about the failure of an event.</p>
+     *
+     * @param slug The slug of the check. <b>Must not be null.</b>
+     *
+     * @return A {@link CompletableFuture} with a
+     *         {@link Response} object. Use {@link CompletableFuture#get()} to retrieve your response!
+     */
+    default CompletableFuture<Response> fail(String slug) {
+        return fail(slug, null);
+    }
+
+    /**
+     * <p>Notifies healthchecks.io about the failure of an event.</p>
+     *
+     * @param slug The slug of the check. <b>Must not be null.</b>
+     * @param body A message (plain text) which will be stored on healthchecks.io, together with this status message.
+     *
+     * @return A {@link CompletableFuture} with a
+     *         {@link Response} object. Use {@link CompletableFuture#get()} to retrieve your response!
+     */
+    CompletableFuture<Response> fail(String slug, String body);
+
+    /**
+     * <p>Notifies healthchecks.io about the completion of an event with
+     * the exit code {@code code}.</p>
+     *
+     * @param slug The slug of the check. <b>Must not be null.</b>
+     * @param code The exit code of the event (0-255). If the code is equal to 0, healthchecks.io
+     *             will interpret this as a success, all other exit codes will raise an alert!
+     *
+     * @return A {@link CompletableFuture} with a
+     *         {@link Response} object. Use {@link CompletableFuture#get()} to retrieve your response!
+     */
+    default CompletableFuture<Response> exitCode(String slug, int code) {
+        return exitCode(slug, code, null);
+    }
+
+    /**
+     * <p>Notifies healthchecks.io about the completion of an event with
+     * the exit code {@code code}.</p>
+     *
+     * @param slug The slug of the check. <b>Must not be null.</b>
+     * @param code The exit code of the event (0-255). If the code is equal to 0, healthchecks.io
+     *             will interpret this as a success, all other exit codes will raise an alert!
+     * @param body A message (plain text) which will be stored on healthchecks.io, together with this status message.
+     *
+     * @return A {@link CompletableFuture} with a
+     *         {@link Response} object. Use {@link CompletableFuture#get()} to retrieve your response!
+     */
+    CompletableFuture<Response> exitCode(String slug, int code, String body);
+
+    /**
+     * <p>Returns a {@link HealthchecksClient} for a single slug, e.g. to pass it to code
+     * which only knows about the UUID-based client. The view shares the connections of
+     * this client.</p>
+     *
+     * @param slug The slug of the check. <b>Must not be null.</b>
+     *
+     * @return A {@link HealthchecksClient} which sends its heartbeats for {@code slug}.
+     */
+    HealthchecksClient forSlug(String slug);
+
+    /**
+     * <p>Returns a view of this client which appends {@code ?create=1} to every ping, so
+     * healthchecks.io creates checks with unknown slugs automatically (the response
+     * status is 201 in that case).</p>
+     *
+     * @return A {@link HealthchecksPingKeyClient} which creates missing checks.
+     */
+    HealthchecksPingKeyClient withAutoCreate();
+
+    /**
+     * <p>Returns a view of this client which uses the {@code timeout} for every call.</p>
+     *
+     * @param timeout The maximum duration of each call. <b>Must not be null.</b>
+     *
+     * @return A {@link HealthchecksPingKeyClient} with the timeout applied.
+     *
+     * @see HealthchecksClient#withTimeout(Duration)
+     */
+    default HealthchecksPingKeyClient withTimeout(Duration timeout) {
+        return new DecoratedPingKeyClient(this, CallDecorator.timeout(timeout));
+    }
+
+    /**
+     * <p>Returns a view of this client which cancels all calls which have not completed
+     * before the {@code deadline}.</p>
+     *
+     * @param deadline The absolute point in time. <b>Must not be null.</b>
+     *
+     * @return A {@link HealthchecksPingKeyClient} with the deadline applied.
+     *
+     * @see HealthchecksClient#withDeadline(Instant)
+     */
+    default HealthchecksPingKeyClient withDeadline(Instant deadline) {
+        return new DecoratedPingKeyClient(this, CallDecorator.deadline(deadline));
+    }
+
+    /**
+     * <p>Returns a view of this client which completes its futures via {@code executor}, so
+     * that callbacks chained on them don't run on (and block) the OkHttp dispatcher threads.</p>
+     *
+     * @param executor The executor which completes the futures. <b>Must not be null.</b>
+     *
+     * @return A {@link HealthchecksPingKeyClient} with the executor applied.
+     *
+     * @see HealthchecksOptions#getCompletionExecutor()
+     */
+    default HealthchecksPingKeyClient withExecutor(Executor executor) {
+        return new DecoratedPingKeyClient(this, CallDecorator.executor(executor));
+    }
+
+    /**
+     * <p>Waits up to {@code timeout} for pending calls (e.g. the last heartbeats of a batch
+     * job), cancels the remaining ones, closes idle connections and stops the OkHttp threads,
+     * so they don't keep the JVM alive. Calls made afterwards fail.</p>
+     *
+     * <p>All views of this client (e.g. created by {@code withTimeout}) share these resources, so
+     * closing one of them closes all. A shared {@link HealthchecksOptions#getHttpClient()
+     * OkHttpClient} or {@link PriorityDispatcher} is not shut down.</p>
+     *
+     * @param timeout The maximum time to wait for pending calls.
+     *
+     * @return Whether all pending calls have completed in time (always true for implementations
+     *         without resources to release, which is the default).
+     *
+     * @since 1.1.0
+     */
+    default boolean closeGracefully(Duration timeout) {
+        return true;
+    }
+
+    /**
+     * <p>Closes this client, waiting up to {@link Healthchecks#CLOSE_TIMEOUT} for pending calls.</p>
+     *
+     * @see #closeGracefully(Duration)
+     * @since 1.1.0
+     */
+    @Override
+    default void close() {
+        closeGracefully(Healthchecks.CLOSE_TIMEOUT);
+    }
+}
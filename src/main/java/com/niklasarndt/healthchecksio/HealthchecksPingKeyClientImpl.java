@@ -0,0 +1,244 @@
+package com.niklasarndt.healthchecksio;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>Please check out {@link HealthchecksPingKeyClient} for documentation (this is just the
+ * implementation).</p>
+ *
+ * @since 1.1.0
+ */
+public class HealthchecksPingKeyClientImpl implements HealthchecksPingKeyClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HealthchecksPingKeyClient.class);
+    private static final String HEALTHCHECKS_HOST = "https://hc-ping.com/";
+
+    private final HealthchecksTransport transport;
+    /**
+     * {@code <host>/<ping-key>}, parsed once and extended per ping.
+     */
+    private final HttpUrl baseUrl;
+    private final boolean create;
+    private final Duration timeout;
+    private final Instant deadline;
+    private final PriorityDispatcher dispatcher;
+    private final Executor executor;
+    private final Lifecycle lifecycle;
+
+    protected HealthchecksPingKeyClientImpl(String pingKey) {
+        this(HEALTHCHECKS_HOST, pingKey, HealthchecksOptions.DEFAULT);
+    }
+
+    protected HealthchecksPingKeyClientImpl(String host, String pingKey, HealthchecksOptions options) {
+        Objects.requireNonNull(host);
+        Objects.requireNonNull(pingKey);
+        Objects.requireNonNull(options);
+        host = host.trim();
+        if (pingKey.trim().isEmpty())
+            throw new IllegalArgumentException("The ping key must not be empty!");
+
+        //Skip URL validation for default host (already validated)
+        String validated = host.equals(HEALTHCHECKS_HOST) ? host : Healthchecks.validateUrl(host);
+        this.baseUrl = HttpUrl.get(validated).newBuilder()
+                .addPathSegment(pingKey.trim())
+                .build();
+        this.transport = Healthchecks.createTransport(options);
+        this.dispatcher = options.getPriorityDispatcher();
+        this.executor = options.getCompletionExecutor();
+        this.lifecycle = new Lifecycle(transport, options.getTransport() == null);
+        this.create = false;
+        this.timeout = null;
+        this.deadline = null;
+        LOG.debug("Host url has been set to {}", validated);
+    }
+
+    private HealthchecksPingKeyClientImpl(HealthchecksPingKeyClientImpl source, boolean create,
+                                          Duration timeout, Instant deadline, Executor executor) {
+        this.transport = source.transport;
+        this.baseUrl = source.baseUrl;
+        this.create = create;
+        this.timeout = timeout;
+        this.deadline = deadline;
+        this.dispatcher = source.dispatcher;
+        this.executor = executor;
+        this.lifecycle = source.lifecycle;
+    }
+
+    @Override
+    public boolean closeGracefully(Duration timeout) {
+        return lifecycle.close(timeout);
+    }
+
+    @Override
+    public CompletableFuture<Response> start(String slug, String body) {
+        return sendHeartbeat(slug, "start", body, RequestPriority.HEARTBEAT);
+    }
+
+    @Override
+    public CompletableFuture<Response> success(String slug, String body) {
+        return sendHeartbeat(slug, null, body, RequestPriority.HEARTBEAT);
+    }
+
+    @Override
+    public CompletableFuture<Response> fail(String slug, String body) {
+        return sendHeartbeat(slug, "fail", body, RequestPriority.ALERT);
+    }
+
+    @Override
+    public CompletableFuture<Response> exitCode(String slug, int code, String body) {
+        if (code < 0 || code > 255)
+            throw new IllegalArgumentException("Only values from 0 to 255 are valid exit codes!");
+
+        return sendHeartbeat(slug, Integer.toString(code), body,
+                code == 0 ? RequestPriority.HEARTBEAT : RequestPriority.ALERT);
+    }
+
+    @Override
+    public HealthchecksClient forSlug(String slug) {
+        validateSlug(slug);
+        return new SlugClient(this, slug);
+    }
+
+    @Override
+    public HealthchecksPingKeyClient withAutoCreate() {
+        return new HealthchecksPingKeyClientImpl(this, true, timeout, deadline, executor);
+    }
+
+    @Override
+    public HealthchecksPingKeyClient withTimeout(Duration timeout) {
+        return new HealthchecksPingKeyClientImpl(this, create, Objects.requireNonNull(timeout), deadline, executor);
+    }
+
+    @Override
+    public HealthchecksPingKeyClient withDeadline(Instant deadline) {
+        return new HealthchecksPingKeyClientImpl(this, create, timeout, Objects.requireNonNull(deadline), executor);
+    }
+
+    @Override
+    public HealthchecksPingKeyClient withExecutor(Executor executor) {
+        return new HealthchecksPingKeyClientImpl(this, create, timeout, deadline, Objects.requireNonNull(executor));
+    }
+
+    /**
+     * <p>Checks that {@code slug} only contains characters which healthchecks.io allows in
+     * slugs. Valid slugs never need percent-encoding, so they can be appended as-is.</p>
+     *
+     * @param slug The slug which will be checked.
+     *
+     * @throws IllegalArgumentException If the slug is empty or contains invalid characters.
+     */
+    protected static void validateSlug(String slug) {
+        Objects.requireNonNull(slug);
+        if (slug.isEmpty())
+            throw new IllegalArgumentException("The slug must not be empty!");
+
+        for (int i = 0; i < slug.length(); i++) {
+            char c = slug.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_'))
+                throw new IllegalArgumentException("Invalid slug " + slug
+                        + ", only lowercase letters, digits, hyphens and underscores are allowed!");
+        }
+    }
+
+    /**
+     * <p>Private executor for status check messages.</p>
+     *
+     * @param slug     The slug of the check.
+     * @param event    The sub path after the slug ({@code start}, {@code fail}, an exit code)
+     *                 or null for a success ping.
+     * @param body     A message (plain text) which will be stored on healthchecks.io, together with this status message.
+     * @param priority The priority of the request if a {@link PriorityDispatcher} is used.
+     *
+     * @return A {@link CompletableFuture} with a
+     *         {@link Response} object. Use {@link CompletableFuture#get()} to retrieve your response!
+     */
+    private CompletableFuture<Response> sendHeartbeat(String slug, String event, String body,
+                                                      RequestPriority priority) {
+        validateSlug(slug);
+        LOG.debug("Sending signal {} for slug {} (has body: {}, create: {})",
+                event == null ? "success" : event, slug, body != null, create);
+
+        HttpUrl check = baseUrl.newBuilder().addEncodedPathSegment(slug).build();
+        HttpUrl.Builder url = check.newBuilder();
+        if (event != null)
+            url.addEncodedPathSegment(event);
+        if (create)
+            url.addEncodedQueryParameter("create", "1");
+
+        Request.Builder builder = new Request.Builder()
+                .url(url.build())
+                .tag(RequestPriority.class, priority)
+                .tag(HeartbeatCheck.class, new HeartbeatCheck(check));
+        if (body != null)
+            builder.post(RequestBody.create(body, Healthchecks.PLAIN_TEXT));
+        else
+            builder.get();
+
+        Request request = builder.build();
+        return lifecycle.track(() -> Healthchecks.enqueue(transport, request, timeout, deadline, dispatcher, executor));
+    }
+
+    /**
+     * A {@link HealthchecksClient} view for a single slug.
+     */
+    private static final class SlugClient implements HealthchecksClient {
+
+        private final HealthchecksPingKeyClientImpl parent;
+        private final String slug;
+
+        private SlugClient(HealthchecksPingKeyClientImpl parent, String slug) {
+            this.parent = parent;
+            this.slug = slug;
+        }
+
+        @Override
+        public CompletableFuture<Response> start(String body) {
+            return parent.start(slug, body);
+        }
+
+        @Override
+        public CompletableFuture<Response> success(String body) {
+            return parent.success(slug, body);
+        }
+
+        @Override
+        public CompletableFuture<Response> fail(String body) {
+            return parent.fail(slug, body);
+        }
+
+        @Override
+        public CompletableFuture<Response> exitCode(int code, String body) {
+            return parent.exitCode(slug, code, body);
+        }
+
+        @Override
+        public HealthchecksClient withTimeout(Duration timeout) {
+            return new SlugClient((HealthchecksPingKeyClientImpl) parent.withTimeout(timeout), slug);
+        }
+
+        @Override
+        public HealthchecksClient withDeadline(Instant deadline) {
+            return new SlugClient((HealthchecksPingKeyClientImpl) parent.withDeadline(deadline), slug);
+        }
+
+        @Override
+        public HealthchecksClient withExecutor(Executor executor) {
+            return new SlugClient((HealthchecksPingKeyClientImpl) parent.withExecutor(executor), slug);
+        }
+
+        @Override
+        public boolean closeGracefully(Duration timeout) {
+            return parent.closeGracefully(timeout);
+        }
+    }
+}
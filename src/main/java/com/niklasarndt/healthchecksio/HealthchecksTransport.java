@@ -0,0 +1,50 @@
+package com.niklasarndt.healthchecksio;
+
+import okhttp3.Request;
+import okhttp3.Response;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>Sends the HTTP requests of {@link HealthchecksClient}s and {@link HealthchecksManager}s.</p>
+ *
+ * <p>Requests and responses are described by the OkHttp classes (which are part of the public
+ * API), but an implementation may send them with any HTTP client. Two implementations are
+ * included: {@link OkHttpTransport} (the default) and a transport based on
+ * {@code java.net.http.HttpClient}, which is available on Java 11 and newer, see
+ * {@link Healthchecks#jdkTransport(HealthchecksOptions, Executor)}.</p>
+ *
+ * <pre>{@code
+ * HealthchecksTransport transport = Healthchecks.jdkTransport(HealthchecksOptions.DEFAULT, null);
+ * HealthchecksOptions options = HealthchecksOptions.builder().transport(transport).build();
+ * HealthchecksClient client = Healthchecks.forUuid("https://hc-ping.com/", "<uuid>", options);
+ * }</pre>
+ *
+ * @since 1.1.0
+ */
+public interface HealthchecksTransport extends AutoCloseable {
+
+    /**
+     * <p>Sends a request asynchronously.</p>
+     *
+     * @param request  The request. <b>Must not be null.</b>
+     * @param timeout  <i>(optional)</i> The maximum time for the whole call, which overrides
+     *                 the configured call timeout.
+     * @param deadline <i>(optional)</i> The point in time at which the call is cancelled.
+     * @param executor <i>(optional)</i> The executor which completes the returned future
+     *                 (null: any thread of the transport).
+     *
+     * @return The response, wrapped in a {@link CompletableFuture} object for async execution.
+     *         Cancelling it cancels the call.
+     */
+    CompletableFuture<Response> send(Request request, Duration timeout, Instant deadline, Executor executor);
+
+    /**
+     * <p>Releases the threads and connections which this transport owns. Resources which
+     * have been passed in (e.g. a shared {@code OkHttpClient}) are left alone.</p>
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,54 @@
+package com.niklasarndt.healthchecksio;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * <p>The check a heartbeat belongs to. The clients tag their heartbeats with it, so that
+ * transports which keep state per check (e.g. the outbox of {@link CircuitBreakerTransport})
+ * don't have to tell the check and the event apart in the URL: {@code /<ping-key>/404} is
+ * the success ping of the slug {@code 404}, not the exit code 404.</p>
+ *
+ * @since 1.1.0
+ */
+final class HeartbeatCheck {
+
+    private static final Pattern UUID = Pattern.compile(
+            "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    private final String key;
+
+    /**
+     * @param url The ping URL of the check, without the event (e.g. {@code /start}).
+     */
+    HeartbeatCheck(HttpUrl url) {
+        this.key = key(url, url.pathSize());
+    }
+
+    /**
+     * @param request A heartbeat request.
+     *
+     * @return The check of the request (host, port and path without the event). Untagged requests
+     *         (e.g. of custom clients) are parsed: the UUID layout ({@code /<uuid>[/<event>]}) is
+     *         recognized by the UUID, any other URL is treated as a check of its own.
+     */
+    static String of(Request request) {
+        HeartbeatCheck check = request.tag(HeartbeatCheck.class);
+        if (check != null)
+            return check.key;
+
+        HttpUrl url = request.url();
+        List<String> segments = url.pathSegments();
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            if (UUID.matcher(segments.get(i)).matches())
+                return key(url, i + 1);
+        }
+        return key(url, segments.size());
+    }
+
+    private static String key(HttpUrl url, int segments) {
+        return url.host() + ":" + url.port() + "/" + String.join("/", url.pathSegments().subList(0, segments));
+    }
+}
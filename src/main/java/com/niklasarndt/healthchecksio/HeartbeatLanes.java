@@ -0,0 +1,263 @@
+package com.niklasarndt.healthchecksio;
+
+import okhttp3.Response;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * <p>Delivers heartbeats of the same check in order, while heartbeats of different checks
+ * proceed in parallel.</p>
+ *
+ * <p>OkHttp sends calls concurrently, so {@code start()} and {@code success()} fired back to
+ * back may reach healthchecks.io in the wrong order. Calls submitted through this class are
+ * assigned to a lane by the hash of their key (e.g. the UUID); each lane sends its next call
+ * only after the previous one has completed. There is no global lock (every lane is guarded
+ * by its own monitor), and every lane holds at most {@code laneCapacity} pending calls.
+ * Further calls fail fast with a {@link RejectedExecutionException}.</p>
+ *
+ * <p>Different checks may share a lane, so a slow check can delay others in its lane.
+ * Use more lanes than concurrently active checks to keep this rare.</p>
+ *
+ * <pre>{@code
+ * HeartbeatLanes lanes = new HeartbeatLanes(64, 16);
+ * HealthchecksClient client = lanes.ordered(Healthchecks.forUuid(uuid), uuid);
+ * client.start();
+ * client.success(); //sent after start() completed
+ * }</pre>
+ *
+ * @since 1.1.0
+ */
+public class HeartbeatLanes {
+
+    private final Lane[] lanes;
+    private final int mask;
+    private final int laneCapacity;
+
+    /**
+     * @param lanes        The number of lanes (rounded up to a power of two).
+     * @param laneCapacity The maximum number of pending calls per lane (including the one
+     *                     in flight).
+     */
+    public HeartbeatLanes(int lanes, int laneCapacity) {
+        if (lanes < 1 || lanes > (1 << 16))
+            throw new IllegalArgumentException("The number of lanes must be between 1 and 65536!");
+        if (laneCapacity < 1)
+            throw new IllegalArgumentException("The lane capacity must be at least 1!");
+
+        int size = Integer.highestOneBit(lanes);
+        if (size < lanes)
+            size <<= 1;
+        this.lanes = new Lane[size];
+        for (int i = 0; i < size; i++)
+            this.lanes[i] = new Lane();
+        this.mask = size - 1;
+        this.laneCapacity = laneCapacity;
+    }
+
+    /**
+     * <p>Returns a view of {@code client} whose calls are delivered in order.</p>
+     *
+     * @param client The client. <b>Must not be null.</b>
+     * @param key    The key which determines the lane, normally the UUID of the check.
+     *               Clients of the same check must use the same key.
+     *
+     * @return An ordered {@link HealthchecksClient}.
+     */
+    public HealthchecksClient ordered(HealthchecksClient client, String key) {
+        return new OrderedClient(Objects.requireNonNull(client), Objects.requireNonNull(key));
+    }
+
+    /**
+     * <p>Queues a call in the lane of {@code key}. The call is started after all previously
+     * submitted calls with the same lane have completed.</p>
+     *
+     * @param key  The key which determines the lane (e.g. the UUID of a check).
+     * @param call Starts the call, e.g. {@code () -> client.start()}.
+     *
+     * @return A {@link CompletableFuture} which completes with the response of the call.
+     *         Cancelling it before the call has been started removes the call from its lane.
+     *         It fails with a {@link RejectedExecutionException} if the lane is full.
+     */
+    public CompletableFuture<Response> submit(String key, Supplier<CompletableFuture<Response>> call) {
+        Lane lane = lanes[spread(key.hashCode()) & mask];
+        Task task = new Task(call);
+
+        boolean start;
+        synchronized (lane) {
+            if (lane.queue.size() + (lane.running ? 1 : 0) >= laneCapacity) {
+                CompletableFuture<Response> rejected = new CompletableFuture<>();
+                rejected.completeExceptionally(new RejectedExecutionException(
+                        "The lane of " + key + " is full (" + laneCapacity + " pending calls)"));
+                return rejected;
+            }
+            lane.queue.add(task);
+            start = !lane.running;
+            lane.running = true;
+        }
+
+        if (start) {
+            drain(lane);
+        } else {
+            //A cancelled call leaves the lane right away, so it does not take up its capacity
+            task.result.whenComplete((response, error) -> {
+                if (task.result.isCancelled()) {
+                    synchronized (lane) {
+                        lane.queue.remove(task);
+                    }
+                }
+            });
+        }
+        return task.result;
+    }
+
+    /**
+     * @return The number of pending calls (including the ones in flight).
+     */
+    public int getPendingCount() {
+        int pending = 0;
+        for (Lane lane : lanes) {
+            synchronized (lane) {
+                pending += lane.queue.size() + (lane.running ? 1 : 0);
+            }
+        }
+        return pending;
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Starts the queued calls of a lane one after another. Calls which complete synchronously
+     * are handled in a loop instead of recursively.
+     */
+    private void drain(Lane lane) {
+        while (true) {
+            Task task;
+            synchronized (lane) {
+                task = lane.queue.poll();
+                if (task == null) {
+                    lane.running = false;
+                    return;
+                }
+            }
+            //Cancelled while waiting in the lane
+            if (task.result.isDone())
+                continue;
+
+            CompletableFuture<Response> future;
+            try {
+                future = task.call.get();
+            } catch (RuntimeException e) {
+                task.result.completeExceptionally(e);
+                continue;
+            }
+
+            if (future.isDone()) {
+                task.complete(future);
+                continue;
+            }
+            task.result.whenComplete((response, error) -> {
+                if (task.result.isCancelled())
+                    future.cancel(true);
+            });
+            future.whenComplete((response, error) -> {
+                task.complete(future);
+                drain(lane);
+            });
+            return;
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Lane {
+        private final ArrayDeque<Task> queue = new ArrayDeque<>();
+        /**
+         * Whether a call of this lane is in flight (or the lane is being drained).
+         */
+        private boolean running;
+    }
+
+    private static final class Task {
+        private final Supplier<CompletableFuture<Response>> call;
+        private final CompletableFuture<Response> result = new CompletableFuture<>();
+
+        private Task(Supplier<CompletableFuture<Response>> call) {
+            this.call = call;
+        }
+
+        private void complete(CompletableFuture<Response> future) {
+            future.whenComplete((response, error) -> {
+                if (error != null)
+                    result.completeExceptionally(error);
+                else if (!result.complete(response) && response != null)
+                    response.close();
+            });
+        }
+    }
+
+    /**
+     * A {@link HealthchecksClient} which submits all calls to the lane of its key.
+     */
+    private final class OrderedClient implements HealthchecksClient {
+
+        private final HealthchecksClient delegate;
+        private final String key;
+
+        private OrderedClient(HealthchecksClient delegate, String key) {
+            this.delegate = delegate;
+            this.key = key;
+        }
+
+        @Override
+        public CompletableFuture<Response> start(String body) {
+            return submit(key, () -> delegate.start(body));
+        }
+
+        @Override
+        public CompletableFuture<Response> success(String body) {
+            return submit(key, () -> delegate.success(body));
+        }
+
+        @Override
+        public CompletableFuture<Response> fail(String body) {
+            return submit(key, () -> delegate.fail(body));
+        }
+
+        @Override
+        public CompletableFuture<Response> exitCode(int code, String body) {
+            if (code < 0 || code > 255)
+                throw new IllegalArgumentException("Only values from 0 to 255 are valid exit codes!");
+            return submit(key, () -> delegate.exitCode(code, body));
+        }
+
+        @Override
+        public HealthchecksClient withTimeout(Duration timeout) {
+            return new OrderedClient(delegate.withTimeout(timeout), key);
+        }
+
+        @Override
+        public HealthchecksClient withDeadline(Instant deadline) {
+            return new OrderedClient(delegate.withDeadline(deadline), key);
+        }
+
+        @Override
+        public HealthchecksClient withExecutor(Executor executor) {
+            return new OrderedClient(delegate.withExecutor(executor), key);
+        }
+
+        @Override
+        public boolean closeGracefully(Duration timeout) {
+            return delegate.closeGracefully(timeout);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.niklasarndt.healthchecksio;
+
+import com.niklasarndt.healthchecksio.util.HealthcheckUtils;
+import okhttp3.Request;
+import okhttp3.Response;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>A {@link HealthchecksTransport} which hedges heartbeats: if no response has arrived after
+ * a delay (by default the 95th percentile of the recent heartbeat latencies), the same request
+ * is sent a second time and the first response wins. The other call is cancelled. While the
+ * first call still occupies its HTTP/1.1 connection, the second one uses another connection,
+ * so a single slow connection (e.g. a slow TLS handshake) no longer decides the latency.</p>
+ *
+ * <p>Only success pings (including the exit code 0) are hedged, since receiving them twice is
+ * harmless. A duplicate {@code start} would restart the timer of a check and a duplicate
+ * {@code fail} (or exit code) would be logged twice, so these and all management API calls are
+ * passed on unchanged.
+ * The extra load is capped by a budget: every heartbeat earns a fraction of a hedge
+ * (default: 5%), and up to 10 unused hedges are saved for bursts.</p>
+ *
+ * <pre>{@code
+ * HedgingTransport transport = HedgingTransport.builder(
+ *         Healthchecks.okHttpTransport(HealthchecksOptions.DEFAULT))
+ *         .percentile(0.99)
+ *         .build();
+ * HealthchecksOptions options = HealthchecksOptions.builder().transport(transport).build();
+ * }</pre>
+ *
+ * @since 1.1.0
+ */
+public class HedgingTransport implements HealthchecksTransport {
+
+    //The number of recent latencies which the hedge delay is based on
+    private static final int SAMPLES = 1024;
+    //The hedge delay is recalculated after this many samples
+    private static final int RECALCULATE = 16;
+    //The maximum number of saved hedges (in thousandths)
+    private static final long MAX_TOKENS = 10_000;
+
+    private final HealthchecksTransport delegate;
+    private final double percentile;
+    private final long minimumDelayNanos;
+    private final long tokensPerRequest;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLES);
+    private final AtomicLong sampleCount = new AtomicLong();
+    private final AtomicLong tokens = new AtomicLong(MAX_TOKENS);
+    private final AtomicLong hedged = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+    private volatile long delayNanos;
+
+    private HedgingTransport(Builder builder) {
+        this.delegate = builder.delegate;
+        this.percentile = builder.percentile;
+        this.minimumDelayNanos = builder.minimumDelay.toNanos();
+        this.tokensPerRequest = Math.round(builder.budget * 1000);
+        this.delayNanos = builder.initialDelay.toNanos();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "healthchecks-hedging");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param delegate The transport which sends the requests. <b>Must not be null.</b>
+     *
+     * @return A new {@link Builder} with the default settings (hedge after the 95th percentile,
+     *         but not before 5 ms, 1 second until enough latencies are known, 5% budget).
+     */
+    public static Builder builder(HealthchecksTransport delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public CompletableFuture<Response> send(Request request, Duration timeout, Instant deadline,
+                                            Executor executor) {
+        if (!isSuccessPing(request))
+            return delegate.send(request, timeout, deadline, executor);
+
+        deposit();
+        long delay = delayNanos;
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        Call primary = new Call(result, false);
+        primary.start(request, timeout, deadline, executor);
+        //The hedge has to finish within the same time as the primary call
+        Duration hedgeTimeout = timeout == null ? null : timeout.minusNanos(delay);
+        if (hedgeTimeout != null && (hedgeTimeout.isNegative() || hedgeTimeout.isZero()))
+            return result;
+
+        ScheduledFuture<?> timer = scheduler.schedule(() -> {
+            Call hedge;
+            synchronized (result) {
+                if (result.isDone() || primary.done)
+                    return;
+                if (!withdraw()) {
+                    exhausted.incrementAndGet();
+                    return;
+                }
+                hedge = new Call(result, true);
+                primary.other = hedge;
+                hedge.other = primary;
+            }
+            hedged.incrementAndGet();
+            hedge.start(request, hedgeTimeout, deadline, executor);
+        }, delay, TimeUnit.NANOSECONDS);
+        result.whenComplete((response, error) -> timer.cancel(false));
+        return result;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        delegate.close();
+    }
+
+    /**
+     * @return The current hedge delay.
+     */
+    public Duration getHedgeDelay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    /**
+     * @return The number of heartbeats which have been sent a second time.
+     */
+    public long getHedgedCount() {
+        return hedged.get();
+    }
+
+    /**
+     * @return The number of hedges which have been faster than the first call.
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.get();
+    }
+
+    /**
+     * @return The number of hedges which have not been sent because the budget was used up.
+     */
+    public long getBudgetExhaustedCount() {
+        return exhausted.get();
+    }
+
+    private static boolean isSuccessPing(Request request) {
+        if (RequestPriority.of(request) != RequestPriority.HEARTBEAT)
+            return false;
+        //Fail pings and other exit codes than 0 have the alert priority, start pings remain
+        List<String> segments = request.url().pathSegments();
+        return segments.size() == 1 || !segments.get(segments.size() - 1).equals("start");
+    }
+
+    private void deposit() {
+        tokens.getAndUpdate(current -> Math.min(MAX_TOKENS, current + tokensPerRequest));
+    }
+
+    private boolean withdraw() {
+        while (true) {
+            long current = tokens.get();
+            if (current < 1000)
+                return false;
+            if (tokens.compareAndSet(current, current - 1000))
+                return true;
+        }
+    }
+
+    private void record(long nanos) {
+        long count = sampleCount.getAndIncrement();
+        samples.set((int) (count % SAMPLES), nanos);
+        if ((count + 1) % RECALCULATE != 0)
+            return;
+
+        long[] sorted = new long[(int) Math.min(count + 1, SAMPLES)];
+        for (int i = 0; i < sorted.length; i++)
+            sorted[i] = samples.get(i);
+        Arrays.sort(sorted);
+        int index = Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1);
+        delayNanos = Math.max(minimumDelayNanos, sorted[index]);
+    }
+
+    /**
+     * <p>One of the (up to two) calls of a heartbeat. The first call which receives a response
+     * completes the result and cancels the other one. If a call fails, the result waits for
+     * the other one, if there is any.</p>
+     */
+    private final class Call {
+
+        private final CompletableFuture<Response> result;
+        private final boolean hedge;
+        private volatile CompletableFuture<Response> future;
+        private volatile Call other;
+        private volatile boolean done;
+
+        private Call(CompletableFuture<Response> result, boolean hedge) {
+            this.result = result;
+            this.hedge = hedge;
+        }
+
+        private void start(Request request, Duration timeout, Instant deadline, Executor executor) {
+            if (result.isDone())
+                return;
+            long start = System.nanoTime();
+            future = delegate.send(request, timeout, deadline, executor);
+            HealthcheckUtils.propagateCancellation(result, future);
+            future.whenComplete((response, error) -> complete(response, error, System.nanoTime() - start));
+        }
+
+        private void complete(Response response, Throwable error, long nanos) {
+            if (error == null && response.code() < 500) {
+                record(nanos);
+                //Counted first, so the statistics are up to date once the result has completed
+                if (hedge)
+                    hedgeWins.incrementAndGet();
+                boolean won = result.complete(response);
+                done = true;
+                if (won) {
+                    Call loser = other;
+                    if (loser != null && loser.future != null)
+                        loser.future.cancel(false);
+                } else {
+                    if (hedge)
+                        hedgeWins.decrementAndGet();
+                    response.close();
+                }
+                return;
+            }
+
+            //Wait for the other call, unless it has already failed as well
+            synchronized (result) {
+                done = true;
+                Call sibling = other;
+                if (sibling != null && !sibling.done) {
+                    if (response != null)
+                        response.close();
+                    return;
+                }
+            }
+            if (error != null)
+                result.completeExceptionally(error);
+            else if (!result.complete(response))
+                response.close();
+        }
+    }
+
+    /**
+     * Builder for {@link HedgingTransport} objects.
+     */
+    public static final class Builder {
+
+        private final HealthchecksTransport delegate;
+        private double percentile = 0.95;
+        private Duration minimumDelay = Duration.ofMillis(5);
+        private Duration initialDelay = Duration.ofSeconds(1);
+        private double budget = 0.05;
+
+        private Builder(HealthchecksTransport delegate) {
+            this.delegate = Objects.requireNonNull(delegate);
+        }
+
+        /**
+         * @param percentile The percentile (0 to 1) of the recent latencies after which a heartbeat
+         *                   is sent a second time (default: 0.95).
+         */
+        public Builder percentile(double percentile) {
+            if (percentile <= 0 || percentile > 1)
+                throw new IllegalArgumentException("The percentile must be in (0, 1]!");
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * @param minimumDelay The lower bound of the hedge delay (default: 5 ms).
+         */
+        public Builder minimumDelay(Duration minimumDelay) {
+            this.minimumDelay = Objects.requireNonNull(minimumDelay);
+            return this;
+        }
+
+        /**
+         * @param initialDelay The hedge delay until enough latencies are known (default: 1 second).
+         */
+        public Builder initialDelay(Duration initialDelay) {
+            this.initialDelay = Objects.requireNonNull(initialDelay);
+            return this;
+        }
+
+        /**
+         * @param budget The number of hedges per heartbeat (0 to 1) which may be sent on average,
+         *               e.g. 0.05 for at most 5% extra requests (default: 0.05).
+         */
+        public Builder budget(double budget) {
+            if (budget < 0 || budget > 1)
+                throw new IllegalArgumentException("The budget must be in [0, 1]!");
+            this.budget = budget;
+            return this;
+        }
+
+        public HedgingTransport build() {
+            return new HedgingTransport(this);
+        }
+    }
+}
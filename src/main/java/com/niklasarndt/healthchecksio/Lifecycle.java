@@ -0,0 +1,111 @@
+package com.niklasarndt.healthchecksio;
+
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * <p>Tracks the pending calls of a client or manager (shared with all of its views) and
+ * closes its transport on close.</p>
+ *
+ * @since 1.1.0
+ */
+final class Lifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Lifecycle.class);
+
+    private final HealthchecksTransport transport;
+    private final boolean ownsTransport;
+    private final Set<CompletableFuture<Response>> pending = ConcurrentHashMap.newKeySet();
+    //Calls are registered under the read lock, so close() can't slip in between the check and the registration
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    /**
+     * @param transport     The transport of the client or manager.
+     * @param ownsTransport Whether the transport is closed on close (false if it is shared).
+     */
+    Lifecycle(HealthchecksTransport transport, boolean ownsTransport) {
+        this.transport = transport;
+        this.ownsTransport = ownsTransport;
+    }
+
+    /**
+     * @param call Starts the call.
+     *
+     * @return The future of the call, or a failed one if this instance has been closed.
+     */
+    CompletableFuture<Response> track(Supplier<CompletableFuture<Response>> call) {
+        lock.readLock().lock();
+        try {
+            if (closed) {
+                CompletableFuture<Response> rejected = new CompletableFuture<>();
+                rejected.completeExceptionally(new IllegalStateException("The instance has been closed"));
+                return rejected;
+            }
+
+            CompletableFuture<Response> future = call.get();
+            pending.add(future);
+            future.whenComplete((response, error) -> pending.remove(future));
+            return future;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * <p>Rejects new calls, waits up to {@code timeout} for the pending ones, cancels those
+     * which are still running and closes the transport if it is owned.</p>
+     *
+     * @return Whether all pending calls have completed in time.
+     */
+    boolean close(Duration timeout) {
+        lock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        boolean drained = drain(timeout);
+
+        if (ownsTransport)
+            transport.close();
+        return drained;
+    }
+
+    private boolean drain(Duration timeout) {
+        CompletableFuture<?>[] calls = pending.toArray(new CompletableFuture<?>[0]);
+        if (calls.length == 0)
+            return true;
+
+        LOG.debug("Waiting up to {} for {} pending calls", timeout, calls.length);
+        try {
+            CompletableFuture.allOf(calls).get(Math.max(0, timeout.toNanos()), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (ExecutionException e) {
+            //Failed calls have completed as well
+            return true;
+        } catch (TimeoutException e) {
+            LOG.warn("Cancelling {} calls which did not complete within {}", pending.size(), timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (CompletableFuture<?> call : calls)
+            call.cancel(true);
+        return false;
+    }
+}
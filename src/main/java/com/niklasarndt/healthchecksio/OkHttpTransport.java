@@ -0,0 +1,90 @@
+package com.niklasarndt.healthchecksio;
+
+import com.niklasarndt.healthchecksio.util.OkHttpResponseFuture;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The default {@link HealthchecksTransport}, which sends requests via an {@link OkHttpClient}.</p>
+ *
+ * @since 1.1.0
+ */
+public class OkHttpTransport implements HealthchecksTransport {
+
+    private final OkHttpClient client;
+    private final boolean ownsDispatcher;
+    private final boolean ownsConnections;
+
+    /**
+     * <p>Creates a transport for an existing client, which will not be shut down
+     * by {@link #close()}.</p>
+     *
+     * @param client The client which sends the requests. <b>Must not be null.</b>
+     */
+    public OkHttpTransport(OkHttpClient client) {
+        this(client, false, false);
+    }
+
+    OkHttpTransport(OkHttpClient client, boolean ownsDispatcher, boolean ownsConnections) {
+        this.client = Objects.requireNonNull(client);
+        this.ownsDispatcher = ownsDispatcher;
+        this.ownsConnections = ownsConnections;
+    }
+
+    /**
+     * @param options The options for the new client; shared dispatchers and connection pools
+     *                are not shut down by {@link #close()}.
+     *
+     * @return A transport with its own {@link OkHttpClient}.
+     */
+    static OkHttpTransport create(HealthchecksOptions options) {
+        return new OkHttpTransport(Healthchecks.createHttpClient(options),
+                options.getHttpClient() == null && options.getPriorityDispatcher() == null,
+                options.getHttpClient() == null);
+    }
+
+    /**
+     * <p>Enqueues a request. The per-call {@code timeout} and {@code deadline} (both optional)
+     * override the call timeout of the {@link OkHttpClient}, the call is cancelled once they
+     * are exceeded. The returned future is completed via {@code executor} (null: inline).</p>
+     */
+    @Override
+    public CompletableFuture<Response> send(Request request, Duration timeout, Instant deadline,
+                                            Executor executor) {
+        Call call = client.newCall(request);
+        if (timeout != null)
+            call.timeout().timeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        if (deadline != null) {
+            long remaining = Duration.between(Instant.now(), deadline).toNanos();
+            if (remaining <= 0) {
+                CompletableFuture<Response> expired = new CompletableFuture<>();
+                expired.completeExceptionally(new InterruptedIOException("The deadline "
+                        + deadline + " has already passed"));
+                return expired;
+            }
+            call.timeout().deadlineNanoTime(System.nanoTime() + remaining);
+        }
+        return OkHttpResponseFuture.enqueue(call, executor);
+    }
+
+    @Override
+    public void close() {
+        if (ownsDispatcher)
+            client.dispatcher().executorService().shutdown();
+        if (ownsConnections)
+            client.connectionPool().evictAll();
+    }
+
+    public OkHttpClient getClient() {
+        return client;
+    }
+}
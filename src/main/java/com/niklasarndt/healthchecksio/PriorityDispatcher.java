@@ -0,0 +1,470 @@
+package com.niklasarndt.healthchecksio;
+
+import com.niklasarndt.healthchecksio.exception.ConcurrencyLimitException;
+import com.niklasarndt.healthchecksio.util.ConcurrencyLimit;
+import okhttp3.Dispatcher;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * <p>Queues requests in front of OkHttp by {@link RequestPriority}, so that alerting
+ * heartbeats never wait behind bulk Management API traffic.</p>
+ *
+ * <p>Every priority class has its own concurrency budget. Heartbeats, writes and reads
+ * additionally share a common limit ({@code maxRequests}, or an adaptive
+ * {@link ConcurrencyLimit}), while alerts are only limited by their own budget, so there is
+ * always room for them. The default heartbeat budget is lower than the shared limit, so a burst
+ * of heartbeats can't take all slots from the Management API. Whenever a request completes, the
+ * queued request of the highest priority class with free budget is started. To prevent
+ * starvation, a request which has been queued for longer than {@code maxWait} is started
+ * before all others once its class has free budget (a timer re-evaluates the queue after
+ * {@code maxWait}, so this does not depend on other requests completing).</p>
+ *
+ * <p>Requests fail with an {@link InterruptedIOException} if their deadline passes while they
+ * are queued. If a {@link Builder#queueCapacity(int) queue capacity} has been set, a request
+ * which does not fit into the queue replaces the newest queued request of a lower priority
+ * class, otherwise it fails with a {@link ConcurrencyLimitException}.</p>
+ *
+ * <p>The dispatcher owns the OkHttp {@link Dispatcher} of all clients and managers it is used
+ * by (sized to never queue on its own), so pass the same instance to all of them:</p>
+ *
+ * <pre>{@code
+ * PriorityDispatcher dispatcher = PriorityDispatcher.builder().maxRequests(8).build();
+ * HealthchecksOptions options = HealthchecksOptions.builder().priorityDispatcher(dispatcher).build();
+ * HealthchecksManager manager = Healthchecks.manager("https://healthchecks.io", "<api-key>", options);
+ * HealthchecksClient client = Healthchecks.forUuid("https://hc-ping.com/", "<uuid>", options);
+ * }</pre>
+ *
+ * @since 1.1.0
+ */
+public class PriorityDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PriorityDispatcher.class);
+    private static final RequestPriority[] PRIORITIES = RequestPriority.values();
+
+    private final int maxRequests;
+    private final ConcurrencyLimit limit;
+    private final int[] budgets;
+    private final long maxWait;
+    private final int queueCapacity;
+    private final Dispatcher dispatcher;
+
+    private final List<ArrayDeque<Task>> queues = new ArrayList<>(PRIORITIES.length);
+    private final int[] inFlight = new int[PRIORITIES.length];
+    private int sharedInFlight;
+    private int queued;
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    private PriorityDispatcher(Builder builder) {
+        this.maxRequests = builder.maxRequests;
+        this.limit = builder.limit;
+        this.budgets = builder.budgets.clone();
+        this.maxWait = builder.maxWait.toNanos();
+        this.queueCapacity = builder.queueCapacity;
+        for (int i = 0; i < PRIORITIES.length; i++)
+            queues.add(new ArrayDeque<>());
+
+        //An adaptive limit has no upper bound, so OkHttp must not limit the requests at all
+        int total = limit != null ? Integer.MAX_VALUE
+                : (int) Math.min(Integer.MAX_VALUE, (long) maxRequests + budgets[RequestPriority.ALERT.ordinal()]);
+        this.dispatcher = new Dispatcher();
+        this.dispatcher.setMaxRequests(total);
+        this.dispatcher.setMaxRequestsPerHost(total);
+    }
+
+    /**
+     * @return A new {@link Builder} with the default settings (16 shared requests, budgets
+     *         alert 4, heartbeat 12, write 8, read 4, maximum wait 5 seconds, unbounded queue).
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * <p>Queues a call. It is started as soon as its class has free budget and no request
+     * with a higher priority (or a starving one) is waiting.</p>
+     *
+     * @param priority The priority class of the call.
+     * @param call     Starts the call (e.g. by enqueueing it in OkHttp).
+     *
+     * @return A {@link CompletableFuture} which completes with the response of the call.
+     *         Cancelling it before the call has been started removes it from the queue.
+     */
+    public CompletableFuture<Response> dispatch(RequestPriority priority,
+                                                Supplier<CompletableFuture<Response>> call) {
+        return dispatch(priority, null, call);
+    }
+
+    /**
+     * <p>Queues a call, see {@link #dispatch(RequestPriority, Supplier)}.</p>
+     *
+     * @param priority The priority class of the call.
+     * @param deadline <i>(optional)</i> The deadline of the call. If it passes while the call is
+     *                 queued, the call is not started and fails with an {@link InterruptedIOException}.
+     * @param call     Starts the call (e.g. by enqueueing it in OkHttp).
+     *
+     * @return A {@link CompletableFuture} which completes with the response of the call.
+     *         Cancelling it before the call has been started removes it from the queue.
+     */
+    public CompletableFuture<Response> dispatch(RequestPriority priority, Instant deadline,
+                                                Supplier<CompletableFuture<Response>> call) {
+        Task task = new Task(Objects.requireNonNull(priority), deadline, call);
+        Task evicted = null;
+        boolean rejectTask = false;
+        synchronized (this) {
+            //Requests which can start right away don't take up queue capacity
+            int index = priority.ordinal();
+            if (queues.get(index).isEmpty() && hasBudget(index)) {
+                inFlight[index]++;
+                if (priority != RequestPriority.ALERT)
+                    sharedInFlight++;
+                task.started.complete(null);
+            } else if (queued >= queueCapacity) {
+                evicted = evict(priority);
+                rejectTask = evicted == null;
+            }
+            if (!rejectTask && !task.started.isDone()) {
+                queues.get(index).add(task);
+                queued++;
+            }
+        }
+        if (evicted != null)
+            reject(evicted);
+        if (rejectTask)
+            return reject(task);
+        if (task.started.isDone()) {
+            start(task);
+            return task.result;
+        }
+
+        pump();
+        if (!task.started.isDone() && !task.result.isDone())
+            watch(task);
+        return task.result;
+    }
+
+    /**
+     * @return The number of queued (not yet started) requests of a class.
+     */
+    public synchronized int getQueuedCount(RequestPriority priority) {
+        return queues.get(priority.ordinal()).size();
+    }
+
+    /**
+     * @return The number of running requests of a class.
+     */
+    public synchronized int getRunningCount(RequestPriority priority) {
+        return inFlight[priority.ordinal()];
+    }
+
+    /**
+     * @return The current limit of the concurrent heartbeats, writes and reads.
+     */
+    public int getLimit() {
+        return limit != null ? limit.getLimit() : maxRequests;
+    }
+
+    /**
+     * @return The number of requests which have been rejected because the queue was full.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * @return The number of requests whose deadline has passed while they were queued.
+     */
+    public long getExpiredCount() {
+        return expired.get();
+    }
+
+    /**
+     * @return The OkHttp dispatcher which is shared by all users of this object.
+     */
+    public Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Starts queued tasks while there is free budget.
+     */
+    private void pump() {
+        while (true) {
+            Task task;
+            synchronized (this) {
+                task = next();
+                if (task == null)
+                    return;
+                int index = task.priority.ordinal();
+                inFlight[index]++;
+                if (task.priority != RequestPriority.ALERT)
+                    sharedInFlight++;
+                task.started.complete(null);
+            }
+            start(task);
+        }
+    }
+
+    /**
+     * @return The task which may be started next (already removed from its queue) or null.
+     */
+    private Task next() {
+        long now = System.nanoTime();
+        int selected = -1;
+        long oldest = Long.MAX_VALUE;
+
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            ArrayDeque<Task> queue = queues.get(i);
+            //Drop tasks which have been cancelled or have expired while waiting
+            while (!queue.isEmpty() && queue.peek().result.isDone()) {
+                queue.poll();
+                queued--;
+            }
+            if (queue.isEmpty() || !hasBudget(i))
+                continue;
+
+            long queuedAt = queue.peek().queuedAt;
+            if (now - queuedAt >= maxWait && queuedAt < oldest) {
+                //Starving requests are started first, the oldest one wins
+                oldest = queuedAt;
+                selected = i;
+            } else if (selected < 0) {
+                selected = i;
+            }
+        }
+        if (selected < 0)
+            return null;
+        if (oldest != Long.MAX_VALUE && selected > 0)
+            LOG.debug("Promoting a {} request which has been queued for {} ms",
+                    PRIORITIES[selected], (now - oldest) / 1_000_000);
+        queued--;
+        return queues.get(selected).poll();
+    }
+
+    private boolean hasBudget(int index) {
+        if (inFlight[index] >= budgets[index])
+            return false;
+        return index == RequestPriority.ALERT.ordinal() || sharedInFlight < getLimit();
+    }
+
+    /**
+     * @return The newest queued task of the lowest priority class below {@code priority}
+     *         (already removed from its queue), or null if there is none.
+     */
+    private Task evict(RequestPriority priority) {
+        for (int i = PRIORITIES.length - 1; i > priority.ordinal(); i--) {
+            Task task = queues.get(i).pollLast();
+            if (task != null) {
+                queued--;
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private CompletableFuture<Response> reject(Task task) {
+        if (task.result.completeExceptionally(new ConcurrencyLimitException(getLimit())))
+            rejected.incrementAndGet();
+        return task.result;
+    }
+
+    /**
+     * <p>Removes a queued task once it has been cancelled or its deadline has passed, and
+     * re-evaluates the queues once it starves.</p>
+     */
+    private void watch(Task task) {
+        List<ScheduledFuture<?>> timers = new ArrayList<>(2);
+        try {
+            timers.add(SharedTimer.TIMER.schedule(this::pump, maxWait, TimeUnit.NANOSECONDS));
+            if (task.deadline != null) {
+                long remaining = Math.max(0, Duration.between(Instant.now(), task.deadline).toNanos());
+                timers.add(SharedTimer.TIMER.schedule(() -> expire(task), remaining, TimeUnit.NANOSECONDS));
+            }
+        } catch (ArithmeticException ignored) {
+            //The deadline is too far away to matter
+        }
+        task.started.whenComplete((ignored, error) -> timers.forEach(timer -> timer.cancel(false)));
+        task.result.whenComplete((response, error) -> {
+            timers.forEach(timer -> timer.cancel(false));
+            if (task.result.isCancelled())
+                dequeue(task);
+        });
+    }
+
+    private void expire(Task task) {
+        //Removed before it fails, so the counts are up to date once callers see the failure
+        synchronized (this) {
+            if (task.started.isDone() || task.result.isDone()
+                    || !queues.get(task.priority.ordinal()).remove(task))
+                return;
+            queued--;
+        }
+        expired.incrementAndGet();
+        LOG.debug("A queued {} request has expired", task.priority);
+        task.result.completeExceptionally(new InterruptedIOException("The deadline " + task.deadline
+                + " has passed while the request was queued"));
+    }
+
+    private synchronized void dequeue(Task task) {
+        if (!task.started.isDone() && queues.get(task.priority.ordinal()).remove(task))
+            queued--;
+    }
+
+    private void start(Task task) {
+        //The task may have expired or been cancelled right before it left the queue
+        if (task.result.isDone()) {
+            release(task, false);
+            return;
+        }
+        //The shared requests (including this one) which are in flight, for the adaptive limit
+        int running;
+        synchronized (this) {
+            running = sharedInFlight;
+        }
+        boolean sampled = limit != null && task.priority != RequestPriority.ALERT;
+        long start = System.nanoTime();
+        CompletableFuture<Response> future;
+        try {
+            future = task.call.get();
+        } catch (RuntimeException e) {
+            task.result.completeExceptionally(e);
+            release(task, false);
+            return;
+        }
+
+        task.result.whenComplete((response, error) -> {
+            if (task.result.isCancelled())
+                future.cancel(true);
+        });
+        //Calls which completed synchronously are released without recursing into pump()
+        boolean async = !future.isDone();
+        future.whenComplete((response, error) -> {
+            if (sampled && !task.result.isCancelled())
+                limit.onSample(System.nanoTime() - start, Math.max(1, running), isDropped(response, error));
+            if (error != null)
+                task.result.completeExceptionally(error);
+            else if (!task.result.complete(response))
+                response.close();
+            release(task, async);
+        });
+    }
+
+    private static boolean isDropped(Response response, Throwable error) {
+        if (error != null)
+            return true;
+        return response.code() == 429 || response.code() == 503;
+    }
+
+    private void release(Task task, boolean pump) {
+        synchronized (this) {
+            inFlight[task.priority.ordinal()]--;
+            if (task.priority != RequestPriority.ALERT)
+                sharedInFlight--;
+        }
+        if (pump)
+            pump();
+    }
+
+    private static final class Task {
+        private final RequestPriority priority;
+        private final Instant deadline;
+        private final Supplier<CompletableFuture<Response>> call;
+        private final CompletableFuture<Response> result = new CompletableFuture<>();
+        //Completed once the task has left the queue to be started
+        private final CompletableFuture<Void> started = new CompletableFuture<>();
+        private final long queuedAt = System.nanoTime();
+
+        private Task(RequestPriority priority, Instant deadline, Supplier<CompletableFuture<Response>> call) {
+            this.priority = priority;
+            this.deadline = deadline;
+            this.call = Objects.requireNonNull(call);
+        }
+    }
+
+    /**
+     * Builder for {@link PriorityDispatcher} objects.
+     */
+    public static final class Builder {
+
+        private int maxRequests = 16;
+        private ConcurrencyLimit limit;
+        private final int[] budgets = {4, 12, 8, 4};
+        private Duration maxWait = Duration.ofSeconds(5);
+        private int queueCapacity = Integer.MAX_VALUE;
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxRequests The number of concurrent heartbeats, writes and reads together
+         *                    (default: 16). Alerts are not counted.
+         */
+        public Builder maxRequests(int maxRequests) {
+            if (maxRequests < 1)
+                throw new IllegalArgumentException("At least one concurrent request is required!");
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * @param limit An algorithm which adjusts the number of concurrent heartbeats, writes and
+         *              reads from the observed round-trip times and errors, instead of the fixed
+         *              {@link #maxRequests(int)}. Don't share it between dispatchers.
+         */
+        public Builder limit(ConcurrencyLimit limit) {
+            this.limit = Objects.requireNonNull(limit);
+            return this;
+        }
+
+        /**
+         * @param priority The priority class.
+         * @param budget   The maximum number of concurrent requests of this class. Keep the budgets
+         *                 of heartbeats, writes and reads below the shared limit, so every class
+         *                 has room while another one is busy.
+         */
+        public Builder budget(RequestPriority priority, int budget) {
+            if (budget < 1)
+                throw new IllegalArgumentException("The budget must be at least 1!");
+            this.budgets[priority.ordinal()] = budget;
+            return this;
+        }
+
+        /**
+         * @param maxWait The time after which a queued request is started before requests
+         *                of higher priority classes (default: 5 seconds).
+         */
+        public Builder maxWait(Duration maxWait) {
+            this.maxWait = Objects.requireNonNull(maxWait);
+            return this;
+        }
+
+        /**
+         * @param queueCapacity The number of requests which may be queued (default: unbounded).
+         *                      0 rejects all requests which can't be started right away.
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity < 0)
+                throw new IllegalArgumentException("The capacity must not be negative!");
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public PriorityDispatcher build() {
+            return new PriorityDispatcher(this);
+        }
+    }
+}
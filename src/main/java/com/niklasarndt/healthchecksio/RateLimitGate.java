@@ -0,0 +1,139 @@
+package com.niklasarndt.healthchecksio;
+
+import com.niklasarndt.healthchecksio.util.RateLimiter;
+import okhttp3.Response;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * <p>Internal class which delays calls until all of its {@link RateLimiter}s (e.g. one per
+ * API key and a global one) hand out a permit.</p>
+ *
+ * <p>Permits are reserved before a call is dispatched, and the call is started by a timer
+ * once they can be used, so waiting calls neither block a thread nor a slot of the HTTP
+ * dispatcher, and the waiting time does not count against their call timeout. The limiters
+ * are reserved one after another, so a call does not hold a global permit while it is still
+ * waiting for a more specific one. Calls which could only be started after their deadline
+ * fail right away. The permits of calls which are not dispatched (because a limiter rejects
+ * them or they are cancelled while waiting) are released again.</p>
+ *
+ * @since 1.1.0
+ */
+final class RateLimitGate {
+
+    private final RateLimiter[] limiters;
+    private final ScheduledExecutorService timer;
+    private final AtomicLong delayed;
+
+    /**
+     * @param timer    Starts the delayed calls.
+     * @param delayed  Counts the calls which had to wait for a permit.
+     * @param limiters The limiters, from the most specific to the most general one.
+     *                 Null entries are ignored.
+     */
+    RateLimitGate(ScheduledExecutorService timer, AtomicLong delayed, RateLimiter... limiters) {
+        this.timer = Objects.requireNonNull(timer);
+        this.delayed = Objects.requireNonNull(delayed);
+        this.limiters = Arrays.stream(limiters).filter(Objects::nonNull).toArray(RateLimiter[]::new);
+    }
+
+    /**
+     * @param deadline <i>(optional)</i> The deadline of the call.
+     * @param call     Dispatches the call once all permits can be used.
+     *
+     * @return The future of the call. Cancelling it while the call is waiting
+     *         prevents it from being dispatched.
+     */
+    CompletableFuture<Response> submit(Instant deadline, Supplier<CompletableFuture<Response>> call) {
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        acquire(0, false, deadline, call, result);
+        return result;
+    }
+
+    private void acquire(int index, boolean waited, Instant deadline, Supplier<CompletableFuture<Response>> call,
+                         CompletableFuture<Response> result) {
+        if (result.isDone()) {
+            release(index);
+            return;
+        }
+        if (index == limiters.length) {
+            dispatch(call, result);
+            return;
+        }
+
+        long wait = limiters[index].tryReserve(remainingNanos(deadline));
+        if (wait < 0) {
+            //The call is not admitted, so it must not use up the more specific permits either
+            release(index);
+            result.completeExceptionally(new InterruptedIOException("The rate limit does not allow "
+                    + "another request before the deadline " + deadline));
+            return;
+        }
+        if (wait == 0) {
+            acquire(index + 1, waited, deadline, call, result);
+            return;
+        }
+
+        if (!waited)
+            delayed.incrementAndGet();
+        try {
+            ScheduledFuture<?> task = timer.schedule(() -> acquire(index + 1, true, deadline, call, result),
+                    wait, TimeUnit.NANOSECONDS);
+            result.whenComplete((response, error) -> {
+                if (task.cancel(false))
+                    release(index + 1);
+            });
+        } catch (RejectedExecutionException e) {
+            release(index + 1);
+            result.completeExceptionally(new IllegalStateException("The rate limit has been closed", e));
+        }
+    }
+
+    /**
+     * <p>Releases the permits of the first {@code count} limiters.</p>
+     */
+    private void release(int count) {
+        for (int i = 0; i < count; i++)
+            limiters[i].release();
+    }
+
+    private static void dispatch(Supplier<CompletableFuture<Response>> call, CompletableFuture<Response> result) {
+        CompletableFuture<Response> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        future.whenComplete((response, error) -> {
+            if (error != null)
+                result.completeExceptionally(error);
+            else if (!result.complete(response) && response != null)
+                response.close();
+        });
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled())
+                future.cancel(false);
+        });
+    }
+
+    private static long remainingNanos(Instant deadline) {
+        if (deadline == null)
+            return Long.MAX_VALUE;
+        try {
+            return Duration.between(Instant.now(), deadline).toNanos();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+}
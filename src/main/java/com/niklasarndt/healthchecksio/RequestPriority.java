@@ -0,0 +1,42 @@
+package com.niklasarndt.healthchecksio;
+
+import okhttp3.Request;
+
+/**
+ * <p>The priority classes of a {@link PriorityDispatcher}, from the most to the least
+ * important one.</p>
+ *
+ * @since 1.1.0
+ */
+public enum RequestPriority {
+
+    /**
+     * Heartbeats which raise an alert: {@code fail()} and non-zero exit codes.
+     */
+    ALERT,
+    /**
+     * All other heartbeats: {@code start()}, {@code success()} and exit code 0.
+     */
+    HEARTBEAT,
+    /**
+     * Management API requests which change data (creating, updating, pausing, deleting).
+     */
+    WRITE,
+    /**
+     * Management API requests which only read data.
+     */
+    READ;
+
+    /**
+     * @param request A request, optionally tagged with a {@link RequestPriority}.
+     *
+     * @return The tagged priority, otherwise {@link #READ} for GET requests and
+     *         {@link #WRITE} for all others.
+     */
+    public static RequestPriority of(Request request) {
+        RequestPriority priority = request.tag(RequestPriority.class);
+        if (priority != null)
+            return priority;
+        return request.method().equals("GET") ? READ : WRITE;
+    }
+}
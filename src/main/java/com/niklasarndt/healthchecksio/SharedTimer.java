@@ -0,0 +1,29 @@
+package com.niklasarndt.healthchecksio;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * <p>The timer (a single daemon thread) for the short tasks of this library, e.g. timeouts and
+ * queue expiry. It is created on first use.</p>
+ *
+ * @since 1.1.0
+ */
+final class SharedTimer {
+
+    static final ScheduledExecutorService TIMER;
+
+    static {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "healthchecks-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        //Most timers are cancelled, they should not pile up until they are due
+        executor.setRemoveOnCancelPolicy(true);
+        TIMER = executor;
+    }
+
+    private SharedTimer() {
+    }
+}
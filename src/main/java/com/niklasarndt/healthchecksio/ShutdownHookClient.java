@@ -0,0 +1,195 @@
+package com.niklasarndt.healthchecksio;
+
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>A {@link HealthchecksClient} which registers a JVM shutdown hook. If the JVM exits
+ * while the job has not reported its completion (no success, fail or exit code since the
+ * creation or the last {@code start}), the hook sends a final {@code fail} (or the exit code
+ * set via {@link #setExitCode(int)}) and waits for it. Afterwards, the client is closed
+ * gracefully, so pending heartbeats are flushed and the OkHttp threads are stopped.</p>
+ *
+ * <p>The registered hook references the wrapped client, so it stays reachable until the JVM
+ * exits, {@link #close()} is called (which removes the hook) or the hook is removed via
+ * {@link #unregister()}. Close clients which are not used until the end of the process.</p>
+ *
+ * <pre>{@code
+ * ShutdownHookClient client = Healthchecks.forUuid(uuid).withShutdownHook(Duration.ofSeconds(10));
+ * client.start();
+ * int code = runJob();
+ * client.setExitCode(code); //reported if the job calls System.exit(code) before exitCode()
+ * client.exitCode(code);
+ * }</pre>
+ *
+ * @since 1.1.0
+ */
+public class ShutdownHookClient implements HealthchecksClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HealthchecksClient.class);
+    private static final int NO_EXIT_CODE = -1;
+
+    private final HealthchecksClient delegate;
+    private final State state;
+
+    /**
+     * @param delegate The client which sends the pings. <b>Must not be null.</b>
+     * @param timeout  The maximum time the shutdown hook may take.
+     */
+    public ShutdownHookClient(HealthchecksClient delegate, Duration timeout) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.state = new State(Objects.requireNonNull(timeout));
+        this.state.hook = new Thread(() -> onShutdown(delegate, state), "healthchecks-shutdown");
+        Runtime.getRuntime().addShutdownHook(state.hook);
+    }
+
+    private ShutdownHookClient(HealthchecksClient delegate, State state) {
+        this.delegate = delegate;
+        this.state = state;
+    }
+
+    private static void onShutdown(HealthchecksClient client, State state) {
+        long deadline = System.nanoTime() + state.timeout.toNanos();
+        if (state.armed.get()) {
+            //The final event must not overtake a start event which is still in flight
+            CompletableFuture<Response> start = state.start;
+            if (start != null) {
+                try {
+                    start.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException | TimeoutException ignored) {
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            int code = state.exitCode;
+            LOG.info("JVM is exiting before the job reported its completion, sending {}",
+                    code == NO_EXIT_CODE ? "fail" : "exit code " + code);
+            CompletableFuture<Response> future = code == NO_EXIT_CODE
+                    ? client.fail("The process exited before the job reported its completion")
+                    : client.exitCode(code);
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS).close();
+            } catch (ExecutionException | TimeoutException e) {
+                LOG.error("Could not deliver the final event", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        client.closeGracefully(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())));
+    }
+
+    /**
+     * @param code The exit code (0-255) which is reported if the JVM exits before the job has
+     *             reported its completion. By default, {@code fail} is sent.
+     */
+    public void setExitCode(int code) {
+        checkExitCode(code);
+        state.exitCode = code;
+    }
+
+    /**
+     * @return Whether a final event would be sent if the JVM exited now.
+     */
+    public boolean isArmed() {
+        return state.armed.get();
+    }
+
+    /**
+     * <p>Removes the shutdown hook (the client stays usable).</p>
+     *
+     * @return Whether the hook had still been registered.
+     */
+    public boolean unregister() {
+        try {
+            return Runtime.getRuntime().removeShutdownHook(state.hook);
+        } catch (IllegalStateException e) {
+            //The JVM is already shutting down
+            return false;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Response> start(String body) {
+        state.armed.set(true);
+        CompletableFuture<Response> future = delegate.start(body);
+        state.start = future;
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Response> success(String body) {
+        state.armed.set(false);
+        return delegate.success(body);
+    }
+
+    @Override
+    public CompletableFuture<Response> fail(String body) {
+        state.armed.set(false);
+        return delegate.fail(body);
+    }
+
+    @Override
+    public CompletableFuture<Response> exitCode(int code, String body) {
+        //Invalid codes must not disarm the hook
+        checkExitCode(code);
+        state.armed.set(false);
+        return delegate.exitCode(code, body);
+    }
+
+    @Override
+    public HealthchecksClient withTimeout(Duration timeout) {
+        return new ShutdownHookClient(delegate.withTimeout(timeout), state);
+    }
+
+    @Override
+    public HealthchecksClient withDeadline(Instant deadline) {
+        return new ShutdownHookClient(delegate.withDeadline(deadline), state);
+    }
+
+    @Override
+    public HealthchecksClient withExecutor(Executor executor) {
+        return new ShutdownHookClient(delegate.withExecutor(executor), state);
+    }
+
+    /**
+     * <p>Removes the shutdown hook and closes the client.</p>
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean closeGracefully(Duration timeout) {
+        unregister();
+        return delegate.closeGracefully(timeout);
+    }
+
+    private static void checkExitCode(int code) {
+        if (code < 0 || code > 255)
+            throw new IllegalArgumentException("Only values from 0 to 255 are valid exit codes!");
+    }
+
+    /**
+     * The state which is shared between a client and its views.
+     */
+    private static final class State {
+        private final Duration timeout;
+        private final AtomicBoolean armed = new AtomicBoolean(true);
+        private volatile int exitCode = NO_EXIT_CODE;
+        private volatile CompletableFuture<Response> start;
+        private Thread hook;
+
+        private State(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+}
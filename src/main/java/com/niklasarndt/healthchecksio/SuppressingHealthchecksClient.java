@@ -0,0 +1,258 @@
+package com.niklasarndt.healthchecksio;
+
+import com.niklasarndt.healthchecksio.model.Check;
+import com.niklasarndt.healthchecksio.model.CheckSnapshot;
+import com.niklasarndt.healthchecksio.schedule.CheckSchedule;
+import com.niklasarndt.healthchecksio.util.HealthcheckUtils;
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A {@link HealthchecksClient} which drops redundant success pings: a success ping (without
+ * a body) is only forwarded if the last forwarded one is older than a minimum interval.
+ * {@code start}, {@code fail}, exit codes and success pings with a body are always forwarded
+ * immediately, and the first success after any of them is forwarded as well.</p>
+ *
+ * <p>This is meant for services which report success on every iteration of a loop, while the
+ * check only needs a ping every few minutes. Derive the interval from the check with
+ * {@link #of(HealthchecksClient, CheckSnapshot, double)}: for checks with a period, the
+ * interval is a fraction of the period; for cron checks, a fraction of the grace time.</p>
+ *
+ * <p>Suppressed calls complete immediately with a synthetic {@code 200} response, see
+ * {@link #isSuppressed(Response)}. The interval starts when a ping is forwarded, so pings are
+ * suppressed while it is still in flight as well. If a forwarded success ping fails, the next
+ * one is forwarded regardless of the interval.</p>
+ *
+ * <pre>{@code
+ * HealthchecksClient client = SuppressingHealthchecksClient.of(Healthchecks.forCheck(check), check, 0.5);
+ * while (running) {
+ *     work();
+ *     client.success();
+ * }
+ * }</pre>
+ *
+ * @since 1.1.0
+ */
+public class SuppressingHealthchecksClient implements HealthchecksClient {
+
+    /**
+     * The header which marks synthetic responses of suppressed pings.
+     */
+    public static final String SUPPRESSED_HEADER = "X-Healthchecks-Suppressed";
+
+    private static final Logger LOG = LoggerFactory.getLogger(HealthchecksClient.class);
+    //Forces the next success ping to be forwarded
+    private static final long SEND_NEXT = Long.MIN_VALUE;
+    //Synthetic responses need a request, which is never sent (.invalid is a reserved TLD)
+    private static final HttpUrl SUPPRESSED_URL = HttpUrl.get("http://suppressed.invalid/");
+
+    private final HealthchecksClient delegate;
+    private final State state;
+
+    /**
+     * @param delegate    The client which sends the forwarded pings. <b>Must not be null.</b>
+     * @param minInterval The minimum time between two forwarded success pings.
+     */
+    public SuppressingHealthchecksClient(HealthchecksClient delegate, Duration minInterval) {
+        this(delegate, new State(checkInterval(minInterval), pingRequest(delegate)));
+    }
+
+    private SuppressingHealthchecksClient(HealthchecksClient delegate, State state) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.state = state;
+    }
+
+    /**
+     * @param delegate The client which sends the forwarded pings.
+     * @param schedule The schedule of the check.
+     * @param fraction The fraction (e.g. 0.5) of the period (or grace time for cron
+     *                 schedules) after which the next success ping is forwarded. Must be
+     *                 between 0 and 1.
+     *
+     * @return A client which suppresses redundant success pings.
+     */
+    public static SuppressingHealthchecksClient of(HealthchecksClient delegate,
+                                                   CheckSchedule schedule, double fraction) {
+        if (fraction < 0 || fraction > 1)
+            throw new IllegalArgumentException("The fraction must be between 0 and 1!");
+
+        //The next cron slot may be close to the last ping, so only the grace time is safe
+        Duration base = schedule.isCron() ? schedule.getGrace() : schedule.getPeriod();
+        return new SuppressingHealthchecksClient(delegate,
+                Duration.ofNanos((long) (base.toNanos() * fraction)));
+    }
+
+    /**
+     * @param delegate The client which sends the forwarded pings.
+     * @param check    The check (its period, schedule and grace time are used).
+     * @param fraction The fraction of the period (or grace time for cron schedules).
+     *
+     * @return A client which suppresses redundant success pings.
+     *
+     * @see #of(HealthchecksClient, CheckSchedule, double)
+     */
+    public static SuppressingHealthchecksClient of(HealthchecksClient delegate,
+                                                   CheckSnapshot check, double fraction) {
+        return of(delegate, CheckSchedule.of(check), fraction);
+    }
+
+    /**
+     * @see #of(HealthchecksClient, CheckSnapshot, double)
+     */
+    public static SuppressingHealthchecksClient of(HealthchecksClient delegate,
+                                                   Check check, double fraction) {
+        return of(delegate, CheckSchedule.of(check), fraction);
+    }
+
+    /**
+     * @param response A response returned by this client.
+     *
+     * @return Whether the ping has been suppressed (i.e. not been sent).
+     */
+    public static boolean isSuppressed(Response response) {
+        return response != null && response.header(SUPPRESSED_HEADER) != null;
+    }
+
+    @Override
+    public CompletableFuture<Response> start(String body) {
+        return passThrough(delegate.start(body));
+    }
+
+    @Override
+    public CompletableFuture<Response> success(String body) {
+        if (body != null)
+            return passThrough(delegate.success(body));
+
+        long now = System.nanoTime();
+        while (true) {
+            //Pings are suppressed while the last one is in flight as well, so a tight loop sends only one
+            long last = state.lastSent.get();
+            if (last != SEND_NEXT && now - last < state.minInterval) {
+                state.suppressed.incrementAndGet();
+                return CompletableFuture.completedFuture(suppressedResponse(state.request));
+            }
+            //Concurrent callers: only one of them forwards the ping. A caller which loses the race
+            //checks again, so the first success after another event is never suppressed.
+            if (state.lastSent.compareAndSet(last, now))
+                break;
+        }
+
+        state.forwarded.incrementAndGet();
+        CompletableFuture<Response> future = delegate.success();
+        //Return the dependent future, so the state is updated before the caller sees the response
+        return HealthcheckUtils.propagateCancellation(future.whenComplete((response, error) -> {
+            if (error != null || !response.isSuccessful()) {
+                LOG.debug("Success ping failed, the next one will not be suppressed");
+                state.lastSent.compareAndSet(now, SEND_NEXT);
+            }
+        }), future);
+    }
+
+    @Override
+    public CompletableFuture<Response> fail(String body) {
+        return passThrough(delegate.fail(body));
+    }
+
+    @Override
+    public CompletableFuture<Response> exitCode(int code, String body) {
+        return passThrough(delegate.exitCode(code, body));
+    }
+
+    @Override
+    public HealthchecksClient withTimeout(Duration timeout) {
+        return new SuppressingHealthchecksClient(delegate.withTimeout(timeout), state);
+    }
+
+    @Override
+    public HealthchecksClient withDeadline(Instant deadline) {
+        return new SuppressingHealthchecksClient(delegate.withDeadline(deadline), state);
+    }
+
+    @Override
+    public HealthchecksClient withExecutor(Executor executor) {
+        return new SuppressingHealthchecksClient(delegate.withExecutor(executor), state);
+    }
+
+    @Override
+    public boolean closeGracefully(Duration timeout) {
+        return delegate.closeGracefully(timeout);
+    }
+
+    /**
+     * @return The number of success pings which have not been sent.
+     */
+    public long getSuppressedCount() {
+        return state.suppressed.get();
+    }
+
+    /**
+     * @return The number of success pings (without a body) which have been sent.
+     */
+    public long getForwardedCount() {
+        return state.forwarded.get();
+    }
+
+    public Duration getMinInterval() {
+        return Duration.ofNanos(state.minInterval);
+    }
+
+    /**
+     * @return The request which synthetic responses refer to: the ping URL if it is known,
+     *         otherwise a placeholder.
+     */
+    private static Request pingRequest(HealthchecksClient delegate) {
+        HttpUrl url = delegate instanceof HealthchecksClientImpl
+                ? HttpUrl.parse(((HealthchecksClientImpl) delegate).getPingUrl()) : null;
+        return new Request.Builder().url(url != null ? url : SUPPRESSED_URL).build();
+    }
+
+    private static long checkInterval(Duration minInterval) {
+        if (minInterval.isNegative())
+            throw new IllegalArgumentException("The interval must not be negative!");
+        return minInterval.toNanos();
+    }
+
+    private CompletableFuture<Response> passThrough(CompletableFuture<Response> future) {
+        //The status of the check may change, so the next success must reach healthchecks.io
+        state.lastSent.set(SEND_NEXT);
+        return future;
+    }
+
+    private static Response suppressedResponse(Request request) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("Suppressed")
+                .header(SUPPRESSED_HEADER, "true")
+                .body(ResponseBody.create("OK", Healthchecks.PLAIN_TEXT))
+                .build();
+    }
+
+    /**
+     * The state which is shared between a client and its views.
+     */
+    private static final class State {
+        private final long minInterval;
+        private final AtomicLong lastSent = new AtomicLong(SEND_NEXT);
+        private final AtomicLong suppressed = new AtomicLong();
+        private final AtomicLong forwarded = new AtomicLong();
+        private final Request request;
+
+        private State(long minInterval, Request request) {
+            this.minInterval = minInterval;
+            this.request = request;
+        }
+    }
+}
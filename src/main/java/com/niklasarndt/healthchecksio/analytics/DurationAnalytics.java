@@ -0,0 +1,515 @@
+package com.niklasarndt.healthchecksio.analytics;
+
+import com.niklasarndt.healthchecksio.HealthchecksManager;
+import com.niklasarndt.healthchecksio.model.Check;
+import com.niklasarndt.healthchecksio.model.Ping;
+import com.niklasarndt.healthchecksio.util.HealthcheckUtils;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>Folds job durations (from {@link Ping#getDuration()} or {@link Check#getLastDuration()})
+ * into {@link DurationSketch}es per check and per tag, so percentiles and trends can be
+ * queried without keeping any {@link Ping}s around.</p>
+ *
+ * <p>Durations are kept in time buckets (one sketch per check and day by default), which are
+ * merged on query and dropped after the retention period. Every source is folded
+ * incrementally: pings which have already been folded (by their index) and unchanged checks
+ * (by their last ping) are skipped, so polling repeatedly doesn't count durations twice. Use
+ * either pings or checks as source for the same check, not both.</p>
+ *
+ * <pre>{@code
+ * DurationAnalytics analytics = DurationAnalytics.load(path); //or DurationAnalytics.builder().build()
+ * for (Check check : manager.getExistingChecks().get())
+ *     analytics.update(manager, check).get();
+ * analytics.getCheckPercentile(uuid, 0.95, Instant.now().minus(Duration.ofDays(7)), Instant.now());
+ * analytics.findRegressions(0.5, 2.0, Duration.ofDays(7), Instant.now()); //2x slower than the week before
+ * analytics.save(path);
+ * }</pre>
+ *
+ * <p>This class is thread-safe.</p>
+ *
+ * @since 1.1.0
+ */
+public class DurationAnalytics {
+
+    private static final int MAGIC = 0x48434441; //HCDA
+    private static final int VERSION = 1;
+
+    private final long bucketMillis;
+    private final int retentionBuckets;
+    private final ConcurrentMap<String, Series> checks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Series> tags = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Cursor> cursors = new ConcurrentHashMap<>();
+
+    private DurationAnalytics(long bucketMillis, int retentionBuckets) {
+        this.bucketMillis = bucketMillis;
+        this.retentionBuckets = retentionBuckets;
+    }
+
+    /**
+     * @return A new {@link Builder} with the default settings.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * <p>Records a single job duration.</p>
+     *
+     * @param key       The UUID or unique key of the check.
+     * @param tags      The space-separated tags of the check (may be null).
+     * @param timestamp The time the job finished.
+     * @param duration  The duration in seconds.
+     */
+    public void record(String key, String tags, Instant timestamp, double duration) {
+        Objects.requireNonNull(key);
+        long bucket = Math.floorDiv(timestamp.toEpochMilli(), bucketMillis);
+        series(checks, key).add(bucket, duration);
+        if (tags == null)
+            return;
+        for (String tag : tags.split(" ")) {
+            if (!tag.isEmpty())
+                series(this.tags, tag).add(bucket, duration);
+        }
+    }
+
+    /**
+     * <p>Folds the durations of all pings which have not been folded before.</p>
+     *
+     * @param check The check the pings belong to.
+     * @param pings The pings, e.g. from {@link HealthchecksManager#getPings(Check)}.
+     *
+     * @return The number of durations which have been recorded.
+     */
+    public int addPings(Check check, Ping[] pings) {
+        return addPings(check.getUuidOrUniqueKey(), check.getTags(), pings);
+    }
+
+    /**
+     * @param key   The UUID or unique key of the check.
+     * @param tags  The space-separated tags of the check (may be null).
+     * @param pings The pings of the check.
+     *
+     * @return The number of durations which have been recorded.
+     *
+     * @see #addPings(Check, Ping[])
+     */
+    public int addPings(String key, String tags, Ping[] pings) {
+        Cursor cursor = cursors.computeIfAbsent(key, k -> new Cursor());
+        synchronized (cursor) {
+            int folded = 0;
+            int highest = cursor.pingIndex;
+            for (Ping ping : pings) {
+                if (ping.getPingIndex() <= cursor.pingIndex)
+                    continue;
+                highest = Math.max(highest, ping.getPingIndex());
+                //Only pings which complete a started run carry a duration
+                if (ping.getDuration() > 0 && ping.getTimestamp() != null) {
+                    record(key, tags, ping.getTimestamp().toInstant(), ping.getDuration());
+                    folded++;
+                }
+            }
+            cursor.pingIndex = highest;
+            return folded;
+        }
+    }
+
+    /**
+     * <p>Folds {@link Check#getLastDuration()} if the check has been pinged since the last call.
+     * This needs no extra request per check, but misses runs between two calls and only has
+     * a resolution of one second.</p>
+     *
+     * @param check The check, e.g. from {@link HealthchecksManager#getExistingChecks(String...)}.
+     *
+     * @return Whether a duration has been recorded.
+     */
+    public boolean addCheck(Check check) {
+        if (check.getLastPing() == null || check.getLastDuration() <= 0)
+            return false;
+
+        Cursor cursor = cursors.computeIfAbsent(check.getUuidOrUniqueKey(), k -> new Cursor());
+        synchronized (cursor) {
+            long lastPing = check.getLastPing().getTime();
+            if (lastPing <= cursor.lastPing)
+                return false;
+            cursor.lastPing = lastPing;
+            record(check.getUuidOrUniqueKey(), check.getTags(), check.getLastPing().toInstant(),
+                    check.getLastDuration());
+            return true;
+        }
+    }
+
+    /**
+     * <p>Requests the pings of {@code check} and folds the new ones.</p>
+     *
+     * @param manager The manager which is used for the request (requires full api access).
+     * @param check   The check.
+     *
+     * @return The number of recorded durations, wrapped in a {@link CompletableFuture} object
+     *         for async execution.
+     */
+    public CompletableFuture<Integer> update(HealthchecksManager manager, Check check) {
+        CompletableFuture<Ping[]> pings = manager.getPings(check);
+        return HealthcheckUtils.propagateCancellation(pings.thenApply(result -> addPings(check, result)), pings);
+    }
+
+    /**
+     * @param key  The UUID or unique key of the check.
+     * @param from The start of the time range (inclusive).
+     * @param to   The end of the time range (exclusive).
+     *
+     * @return A merged copy of all durations of the check which have been recorded in the
+     *         time buckets overlapping the range. Empty if there are none.
+     */
+    public DurationSketch getCheckSketch(String key, Instant from, Instant to) {
+        return sketch(checks, key, from, to);
+    }
+
+    /**
+     * @param tag  A single tag.
+     * @param from The start of the time range (inclusive).
+     * @param to   The end of the time range (exclusive).
+     *
+     * @return A merged copy of all durations of checks with this tag in the time range.
+     */
+    public DurationSketch getTagSketch(String tag, Instant from, Instant to) {
+        return sketch(tags, tag, from, to);
+    }
+
+    /**
+     * @return The duration (in seconds) at {@code quantile} or {@link Double#NaN} if no
+     *         durations have been recorded in the range.
+     *
+     * @see #getCheckSketch(String, Instant, Instant)
+     */
+    public double getCheckPercentile(String key, double quantile, Instant from, Instant to) {
+        return getCheckSketch(key, from, to).getPercentile(quantile);
+    }
+
+    /**
+     * @return The duration (in seconds) at {@code quantile} or {@link Double#NaN} if no
+     *         durations have been recorded in the range.
+     *
+     * @see #getTagSketch(String, Instant, Instant)
+     */
+    public double getTagPercentile(String tag, double quantile, Instant from, Instant to) {
+        return getTagSketch(tag, from, to).getPercentile(quantile);
+    }
+
+    /**
+     * <p>Compares the last {@code window} with the window before it, e.g. this week with the
+     * last week.</p>
+     *
+     * @param key      The UUID or unique key of the check.
+     * @param quantile The quantile which is compared, e.g. {@code 0.5} for the median.
+     * @param window   The length of both windows.
+     * @param now      The end of the current window.
+     *
+     * @return The ratio of the current to the previous percentile ({@code 2.0} means twice
+     *         as slow) or {@link Double#NaN} if one of the windows has no durations.
+     */
+    public double getCheckTrend(String key, double quantile, Duration window, Instant now) {
+        Instant start = now.minus(window);
+        double current = getCheckPercentile(key, quantile, start, now);
+        double previous = getCheckPercentile(key, quantile, start.minus(window), start);
+        return previous > 0 ? current / previous : Double.NaN;
+    }
+
+    /**
+     * @param quantile The quantile which is compared, e.g. {@code 0.5} for the median.
+     * @param factor   The minimum slowdown, e.g. {@code 2.0}.
+     * @param window   The length of the compared windows.
+     * @param now      The end of the current window.
+     *
+     * @return The keys of all checks which have become at least {@code factor} times slower,
+     *         mapped to their trend and sorted by key.
+     *
+     * @see #getCheckTrend(String, double, Duration, Instant)
+     */
+    public Map<String, Double> findRegressions(double quantile, double factor, Duration window, Instant now) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (String key : new TreeSet<>(checks.keySet())) {
+            double trend = getCheckTrend(key, quantile, window, now);
+            if (trend >= factor)
+                result.put(key, trend);
+        }
+        return result;
+    }
+
+    /**
+     * @return The keys of all checks with recorded durations.
+     */
+    public Set<String> getCheckKeys() {
+        return Collections.unmodifiableSet(checks.keySet());
+    }
+
+    /**
+     * @return All tags with recorded durations.
+     */
+    public Set<String> getTags() {
+        return Collections.unmodifiableSet(tags.keySet());
+    }
+
+    /**
+     * <p>Adds all durations of {@code other} (e.g. collected by another process) to this
+     * instance. Both must use the same bucket size.</p>
+     *
+     * @param other The source, which is not modified.
+     */
+    public void merge(DurationAnalytics other) {
+        if (other.bucketMillis != bucketMillis)
+            throw new IllegalArgumentException("Both instances must use the same bucket size!");
+        mergeAll(checks, other.checks);
+        mergeAll(tags, other.tags);
+    }
+
+    /**
+     * <p>Writes all sketches and the fold positions in a compact binary format.</p>
+     *
+     * @param output The target (not closed).
+     *
+     * @throws IOException If writing fails.
+     */
+    public void writeTo(OutputStream output) throws IOException {
+        DataOutputStream data = new DataOutputStream(output);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeLong(bucketMillis);
+        data.writeInt(retentionBuckets);
+        writeSeries(data, checks);
+        writeSeries(data, tags);
+
+        Map<String, Cursor> sorted = new TreeMap<>(cursors);
+        data.writeInt(sorted.size());
+        for (Map.Entry<String, Cursor> entry : sorted.entrySet()) {
+            synchronized (entry.getValue()) {
+                data.writeUTF(entry.getKey());
+                data.writeInt(entry.getValue().pingIndex);
+                data.writeLong(entry.getValue().lastPing);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * @param input The source, positioned at data written by {@link #writeTo(OutputStream)}.
+     *
+     * @return The restored instance.
+     *
+     * @throws IOException If reading fails or the data is not in the expected format.
+     */
+    public static DurationAnalytics readFrom(InputStream input) throws IOException {
+        DataInputStream data = new DataInputStream(input);
+        if (data.readInt() != MAGIC)
+            throw new IOException("Not a duration analytics file");
+        int version = data.readInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported version " + version);
+
+        long bucketMillis = data.readLong();
+        int retentionBuckets = data.readInt();
+        if (bucketMillis <= 0 || retentionBuckets <= 0)
+            throw new IOException("Corrupt duration analytics file");
+        DurationAnalytics analytics = new DurationAnalytics(bucketMillis, retentionBuckets);
+        readSeries(data, analytics.checks, retentionBuckets);
+        readSeries(data, analytics.tags, retentionBuckets);
+
+        int cursors = data.readInt();
+        for (int i = 0; i < cursors; i++) {
+            Cursor cursor = new Cursor();
+            String key = data.readUTF();
+            cursor.pingIndex = data.readInt();
+            cursor.lastPing = data.readLong();
+            analytics.cursors.put(key, cursor);
+        }
+        return analytics;
+    }
+
+    /**
+     * <p>Writes this instance to {@code path}, atomically replacing an existing file.</p>
+     *
+     * @param path The target file.
+     *
+     * @throws IOException If writing fails.
+     */
+    public void save(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(temp))) {
+            writeTo(output);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param path A file written by {@link #save(Path)}.
+     *
+     * @return The restored instance.
+     *
+     * @throws IOException If reading fails or the file is not in the expected format.
+     */
+    public static DurationAnalytics load(Path path) throws IOException {
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(path))) {
+            return readFrom(input);
+        }
+    }
+
+    public Duration getBucketSize() {
+        return Duration.ofMillis(bucketMillis);
+    }
+
+    public Duration getRetention() {
+        return Duration.ofMillis(bucketMillis * retentionBuckets);
+    }
+
+    private Series series(ConcurrentMap<String, Series> map, String key) {
+        return map.computeIfAbsent(key, k -> new Series(retentionBuckets));
+    }
+
+    private DurationSketch sketch(ConcurrentMap<String, Series> map, String key, Instant from, Instant to) {
+        Series series = map.get(key);
+        if (series == null || !from.isBefore(to))
+            return new DurationSketch();
+        return series.merged(Math.floorDiv(from.toEpochMilli(), bucketMillis),
+                Math.floorDiv(to.toEpochMilli() - 1, bucketMillis));
+    }
+
+    private void mergeAll(ConcurrentMap<String, Series> target, ConcurrentMap<String, Series> source) {
+        for (Map.Entry<String, Series> entry : source.entrySet()) {
+            Series series = series(target, entry.getKey());
+            for (Map.Entry<Long, DurationSketch> bucket : entry.getValue().snapshot().entrySet())
+                series.merge(bucket.getKey(), bucket.getValue());
+        }
+    }
+
+    private static void writeSeries(DataOutputStream data, Map<String, Series> map) throws IOException {
+        Map<String, Series> sorted = new TreeMap<>(map);
+        data.writeInt(sorted.size());
+        for (Map.Entry<String, Series> entry : sorted.entrySet()) {
+            TreeMap<Long, DurationSketch> buckets = entry.getValue().snapshot();
+            data.writeUTF(entry.getKey());
+            data.writeInt(buckets.size());
+            for (Map.Entry<Long, DurationSketch> bucket : buckets.entrySet()) {
+                data.writeLong(bucket.getKey());
+                bucket.getValue().writeTo(data);
+            }
+        }
+    }
+
+    private static void readSeries(DataInputStream data, Map<String, Series> map,
+                                   int retentionBuckets) throws IOException {
+        int size = data.readInt();
+        for (int i = 0; i < size; i++) {
+            Series series = new Series(retentionBuckets);
+            map.put(data.readUTF(), series);
+            int buckets = data.readInt();
+            for (int j = 0; j < buckets; j++)
+                series.merge(data.readLong(), DurationSketch.readFrom(data));
+        }
+    }
+
+    /**
+     * The time buckets of a single check or tag.
+     */
+    private static final class Series {
+        private final int retentionBuckets;
+        private final TreeMap<Long, DurationSketch> buckets = new TreeMap<>();
+
+        private Series(int retentionBuckets) {
+            this.retentionBuckets = retentionBuckets;
+        }
+
+        private synchronized void add(long bucket, double duration) {
+            buckets.computeIfAbsent(bucket, b -> new DurationSketch()).add(duration);
+            evict();
+        }
+
+        private synchronized void merge(long bucket, DurationSketch sketch) {
+            buckets.computeIfAbsent(bucket, b -> new DurationSketch()).merge(sketch);
+            evict();
+        }
+
+        private synchronized DurationSketch merged(long from, long to) {
+            DurationSketch result = new DurationSketch();
+            for (DurationSketch sketch : buckets.subMap(from, true, to, true).values())
+                result.merge(sketch);
+            return result;
+        }
+
+        private synchronized TreeMap<Long, DurationSketch> snapshot() {
+            TreeMap<Long, DurationSketch> copy = new TreeMap<>();
+            buckets.forEach((bucket, sketch) -> copy.put(bucket, sketch.copy()));
+            return copy;
+        }
+
+        //Retention is relative to the newest bucket, so replaying old data keeps it
+        private void evict() {
+            buckets.headMap(buckets.lastKey() - retentionBuckets, true).clear();
+        }
+    }
+
+    /**
+     * How far the durations of a check have been folded.
+     */
+    private static final class Cursor {
+        private int pingIndex;
+        private long lastPing = Long.MIN_VALUE;
+    }
+
+    /**
+     * Builder for {@link DurationAnalytics} objects.
+     */
+    public static final class Builder {
+
+        private Duration bucketSize = Duration.ofDays(1);
+        private Duration retention = Duration.ofDays(56);
+
+        private Builder() {
+        }
+
+        /**
+         * @param bucketSize The time span of a single sketch (default: 1 day), which is the
+         *                   resolution of range queries.
+         */
+        public Builder bucketSize(Duration bucketSize) {
+            if (bucketSize.toMillis() <= 0)
+                throw new IllegalArgumentException("The bucket size must be positive!");
+            this.bucketSize = bucketSize;
+            return this;
+        }
+
+        /**
+         * @param retention How long durations are kept (default: 8 weeks).
+         */
+        public Builder retention(Duration retention) {
+            this.retention = Objects.requireNonNull(retention);
+            return this;
+        }
+
+        public DurationAnalytics build() {
+            long bucketMillis = bucketSize.toMillis();
+            long buckets = Math.max(1, (retention.toMillis() + bucketMillis - 1) / bucketMillis);
+            return new DurationAnalytics(bucketMillis, (int) Math.min(Integer.MAX_VALUE, buckets));
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.niklasarndt.healthchecksio.analytics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * <p>A mergeable quantile sketch of job durations (in seconds) with a fixed relative
+ * accuracy of 1%: every percentile it returns is within 1% of a duration which has actually
+ * been recorded at that rank.</p>
+ *
+ * <p>Durations are counted in logarithmic buckets, so the memory usage depends on the spread
+ * of the durations rather than their number (usually a few dozen buckets). Durations below one
+ * millisecond share a single bucket; durations above 31 days are clamped. Sketches can be
+ * merged losslessly, e.g. to combine days into weeks or checks into tags.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @since 1.1.0
+ */
+public final class DurationSketch {
+
+    /**
+     * The maximum relative error of {@link #getPercentile(double)}.
+     */
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MIN_DURATION = 0.001;
+    private static final double MAX_DURATION = 31 * 24 * 3600;
+    private static final int MAX_INDEX = index(MAX_DURATION);
+
+    //counts[i] is the count of bucket offset + i
+    private long[] counts = new long[0];
+    private int offset;
+    private long count;
+    private double sum;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    public DurationSketch() {
+    }
+
+    private DurationSketch(DurationSketch source) {
+        this.counts = source.counts.clone();
+        this.offset = source.offset;
+        this.count = source.count;
+        this.sum = source.sum;
+        this.min = source.min;
+        this.max = source.max;
+    }
+
+    /**
+     * Bucket 0 holds everything below {@link #MIN_DURATION}, bucket {@code k > 0} holds
+     * {@code (MIN * GAMMA^(k-2), MIN * GAMMA^(k-1)]}.
+     */
+    private static int index(double duration) {
+        if (duration <= MIN_DURATION)
+            return 0;
+        return 1 + (int) Math.ceil(Math.log(duration / MIN_DURATION) / LOG_GAMMA);
+    }
+
+    /**
+     * @return The value with the smallest relative error to all durations of bucket {@code index}.
+     */
+    private static double value(int index) {
+        if (index == 0)
+            return MIN_DURATION;
+        return MIN_DURATION * Math.pow(GAMMA, index - 1) * 2 / (1 + GAMMA);
+    }
+
+    /**
+     * @param duration A job duration in seconds. Negative and non-finite values are ignored.
+     */
+    public void add(double duration) {
+        add(duration, 1);
+    }
+
+    /**
+     * @param duration A job duration in seconds. Negative and non-finite values are ignored.
+     * @param times    How often the duration has been measured.
+     */
+    public void add(double duration, long times) {
+        if (duration < 0 || Double.isNaN(duration) || Double.isInfinite(duration) || times <= 0)
+            return;
+
+        increment(Math.min(index(duration), MAX_INDEX), times);
+        count += times;
+        sum += duration * times;
+        min = Double.isNaN(min) ? duration : Math.min(min, duration);
+        max = Double.isNaN(max) ? duration : Math.max(max, duration);
+    }
+
+    /**
+     * <p>Adds all durations of {@code other} to this sketch.</p>
+     *
+     * @param other The sketch which will be merged into this one (it is not modified).
+     *
+     * @return This sketch.
+     */
+    public DurationSketch merge(DurationSketch other) {
+        if (other.count == 0)
+            return this;
+
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0)
+                increment(other.offset + i, other.counts[i]);
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Double.isNaN(min) ? other.min : Math.min(min, other.min);
+        max = Double.isNaN(max) ? other.max : Math.max(max, other.max);
+        return this;
+    }
+
+    /**
+     * @param quantile The quantile, e.g. {@code 0.95} for the 95th percentile.
+     *
+     * @return The duration (in seconds) at the quantile or {@link Double#NaN} if the sketch is empty.
+     */
+    public double getPercentile(double quantile) {
+        if (quantile < 0 || quantile > 1)
+            throw new IllegalArgumentException("The quantile must be between 0 and 1!");
+        if (count == 0)
+            return Double.NaN;
+
+        double rank = quantile * (count - 1);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank)
+                //The exact extremes are known, so they are never exceeded
+                return Math.max(min, Math.min(max, value(offset + i)));
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @return The smallest duration or {@link Double#NaN} if the sketch is empty.
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return The largest duration or {@link Double#NaN} if the sketch is empty.
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return The mean duration or {@link Double#NaN} if the sketch is empty.
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    public DurationSketch copy() {
+        return new DurationSketch(this);
+    }
+
+    /**
+     * <p>Writes this sketch in a compact binary format (only non-empty buckets are stored).</p>
+     *
+     * @param output The target.
+     *
+     * @throws IOException If writing fails.
+     */
+    public void writeTo(DataOutput output) throws IOException {
+        writeVarLong(output, count);
+        if (count == 0)
+            return;
+        output.writeDouble(sum);
+        output.writeDouble(min);
+        output.writeDouble(max);
+
+        int buckets = 0;
+        for (long bucket : counts) {
+            if (bucket != 0)
+                buckets++;
+        }
+        writeVarLong(output, buckets);
+        int last = -1;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0)
+                continue;
+            //Indices are stored as gaps, which are small for clustered durations
+            writeVarLong(output, offset + i - last);
+            writeVarLong(output, counts[i]);
+            last = offset + i;
+        }
+    }
+
+    /**
+     * @param input The source, positioned at data written by {@link #writeTo(DataOutput)}.
+     *
+     * @return The sketch.
+     *
+     * @throws IOException If reading fails or the data is corrupt.
+     */
+    public static DurationSketch readFrom(DataInput input) throws IOException {
+        DurationSketch sketch = new DurationSketch();
+        long count = readVarLong(input);
+        if (count == 0)
+            return sketch;
+        sketch.sum = input.readDouble();
+        sketch.min = input.readDouble();
+        sketch.max = input.readDouble();
+
+        long buckets = readVarLong(input);
+        long index = -1;
+        long total = 0;
+        for (long i = 0; i < buckets; i++) {
+            index += readVarLong(input);
+            long bucket = readVarLong(input);
+            if (index > MAX_INDEX || bucket <= 0)
+                throw new IOException("Corrupt duration sketch");
+            sketch.increment((int) index, bucket);
+            total += bucket;
+        }
+        if (total != count)
+            throw new IOException("Corrupt duration sketch");
+        sketch.count = count;
+        return sketch;
+    }
+
+    private void increment(int index, long times) {
+        if (counts.length == 0) {
+            counts = new long[8];
+            offset = Math.max(0, index - 4);
+        } else if (index < offset || index >= offset + counts.length) {
+            //Grow by at least half, so that spreading durations don't copy on every add
+            int low = Math.min(offset, index);
+            int high = Math.max(offset + counts.length, index + 1);
+            int length = Math.max(high - low, counts.length + counts.length / 2);
+            if (index < offset)
+                low = Math.max(0, high - length);
+            long[] copy = new long[length];
+            System.arraycopy(counts, 0, copy, offset - low, counts.length);
+            counts = copy;
+            offset = low;
+        }
+        counts[index - offset] += times;
+    }
+
+    private static void writeVarLong(DataOutput output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = input.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed variable-length number");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DurationSketch that = (DurationSketch) o;
+        if (count != that.count || Double.compare(sum, that.sum) != 0
+                || Double.compare(min, that.min) != 0 || Double.compare(max, that.max) != 0)
+            return false;
+        for (int index = Math.min(offset, that.offset);
+             index < Math.max(offset + counts.length, that.offset + that.counts.length); index++) {
+            if (bucket(index) != that.bucket(index))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(count);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0)
+                result = 31 * result + (offset + i) * 17 + Long.hashCode(counts[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "DurationSketch(count=" + count + ", min=" + min + ", p50=" + getPercentile(0.5)
+                + ", p95=" + getPercentile(0.95) + ", max=" + max + ")";
+    }
+
+    private long bucket(int index) {
+        return index < offset || index >= offset + counts.length ? 0 : counts[index - offset];
+    }
+}
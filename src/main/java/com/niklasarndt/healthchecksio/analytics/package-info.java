@@ -0,0 +1,9 @@
+/**
+ * <p>Contains the {@link com.niklasarndt.healthchecksio.analytics.DurationAnalytics}, which
+ * folds job durations into mergeable
+ * {@link com.niklasarndt.healthchecksio.analytics.DurationSketch}es per check and per tag to
+ * answer percentile and trend queries.</p>
+ *
+ * @since 1.1.0
+ */
+package com.niklasarndt.healthchecksio.analytics;
@@ -0,0 +1,314 @@
+package com.niklasarndt.healthchecksio.cli;
+
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksClient;
+import com.niklasarndt.healthchecksio.HealthchecksOptions;
+import com.niklasarndt.healthchecksio.ShutdownHookClient;
+import okhttp3.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>A command line client for the Pinging API, which is a drop-in replacement for
+ * {@code curl} in shell scripts and cron jobs. Built as a native image (see the {@code native}
+ * Maven profile), it starts within a few milliseconds.</p>
+ *
+ * <pre>
+ * healthchecks --uuid=&lt;uuid&gt; success
+ * healthchecks --ping-key=&lt;key&gt; --slug=nightly-backup exit-code 3
+ * healthchecks --uuid=&lt;uuid&gt; run -- ./backup.sh --full
+ * </pre>
+ *
+ * <p>Run it without arguments for all options. The process exits with {@code 0} if the
+ * ping has been delivered, {@code 1} if it has not and {@code 2} for invalid arguments.
+ * {@code run} exits with the exit code of the command instead.</p>
+ *
+ * @since 1.1.0
+ */
+public final class HealthchecksCli {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILED = 1;
+    static final int EXIT_USAGE = 2;
+
+    //healthchecks.io stores the first 10 KB of a request body
+    private static final int MAX_BODY = 10_000;
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: healthchecks [options] <command>",
+            "",
+            "Commands:",
+            "  start                 Signals that the job has started",
+            "  success               Signals that the job has completed successfully",
+            "  fail                  Signals that the job has failed",
+            "  exit-code <code>      Reports the exit code (0-255) of the job",
+            "  run [--] <command...> Runs a command and reports its start and exit code,",
+            "                        the tail of its output is sent as body",
+            "",
+            "Options (environment variable in brackets):",
+            "  --uuid=<uuid>         The UUID of the check (HEALTHCHECKS_UUID)",
+            "  --ping-key=<key>      The ping key of the project, requires --slug (HEALTHCHECKS_PING_KEY)",
+            "  --slug=<slug>         The slug of the check",
+            "  --url=<url>           The ping endpoint (HEALTHCHECKS_URL, default: https://hc-ping.com/)",
+            "  --body=<text>         The body of the ping, - reads it from stdin",
+            "  --timeout=<seconds>   The maximum time per ping (default: 10)",
+            "  --quiet               Only print errors");
+
+    private HealthchecksCli() {
+    }
+
+    public static void main(String[] args) {
+        int status = run(args, System.in, System.out, System.err);
+        System.out.flush();
+        //The pings have been delivered or given up on, nothing else needs to finish
+        System.exit(status);
+    }
+
+    /**
+     * <p>Runs the command line client without exiting the JVM.</p>
+     *
+     * @param args The command line arguments.
+     * @param in   The input for {@code --body=-}.
+     * @param out  The output for status messages and the output of {@code run}.
+     * @param err  The output for errors.
+     *
+     * @return The exit status.
+     */
+    public static int run(String[] args, InputStream in, PrintStream out, PrintStream err) {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> command = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!command.isEmpty() && command.get(0).equals("run")) {
+                //Everything after "run" belongs to the command
+                if (command.size() > 1 || !arg.equals("--"))
+                    command.add(arg);
+            } else if (arg.equals("--quiet")) {
+                options.put("quiet", "true");
+            } else if (arg.startsWith("--") && arg.contains("=") && command.isEmpty()) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else if (arg.startsWith("--") && command.isEmpty()) {
+                return usage(err, "Invalid option " + arg + ", expected --key=value");
+            } else {
+                command.add(arg);
+            }
+        }
+        if (command.isEmpty())
+            return usage(err, null);
+
+        Duration timeout;
+        HealthchecksClient client;
+        try {
+            timeout = Duration.ofMillis((long) (Double.parseDouble(option(options, "timeout", null, "10")) * 1000));
+            client = createClient(options, timeout);
+        } catch (IllegalArgumentException e) {
+            return usage(err, e.getMessage());
+        }
+
+        boolean quiet = options.containsKey("quiet");
+        try {
+            String action = command.get(0);
+            switch (action) {
+                case "start":
+                case "success":
+                case "fail":
+                    if (command.size() != 1)
+                        return usage(err, action + " does not take arguments");
+                    return report(ping(client, action, -1, readBody(options, in)), timeout, action,
+                            quiet, out, err) ? EXIT_OK : EXIT_FAILED;
+                case "exit-code":
+                    if (command.size() != 2)
+                        return usage(err, "exit-code requires exactly one argument");
+                    int code;
+                    try {
+                        code = Integer.parseInt(command.get(1));
+                        if (code < 0 || code > 255)
+                            throw new NumberFormatException();
+                    } catch (NumberFormatException e) {
+                        return usage(err, "Only values from 0 to 255 are valid exit codes!");
+                    }
+                    return report(ping(client, action, code, readBody(options, in)), timeout,
+                            "exit code " + code, quiet, out, err) ? EXIT_OK : EXIT_FAILED;
+                case "run":
+                    if (command.size() < 2)
+                        return usage(err, "run requires a command");
+                    return runCommand(client, command.subList(1, command.size()), timeout, quiet, out, err);
+                default:
+                    return usage(err, "Unknown command " + action);
+            }
+        } catch (IOException e) {
+            err.println("Could not read the body: " + e.getMessage());
+            return EXIT_USAGE;
+        } finally {
+            client.closeGracefully(timeout);
+        }
+    }
+
+    private static HealthchecksClient createClient(Map<String, String> options, Duration timeout) {
+        String url = option(options, "url", "HEALTHCHECKS_URL", "https://hc-ping.com/");
+        String uuid = option(options, "uuid", "HEALTHCHECKS_UUID", null);
+        String pingKey = option(options, "ping-key", "HEALTHCHECKS_PING_KEY", null);
+        String slug = option(options, "slug", null, null);
+
+        HealthchecksOptions clientOptions = HealthchecksOptions.builder()
+                .callTimeout(timeout)
+                .build();
+        if (slug != null) {
+            if (pingKey == null)
+                throw new IllegalArgumentException("--slug requires a ping key");
+            return Healthchecks.forPingKey(url, pingKey, clientOptions).forSlug(slug);
+        }
+        if (uuid == null)
+            throw new IllegalArgumentException("Either --uuid or --ping-key and --slug are required");
+        return Healthchecks.forUuid(url, uuid, clientOptions);
+    }
+
+    private static String option(Map<String, String> options, String key, String environment, String fallback) {
+        String value = options.get(key);
+        if ((value == null || value.isEmpty()) && environment != null)
+            value = System.getenv(environment);
+        return value == null || value.isEmpty() ? fallback : value;
+    }
+
+    private static String readBody(Map<String, String> options, InputStream in) throws IOException {
+        String body = options.get("body");
+        if (!"-".equals(body))
+            return body;
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            if (buffer.size() < MAX_BODY)
+                buffer.write(chunk, 0, Math.min(read, MAX_BODY - buffer.size()));
+        }
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static CompletableFuture<Response> ping(HealthchecksClient client, String action, int code,
+                                                    String body) {
+        switch (action) {
+            case "start":
+                return client.start(body);
+            case "success":
+                return client.success(body);
+            case "fail":
+                return client.fail(body);
+            default:
+                return client.exitCode(code, body);
+        }
+    }
+
+    private static boolean report(CompletableFuture<Response> future, Duration timeout, String event,
+                                  boolean quiet, PrintStream out, PrintStream err) {
+        try (Response response = future.get(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            if (!response.isSuccessful()) {
+                err.println("Could not send " + event + ": HTTP " + response.code() + " " + response.message());
+                return false;
+            }
+            if (!quiet)
+                out.println("Sent " + event);
+            return true;
+        } catch (ExecutionException e) {
+            err.println("Could not send " + event + ": " + e.getCause());
+        } catch (TimeoutException e) {
+            err.println("Could not send " + event + " within " + timeout.toMillis() + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private static int runCommand(HealthchecksClient client, List<String> command, Duration timeout,
+                                  boolean quiet, PrintStream out, PrintStream err) {
+        //Reports a failure if the CLI itself is terminated while the command is running
+        ShutdownHookClient hooked = client.withShutdownHook(timeout);
+        CompletableFuture<Response> start = hooked.start();
+
+        int code;
+        TailBuffer tail = new TailBuffer(MAX_BODY);
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectInput(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            byte[] chunk = new byte[4096];
+            int read;
+            try (InputStream output = process.getInputStream()) {
+                while ((read = output.read(chunk)) != -1) {
+                    out.write(chunk, 0, read);
+                    tail.write(chunk, read);
+                }
+            }
+            code = process.waitFor();
+        } catch (IOException e) {
+            err.println("Could not run " + command.get(0) + ": " + e.getMessage());
+            byte[] message = e.toString().getBytes(StandardCharsets.UTF_8);
+            tail.write(message, message.length);
+            //Same as a shell for commands which can't be executed
+            code = 127;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            code = 130;
+        }
+        out.flush();
+
+        //The exit code must not overtake the start event
+        report(start, timeout, "start", true, out, err);
+        report(hooked.exitCode(Math.min(code, 255), tail.toString()), timeout, "exit code " + code,
+                quiet, out, err);
+        hooked.unregister();
+        return code;
+    }
+
+    private static int usage(PrintStream err, String message) {
+        if (message != null)
+            err.println(message);
+        err.println(USAGE);
+        return EXIT_USAGE;
+    }
+
+    /**
+     * Keeps the last {@code capacity} bytes of the output of a command.
+     */
+    private static final class TailBuffer {
+        private final byte[] buffer;
+        private int position;
+        private boolean wrapped;
+
+        private TailBuffer(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void write(byte[] bytes, int length) {
+            for (int i = 0; i < length; i++) {
+                buffer[position++] = bytes[i];
+                if (position == buffer.length) {
+                    position = 0;
+                    wrapped = true;
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            if (!wrapped)
+                return new String(buffer, 0, position, StandardCharsets.UTF_8);
+            byte[] ordered = Arrays.copyOfRange(buffer, position, position + buffer.length);
+            System.arraycopy(buffer, 0, ordered, buffer.length - position, position);
+            return new String(ordered, StandardCharsets.UTF_8);
+        }
+    }
+}
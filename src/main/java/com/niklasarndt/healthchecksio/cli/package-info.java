@@ -0,0 +1,7 @@
+/**
+ * <p>Contains {@link com.niklasarndt.healthchecksio.cli.HealthchecksCli}, a command line client
+ * for the Pinging API which can be compiled to a native binary for shell scripts and cron jobs.</p>
+ *
+ * @since 1.1.0
+ */
+package com.niklasarndt.healthchecksio.cli;
@@ -0,0 +1,157 @@
+package com.niklasarndt.healthchecksio.cluster;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>A {@link LeaseBackend} which stores every lease in a small file
+ * ({@code <directory>/<key>.lease}) and serializes access with an exclusive
+ * {@link FileLock}, so it works across processes and across hosts which share the
+ * directory (e.g. via NFS with working {@code fcntl} locks).</p>
+ *
+ * <p>The expiry is compared with the wall clock of the node which accesses the lease, so the
+ * clocks of all nodes must be synchronized (e.g. via NTP) to well below the lease ttl.</p>
+ *
+ * @since 1.1.0
+ */
+public class FileLeaseBackend implements LeaseBackend {
+
+    //FileLocks are held per JVM, so threads of the same JVM must be serialized separately
+    private static final ConcurrentMap<Path, Object> LOCAL_LOCKS = new ConcurrentHashMap<>();
+    private static final int MAX_SIZE = 1024;
+
+    private final Path directory;
+    private final Clock clock;
+
+    /**
+     * @param directory The shared directory of the leases. It is created if it doesn't exist.
+     *
+     * @throws IOException If the directory could not be created.
+     */
+    public FileLeaseBackend(Path directory) throws IOException {
+        this(directory, Clock.systemUTC());
+    }
+
+    /**
+     * @param directory The shared directory of the leases. It is created if it doesn't exist.
+     * @param clock     The clock which decides whether a lease has expired.
+     *
+     * @throws IOException If the directory could not be created.
+     */
+    public FileLeaseBackend(Path directory, Clock clock) throws IOException {
+        this.directory = Files.createDirectories(directory).toAbsolutePath().normalize();
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    @Override
+    public Lease acquire(String key, String nodeId, Duration ttl) throws IOException {
+        validate(nodeId);
+        Path file = fileOf(key);
+
+        synchronized (LOCAL_LOCKS.computeIfAbsent(file, path -> new Object())) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                Lease current = read(channel, key);
+                Instant now = clock.instant();
+                if (current != null && !current.isHeldBy(nodeId) && !current.isExpired(now))
+                    return current;
+
+                Lease acquired = new Lease(key, nodeId, now.plus(ttl));
+                write(channel, acquired);
+                return acquired;
+            }
+        }
+    }
+
+    @Override
+    public void release(String key, String nodeId) throws IOException {
+        validate(nodeId);
+        Path file = fileOf(key);
+        if (!Files.exists(file))
+            return;
+
+        synchronized (LOCAL_LOCKS.computeIfAbsent(file, path -> new Object())) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                Lease current = read(channel, key);
+                if (current != null && current.isHeldBy(nodeId))
+                    write(channel, new Lease(key, nodeId, Instant.EPOCH));
+            }
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private Path fileOf(String key) {
+        validate(key);
+        return directory.resolve(key + ".lease");
+    }
+
+    /**
+     * Keys and node ids end up in file names and in the line based file format.
+     */
+    private static void validate(String value) {
+        Objects.requireNonNull(value);
+        if (value.isEmpty())
+            throw new IllegalArgumentException("Keys and node ids must not be empty!");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.' || c == '@'))
+                throw new IllegalArgumentException("Invalid character in " + value
+                        + ", only letters, digits and -_.@ are allowed!");
+        }
+        if (value.startsWith("."))
+            throw new IllegalArgumentException("Keys and node ids must not start with a dot!");
+    }
+
+    /**
+     * Format: {@code <holder> <expiry in epoch milliseconds>}
+     */
+    private static Lease read(FileChannel channel, String key) throws IOException {
+        long size = channel.size();
+        if (size == 0 || size > MAX_SIZE)
+            return null;
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        channel.position(0);
+        while (buffer.hasRemaining() && channel.read(buffer) != -1) ;
+        String content = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8).trim();
+
+        int separator = content.lastIndexOf(' ');
+        if (separator <= 0)
+            return null;
+        try {
+            return new Lease(key, content.substring(0, separator),
+                    Instant.ofEpochMilli(Long.parseLong(content.substring(separator + 1))));
+        } catch (NumberFormatException e) {
+            //A corrupt lease counts as free
+            return null;
+        }
+    }
+
+    private static void write(FileChannel channel, Lease lease) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((lease.getHolder() + " " + lease.getExpiresAt().toEpochMilli()
+                + "\n").getBytes(StandardCharsets.UTF_8));
+        channel.truncate(0);
+        channel.position(0);
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        channel.force(false);
+    }
+}
@@ -0,0 +1,69 @@
+package com.niklasarndt.healthchecksio.cluster;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * <p>A time-limited claim of a node on a key (usually the UUID of a check), as stored by
+ * a {@link LeaseBackend}.</p>
+ *
+ * @since 1.1.0
+ */
+public final class Lease {
+
+    private final String key;
+    private final String holder;
+    private final Instant expiresAt;
+
+    public Lease(String key, String holder, Instant expiresAt) {
+        this.key = Objects.requireNonNull(key);
+        this.holder = Objects.requireNonNull(holder);
+        this.expiresAt = Objects.requireNonNull(expiresAt);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return The id of the node which holds this lease.
+     */
+    public String getHolder() {
+        return holder;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isHeldBy(String nodeId) {
+        return holder.equals(nodeId);
+    }
+
+    /**
+     * @param now The current time.
+     *
+     * @return Whether the lease may be taken over by another node.
+     */
+    public boolean isExpired(Instant now) {
+        return !now.isBefore(expiresAt);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Lease lease = (Lease) o;
+        return key.equals(lease.key) && holder.equals(lease.holder) && expiresAt.equals(lease.expiresAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(key, holder, expiresAt);
+    }
+
+    @Override
+    public String toString() {
+        return "Lease(key=" + key + ", holder=" + holder + ", expiresAt=" + expiresAt + ")";
+    }
+}
@@ -0,0 +1,43 @@
+package com.niklasarndt.healthchecksio.cluster;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * <p>Stores the {@link Lease}s of a {@link SenderElection}. All nodes of a cluster must use
+ * a backend which points to the same storage (e.g. a {@link FileLeaseBackend} on a shared
+ * file system).</p>
+ *
+ * <p>Implementations must perform {@link #acquire(String, String, Duration)} atomically
+ * across all nodes.</p>
+ *
+ * @since 1.1.0
+ */
+public interface LeaseBackend {
+
+    /**
+     * <p>Acquires or renews the lease on {@code key} for {@code nodeId}. This succeeds if
+     * nobody holds the lease, if {@code nodeId} already holds it or if it has expired.</p>
+     *
+     * @param key    The key of the lease, usually the UUID of the check.
+     * @param nodeId The id of the requesting node.
+     * @param ttl    The time after which the lease expires unless it is renewed.
+     *
+     * @return The current lease after the attempt. It is held by {@code nodeId} if the
+     *         attempt has succeeded, otherwise by the current leader.
+     *
+     * @throws IOException If the backend could not be accessed.
+     */
+    Lease acquire(String key, String nodeId, Duration ttl) throws IOException;
+
+    /**
+     * <p>Releases the lease on {@code key} if it is held by {@code nodeId}, so that another
+     * node can take over immediately. Does nothing otherwise.</p>
+     *
+     * @param key    The key of the lease.
+     * @param nodeId The id of the node which releases the lease.
+     *
+     * @throws IOException If the backend could not be accessed.
+     */
+    void release(String key, String nodeId) throws IOException;
+}
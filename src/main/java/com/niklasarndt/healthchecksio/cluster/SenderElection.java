@@ -0,0 +1,176 @@
+package com.niklasarndt.healthchecksio.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * <p>Elects one node of a cluster as the sender of a check's heartbeats. If the same job runs
+ * on several nodes for redundancy, only the leader sends its pings, while the other nodes stay
+ * on standby. If the leader stops renewing its lease (e.g. because it crashed), the first
+ * standby node which asks after the lease has expired takes over.</p>
+ *
+ * <p>The lease is renewed by calling {@link #isLeader()}, which
+ * {@link com.niklasarndt.healthchecksio.ElectedHealthchecksClient} does before every ping.
+ * Therefore, the ttl must be considerably longer than the interval between two pings (e.g.
+ * three times the period of the check). The backend is only contacted once half of the ttl
+ * has passed (leader) or once the lease of the leader has expired (standby), so frequent pings
+ * don't cause frequent backend calls.</p>
+ *
+ * <p>If the backend cannot be reached, this node acts as leader: duplicate pings are
+ * preferable to missing ones. The backend is contacted again after a short delay (10 seconds,
+ * or half of the ttl if that is shorter), so an unreachable backend doesn't block every ping.</p>
+ *
+ * <pre>{@code
+ * LeaseBackend backend = new FileLeaseBackend(Paths.get("/mnt/shared/healthchecks"));
+ * SenderElection election = new SenderElection(backend, uuid, SenderElection.defaultNodeId(),
+ *         Duration.ofMinutes(3));
+ * HealthchecksClient client = Healthchecks.forUuid(uuid).withElection(election);
+ * }</pre>
+ *
+ * @since 1.1.0
+ */
+public class SenderElection implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SenderElection.class);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(10);
+
+    private final LeaseBackend backend;
+    private final String key;
+    private final String nodeId;
+    private final Duration ttl;
+    private final Clock clock;
+
+    private volatile Lease lease;
+    private volatile Instant nextCheck = Instant.MIN;
+    /**
+     * Whether the last access to the backend failed, so this node acts as leader until {@link #nextCheck}.
+     */
+    private volatile boolean unreachable;
+
+    /**
+     * @param backend The shared storage of the leases.
+     * @param key     The key of the lease, usually the UUID of the check.
+     * @param nodeId  The id of this node, unique within the cluster (see {@link #defaultNodeId()}).
+     * @param ttl     The time after which the lease expires unless it is renewed.
+     */
+    public SenderElection(LeaseBackend backend, String key, String nodeId, Duration ttl) {
+        this(backend, key, nodeId, ttl, Clock.systemUTC());
+    }
+
+    /**
+     * @param backend The shared storage of the leases.
+     * @param key     The key of the lease, usually the UUID of the check.
+     * @param nodeId  The id of this node, unique within the cluster.
+     * @param ttl     The time after which the lease expires unless it is renewed.
+     * @param clock   The clock which decides when the backend is contacted again.
+     */
+    public SenderElection(LeaseBackend backend, String key, String nodeId, Duration ttl, Clock clock) {
+        this.backend = Objects.requireNonNull(backend);
+        this.key = Objects.requireNonNull(key);
+        this.nodeId = Objects.requireNonNull(nodeId);
+        this.ttl = Objects.requireNonNull(ttl);
+        this.clock = Objects.requireNonNull(clock);
+        if (ttl.isNegative() || ttl.isZero())
+            throw new IllegalArgumentException("The ttl must be positive!");
+    }
+
+    /**
+     * @return The id of this process, {@code <pid>@<hostname>}.
+     */
+    public static String defaultNodeId() {
+        return ManagementFactory.getRuntimeMXBean().getName();
+    }
+
+    /**
+     * <p>Checks whether this node is the leader, acquiring or renewing the lease if
+     * necessary. This may block while the backend is accessed.</p>
+     *
+     * @return Whether this node should send the heartbeats.
+     */
+    public boolean isLeader() {
+        Instant now = clock.instant();
+        if (now.isBefore(nextCheck))
+            return isHeldLocally();
+
+        synchronized (this) {
+            //Another thread may have contacted the backend in the meantime
+            if (now.isBefore(nextCheck))
+                return isHeldLocally();
+
+            Lease current;
+            try {
+                current = backend.acquire(key, nodeId, ttl);
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("Could not access the lease of {}, sending heartbeats anyway", key, e);
+                unreachable = true;
+                Duration retry = ttl.dividedBy(2);
+                nextCheck = now.plus(retry.compareTo(RETRY_DELAY) < 0 ? retry : RETRY_DELAY);
+                return true;
+            }
+            unreachable = false;
+
+            boolean leader = current.isHeldBy(nodeId);
+            if (leader && (lease == null || !lease.isHeldBy(nodeId)))
+                LOG.info("Node {} is now the sender for {}", nodeId, key);
+            else if (!leader && lease != null && lease.isHeldBy(nodeId))
+                LOG.info("Node {} lost the lease of {} to {}", nodeId, key, current.getHolder());
+
+            lease = current;
+            nextCheck = leader ? now.plus(ttl.dividedBy(2)) : current.getExpiresAt();
+            return leader;
+        }
+    }
+
+    /**
+     * @return Whether this node acts as leader according to the last access to the backend.
+     */
+    private boolean isHeldLocally() {
+        Lease current = lease;
+        return unreachable || (current != null && current.isHeldBy(nodeId));
+    }
+
+    /**
+     * @return The last known lease or null if the backend has not been contacted yet.
+     */
+    public Lease getLease() {
+        return lease;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * <p>Releases the lease if this node holds it. Other nodes take over once their cached
+     * view of the lease expires.</p>
+     */
+    @Override
+    public synchronized void close() {
+        Lease current = lease;
+        lease = null;
+        nextCheck = Instant.MIN;
+        unreachable = false;
+        if (current == null || !current.isHeldBy(nodeId))
+            return;
+
+        try {
+            backend.release(key, nodeId);
+        } catch (IOException e) {
+            LOG.warn("Could not release the lease of {}", key, e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * <p>Contains the {@link com.niklasarndt.healthchecksio.cluster.SenderElection}, which elects
+ * one node of a cluster as the sender of a check's heartbeats via a lease, and the
+ * {@link com.niklasarndt.healthchecksio.cluster.LeaseBackend}s which store those leases.</p>
+ *
+ * @since 1.1.0
+ */
+package com.niklasarndt.healthchecksio.cluster;
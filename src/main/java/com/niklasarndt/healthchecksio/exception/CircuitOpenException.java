@@ -0,0 +1,26 @@
+package com.niklasarndt.healthchecksio.exception;
+
+import java.io.IOException;
+
+/**
+ * <p>A {@link CircuitOpenException} is the cause of a failed call which has not been sent,
+ * because the circuit breaker of its host is open (the host has been failing recently).</p>
+ *
+ * @since 1.1.0
+ */
+public class CircuitOpenException extends IOException {
+
+    private final String host;
+
+    public CircuitOpenException(String host) {
+        super("The circuit of " + host + " is open, the request has not been sent");
+        this.host = host;
+    }
+
+    /**
+     * @return The host (and port) whose circuit is open.
+     */
+    public String getHost() {
+        return host;
+    }
+}
@@ -0,0 +1,27 @@
+package com.niklasarndt.healthchecksio.exception;
+
+import java.io.IOException;
+
+/**
+ * <p>A {@link ConcurrencyLimitException} is the cause of a failed call which has not been sent,
+ * because the concurrency limit has been reached and the queue of waiting calls was full.</p>
+ *
+ * @since 1.1.0
+ */
+public class ConcurrencyLimitException extends IOException {
+
+    private final int limit;
+
+    public ConcurrencyLimitException(int limit) {
+        super("The concurrency limit of " + limit + " requests has been reached and the queue is full, "
+                + "the request has not been sent");
+        this.limit = limit;
+    }
+
+    /**
+     * @return The concurrency limit at the time of the rejection.
+     */
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -3,10 +3,9 @@ package com.niklasarndt.healthchecksio.json;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.niklasarndt.healthchecksio.util.HealthcheckUtils;
 import java.io.IOException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.Date;
 
 /**
@@ -15,17 +14,15 @@ import java.util.Date;
  * @since 1.0.1
  */
 public class TimestampMsDeserializer extends JsonDeserializer<Date> {
-    private static final SimpleDateFormat FORMAT =
-            new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssSSSSSSZZZZZ");
 
     @Override
     public Date deserialize(JsonParser parser, DeserializationContext context)
             throws IOException {
 
+        //SimpleDateFormat reads the 6 fraction digits as milliseconds, so java.time is used instead
         try {
-            String raw = parser.getText();
-            return FORMAT.parse(HealthcheckUtils.removeColonFromTimestamp(raw));
-        } catch (ParseException ignore) {
+            return Date.from(OffsetDateTime.parse(parser.getText()).toInstant());
+        } catch (DateTimeParseException ignore) {
             return null;
         }
 
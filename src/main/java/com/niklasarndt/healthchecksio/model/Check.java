@@ -6,7 +6,13 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import static com.fasterxml.jackson.annotation.JsonProperty.Access.WRITE_ONLY;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.niklasarndt.healthchecksio.json.TimestampDeserializer;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Date;
 
@@ -56,14 +62,28 @@ public class Check {
 
     private String methods = "";
 
-    @JsonProperty(value = "ping_url", access = WRITE_ONLY)
-    private URL pingUrl;
+    /*
+     * The URLs are kept as strings and only parsed into URL objects on access,
+     * since parsing them dominates the decoding of large check listings.
+     * A malformed URL is therefore only reported (as IllegalStateException) by its getter.
+     */
+    private String pingUrl;
 
-    @JsonProperty(value = "update_url", access = WRITE_ONLY)
-    private URL updateUrl;
+    private String updateUrl;
 
-    @JsonProperty(value = "pause_url", access = WRITE_ONLY)
-    private URL pauseUrl;
+    private String pauseUrl;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private String uuid;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient URL[] parsedUrls;
 
     @JsonProperty("channels")
     private String integrations;
@@ -109,16 +129,124 @@ public class Check {
 
     /**
      * <p>Uses the {@link #pingUrl} of the check (only available with write access!)
-     * to obtain the UUID.</p>
+     * to obtain the UUID. It is extracted once, when the ping URL is set.</p>
      *
      * @return The UUID of the check (or null if read-only).
      */
     @JsonIgnore
     public String getUuid() {
-        if (pingUrl == null)
+        return uuid;
+    }
+
+    /**
+     * <p>The URL is parsed on the first access.</p>
+     *
+     * @return The URL which is used to send pings (only available with write access!).
+     *
+     * @throws IllegalStateException If the URL received from the API is malformed.
+     */
+    @JsonIgnore
+    public URL getPingUrl() {
+        return parse(0, pingUrl);
+    }
+
+    @JsonIgnore
+    public void setPingUrl(URL pingUrl) {
+        setRawPingUrl(pingUrl == null ? null : pingUrl.toString());
+    }
+
+    /**
+     * <p>The URL is parsed on the first access.</p>
+     *
+     * @return The URL which is used to update this check (only available with write access!).
+     *
+     * @throws IllegalStateException If the URL received from the API is malformed.
+     */
+    @JsonIgnore
+    public URL getUpdateUrl() {
+        return parse(1, updateUrl);
+    }
+
+    @JsonIgnore
+    public void setUpdateUrl(URL updateUrl) {
+        setRawUpdateUrl(updateUrl == null ? null : updateUrl.toString());
+    }
+
+    /**
+     * <p>The URL is parsed on the first access.</p>
+     *
+     * @return The URL which is used to pause this check (only available with write access!).
+     *
+     * @throws IllegalStateException If the URL received from the API is malformed.
+     */
+    @JsonIgnore
+    public URL getPauseUrl() {
+        return parse(2, pauseUrl);
+    }
+
+    @JsonIgnore
+    public void setPauseUrl(URL pauseUrl) {
+        setRawPauseUrl(pauseUrl == null ? null : pauseUrl.toString());
+    }
+
+    /**
+     * @return The ping URL as received from the API (not parsed).
+     */
+    String getRawPingUrl() {
+        return pingUrl;
+    }
+
+    String getRawUpdateUrl() {
+        return updateUrl;
+    }
+
+    String getRawPauseUrl() {
+        return pauseUrl;
+    }
+
+    void setRawUrls(String pingUrl, String updateUrl, String pauseUrl) {
+        setRawPingUrl(pingUrl);
+        setRawUpdateUrl(updateUrl);
+        setRawPauseUrl(pauseUrl);
+    }
+
+    @JsonProperty(value = "ping_url", access = WRITE_ONLY)
+    private void setRawPingUrl(String pingUrl) {
+        this.pingUrl = pingUrl;
+        this.uuid = pingUrl == null ? null : pingUrl.substring(pingUrl.lastIndexOf('/') + 1);
+        clearParsed(0);
+    }
+
+    @JsonProperty(value = "update_url", access = WRITE_ONLY)
+    private void setRawUpdateUrl(String updateUrl) {
+        this.updateUrl = updateUrl;
+        clearParsed(1);
+    }
+
+    @JsonProperty(value = "pause_url", access = WRITE_ONLY)
+    private void setRawPauseUrl(String pauseUrl) {
+        this.pauseUrl = pauseUrl;
+        clearParsed(2);
+    }
+
+    private URL parse(int index, String url) {
+        if (url == null)
             return null;
+        if (parsedUrls == null)
+            parsedUrls = new URL[3];
+        if (parsedUrls[index] == null) {
+            try {
+                parsedUrls[index] = new URL(url);
+            } catch (MalformedURLException e) {
+                throw new IllegalStateException("Invalid URL " + url, e);
+            }
+        }
+        return parsedUrls[index];
+    }
 
-        return pingUrl.toString().substring(pingUrl.toString().lastIndexOf("/") + 1);
+    private void clearParsed(int index) {
+        if (parsedUrls != null)
+            parsedUrls[index] = null;
     }
 
     /**
@@ -0,0 +1,665 @@
+package com.niklasarndt.healthchecksio.model;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>The model class {@link CheckSnapshot} is an <b>immutable</b> copy of a {@link Check}.</p>
+ *
+ * <p>All fields are final and the hash code is computed once on construction, which means that
+ * instances can be shared between threads, cached and used as keys in hash-based collections
+ * without copying them first. Use the {@code withX} methods (or {@link #toBuilder()}) to derive
+ * an altered copy.</p>
+ *
+ * <p>The URLs are stored as strings and parsed on every access of their {@code URL} getters
+ * (which throw an {@link IllegalStateException} if a URL is malformed), use the
+ * {@code getRawXUrl} methods to read them without parsing.</p>
+ *
+ * <p>To send changes back to healthchecks.io, convert the snapshot via {@link #toCheck()}.</p>
+ *
+ * @since 1.1.0
+ */
+public final class CheckSnapshot {
+
+    private final String name;
+    private final String tags;
+    private final String description;
+    private final int graceTime;
+    private final int lastDuration;
+    private final int pings;
+    private final String status;
+    private final Instant lastPing;
+    private final Instant nextPing;
+    private final boolean manualResume;
+    private final String methods;
+    private final String pingUrl;
+    private final String updateUrl;
+    private final String pauseUrl;
+    private final String integrations;
+    private final String schedule;
+    private final String timeZone;
+    private final int timeout;
+    private final String readOnlyKey;
+    private final List<String> unique;
+
+    private final String uuid;
+    private final int hash;
+
+    private CheckSnapshot(Builder builder) {
+        this.name = builder.name;
+        this.tags = builder.tags;
+        this.description = builder.description;
+        this.graceTime = builder.graceTime;
+        this.lastDuration = builder.lastDuration;
+        this.pings = builder.pings;
+        this.status = builder.status;
+        this.lastPing = builder.lastPing;
+        this.nextPing = builder.nextPing;
+        this.manualResume = builder.manualResume;
+        this.methods = builder.methods;
+        this.pingUrl = builder.pingUrl;
+        this.updateUrl = builder.updateUrl;
+        this.pauseUrl = builder.pauseUrl;
+        this.integrations = builder.integrations;
+        this.schedule = builder.schedule;
+        this.timeZone = builder.timeZone;
+        this.timeout = builder.timeout;
+        this.readOnlyKey = builder.readOnlyKey;
+        this.unique = builder.unique == null ? null
+                : Collections.unmodifiableList(Arrays.asList(builder.unique.clone()));
+
+        if (builder.uuid != null)
+            this.uuid = builder.uuid;
+        else
+            this.uuid = pingUrl == null ? null : pingUrl.substring(pingUrl.lastIndexOf('/') + 1);
+        this.hash = computeHash();
+    }
+
+    /**
+     * <p>Creates an immutable copy of a {@link Check}.</p>
+     *
+     * @param check The check to copy. <b>Must not be null.</b>
+     *
+     * @return A new {@link CheckSnapshot} with the same values as {@code check}.
+     */
+    public static CheckSnapshot of(Check check) {
+        Objects.requireNonNull(check);
+        Builder builder = builder()
+                .name(check.getName())
+                .tags(check.getTags())
+                .description(check.getDescription())
+                .graceTime(check.getGraceTime())
+                .lastDuration(check.getLastDuration())
+                .pings(check.getPings())
+                .status(check.getStatus())
+                .lastPing(toInstant(check.getLastPing()))
+                .nextPing(toInstant(check.getNextPing()))
+                .manualResume(check.isManualResume())
+                .methods(check.getMethods())
+                .rawPingUrl(check.getRawPingUrl())
+                .rawUpdateUrl(check.getRawUpdateUrl())
+                .rawPauseUrl(check.getRawPauseUrl())
+                .integrations(check.getIntegrations())
+                .schedule(check.getSchedule())
+                .timeZone(check.getTimeZone())
+                .timeout(check.getTimeout())
+                .readOnlyKey(check.getReadOnlyKey())
+                .unique(check.getUnique());
+        //Extracted by the check when its ping URL has been set
+        builder.uuid = check.getUuid();
+        return builder.build();
+    }
+
+    /**
+     * <p>Converts an array of {@link Check}s into snapshots.</p>
+     *
+     * @param checks The checks to copy. <b>Must not be null.</b>
+     *
+     * @return An array with one {@link CheckSnapshot} per check (same order).
+     */
+    public static CheckSnapshot[] of(Check[] checks) {
+        CheckSnapshot[] result = new CheckSnapshot[checks.length];
+        for (int i = 0; i < checks.length; i++)
+            result[i] = of(checks[i]);
+        return result;
+    }
+
+    /**
+     * @return A new, empty {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static Instant toInstant(Date date) {
+        return date == null ? null : date.toInstant();
+    }
+
+    private static Date toDate(Instant instant) {
+        return instant == null ? null : Date.from(instant);
+    }
+
+    private static URL toUrl(String url) {
+        if (url == null)
+            return null;
+        try {
+            return new URL(url);
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException("Invalid URL " + url, e);
+        }
+    }
+
+    /**
+     * <p>Creates a new, mutable {@link Check} with the values of this snapshot,
+     * e.g. to pass it to {@code HealthchecksManager#updateCheck(Check)}.</p>
+     *
+     * @return A new {@link Check} object.
+     */
+    public Check toCheck() {
+        Check check = new Check();
+        check.setName(name);
+        check.setTags(tags);
+        check.setDescription(description);
+        check.setGraceTime(graceTime);
+        check.setLastDuration(lastDuration);
+        check.setPings(pings);
+        check.setStatus(status);
+        check.setLastPing(toDate(lastPing));
+        check.setNextPing(toDate(nextPing));
+        check.setManualResume(manualResume);
+        check.setMethods(methods);
+        check.setRawUrls(pingUrl, updateUrl, pauseUrl);
+        check.setIntegrations(integrations);
+        check.setSchedule(schedule);
+        check.setTimeZone(timeZone);
+        check.setTimeout(timeout);
+        check.setReadOnlyKey(readOnlyKey);
+        check.setUnique(unique == null ? null : unique.toArray(new String[0]));
+        return check;
+    }
+
+    /**
+     * @return A new {@link Builder}, pre-filled with the values of this snapshot.
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.name = name;
+        builder.tags = tags;
+        builder.description = description;
+        builder.graceTime = graceTime;
+        builder.lastDuration = lastDuration;
+        builder.pings = pings;
+        builder.status = status;
+        builder.lastPing = lastPing;
+        builder.nextPing = nextPing;
+        builder.manualResume = manualResume;
+        builder.methods = methods;
+        builder.pingUrl = pingUrl;
+        builder.updateUrl = updateUrl;
+        builder.pauseUrl = pauseUrl;
+        builder.uuid = uuid;
+        builder.integrations = integrations;
+        builder.schedule = schedule;
+        builder.timeZone = timeZone;
+        builder.timeout = timeout;
+        builder.readOnlyKey = readOnlyKey;
+        builder.unique = unique == null ? null : unique.toArray(new String[0]);
+        return builder;
+    }
+
+    /* -----------------------------------------------
+                          GETTERS
+       ----------------------------------------------- */
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTags() {
+        return tags;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public int getGraceTime() {
+        return graceTime;
+    }
+
+    public int getLastDuration() {
+        return lastDuration;
+    }
+
+    public int getPings() {
+        return pings;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Instant getLastPing() {
+        return lastPing;
+    }
+
+    public Instant getNextPing() {
+        return nextPing;
+    }
+
+    public boolean isManualResume() {
+        return manualResume;
+    }
+
+    public String getMethods() {
+        return methods;
+    }
+
+    /**
+     * @return The parsed ping URL (or null if read-only).
+     *
+     * @throws IllegalStateException If the URL is malformed.
+     */
+    public URL getPingUrl() {
+        return toUrl(pingUrl);
+    }
+
+    /**
+     * @return The parsed update URL (or null if read-only).
+     *
+     * @throws IllegalStateException If the URL is malformed.
+     */
+    public URL getUpdateUrl() {
+        return toUrl(updateUrl);
+    }
+
+    /**
+     * @return The parsed pause URL (or null if read-only).
+     *
+     * @throws IllegalStateException If the URL is malformed.
+     */
+    public URL getPauseUrl() {
+        return toUrl(pauseUrl);
+    }
+
+    /**
+     * @return The ping URL as received from the API (not parsed).
+     */
+    public String getRawPingUrl() {
+        return pingUrl;
+    }
+
+    public String getRawUpdateUrl() {
+        return updateUrl;
+    }
+
+    public String getRawPauseUrl() {
+        return pauseUrl;
+    }
+
+    public String getIntegrations() {
+        return integrations;
+    }
+
+    public String getSchedule() {
+        return schedule;
+    }
+
+    public String getTimeZone() {
+        return timeZone;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public String getReadOnlyKey() {
+        return readOnlyKey;
+    }
+
+    /**
+     * @return An unmodifiable view of the unique fields (or null).
+     */
+    public List<String> getUnique() {
+        return unique;
+    }
+
+    /**
+     * <p>In contrast to {@link Check#getUuid()}, the UUID is extracted once
+     * when the snapshot is created.</p>
+     *
+     * @return The UUID of the check (or null if read-only).
+     */
+    public String getUuid() {
+        return uuid;
+    }
+
+    /**
+     * @return Whether this check was retrieved with a read-only API key.
+     *
+     * @see Check#isReadOnly()
+     */
+    public boolean isReadOnly() {
+        return readOnlyKey != null;
+    }
+
+    /**
+     * @return If Read-only: Unique Key, otherwise UUID.
+     *
+     * @see Check#getUuidOrUniqueKey()
+     */
+    public String getUuidOrUniqueKey() {
+        return isReadOnly() ? readOnlyKey : uuid;
+    }
+
+    /**
+     * @return Whether this check uses the cron schedule or a fixed interval.
+     *
+     * @see Check#usesCronSchedule()
+     */
+    public boolean usesCronSchedule() {
+        return schedule != null;
+    }
+
+    /* -----------------------------------------------
+                       COPY-ON-WRITE
+       ----------------------------------------------- */
+
+    public CheckSnapshot withName(String name) {
+        return toBuilder().name(name).build();
+    }
+
+    public CheckSnapshot withTags(String tags) {
+        return toBuilder().tags(tags).build();
+    }
+
+    public CheckSnapshot withDescription(String description) {
+        return toBuilder().description(description).build();
+    }
+
+    public CheckSnapshot withGraceTime(int graceTime) {
+        return toBuilder().graceTime(graceTime).build();
+    }
+
+    public CheckSnapshot withLastDuration(int lastDuration) {
+        return toBuilder().lastDuration(lastDuration).build();
+    }
+
+    public CheckSnapshot withPings(int pings) {
+        return toBuilder().pings(pings).build();
+    }
+
+    public CheckSnapshot withStatus(String status) {
+        return toBuilder().status(status).build();
+    }
+
+    public CheckSnapshot withLastPing(Instant lastPing) {
+        return toBuilder().lastPing(lastPing).build();
+    }
+
+    public CheckSnapshot withNextPing(Instant nextPing) {
+        return toBuilder().nextPing(nextPing).build();
+    }
+
+    public CheckSnapshot withManualResume(boolean manualResume) {
+        return toBuilder().manualResume(manualResume).build();
+    }
+
+    public CheckSnapshot withMethods(String methods) {
+        return toBuilder().methods(methods).build();
+    }
+
+    public CheckSnapshot withPingUrl(URL pingUrl) {
+        return toBuilder().pingUrl(pingUrl).build();
+    }
+
+    public CheckSnapshot withUpdateUrl(URL updateUrl) {
+        return toBuilder().updateUrl(updateUrl).build();
+    }
+
+    public CheckSnapshot withPauseUrl(URL pauseUrl) {
+        return toBuilder().pauseUrl(pauseUrl).build();
+    }
+
+    public CheckSnapshot withIntegrations(String integrations) {
+        return toBuilder().integrations(integrations).build();
+    }
+
+    public CheckSnapshot withSchedule(String schedule) {
+        return toBuilder().schedule(schedule).build();
+    }
+
+    public CheckSnapshot withTimeZone(String timeZone) {
+        return toBuilder().timeZone(timeZone).build();
+    }
+
+    public CheckSnapshot withTimeout(int timeout) {
+        return toBuilder().timeout(timeout).build();
+    }
+
+    public CheckSnapshot withReadOnlyKey(String readOnlyKey) {
+        return toBuilder().readOnlyKey(readOnlyKey).build();
+    }
+
+    public CheckSnapshot withUnique(String... unique) {
+        return toBuilder().unique(unique).build();
+    }
+
+    /* -----------------------------------------------
+                       OBJECT METHODS
+       ----------------------------------------------- */
+
+    private int computeHash() {
+        int result = Objects.hash(name, tags, description, graceTime, lastDuration, pings,
+                status, lastPing, nextPing, manualResume, methods, integrations,
+                schedule, timeZone, timeout, readOnlyKey, unique, pingUrl, updateUrl, pauseUrl);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof CheckSnapshot))
+            return false;
+
+        CheckSnapshot other = (CheckSnapshot) o;
+        return hash == other.hash
+                && graceTime == other.graceTime
+                && lastDuration == other.lastDuration
+                && pings == other.pings
+                && manualResume == other.manualResume
+                && timeout == other.timeout
+                && Objects.equals(name, other.name)
+                && Objects.equals(tags, other.tags)
+                && Objects.equals(description, other.description)
+                && Objects.equals(status, other.status)
+                && Objects.equals(lastPing, other.lastPing)
+                && Objects.equals(nextPing, other.nextPing)
+                && Objects.equals(methods, other.methods)
+                && Objects.equals(pingUrl, other.pingUrl)
+                && Objects.equals(updateUrl, other.updateUrl)
+                && Objects.equals(pauseUrl, other.pauseUrl)
+                && Objects.equals(integrations, other.integrations)
+                && Objects.equals(schedule, other.schedule)
+                && Objects.equals(timeZone, other.timeZone)
+                && Objects.equals(readOnlyKey, other.readOnlyKey)
+                && Objects.equals(unique, other.unique);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "CheckSnapshot(name=" + name + ", uuid=" + uuid + ", tags=" + tags
+                + ", status=" + status + ", pings=" + pings + ", lastPing=" + lastPing
+                + ", nextPing=" + nextPing + ", schedule=" + schedule + ", timeZone=" + timeZone
+                + ", timeout=" + timeout + ", graceTime=" + graceTime
+                + ", readOnlyKey=" + readOnlyKey + ")";
+    }
+
+    /**
+     * <p>Mutable builder for {@link CheckSnapshot} objects. A builder must not be
+     * shared between threads, but the snapshots it creates can be.</p>
+     */
+    public static final class Builder {
+
+        private String name;
+        private String tags;
+        private String description;
+        private int graceTime;
+        private int lastDuration;
+        private int pings;
+        private String status;
+        private Instant lastPing;
+        private Instant nextPing;
+        private boolean manualResume = false;
+        private String methods = "";
+        private String pingUrl;
+        private String updateUrl;
+        private String pauseUrl;
+        //Known UUID of the ping URL, so it does not have to be extracted again
+        private String uuid;
+        private String integrations;
+        private String schedule;
+        private String timeZone;
+        private int timeout;
+        private String readOnlyKey;
+        private String[] unique;
+
+        private Builder() {
+        }
+
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder tags(String tags) {
+            this.tags = tags;
+            return this;
+        }
+
+        public Builder description(String description) {
+            this.description = description;
+            return this;
+        }
+
+        public Builder graceTime(int graceTime) {
+            this.graceTime = graceTime;
+            return this;
+        }
+
+        public Builder lastDuration(int lastDuration) {
+            this.lastDuration = lastDuration;
+            return this;
+        }
+
+        public Builder pings(int pings) {
+            this.pings = pings;
+            return this;
+        }
+
+        public Builder status(String status) {
+            this.status = status;
+            return this;
+        }
+
+        public Builder lastPing(Instant lastPing) {
+            this.lastPing = lastPing;
+            return this;
+        }
+
+        public Builder nextPing(Instant nextPing) {
+            this.nextPing = nextPing;
+            return this;
+        }
+
+        public Builder manualResume(boolean manualResume) {
+            this.manualResume = manualResume;
+            return this;
+        }
+
+        public Builder methods(String methods) {
+            this.methods = methods;
+            return this;
+        }
+
+        public Builder pingUrl(URL pingUrl) {
+            return rawPingUrl(pingUrl == null ? null : pingUrl.toString());
+        }
+
+        public Builder updateUrl(URL updateUrl) {
+            return rawUpdateUrl(updateUrl == null ? null : updateUrl.toString());
+        }
+
+        public Builder pauseUrl(URL pauseUrl) {
+            return rawPauseUrl(pauseUrl == null ? null : pauseUrl.toString());
+        }
+
+        /**
+         * @param pingUrl The ping URL, which is only parsed when it is accessed.
+         */
+        public Builder rawPingUrl(String pingUrl) {
+            this.pingUrl = pingUrl;
+            this.uuid = null;
+            return this;
+        }
+
+        public Builder rawUpdateUrl(String updateUrl) {
+            this.updateUrl = updateUrl;
+            return this;
+        }
+
+        public Builder rawPauseUrl(String pauseUrl) {
+            this.pauseUrl = pauseUrl;
+            return this;
+        }
+
+        public Builder integrations(String integrations) {
+            this.integrations = integrations;
+            return this;
+        }
+
+        public Builder schedule(String schedule) {
+            this.schedule = schedule;
+            return this;
+        }
+
+        public Builder timeZone(String timeZone) {
+            this.timeZone = timeZone;
+            return this;
+        }
+
+        public Builder timeout(int timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        public Builder readOnlyKey(String readOnlyKey) {
+            this.readOnlyKey = readOnlyKey;
+            return this;
+        }
+
+        public Builder unique(String... unique) {
+            this.unique = unique;
+            return this;
+        }
+
+        /**
+         * @return A new, immutable {@link CheckSnapshot} with the values of this builder.
+         */
+        public CheckSnapshot build() {
+            return new CheckSnapshot(this);
+        }
+    }
+}
@@ -0,0 +1,656 @@
+package com.niklasarndt.healthchecksio.relay;
+
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksClient;
+import com.niklasarndt.healthchecksio.HealthchecksOptions;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * <p>A local daemon which accepts heartbeats over HTTP and forwards them to healthchecks.io
+ * (or a self-hosted instance) over a few persistent connections.</p>
+ *
+ * <p>The relay uses the same path scheme as the Pinging API: {@code /<uuid>},
+ * {@code /<uuid>/start}, {@code /<uuid>/fail} and {@code /<uuid>/<code>}. Other paths
+ * (including slugs instead of UUIDs) are rejected with {@code 400}. Heartbeats are
+ * acknowledged with {@code 200 OK} as soon as they have been queued (or {@code 503} if the
+ * queue is full). Heartbeats stay in the queue until they have been delivered, so a slow
+ * upstream fills the queue instead of piling up requests in memory. The heartbeats of a check
+ * are forwarded one at a time and in order, and consecutive success pings without a body are
+ * coalesced into one while they wait. Failed deliveries (network errors, 429 and 5xx responses)
+ * are retried with exponential backoff before the next heartbeat of the check is sent.</p>
+ *
+ * <p>Start it from the command line via
+ * {@code java -cp healthchecksio-java.jar:<dependencies> com.niklasarndt.healthchecksio.relay.HeartbeatRelay
+ * --port=8787 --upstream=https://hc-ping.com/} and send heartbeats with a client created by
+ * {@link Healthchecks#forRelay(String)}.</p>
+ *
+ * @since 1.1.0
+ */
+public class HeartbeatRelay implements AutoCloseable {
+
+    /**
+     * The default port of the relay.
+     */
+    public static final int DEFAULT_PORT = 8787;
+    /**
+     * The default upstream (healthchecks.io).
+     */
+    public static final String DEFAULT_UPSTREAM = "https://hc-ping.com/";
+
+    private static final Logger LOG = LoggerFactory.getLogger(HeartbeatRelay.class);
+    //healthchecks.io stores the first 100 kB of a request body
+    private static final int MAX_BODY = 100 * 1024;
+
+    private final String upstream;
+    private final HealthchecksOptions upstreamOptions;
+    private final int queueCapacity;
+    private final int connections;
+    private final int maxAttempts;
+    private final HttpServer server;
+    private final ExecutorService serverExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final OkHttpClient httpClient;
+    /**
+     * The queued heartbeats per check. Checks without queued heartbeats are removed. Guards the queue state.
+     */
+    private final Map<String, Lane> lanes = new HashMap<>();
+    /**
+     * The checks whose first heartbeat can be sent.
+     */
+    private final ArrayDeque<Lane> ready = new ArrayDeque<>();
+    private int queued;
+    private volatile boolean closed;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong forwarded = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private HeartbeatRelay(Builder builder) throws IOException {
+        this.upstream = builder.upstream;
+        this.queueCapacity = builder.queueCapacity;
+        this.connections = builder.connections;
+        this.maxAttempts = builder.maxAttempts;
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(builder.connections);
+        dispatcher.setMaxRequestsPerHost(builder.connections);
+        this.httpClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(builder.connections, 5, TimeUnit.MINUTES))
+                .build();
+        this.upstreamOptions = builder.options.toBuilder().httpClient(httpClient).build();
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "healthchecks-relay-forwarder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.serverExecutor = Executors.newFixedThreadPool(builder.serverThreads, runnable -> {
+            Thread thread = new Thread(runnable, "healthchecks-relay-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.server = HttpServer.create(new InetSocketAddress(builder.bindAddress, builder.port), 512);
+        this.server.setExecutor(serverExecutor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+        this.scheduler.scheduleWithFixedDelay(this::flush, builder.flushInterval,
+                builder.flushInterval, TimeUnit.MILLISECONDS);
+
+        LOG.info("Heartbeat relay listening on {}, forwarding to {}", getUrl(), upstream);
+    }
+
+    /**
+     * @return A new {@link Builder} with the default settings.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * <p>Starts a relay from the command line.</p>
+     *
+     * <p>Options: {@code --port=8787 --bind=127.0.0.1 --upstream=https://hc-ping.com/
+     * --connections=4 --queue=10000 --flush-interval=50 --attempts=5}</p>
+     *
+     * @param args The command line options.
+     *
+     * @throws IOException If the relay could not bind its port.
+     */
+    public static void main(String[] args) throws IOException {
+        Builder builder = builder();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0)
+                throw new IllegalArgumentException("Invalid argument " + arg + ", expected --key=value");
+            String value = arg.substring(separator + 1);
+
+            switch (arg.substring(2, separator)) {
+                case "port":
+                    builder.port(Integer.parseInt(value));
+                    break;
+                case "bind":
+                    builder.bindAddress(value);
+                    break;
+                case "upstream":
+                    builder.upstream(value);
+                    break;
+                case "connections":
+                    builder.connections(Integer.parseInt(value));
+                    break;
+                case "queue":
+                    builder.queueCapacity(Integer.parseInt(value));
+                    break;
+                case "flush-interval":
+                    builder.flushInterval(Long.parseLong(value));
+                    break;
+                case "attempts":
+                    builder.maxAttempts(Integer.parseInt(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        HeartbeatRelay relay = builder.build();
+        Runtime.getRuntime().addShutdownHook(new Thread(relay::close, "healthchecks-relay-shutdown"));
+    }
+
+    /**
+     * @return The URL clients can use to reach this relay (e.g. {@code http://127.0.0.1:8787/}).
+     */
+    public String getUrl() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort() + "/";
+    }
+
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    public long getForwardedCount() {
+        return forwarded.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public long getRetriedCount() {
+        return retried.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return The number of heartbeats which are waiting to be forwarded (including the ones in flight).
+     */
+    public int getQueueSize() {
+        synchronized (lanes) {
+            return queued;
+        }
+    }
+
+    /**
+     * <p>Stops accepting heartbeats, forwards the queued ones and waits up to five seconds
+     * for the deliveries to complete. Heartbeats which wait for a retry are dropped, and failed
+     * deliveries are not retried anymore.</p>
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        serverExecutor.shutdown();
+        scheduler.shutdownNow();
+
+        List<Lane> waiting = new ArrayList<>();
+        synchronized (lanes) {
+            closed = true;
+            for (Lane lane : lanes.values())
+                if (lane.retrying)
+                    waiting.add(lane);
+        }
+        for (Lane lane : waiting) {
+            dropped.incrementAndGet();
+            finish(lane);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (getQueueSize() > 0 && System.nanoTime() < deadline) {
+            flush();
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+        LOG.info("Heartbeat relay stopped (received: {}, forwarded: {}, coalesced: {}, dropped: {})",
+                received.get(), forwarded.get(), coalesced.get(), dropped.get());
+    }
+
+    /* -----------------------------------------------
+                      INCOMING HEARTBEATS
+       ----------------------------------------------- */
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("POST") && !method.equals("HEAD")) {
+                respond(exchange, 405, "method not allowed");
+                return;
+            }
+
+            String body = readBody(exchange.getRequestBody());
+            Heartbeat heartbeat = Heartbeat.parse(exchange.getRequestURI().getRawPath(), body);
+            if (heartbeat == null) {
+                respond(exchange, 400, "invalid url format");
+                return;
+            }
+
+            received.incrementAndGet();
+            if (!enqueue(heartbeat)) {
+                dropped.incrementAndGet();
+                respond(exchange, 503, "relay queue is full");
+                return;
+            }
+            respond(exchange, 200, "OK");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String readBody(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            if (output.size() < MAX_BODY)
+                output.write(buffer, 0, Math.min(read, MAX_BODY - output.size()));
+        }
+        return output.size() == 0 ? null : new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int code, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    /* -----------------------------------------------
+                      OUTGOING HEARTBEATS
+       ----------------------------------------------- */
+
+    private boolean enqueue(Heartbeat heartbeat) {
+        synchronized (lanes) {
+            Lane lane = lanes.get(heartbeat.uuid);
+            //A success ping without a body behind another one (which is not being sent) adds nothing
+            if (lane != null && heartbeat.isPlainSuccess() && lane.heartbeats.size() > (lane.busy ? 1 : 0)
+                    && lane.heartbeats.peekLast().isPlainSuccess()) {
+                coalesced.incrementAndGet();
+                return true;
+            }
+            if (queued >= queueCapacity)
+                return false;
+
+            if (lane == null) {
+                lane = new Lane(heartbeat.uuid, Healthchecks.forUuid(upstream, heartbeat.uuid, upstreamOptions));
+                lanes.put(heartbeat.uuid, lane);
+            }
+            lane.heartbeats.add(heartbeat);
+            queued++;
+            if (!lane.busy && lane.heartbeats.size() == 1)
+                ready.add(lane);
+            return true;
+        }
+    }
+
+    /**
+     * Sends the oldest heartbeat of every check which has none in flight, as long as there are free connections.
+     */
+    private void flush() {
+        try {
+            List<Lane> batch = new ArrayList<>();
+            synchronized (lanes) {
+                while (inFlight.get() < connections && !ready.isEmpty()) {
+                    Lane lane = ready.poll();
+                    lane.busy = true;
+                    inFlight.incrementAndGet();
+                    batch.add(lane);
+                }
+            }
+            for (Lane lane : batch)
+                send(lane);
+        } catch (RuntimeException e) {
+            LOG.error("Could not forward heartbeats", e);
+        }
+    }
+
+    private void send(Lane lane) {
+        Heartbeat heartbeat;
+        int attempt;
+        synchronized (lanes) {
+            heartbeat = lane.heartbeats.peek();
+            attempt = lane.attempt;
+        }
+
+        CompletableFuture<Response> future;
+        try {
+            switch (heartbeat.event) {
+                case "start":
+                    future = lane.client.start(heartbeat.body);
+                    break;
+                case "fail":
+                    future = lane.client.fail(heartbeat.body);
+                    break;
+                case "":
+                    future = lane.client.success(heartbeat.body);
+                    break;
+                default:
+                    future = lane.client.exitCode(Integer.parseInt(heartbeat.event), heartbeat.body);
+            }
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+
+        future.whenComplete((response, error) -> {
+            if (error == null) {
+                int code = response.code();
+                response.close();
+
+                if (response.isSuccessful()) {
+                    forwarded.incrementAndGet();
+                    finish(lane);
+                    return;
+                }
+                if (code != 429 && code < 500) {
+                    dropped.incrementAndGet();
+                    LOG.warn("Upstream rejected heartbeat {} with status {}", heartbeat, code);
+                    finish(lane);
+                    return;
+                }
+            }
+            retry(lane, heartbeat, attempt, error);
+        });
+    }
+
+    /**
+     * Removes the heartbeat which has been sent (or dropped), so the next one of its check can be sent.
+     */
+    private void finish(Lane lane) {
+        synchronized (lanes) {
+            if (lane.busy && !lane.retrying)
+                inFlight.decrementAndGet();
+            lane.heartbeats.poll();
+            queued--;
+            lane.attempt = 1;
+            lane.busy = false;
+            lane.retrying = false;
+            if (lane.heartbeats.isEmpty())
+                lanes.remove(lane.uuid);
+            else
+                ready.add(lane);
+        }
+        schedule(this::flush, 0);
+    }
+
+    private void retry(Lane lane, Heartbeat heartbeat, int attempt, Throwable error) {
+        boolean retrying;
+        synchronized (lanes) {
+            retrying = attempt < maxAttempts && !closed;
+            if (retrying) {
+                //The heartbeat stays at the head of its check, so the later ones can't overtake it
+                inFlight.decrementAndGet();
+                lane.retrying = true;
+                lane.attempt = attempt + 1;
+            }
+        }
+        if (!retrying) {
+            dropped.incrementAndGet();
+            LOG.warn("Dropping heartbeat {} after {} attempts", heartbeat, attempt, error);
+            finish(lane);
+            return;
+        }
+
+        long backoff = Math.min(30_000, 500L << (attempt - 1));
+        backoff += ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        retried.incrementAndGet();
+        LOG.debug("Retrying heartbeat {} in {} ms (attempt {})", heartbeat, backoff, attempt + 1);
+        schedule(() -> {
+            synchronized (lanes) {
+                if (!lane.retrying)
+                    return;
+                lane.retrying = false;
+                lane.busy = false;
+                ready.addFirst(lane);
+            }
+            flush();
+        }, backoff);
+    }
+
+    private void schedule(Runnable task, long delay) {
+        try {
+            scheduler.schedule(task, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+            //The relay has been closed, close() forwards the remaining heartbeats itself
+        }
+    }
+
+    /**
+     * The queued heartbeats of one check. Only the first one is in flight (or waiting for a retry) at a time.
+     */
+    private static final class Lane {
+        private final String uuid;
+        private final HealthchecksClient client;
+        private final ArrayDeque<Heartbeat> heartbeats = new ArrayDeque<>();
+        private int attempt = 1;
+        private boolean busy;
+        private boolean retrying;
+
+        private Lane(String uuid, HealthchecksClient client) {
+            this.uuid = uuid;
+            this.client = client;
+        }
+    }
+
+    /**
+     * A queued heartbeat.
+     */
+    private static final class Heartbeat {
+        private static final Pattern UUID = Pattern.compile(
+                "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+        private final String uuid;
+        /**
+         * Empty for success, otherwise start, fail or an exit code.
+         */
+        private final String event;
+        private final String body;
+
+        private Heartbeat(String uuid, String event, String body) {
+            this.uuid = uuid;
+            this.event = event;
+            this.body = body;
+        }
+
+        private static Heartbeat parse(String path, String body) {
+            if (path == null || path.length() < 2)
+                return null;
+
+            String[] segments = path.substring(1).split("/", -1);
+            //Anything else would be forwarded to an arbitrary upstream path
+            if (!UUID.matcher(segments[0]).matches() || segments.length > 2)
+                return null;
+            if (segments.length == 1 || segments[1].isEmpty())
+                return new Heartbeat(segments[0], "", body);
+
+            String event = segments[1];
+            if (!event.equals("start") && !event.equals("fail")) {
+                try {
+                    int code = Integer.parseInt(event);
+                    if (code < 0 || code > 255)
+                        return null;
+                    event = String.valueOf(code);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return new Heartbeat(segments[0], event, body);
+        }
+
+        private boolean isPlainSuccess() {
+            return event.isEmpty() && body == null;
+        }
+
+        @Override
+        public String toString() {
+            return uuid + (event.isEmpty() ? "" : "/" + event);
+        }
+    }
+
+    /**
+     * Builder for {@link HeartbeatRelay} objects.
+     */
+    public static final class Builder {
+
+        private int port = DEFAULT_PORT;
+        private String bindAddress = "127.0.0.1";
+        private String upstream = DEFAULT_UPSTREAM;
+        private HealthchecksOptions options = HealthchecksOptions.DEFAULT;
+        private int connections = 4;
+        private int serverThreads = 4;
+        private int queueCapacity = 10_000;
+        private long flushInterval = 50;
+        private int maxAttempts = 5;
+
+        private Builder() {
+        }
+
+        /**
+         * @param port The local port (default: 8787, 0 for a random port).
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * @param bindAddress The local address (default: 127.0.0.1).
+         */
+        public Builder bindAddress(String bindAddress) {
+            this.bindAddress = Objects.requireNonNull(bindAddress);
+            return this;
+        }
+
+        /**
+         * @param upstream The ping URL of the healthchecks instance (default: https://hc-ping.com/).
+         */
+        public Builder upstream(String upstream) {
+            this.upstream = Objects.requireNonNull(upstream);
+            return this;
+        }
+
+        /**
+         * @param options The options (e.g. timeouts) for the upstream requests.
+         */
+        public Builder options(HealthchecksOptions options) {
+            this.options = Objects.requireNonNull(options);
+            return this;
+        }
+
+        /**
+         * @param connections The maximum number of concurrent upstream requests and
+         *                    persistent connections (default: 4).
+         */
+        public Builder connections(int connections) {
+            this.connections = connections;
+            return this;
+        }
+
+        /**
+         * @param serverThreads The number of threads accepting local heartbeats (default: 4).
+         */
+        public Builder serverThreads(int serverThreads) {
+            this.serverThreads = serverThreads;
+            return this;
+        }
+
+        /**
+         * @param queueCapacity The maximum number of queued heartbeats, including the ones
+         *                      which are being forwarded (default: 10000).
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * @param flushInterval The delay between two flushes in milliseconds (default: 50). Heartbeats
+         *                      are also sent as soon as a connection (or their check) becomes free.
+         */
+        public Builder flushInterval(long flushInterval) {
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
+        /**
+         * @param maxAttempts The number of delivery attempts per heartbeat (default: 5).
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * <p>Creates and starts the relay.</p>
+         *
+         * @return The running relay.
+         *
+         * @throws IOException If the port could not be bound.
+         */
+        public HeartbeatRelay build() throws IOException {
+            return new HeartbeatRelay(this);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+/**
+ * <p>Contains the {@link com.niklasarndt.healthchecksio.relay.HeartbeatRelay}, a small local
+ * daemon which accepts heartbeats from many processes and forwards them to healthchecks.io
+ * over a few persistent connections.</p>
+ *
+ * <p>Clients can target a running relay via
+ * {@link com.niklasarndt.healthchecksio.Healthchecks#forRelay(String)}.</p>
+ *
+ * @since 1.1.0
+ */
+package com.niklasarndt.healthchecksio.relay;
@@ -0,0 +1,88 @@
+package com.niklasarndt.healthchecksio.schedule;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * <p>The next deadline of a check, as tracked by a {@link DeadlineIndex}.</p>
+ *
+ * @since 1.1.0
+ */
+public final class CheckDeadline {
+
+    private final String key;
+    private final Instant lastPing;
+    private final Instant expectedPing;
+    private final Instant graceDeadline;
+
+    public CheckDeadline(String key, Instant lastPing, Instant expectedPing, Instant graceDeadline) {
+        this.key = Objects.requireNonNull(key);
+        this.lastPing = lastPing;
+        this.expectedPing = expectedPing;
+        this.graceDeadline = graceDeadline;
+    }
+
+    /**
+     * @return The UUID (or unique key) of the check.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public Instant getLastPing() {
+        return lastPing;
+    }
+
+    /**
+     * @return The time at which the next ping is expected.
+     */
+    public Instant getExpectedPing() {
+        return expectedPing;
+    }
+
+    /**
+     * @return The time at which the check goes down without another ping.
+     */
+    public Instant getGraceDeadline() {
+        return graceDeadline;
+    }
+
+    /**
+     * @param now The current time.
+     *
+     * @return Whether the check is late (the expected ping has not arrived in time).
+     */
+    public boolean isLate(Instant now) {
+        return now.isAfter(expectedPing);
+    }
+
+    /**
+     * @param now The current time.
+     *
+     * @return Whether the grace time has passed, i.e. healthchecks.io considers the check down.
+     */
+    public boolean isMissed(Instant now) {
+        return !now.isBefore(graceDeadline);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CheckDeadline that = (CheckDeadline) o;
+        return key.equals(that.key) && Objects.equals(lastPing, that.lastPing)
+                && Objects.equals(expectedPing, that.expectedPing)
+                && Objects.equals(graceDeadline, that.graceDeadline);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(key, lastPing, expectedPing, graceDeadline);
+    }
+
+    @Override
+    public String toString() {
+        return "CheckDeadline(key=" + key + ", expectedPing=" + expectedPing
+                + ", graceDeadline=" + graceDeadline + ")";
+    }
+}
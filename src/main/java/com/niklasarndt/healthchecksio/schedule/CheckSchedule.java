@@ -0,0 +1,149 @@
+package com.niklasarndt.healthchecksio.schedule;
+
+import com.niklasarndt.healthchecksio.model.Check;
+import com.niklasarndt.healthchecksio.model.CheckSnapshot;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Objects;
+
+/**
+ * <p>The schedule of a single check (a fixed period or a cron expression in a time zone,
+ * plus the grace time), which computes the next expected ping locally, without any
+ * API calls.</p>
+ *
+ * <p>The evaluation follows healthchecks.io: a check with a period is expected
+ * {@code timeout} seconds after its last ping, a check with a cron schedule at the first
+ * matching minute after its last ping. If no ping arrives within the grace time after
+ * that, the check goes down.</p>
+ *
+ * @since 1.1.0
+ */
+public final class CheckSchedule {
+
+    private final Duration period;
+    private final CronExpression cron;
+    private final ZoneId zone;
+    private final Duration grace;
+
+    private CheckSchedule(Duration period, CronExpression cron, ZoneId zone, Duration grace) {
+        this.period = period;
+        this.cron = cron;
+        this.zone = zone;
+        this.grace = grace;
+    }
+
+    /**
+     * @param period The expected time between two pings.
+     * @param grace  The grace time.
+     *
+     * @return A schedule with a fixed period.
+     */
+    public static CheckSchedule ofPeriod(Duration period, Duration grace) {
+        return new CheckSchedule(Objects.requireNonNull(period), null, ZoneOffset.UTC,
+                Objects.requireNonNull(grace));
+    }
+
+    /**
+     * @param cron  The cron expression.
+     * @param zone  The time zone the expression is evaluated in.
+     * @param grace The grace time.
+     *
+     * @return A schedule based on a cron expression.
+     */
+    public static CheckSchedule ofCron(CronExpression cron, ZoneId zone, Duration grace) {
+        return new CheckSchedule(null, Objects.requireNonNull(cron), Objects.requireNonNull(zone),
+                Objects.requireNonNull(grace));
+    }
+
+    /**
+     * @param check The check, e.g. retrieved via the Management API.
+     *
+     * @return The schedule of the check.
+     *
+     * @throws IllegalArgumentException If the cron expression or time zone of the check is invalid.
+     */
+    public static CheckSchedule of(CheckSnapshot check) {
+        Duration grace = Duration.ofSeconds(check.getGraceTime());
+        if (!check.usesCronSchedule())
+            return ofPeriod(Duration.ofSeconds(check.getTimeout()), grace);
+
+        String timeZone = check.getTimeZone();
+        ZoneId zone = timeZone == null || timeZone.isEmpty() ? ZoneOffset.UTC : ZoneId.of(timeZone);
+        return ofCron(CronExpression.parse(check.getSchedule()), zone, grace);
+    }
+
+    /**
+     * @see #of(CheckSnapshot)
+     */
+    public static CheckSchedule of(Check check) {
+        return of(CheckSnapshot.of(check));
+    }
+
+    /**
+     * @param lastPing The time of the last ping. <b>Must not be null.</b>
+     *
+     * @return The time at which the next ping is expected (or null if the cron expression
+     *         never matches).
+     */
+    public Instant getNextExpectedPing(Instant lastPing) {
+        return cron == null ? lastPing.plus(period) : cron.next(lastPing, zone);
+    }
+
+    /**
+     * @param lastPing The time of the last ping. <b>Must not be null.</b>
+     *
+     * @return The time at which the check goes down if it does not receive another ping
+     *         (or null if it never does).
+     */
+    public Instant getGraceDeadline(Instant lastPing) {
+        Instant expected = getNextExpectedPing(lastPing);
+        return expected == null ? null : expected.plus(grace);
+    }
+
+    public boolean isCron() {
+        return cron != null;
+    }
+
+    /**
+     * @return The period or null if this is a cron schedule.
+     */
+    public Duration getPeriod() {
+        return period;
+    }
+
+    /**
+     * @return The cron expression or null if this schedule has a fixed period.
+     */
+    public CronExpression getCron() {
+        return cron;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public Duration getGrace() {
+        return grace;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CheckSchedule that = (CheckSchedule) o;
+        return Objects.equals(period, that.period) && Objects.equals(cron, that.cron)
+                && zone.equals(that.zone) && grace.equals(that.grace);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(period, cron, zone, grace);
+    }
+
+    @Override
+    public String toString() {
+        return (cron == null ? "every " + period : cron + " (" + zone + ")") + ", grace " + grace;
+    }
+}
@@ -0,0 +1,273 @@
+package com.niklasarndt.healthchecksio.schedule;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * <p>A parsed cron expression in the five-field format used by healthchecks.io
+ * ({@code minute hour day-of-month month day-of-week}).</p>
+ *
+ * <p>Every field is compiled into a bitset once, so matching a point in time and
+ * searching the next one only needs a few bit operations per field. Supported syntax:
+ * {@code *}, single values, ranges ({@code 1-5}), lists ({@code 1,15}), steps
+ * ({@code *}{@code /15}, {@code 10-40/5}), month and weekday names ({@code jan},
+ * {@code mon}), {@code 7} for Sunday and the macros {@code @yearly}, {@code @annually},
+ * {@code @monthly}, {@code @weekly}, {@code @daily}, {@code @midnight} and
+ * {@code @hourly}.</p>
+ *
+ * <p>Like cron, a day matches if the day-of-month <b>or</b> the day-of-week matches when
+ * both fields are restricted.</p>
+ *
+ * @since 1.1.0
+ */
+public final class CronExpression {
+
+    private static final String[] MONTHS = {"jan", "feb", "mar", "apr", "may", "jun",
+            "jul", "aug", "sep", "oct", "nov", "dec"};
+    private static final String[] WEEKDAYS = {"sun", "mon", "tue", "wed", "thu", "fri", "sat"};
+    //If no day matches within this many years, the expression never matches (e.g. Feb 30)
+    private static final int MAX_YEARS = 8;
+
+    private final String expression;
+    private final long minutes;
+    private final long hours;
+    private final long daysOfMonth;
+    private final long months;
+    private final long daysOfWeek;
+    private final boolean dayOfMonthRestricted;
+    private final boolean dayOfWeekRestricted;
+
+    private CronExpression(String expression, String[] fields) {
+        this.expression = expression;
+        this.minutes = parseField(fields[0], 0, 59, null);
+        this.hours = parseField(fields[1], 0, 23, null);
+        this.daysOfMonth = parseField(fields[2], 1, 31, null);
+        this.months = parseField(fields[3], 1, 12, MONTHS);
+
+        long weekdays = parseField(fields[4], 0, 7, WEEKDAYS);
+        //7 is Sunday as well
+        this.daysOfWeek = (weekdays | (weekdays >>> 7)) & 0x7F;
+        this.dayOfMonthRestricted = !fields[2].startsWith("*");
+        this.dayOfWeekRestricted = !fields[4].startsWith("*");
+    }
+
+    /**
+     * <p>Parses a cron expression.</p>
+     *
+     * @param expression The expression, e.g. {@code 0 3 * * 1-5}. <b>Must not be null.</b>
+     *
+     * @return The compiled expression.
+     *
+     * @throws IllegalArgumentException If the expression is invalid.
+     */
+    public static CronExpression parse(String expression) {
+        Objects.requireNonNull(expression);
+        String trimmed = expression.trim().toLowerCase(Locale.ROOT);
+
+        switch (trimmed) {
+            case "@yearly":
+            case "@annually":
+                trimmed = "0 0 1 1 *";
+                break;
+            case "@monthly":
+                trimmed = "0 0 1 * *";
+                break;
+            case "@weekly":
+                trimmed = "0 0 * * 0";
+                break;
+            case "@daily":
+            case "@midnight":
+                trimmed = "0 0 * * *";
+                break;
+            case "@hourly":
+                trimmed = "0 * * * *";
+                break;
+            default:
+                break;
+        }
+
+        String[] fields = trimmed.split("\\s+");
+        if (fields.length != 5)
+            throw new IllegalArgumentException("Invalid cron expression " + expression
+                    + ", expected five fields!");
+        try {
+            return new CronExpression(expression, fields);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cron expression " + expression
+                    + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static long parseField(String field, int min, int max, String[] names) {
+        long bits = 0;
+        for (String part : field.split(",")) {
+            int step = 1;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = Integer.parseInt(part.substring(slash + 1));
+                if (step < 1)
+                    throw new IllegalArgumentException("Invalid step in " + field);
+                part = part.substring(0, slash);
+            }
+
+            int from;
+            int to;
+            if (part.equals("*")) {
+                from = min;
+                to = max;
+            } else {
+                int dash = part.indexOf('-');
+                if (dash > 0) {
+                    from = parseValue(part.substring(0, dash), min, names);
+                    to = parseValue(part.substring(dash + 1), min, names);
+                } else {
+                    from = parseValue(part, min, names);
+                    //"5/15" means "5-max/15"
+                    to = slash >= 0 ? max : from;
+                }
+            }
+            if (from < min || to > max || from > to)
+                throw new IllegalArgumentException("Value out of range in " + field);
+
+            for (int value = from; value <= to; value += step)
+                bits |= 1L << value;
+        }
+        return bits;
+    }
+
+    private static int parseValue(String value, int min, String[] names) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(value))
+                    return i + min;
+            }
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value " + value);
+        }
+    }
+
+    /**
+     * @param time A point in time (seconds are ignored).
+     *
+     * @return Whether the expression matches this minute.
+     */
+    public boolean matches(ZonedDateTime time) {
+        return matches(time.toLocalDateTime());
+    }
+
+    private boolean matches(LocalDateTime time) {
+        return has(months, time.getMonthValue()) && matchesDay(time.toLocalDate())
+                && has(hours, time.getHour()) && has(minutes, time.getMinute());
+    }
+
+    /**
+     * <p>Returns the first matching minute after {@code after}, evaluated in the time zone
+     * {@code zone}. If the local time does not exist because of a DST transition, the
+     * match is shifted forward by the length of the gap.</p>
+     *
+     * @param after The point in time after which the search starts (exclusive).
+     * @param zone  The time zone of the schedule.
+     *
+     * @return The next matching point in time or null if the expression never matches
+     *         (e.g. {@code 0 0 30 2 *}).
+     */
+    public Instant next(Instant after, ZoneId zone) {
+        LocalDateTime time = LocalDateTime.ofInstant(after, zone)
+                .truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        int lastYear = time.getYear() + MAX_YEARS;
+
+        while (time.getYear() <= lastYear) {
+            if (!has(months, time.getMonthValue())) {
+                time = time.toLocalDate().withDayOfMonth(1).plusMonths(1).atStartOfDay();
+                continue;
+            }
+            if (!matchesDay(time.toLocalDate())) {
+                time = time.toLocalDate().plusDays(1).atStartOfDay();
+                continue;
+            }
+
+            int hour = nextBit(hours, time.getHour());
+            if (hour < 0) {
+                time = time.toLocalDate().plusDays(1).atStartOfDay();
+                continue;
+            }
+            if (hour != time.getHour())
+                time = time.withHour(hour).withMinute(0);
+
+            int minute = nextBit(minutes, time.getMinute());
+            if (minute < 0) {
+                time = time.withMinute(0).plusHours(1);
+                continue;
+            }
+            time = time.withMinute(minute);
+
+            Instant result = time.atZone(zone).toInstant();
+            //Repeated local times (DST overlap) may map to an instant before "after"
+            if (result.isAfter(after))
+                return result;
+            time = time.plusMinutes(1);
+        }
+        return null;
+    }
+
+    private boolean matchesDay(LocalDate date) {
+        boolean dayOfMonth = has(daysOfMonth, date.getDayOfMonth());
+        boolean dayOfWeek = has(daysOfWeek, date.getDayOfWeek() == DayOfWeek.SUNDAY
+                ? 0 : date.getDayOfWeek().getValue());
+
+        if (dayOfMonthRestricted && dayOfWeekRestricted)
+            return dayOfMonth || dayOfWeek;
+        return dayOfMonth && dayOfWeek;
+    }
+
+    private static boolean has(long bits, int value) {
+        return (bits & (1L << value)) != 0;
+    }
+
+    /**
+     * @return The lowest set bit at or above {@code from} or -1 if there is none.
+     */
+    private static int nextBit(long bits, int from) {
+        long remaining = bits & (-1L << from);
+        return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);
+    }
+
+    /**
+     * @return The expression as it has been passed to {@link #parse(String)}.
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CronExpression that = (CronExpression) o;
+        return minutes == that.minutes && hours == that.hours && daysOfMonth == that.daysOfMonth
+                && months == that.months && daysOfWeek == that.daysOfWeek
+                && dayOfMonthRestricted == that.dayOfMonthRestricted
+                && dayOfWeekRestricted == that.dayOfWeekRestricted;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minutes, hours, daysOfMonth, months, daysOfWeek,
+                dayOfMonthRestricted, dayOfWeekRestricted);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
@@ -0,0 +1,374 @@
+package com.niklasarndt.healthchecksio.schedule;
+
+import com.niklasarndt.healthchecksio.model.CheckSnapshot;
+import com.niklasarndt.healthchecksio.watch.CheckChange;
+import com.niklasarndt.healthchecksio.watch.CheckListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Tracks the deadlines of many checks locally and notifies {@link DeadlineListener}s
+ * shortly before a check misses its deadline, without polling the API.</p>
+ *
+ * <p>The deadlines are kept in an indexed min-heap, so adding a check, recording a ping or
+ * removing a check costs O(log n), and only a single timer (for the earliest deadline) is
+ * scheduled at any time. Every deadline fires once; the check is tracked again as soon as
+ * its next ping is recorded via {@link #ping(String, Instant)} or {@link #track(CheckSnapshot)}.</p>
+ *
+ * <p>The index implements {@link CheckListener}, so it can be fed by a
+ * {@link com.niklasarndt.healthchecksio.watch.CheckWatcher}.</p>
+ *
+ * <pre>{@code
+ * DeadlineIndex index = new DeadlineIndex(Duration.ofMinutes(1),
+ *         deadline -> LOG.warn("{} is about to go down", deadline.getKey()));
+ * index.trackAll(manager.getExistingCheckSnapshots().get());
+ * watcher.addListener(index);
+ * }</pre>
+ *
+ * @since 1.1.0
+ */
+public class DeadlineIndex implements CheckListener, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeadlineIndex.class);
+
+    private final long warning;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+    private final List<DeadlineListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private Entry[] heap = new Entry[16];
+    private int size;
+    private ScheduledFuture<?> timer;
+    private long timerAt;
+    private boolean closed;
+
+    /**
+     * <p>Creates a new index with an own (daemon) timer thread.</p>
+     *
+     * @param warning  How long before the end of the grace time the listener is notified
+     *                 ({@link Duration#ZERO} notifies when the check goes down).
+     * @param listener The first listener (may be null).
+     */
+    public DeadlineIndex(Duration warning, DeadlineListener listener) {
+        this(warning, null, Clock.systemUTC());
+        if (listener != null)
+            addListener(listener);
+    }
+
+    /**
+     * <p>Creates a new index.</p>
+     *
+     * @param warning   How long before the end of the grace time the listeners are notified.
+     * @param scheduler The executor which runs the timer and the listeners. If null, a new
+     *                  single-threaded daemon executor is created (and shut down by {@link #close()}).
+     * @param clock     The clock which is used to evaluate the deadlines.
+     */
+    public DeadlineIndex(Duration warning, ScheduledExecutorService scheduler, Clock clock) {
+        this.warning = warning.toMillis();
+        if (this.warning < 0)
+            throw new IllegalArgumentException("The warning must not be negative!");
+        this.clock = Objects.requireNonNull(clock);
+        this.ownsScheduler = scheduler == null;
+        this.scheduler = scheduler != null ? scheduler
+                : Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "healthchecks-deadlines");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public void addListener(DeadlineListener listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    public void removeListener(DeadlineListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * <p>Starts (or updates) tracking a check, based on its schedule and last ping. Checks
+     * which are new, paused or have never been pinged have no deadline and are removed.</p>
+     *
+     * @param check The check. <b>Must not be null.</b>
+     *
+     * @return The deadline of the check or null if it has none.
+     */
+    public CheckDeadline track(CheckSnapshot check) {
+        String key = check.getUuidOrUniqueKey();
+        if (key == null || check.getLastPing() == null
+                || "paused".equals(check.getStatus()) || "new".equals(check.getStatus())) {
+            remove(key);
+            return null;
+        }
+
+        CheckSchedule schedule;
+        try {
+            schedule = CheckSchedule.of(check);
+        } catch (RuntimeException e) {
+            LOG.warn("Could not evaluate the schedule of check {}", key, e);
+            remove(key);
+            return null;
+        }
+        return update(key, schedule, check.getLastPing());
+    }
+
+    /**
+     * <p>Tracks all checks.</p>
+     *
+     * @param checks The checks.
+     *
+     * @see #track(CheckSnapshot)
+     */
+    public void trackAll(CheckSnapshot... checks) {
+        trackAll(Arrays.asList(checks));
+    }
+
+    /**
+     * @see #trackAll(CheckSnapshot...)
+     */
+    public void trackAll(Collection<CheckSnapshot> checks) {
+        for (CheckSnapshot check : checks)
+            track(check);
+    }
+
+    /**
+     * <p>Records a ping of a tracked check and moves its deadline (O(log n)). Pings of
+     * checks which are not tracked are ignored.</p>
+     *
+     * @param key  The UUID (or unique key) of the check.
+     * @param time The time of the ping.
+     *
+     * @return The new deadline or null if the check is not tracked.
+     */
+    public synchronized CheckDeadline ping(String key, Instant time) {
+        Entry entry = entries.get(key);
+        if (entry == null)
+            return null;
+        return update(key, entry.schedule, time);
+    }
+
+    /**
+     * <p>Stops tracking a check.</p>
+     *
+     * @param key The UUID (or unique key) of the check.
+     */
+    public synchronized void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null)
+            return;
+        if (entry.index >= 0)
+            removeAt(entry.index);
+        rearm();
+    }
+
+    /**
+     * @param key The UUID (or unique key) of the check.
+     *
+     * @return The current deadline of the check or null if it is not tracked.
+     */
+    public synchronized CheckDeadline get(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? null : entry.deadline;
+    }
+
+    /**
+     * @return The earliest pending deadline or null if there is none.
+     */
+    public synchronized CheckDeadline peek() {
+        return size == 0 ? null : heap[0].deadline;
+    }
+
+    /**
+     * @return The number of checks with a pending deadline.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * <p>Notifies the listeners about all deadlines which are due (i.e. at most
+     * {@code warning} away). This is called by the timer, but can be invoked manually
+     * as well.</p>
+     *
+     * @return The deadlines which have been fired.
+     */
+    public List<CheckDeadline> fireDue() {
+        List<CheckDeadline> due = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.millis();
+            while (size > 0 && heap[0].fireAt <= now) {
+                Entry entry = heap[0];
+                removeAt(0);
+                due.add(entry.deadline);
+            }
+            timer = null;
+            rearm();
+        }
+
+        for (CheckDeadline deadline : due) {
+            for (DeadlineListener listener : listeners) {
+                try {
+                    listener.onDeadline(deadline);
+                } catch (RuntimeException e) {
+                    LOG.error("Deadline listener failed for {}", deadline, e);
+                }
+            }
+        }
+        return due;
+    }
+
+    /**
+     * <p>Updates the index from a {@link com.niklasarndt.healthchecksio.watch.CheckWatcher} change: removed checks are dropped,
+     * all others are tracked with their current state.</p>
+     */
+    @Override
+    public void onChange(CheckChange change) {
+        if (change.isRemoved())
+            remove(change.getKey());
+        else
+            track(change.getCurrent());
+    }
+
+    /**
+     * <p>Cancels the timer. Deadlines are not fired anymore.</p>
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (timer != null)
+            timer.cancel(false);
+        timer = null;
+        if (ownsScheduler)
+            scheduler.shutdown();
+    }
+
+    private synchronized CheckDeadline update(String key, CheckSchedule schedule, Instant lastPing) {
+        Instant expected = schedule.getNextExpectedPing(lastPing);
+        if (expected == null) {
+            remove(key);
+            return null;
+        }
+        CheckDeadline deadline = new CheckDeadline(key, lastPing, expected, expected.plus(schedule.getGrace()));
+        long fireAt = deadline.getGraceDeadline().toEpochMilli() - warning;
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(schedule);
+            entries.put(key, entry);
+        }
+        entry.schedule = schedule;
+        entry.deadline = deadline;
+        entry.fireAt = fireAt;
+
+        if (entry.index < 0) {
+            if (size == heap.length)
+                heap = Arrays.copyOf(heap, size * 2);
+            entry.index = size;
+            heap[size++] = entry;
+        }
+        //The new deadline may be earlier or later than the old one
+        siftDown(siftUp(entry.index));
+        rearm();
+        return deadline;
+    }
+
+    /**
+     * Schedules the timer for the earliest deadline if it changed.
+     */
+    private void rearm() {
+        if (closed)
+            return;
+        if (size == 0) {
+            if (timer != null)
+                timer.cancel(false);
+            timer = null;
+            return;
+        }
+
+        long fireAt = heap[0].fireAt;
+        if (timer != null && timerAt == fireAt)
+            return;
+        if (timer != null)
+            timer.cancel(false);
+        timerAt = fireAt;
+        timer = scheduler.schedule(this::fireDue, Math.max(0, fireAt - clock.millis()),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void removeAt(int index) {
+        Entry removed = heap[index];
+        removed.index = -1;
+        size--;
+        if (index != size) {
+            Entry last = heap[size];
+            heap[index] = last;
+            last.index = index;
+            siftDown(siftUp(index));
+        }
+        heap[size] = null;
+    }
+
+    private int siftUp(int index) {
+        Entry entry = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].fireAt <= entry.fireAt)
+                break;
+            heap[index] = heap[parent];
+            heap[index].index = index;
+            index = parent;
+        }
+        heap[index] = entry;
+        entry.index = index;
+        return index;
+    }
+
+    private void siftDown(int index) {
+        Entry entry = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && heap[child + 1].fireAt < heap[child].fireAt)
+                child++;
+            if (entry.fireAt <= heap[child].fireAt)
+                break;
+            heap[index] = heap[child];
+            heap[index].index = index;
+            index = child;
+        }
+        heap[index] = entry;
+        entry.index = index;
+    }
+
+    /**
+     * A tracked check and its position in the heap.
+     */
+    private static final class Entry {
+        private CheckSchedule schedule;
+        private CheckDeadline deadline;
+        private long fireAt;
+        private int index = -1;
+
+        private Entry(CheckSchedule schedule) {
+            this.schedule = schedule;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.niklasarndt.healthchecksio.schedule;
+
+/**
+ * <p>Receives checks which are about to miss their deadline from a {@link DeadlineIndex}.</p>
+ *
+ * <p>Listeners are invoked on the timer thread of the index, so they should
+ * return quickly.</p>
+ *
+ * @since 1.1.0
+ */
+@FunctionalInterface
+public interface DeadlineListener {
+
+    /**
+     * <p>Called once per deadline, {@code warning} (see {@link DeadlineIndex}) before the
+     * grace time of the check runs out. The check is tracked again after its next ping.</p>
+     *
+     * @param deadline The deadline which is about to be missed.
+     */
+    void onDeadline(CheckDeadline deadline);
+}
@@ -0,0 +1,9 @@
+/**
+ * <p>Evaluates check schedules locally: {@link com.niklasarndt.healthchecksio.schedule.CronExpression}
+ * and {@link com.niklasarndt.healthchecksio.schedule.CheckSchedule} compute when the next ping of a
+ * check is expected, and the {@link com.niklasarndt.healthchecksio.schedule.DeadlineIndex} notifies
+ * listeners before checks miss their deadline.</p>
+ *
+ * @since 1.1.0
+ */
+package com.niklasarndt.healthchecksio.schedule;
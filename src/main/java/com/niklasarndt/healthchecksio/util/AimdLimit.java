@@ -0,0 +1,61 @@
+package com.niklasarndt.healthchecksio.util;
+
+/**
+ * <p>A loss-based {@link ConcurrencyLimit} (additive increase, multiplicative decrease, like
+ * TCP Reno): every successful request raises the limit by {@code 1 / limit}, i.e. by one per
+ * round trip at full load, and every dropped request multiplies it by {@code backoffRatio}.</p>
+ *
+ * <p>The limit only grows while at least half of it is used, so it does not drift upwards
+ * during quiet periods.</p>
+ *
+ * @since 1.1.0
+ */
+public class AimdLimit implements ConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private double limit;
+
+    /**
+     * @param initialLimit The limit before the first sample.
+     * @param minLimit     The lower bound of the limit (at least 1).
+     * @param maxLimit     The upper bound of the limit.
+     * @param backoffRatio The factor (0 to 1) which is applied to the limit on every drop.
+     */
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit)
+            throw new IllegalArgumentException("The limits must satisfy 1 <= min <= initial <= max!");
+        if (backoffRatio <= 0 || backoffRatio >= 1)
+            throw new IllegalArgumentException("The backoff ratio must be in (0, 1)!");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * @return A limit which starts at 10 and stays between 1 and 200, with a backoff ratio of 0.9.
+     */
+    public static AimdLimit withDefaults() {
+        return new AimdLimit(10, 1, 200, 0.9);
+    }
+
+    @Override
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped)
+            limit = Math.max(minLimit, limit * backoffRatio);
+        else if (inFlight * 2 >= limit)
+            limit = Math.min(maxLimit, limit + 1 / limit);
+    }
+
+    @Override
+    public String toString() {
+        return "AimdLimit{limit=" + getLimit() + "}";
+    }
+}
@@ -0,0 +1,248 @@
+package com.niklasarndt.healthchecksio.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>A lock-free circuit breaker for one host.</p>
+ *
+ * <ul>
+ *     <li>{@link State#CLOSED}: all calls are permitted. If at least {@code minimumCalls} calls
+ *     have completed within the rolling window and the failure rate reaches the threshold,
+ *     the circuit opens.</li>
+ *     <li>{@link State#OPEN}: all calls are rejected until {@code openDuration} has passed.</li>
+ *     <li>{@link State#HALF_OPEN}: up to {@code halfOpenCalls} probe calls are permitted. If all
+ *     of them succeed, the circuit closes again, otherwise it opens again.</li>
+ * </ul>
+ *
+ * <p>Every permitted call must be completed via {@link Permit#onSuccess()},
+ * {@link Permit#onFailure()} or {@link Permit#onIgnored()}. Only the results of probe calls
+ * (permitted while the circuit was half-open) decide whether it closes again. Calls which have
+ * been permitted while it was closed and complete later don't count as probes.</p>
+ *
+ * @since 1.1.0
+ */
+public class CircuitBreaker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final String name;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final RollingWindow window;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicLong openedAt = new AtomicLong();
+    /**
+     * Incremented whenever the circuit opens, so probe results of an earlier half-open phase are ignored.
+     */
+    private final AtomicLong cycle = new AtomicLong();
+    private final AtomicInteger probes = new AtomicInteger();
+    private final AtomicInteger probeSuccesses = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+
+    /**
+     * @param name                 The name for log messages (e.g. the host).
+     * @param failureRateThreshold The failure rate (0 to 1) which opens the circuit.
+     * @param minimumCalls         The number of calls within the window which are required
+     *                             before the failure rate is evaluated.
+     * @param window               The length of the rolling window (split into 10 buckets).
+     * @param openDuration         The time calls are rejected before probe calls are sent.
+     * @param halfOpenCalls        The number of successful probe calls which close the circuit.
+     */
+    public CircuitBreaker(String name, double failureRateThreshold, int minimumCalls, Duration window,
+                          Duration openDuration, int halfOpenCalls) {
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1)
+            throw new IllegalArgumentException("The failure rate threshold must be in (0, 1]!");
+        if (minimumCalls < 1 || halfOpenCalls < 1)
+            throw new IllegalArgumentException("At least one call is required!");
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.window = new RollingWindow(window.toNanos(), 10);
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    /**
+     * @return The permit for a call, or null if no call may be sent now (the rejection is counted).
+     */
+    public Permit tryAcquire() {
+        while (true) {
+            long currentCycle = cycle.get();
+            State current = state.get();
+            if (current == State.CLOSED)
+                return new Permit(false, currentCycle);
+
+            if (current == State.OPEN) {
+                if (System.nanoTime() - openedAt.get() < openNanos) {
+                    rejected.incrementAndGet();
+                    return null;
+                }
+                //The first caller after the open duration moves on to the probe phase
+                if (state.compareAndSet(State.OPEN, State.HALF_OPEN))
+                    LOG.info("Circuit of {} is half-open, sending up to {} probe calls", name, halfOpenCalls);
+                continue;
+            }
+
+            if (probes.incrementAndGet() <= halfOpenCalls) {
+                if (cycle.get() == currentCycle)
+                    return new Permit(true, currentCycle);
+                //The circuit has opened again in the meantime
+                probes.decrementAndGet();
+                continue;
+            }
+            probes.decrementAndGet();
+            rejected.incrementAndGet();
+            return null;
+        }
+    }
+
+    private boolean isCurrentProbe(Permit permit) {
+        return permit.probe && permit.cycle == cycle.get() && state.get() == State.HALF_OPEN;
+    }
+
+    private void onSuccess(Permit permit) {
+        if (permit.probe) {
+            if (isCurrentProbe(permit) && probeSuccesses.incrementAndGet() >= halfOpenCalls
+                    && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+                window.reset();
+                LOG.info("Circuit of {} is closed again", name);
+            }
+            return;
+        }
+        if (state.get() == State.CLOSED)
+            window.record(true, System.nanoTime());
+    }
+
+    private void onFailure(Permit permit) {
+        long now = System.nanoTime();
+        if (permit.probe) {
+            if (isCurrentProbe(permit))
+                open(State.HALF_OPEN, now);
+            return;
+        }
+        if (state.get() != State.CLOSED)
+            return;
+
+        window.record(false, now);
+        long[] sum = window.sum(now);
+        long calls = sum[0] + sum[1];
+        if (calls >= minimumCalls && sum[1] >= failureRateThreshold * calls)
+            open(State.CLOSED, now);
+    }
+
+    private void onIgnored(Permit permit) {
+        if (isCurrentProbe(permit))
+            probes.decrementAndGet();
+    }
+
+    private void open(State expected, long now) {
+        //Set before the transition, so callers which see OPEN never use old values
+        cycle.incrementAndGet();
+        openedAt.set(now);
+        probes.set(0);
+        probeSuccesses.set(0);
+        if (state.compareAndSet(expected, State.OPEN)) {
+            opened.incrementAndGet();
+            LOG.warn("Circuit of {} is open, rejecting calls for {} ms", name, openNanos / 1_000_000);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * @return The failure rate (0 to 1) within the rolling window.
+     */
+    public double getFailureRate() {
+        long[] sum = window.sum(System.nanoTime());
+        long calls = sum[0] + sum[1];
+        return calls == 0 ? 0 : (double) sum[1] / calls;
+    }
+
+    /**
+     * @return The number of calls within the rolling window.
+     */
+    public long getCallCount() {
+        long[] sum = window.sum(System.nanoTime());
+        return sum[0] + sum[1];
+    }
+
+    /**
+     * @return The number of calls which have been rejected because the circuit was open.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * @return How often the circuit has been opened.
+     */
+    public long getOpenedCount() {
+        return opened.get();
+    }
+
+    /**
+     * <p>The permission to send one call. Exactly one of its methods must be called once the
+     * call has completed.</p>
+     */
+    public final class Permit {
+        private final boolean probe;
+        private final long cycle;
+
+        private Permit(boolean probe, long cycle) {
+            this.probe = probe;
+            this.cycle = cycle;
+        }
+
+        /**
+         * @return Whether the call is a probe of a half-open circuit.
+         */
+        public boolean isProbe() {
+            return probe;
+        }
+
+        /**
+         * <p>Records a successful call (a response has been received).</p>
+         */
+        public void onSuccess() {
+            CircuitBreaker.this.onSuccess(this);
+        }
+
+        /**
+         * <p>Records a failed call (no response or a server error).</p>
+         */
+        public void onFailure() {
+            CircuitBreaker.this.onFailure(this);
+        }
+
+        /**
+         * <p>Releases the permit without recording a result (e.g. if the call has been cancelled).</p>
+         */
+        public void onIgnored() {
+            CircuitBreaker.this.onIgnored(this);
+        }
+    }
+
+    /**
+     * The states of a {@link CircuitBreaker}.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
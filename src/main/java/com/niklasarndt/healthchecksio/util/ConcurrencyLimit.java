@@ -0,0 +1,28 @@
+package com.niklasarndt.healthchecksio.util;
+
+/**
+ * <p>An algorithm which adjusts the number of concurrent requests from the observed
+ * round-trip times and errors, see {@link AimdLimit} and {@link VegasLimit}.</p>
+ *
+ * <p>Implementations must be thread-safe.</p>
+ *
+ * @since 1.1.0
+ */
+public interface ConcurrencyLimit {
+
+    /**
+     * @return The current number of concurrent requests which are permitted (at least 1).
+     */
+    int getLimit();
+
+    /**
+     * <p>Records a completed request.</p>
+     *
+     * @param rttNanos The round-trip time of the request.
+     * @param inFlight The number of requests which were in flight when it was sent
+     *                 (including itself).
+     * @param dropped  Whether the request has failed in a way which indicates overload
+     *                 (no response, status 429 or 503).
+     */
+    void onSample(long rttNanos, int inFlight, boolean dropped);
+}
@@ -1,5 +1,7 @@
 package com.niklasarndt.healthchecksio.util;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Contains utility functions for this library.
  *
@@ -25,4 +27,26 @@ public class HealthcheckUtils {
         return input.substring(0, input.lastIndexOf(':'))
                 + input.substring(input.lastIndexOf(':') + 1);
     }
+
+    /**
+     * <p>Dependent stages (e.g. created by {@link CompletableFuture#thenApply}) don't
+     * cancel their source if they are cancelled. This method links them, so that cancelling
+     * {@code derived} cancels {@code source} (and therefore the HTTP call) as well.</p>
+     *
+     * @param derived The future which is returned to the user.
+     * @param source  The future which will be cancelled together with {@code derived}.
+     * @param <T>     The content type of the derived future.
+     *
+     * @return The {@code derived} future.
+     *
+     * @since 1.1.0
+     */
+    public static <T> CompletableFuture<T> propagateCancellation(CompletableFuture<T> derived,
+                                                                 CompletableFuture<?> source) {
+        derived.whenComplete((value, error) -> {
+            if (derived.isCancelled())
+                source.cancel(false);
+        });
+        return derived;
+    }
 }
@@ -7,6 +7,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * <p>This class wraps a {@link CompletableFuture} object inside a OkHttp callback.
@@ -23,8 +25,80 @@ public class OkHttpResponseFuture implements Callback {
 
     /**
      * <p>This is the {@link CompletableFuture} object where the response will be stored.</p>
+     *
+     * <p>Cancelling it cancels the underlying {@link Call} as well (if one has been specified).</p>
+     */
+    public final CompletableFuture<Response> future;
+    /**
+     * Completes the {@link #future} (null: inline on the OkHttp dispatcher thread).
+     */
+    private final Executor executor;
+
+    public OkHttpResponseFuture() {
+        this(null);
+    }
+
+    /**
+     * @param call The call which will be cancelled if the {@link #future} is cancelled.
+     *
+     * @since 1.1.0
+     */
+    public OkHttpResponseFuture(Call call) {
+        this(call, null);
+    }
+
+    /**
+     * @param call     The call which will be cancelled if the {@link #future} is cancelled.
+     * @param executor The executor which completes the {@link #future}, so that dependent
+     *                 stages don't run on (and block) the OkHttp dispatcher thread. If it is
+     *                 null or rejects the task, the future is completed inline.
+     *
+     * @since 1.1.0
      */
-    public final CompletableFuture<Response> future = new CompletableFuture<>();
+    public OkHttpResponseFuture(Call call, Executor executor) {
+        this.executor = executor;
+        this.future = new CompletableFuture<Response>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                if (cancelled && call != null) {
+                    LOG.debug("Cancelling call to {}", call.request().url());
+                    call.cancel();
+                }
+                return cancelled;
+            }
+        };
+    }
+
+    /**
+     * <p>Enqueues the call and returns a future for its response.</p>
+     *
+     * @param call The call which will be enqueued.
+     *
+     * @return A {@link CompletableFuture} which cancels the call if it is cancelled itself.
+     *
+     * @since 1.1.0
+     */
+    public static CompletableFuture<Response> enqueue(Call call) {
+        return enqueue(call, null);
+    }
+
+    /**
+     * <p>Enqueues the call and returns a future for its response, which is completed
+     * via {@code executor}.</p>
+     *
+     * @param call     The call which will be enqueued.
+     * @param executor The executor which completes the future (null: inline).
+     *
+     * @return A {@link CompletableFuture} which cancels the call if it is cancelled itself.
+     *
+     * @since 1.1.0
+     */
+    public static CompletableFuture<Response> enqueue(Call call, Executor executor) {
+        OkHttpResponseFuture callback = new OkHttpResponseFuture(call, executor);
+        call.enqueue(callback);
+        return callback.future;
+    }
 
     /**
      * <p>Reports the request error to the {@link #future} object.</p>
@@ -36,7 +110,7 @@ public class OkHttpResponseFuture implements Callback {
     public void onFailure(Call call, IOException e) {
         LOG.debug("Failed to contact healthchecks.io!", e);
 
-        future.completeExceptionally(e);
+        complete(() -> future.completeExceptionally(e));
     }
 
     /**
@@ -51,6 +125,23 @@ public class OkHttpResponseFuture implements Callback {
                         .get(call.request().url().pathSegments().size() - 1),
                 response.code());
 
-        future.complete(response);
+        complete(() -> {
+            //The future might have been cancelled in the meantime, the connection must be released
+            if (!future.complete(response))
+                response.close();
+        });
+    }
+
+    private void complete(Runnable completion) {
+        if (executor == null) {
+            completion.run();
+            return;
+        }
+        try {
+            executor.execute(completion);
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Completion executor rejected the response, completing inline", e);
+            completion.run();
+        }
     }
 }
@@ -0,0 +1,95 @@
+package com.niklasarndt.healthchecksio.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A lock-free token bucket which hands out a fixed number of permits per second
+ * (with a configurable burst).</p>
+ *
+ * <p>Every caller reserves the next free time slot via compare-and-set, so waiting callers
+ * are served in the order of their reservation.</p>
+ *
+ * @since 1.1.0
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final long storedNanos;
+    private final AtomicLong nextSlot;
+
+    /**
+     * @param permitsPerSecond The number of permits per second. <b>Must be positive.</b>
+     * @param burst            The number of permits which can be acquired at once after
+     *                         the limiter has been idle (at least 1).
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0)
+            throw new IllegalArgumentException("The rate must be positive!");
+        if (burst < 1)
+            throw new IllegalArgumentException("The burst must be at least 1!");
+
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        //An idle limiter may hand out the current and (burst - 1) stored permits at once
+        this.storedNanos = intervalNanos * (burst - 1);
+        this.nextSlot = new AtomicLong(System.nanoTime() - storedNanos);
+    }
+
+    /**
+     * <p>Reserves a permit.</p>
+     *
+     * @return The number of nanoseconds the caller has to wait before using the permit
+     *         (0 if it can be used right away).
+     */
+    public long reserve() {
+        long now = System.nanoTime();
+        while (true) {
+            long slot = nextSlot.get();
+            long start = Math.max(slot, now - storedNanos);
+            if (nextSlot.compareAndSet(slot, start + intervalNanos))
+                return Math.max(0, start - now);
+        }
+    }
+
+    /**
+     * <p>Reserves a permit if it can be used within {@code maxWaitNanos}. Otherwise, nothing
+     * is reserved, so a caller which gives up does not delay the following ones.</p>
+     *
+     * @param maxWaitNanos The maximum time the caller is willing to wait.
+     *
+     * @return The number of nanoseconds the caller has to wait before using the permit
+     *         (0 if it can be used right away), or -1 if no permit has been reserved.
+     */
+    public long tryReserve(long maxWaitNanos) {
+        long now = System.nanoTime();
+        while (true) {
+            long slot = nextSlot.get();
+            long start = Math.max(slot, now - storedNanos);
+            if (start - now > maxWaitNanos)
+                return -1;
+            if (nextSlot.compareAndSet(slot, start + intervalNanos))
+                return Math.max(0, start - now);
+        }
+    }
+
+    /**
+     * <p>Returns a reserved permit which will not be used (e.g. because the call has been
+     * cancelled while waiting), so that the next caller can take it.</p>
+     */
+    public void release() {
+        nextSlot.addAndGet(-intervalNanos);
+    }
+
+    /**
+     * <p>Reserves a permit and blocks until it can be used. Callers on shared threads (e.g.
+     * of an HTTP dispatcher) should {@link #reserve()} a permit and schedule their work
+     * instead.</p>
+     *
+     * @throws InterruptedException If the thread has been interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+        long wait = reserve();
+        if (wait > 0)
+            TimeUnit.NANOSECONDS.sleep(wait);
+    }
+}
@@ -0,0 +1,71 @@
+package com.niklasarndt.healthchecksio.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Lock-free success and failure counters over a rolling time window, which is split into
+ * a ring of buckets. A bucket is reset by the first caller which reaches it in a new period.</p>
+ *
+ * <p>Calls which are recorded while another thread resets their bucket may be lost, so the
+ * numbers are a (close) approximation, which is enough for failure rates.</p>
+ *
+ * @since 1.1.0
+ */
+final class RollingWindow {
+
+    private static final long UNUSED = Long.MIN_VALUE;
+
+    private final long bucketNanos;
+    private final Bucket[] buckets;
+
+    /**
+     * @param windowNanos The length of the window.
+     * @param buckets     The number of buckets (the resolution of the window).
+     */
+    RollingWindow(long windowNanos, int buckets) {
+        if (buckets < 1 || windowNanos < buckets)
+            throw new IllegalArgumentException("The window must have at least one bucket!");
+        this.bucketNanos = windowNanos / buckets;
+        this.buckets = new Bucket[buckets];
+        for (int i = 0; i < buckets; i++)
+            this.buckets[i] = new Bucket();
+    }
+
+    void record(boolean success, long now) {
+        long period = Math.floorDiv(now, bucketNanos);
+        Bucket bucket = buckets[(int) Math.floorMod(period, (long) buckets.length)];
+        long current = bucket.period.get();
+        if (current != period && bucket.period.compareAndSet(current, period)) {
+            bucket.successes.set(0);
+            bucket.failures.set(0);
+        }
+        (success ? bucket.successes : bucket.failures).incrementAndGet();
+    }
+
+    /**
+     * @return The number of successes (index 0) and failures (index 1) within the window.
+     */
+    long[] sum(long now) {
+        long period = Math.floorDiv(now, bucketNanos);
+        long[] sum = new long[2];
+        for (Bucket bucket : buckets) {
+            long bucketPeriod = bucket.period.get();
+            if (bucketPeriod != UNUSED && bucketPeriod > period - buckets.length) {
+                sum[0] += bucket.successes.get();
+                sum[1] += bucket.failures.get();
+            }
+        }
+        return sum;
+    }
+
+    void reset() {
+        for (Bucket bucket : buckets)
+            bucket.period.set(UNUSED);
+    }
+
+    private static final class Bucket {
+        private final AtomicLong period = new AtomicLong(UNUSED);
+        private final AtomicLong successes = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+    }
+}
@@ -14,7 +14,12 @@ import java.io.IOException;
  */
 public class UserAgentInterceptor implements Interceptor {
 
-    private static final String AGENT = "healthchecksio-java:" + HealthchecksInfo.VERSION();
+    /**
+     * The user agent of all requests, which transports without interceptors set themselves.
+     *
+     * @since 1.1.0
+     */
+    public static final String AGENT = "healthchecksio-java:" + HealthchecksInfo.VERSION();
 
     /**
      * Intercepts a request.
@@ -0,0 +1,86 @@
+package com.niklasarndt.healthchecksio.util;
+
+/**
+ * <p>A delay-based {@link ConcurrencyLimit} (like TCP Vegas): the number of requests which
+ * wait in a queue somewhere on the way is estimated as
+ * {@code limit * (1 - minRtt / rtt)}, where {@code minRtt} is the lowest round-trip time seen
+ * recently. While fewer than {@code 3 * log10(limit)} requests are queued, the limit grows by
+ * {@code log10(limit)}. Once more than {@code 6 * log10(limit)} are queued, or a request has
+ * been dropped, it shrinks by the same amount.</p>
+ *
+ * <p>This reacts to growing latency before the server starts to reject requests. The minimum
+ * round-trip time is measured again after every {@code probeInterval} samples, so it adapts
+ * to a changed network path.</p>
+ *
+ * @since 1.1.0
+ */
+public class VegasLimit implements ConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int probeInterval;
+    private double limit;
+    private long minRtt;
+    private int samples;
+
+    /**
+     * @param initialLimit  The limit before the first sample.
+     * @param minLimit      The lower bound of the limit (at least 1).
+     * @param maxLimit      The upper bound of the limit.
+     * @param probeInterval The number of samples after which the minimum round-trip time
+     *                      is measured again.
+     */
+    public VegasLimit(int initialLimit, int minLimit, int maxLimit, int probeInterval) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit)
+            throw new IllegalArgumentException("The limits must satisfy 1 <= min <= initial <= max!");
+        if (probeInterval < 1)
+            throw new IllegalArgumentException("The probe interval must be at least 1!");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.probeInterval = probeInterval;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * @return A limit which starts at 10 and stays between 1 and 200, with a probe interval
+     *         of 1000 samples.
+     */
+    public static VegasLimit withDefaults() {
+        return new VegasLimit(10, 1, 200, 1000);
+    }
+
+    @Override
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (++samples >= probeInterval) {
+            samples = 0;
+            minRtt = 0;
+        }
+        if (rttNanos > 0 && (minRtt == 0 || rttNanos < minRtt))
+            minRtt = rttNanos;
+
+        double step = Math.max(1, Math.log10(limit));
+        if (dropped) {
+            limit = Math.max(minLimit, limit - step);
+            return;
+        }
+        //Without load, the round-trip time says nothing about the limit
+        if (inFlight * 2 < limit || minRtt == 0)
+            return;
+
+        double queued = limit * (1 - (double) minRtt / Math.max(rttNanos, minRtt));
+        if (queued < 3 * step)
+            limit = Math.min(maxLimit, limit + step);
+        else if (queued > 6 * step)
+            limit = Math.max(minLimit, limit - step);
+    }
+
+    @Override
+    public String toString() {
+        return "VegasLimit{limit=" + getLimit() + "}";
+    }
+}
@@ -0,0 +1,298 @@
+package com.niklasarndt.healthchecksio.warm;
+
+import com.niklasarndt.healthchecksio.model.Check;
+import com.niklasarndt.healthchecksio.model.CheckSnapshot;
+import com.niklasarndt.healthchecksio.model.Integration;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * <p>An immutable snapshot of the checks and integrations of one project, which can be
+ * persisted to a compact binary file and loaded again, e.g. to serve reads right after
+ * a restart (see {@link WarmStartManager}).</p>
+ *
+ * <p>File format (big-endian): the magic number {@code HCAS}, the format version, the creation
+ * time (epoch milliseconds), the length and the CRC32 checksum of the payload, followed by the
+ * payload. Strings are stored as their UTF-8 length and bytes (-1 for null), timestamps as
+ * epoch milliseconds. Files are read completely, and their checksum is verified before
+ * anything is parsed.</p>
+ *
+ * @since 1.1.0
+ */
+public final class AccountSnapshot {
+
+    private static final int MAGIC = 0x48434153; //HCAS
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final Instant createdAt;
+    private final List<CheckSnapshot> checks;
+    private final List<Integration> integrations;
+
+    /**
+     * @param createdAt    The time at which the data has been fetched (stored with millisecond
+     *                     precision). <b>Must not be null.</b>
+     * @param checks       The checks. <b>Must not be null.</b>
+     * @param integrations <i>(optional)</i> The integrations, null if they are unknown
+     *                     (e.g. for read-only API keys).
+     */
+    public AccountSnapshot(Instant createdAt, List<CheckSnapshot> checks, List<Integration> integrations) {
+        this.createdAt = createdAt.truncatedTo(ChronoUnit.MILLIS);
+        this.checks = Collections.unmodifiableList(new ArrayList<>(checks));
+        this.integrations = integrations == null ? null
+                : Collections.unmodifiableList(new ArrayList<>(integrations));
+    }
+
+    /**
+     * <p>Creates a snapshot of the current time.</p>
+     *
+     * @param checks       The checks. <b>Must not be null.</b>
+     * @param integrations <i>(optional)</i> The integrations, null if they are unknown.
+     *
+     * @return A new {@link AccountSnapshot}.
+     */
+    public static AccountSnapshot of(Check[] checks, Integration[] integrations) {
+        return new AccountSnapshot(Instant.now(), Arrays.asList(CheckSnapshot.of(checks)),
+                integrations == null ? null : Arrays.asList(integrations));
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<CheckSnapshot> getChecks() {
+        return checks;
+    }
+
+    /**
+     * @return The integrations, or null if they are unknown.
+     */
+    public List<Integration> getIntegrations() {
+        return integrations;
+    }
+
+    /**
+     * @return The snapshot in the binary file format.
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(256 + checks.size() * 512);
+        try {
+            DataOutputStream data = new DataOutputStream(payload);
+            data.writeInt(checks.size());
+            for (CheckSnapshot check : checks)
+                writeCheck(data, check);
+            data.writeInt(integrations == null ? -1 : integrations.size());
+            if (integrations != null) {
+                for (Integration integration : integrations) {
+                    writeString(data, integration.getId());
+                    writeString(data, integration.getName());
+                    writeString(data, integration.getKind());
+                }
+            }
+            data.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to memory failed", e);
+        }
+
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + bytes.length);
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putLong(createdAt.toEpochMilli())
+                .putInt(bytes.length)
+                .putInt((int) crc.getValue())
+                .put(bytes);
+        return buffer.array();
+    }
+
+    /**
+     * @param buffer The data written by {@link #toBytes()}, from its position to its limit.
+     *
+     * @return The restored snapshot.
+     *
+     * @throws IOException If the data is not in the expected format, has an unsupported
+     *                     version or does not match its checksum.
+     */
+    public static AccountSnapshot read(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC)
+                throw new IOException("Not an account snapshot");
+            int version = buffer.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported version " + version);
+            Instant createdAt = Instant.ofEpochMilli(buffer.getLong());
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || length != buffer.remaining())
+                throw new IOException("Truncated account snapshot");
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if ((int) crc.getValue() != checksum)
+                throw new IOException("Corrupt account snapshot (checksum mismatch)");
+
+            int checkCount = readCount(buffer);
+            List<CheckSnapshot> checks = new ArrayList<>(checkCount);
+            for (int i = 0; i < checkCount; i++)
+                checks.add(readCheck(buffer));
+            int integrationCount = buffer.getInt();
+            List<Integration> integrations = null;
+            if (integrationCount >= 0) {
+                if (integrationCount > buffer.remaining())
+                    throw new IOException("Corrupt account snapshot");
+                integrations = new ArrayList<>(integrationCount);
+                for (int i = 0; i < integrationCount; i++)
+                    integrations.add(new Integration(readString(buffer), readString(buffer), readString(buffer)));
+            }
+            return new AccountSnapshot(createdAt, checks, integrations);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupt account snapshot", e);
+        }
+    }
+
+    /**
+     * <p>Writes this snapshot to {@code path}, atomically replacing an existing file.</p>
+     *
+     * @param path The target file.
+     *
+     * @throws IOException If writing fails.
+     */
+    public void save(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temp, toBytes());
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param path A file written by {@link #save(Path)}.
+     *
+     * @return The restored snapshot.
+     *
+     * @throws IOException If reading fails or the file is not a valid snapshot.
+     */
+    public static AccountSnapshot load(Path path) throws IOException {
+        //Snapshots are small, a memory mapping would only pin the file until it is garbage collected
+        return read(ByteBuffer.wrap(Files.readAllBytes(path)));
+    }
+
+    @Override
+    public String toString() {
+        return "AccountSnapshot{createdAt=" + createdAt + ", checks=" + checks.size()
+                + ", integrations=" + (integrations == null ? "unknown" : integrations.size()) + "}";
+    }
+
+    private static void writeCheck(DataOutputStream data, CheckSnapshot check) throws IOException {
+        writeString(data, check.getName());
+        writeString(data, check.getTags());
+        writeString(data, check.getDescription());
+        data.writeInt(check.getGraceTime());
+        data.writeInt(check.getLastDuration());
+        data.writeInt(check.getPings());
+        writeString(data, check.getStatus());
+        writeTime(data, check.getLastPing());
+        writeTime(data, check.getNextPing());
+        data.writeBoolean(check.isManualResume());
+        writeString(data, check.getMethods());
+        writeString(data, check.getRawPingUrl());
+        writeString(data, check.getRawUpdateUrl());
+        writeString(data, check.getRawPauseUrl());
+        writeString(data, check.getIntegrations());
+        writeString(data, check.getSchedule());
+        writeString(data, check.getTimeZone());
+        data.writeInt(check.getTimeout());
+        writeString(data, check.getReadOnlyKey());
+        List<String> unique = check.getUnique();
+        data.writeInt(unique == null ? -1 : unique.size());
+        if (unique != null) {
+            for (String field : unique)
+                writeString(data, field);
+        }
+    }
+
+    private static CheckSnapshot readCheck(ByteBuffer buffer) throws IOException {
+        CheckSnapshot.Builder builder = CheckSnapshot.builder()
+                .name(readString(buffer))
+                .tags(readString(buffer))
+                .description(readString(buffer))
+                .graceTime(buffer.getInt())
+                .lastDuration(buffer.getInt())
+                .pings(buffer.getInt())
+                .status(readString(buffer))
+                .lastPing(readTime(buffer))
+                .nextPing(readTime(buffer))
+                .manualResume(buffer.get() != 0)
+                .methods(readString(buffer))
+                .rawPingUrl(readString(buffer))
+                .rawUpdateUrl(readString(buffer))
+                .rawPauseUrl(readString(buffer))
+                .integrations(readString(buffer))
+                .schedule(readString(buffer))
+                .timeZone(readString(buffer))
+                .timeout(buffer.getInt())
+                .readOnlyKey(readString(buffer));
+        int unique = buffer.getInt();
+        if (unique >= 0) {
+            if (unique > buffer.remaining())
+                throw new IOException("Corrupt account snapshot");
+            String[] fields = new String[unique];
+            for (int i = 0; i < unique; i++)
+                fields[i] = readString(buffer);
+            builder.unique(fields);
+        }
+        return builder.build();
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        if (value == null) {
+            data.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0)
+            return null;
+        if (length > buffer.remaining())
+            throw new IOException("Corrupt account snapshot");
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeTime(DataOutputStream data, Instant time) throws IOException {
+        data.writeLong(time == null ? NO_TIME : time.toEpochMilli());
+    }
+
+    private static Instant readTime(ByteBuffer buffer) {
+        long millis = buffer.getLong();
+        return millis == NO_TIME ? null : Instant.ofEpochMilli(millis);
+    }
+
+    private static int readCount(ByteBuffer buffer) throws IOException {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining())
+            throw new IOException("Corrupt account snapshot");
+        return count;
+    }
+}
@@ -0,0 +1,355 @@
+package com.niklasarndt.healthchecksio.warm;
+
+import com.niklasarndt.healthchecksio.HealthchecksManager;
+import com.niklasarndt.healthchecksio.model.Check;
+import com.niklasarndt.healthchecksio.model.CheckSnapshot;
+import com.niklasarndt.healthchecksio.model.Integration;
+import com.niklasarndt.healthchecksio.model.Ping;
+import com.niklasarndt.healthchecksio.model.StatusFlip;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>A {@link HealthchecksManager} which serves the check and channel listings of one project
+ * from an {@link AccountSnapshot}, so a service can answer reads right after a restart instead
+ * of waiting for the Management API.</p>
+ *
+ * <p>On {@link Builder#build()}, the last snapshot is loaded from a local file (if there is a
+ * valid one). A background thread then refreshes the snapshot from the API right away and
+ * after every refresh interval, and writes it back to the file. Until the first snapshot is
+ * available, all reads are passed on to the wrapped manager.</p>
+ *
+ * <p>Served from the snapshot: {@link #getExistingChecks(String...)} (tags are filtered
+ * locally), {@link #getExistingCheckSnapshots(String...)}, {@link #getCheck(String)},
+ * {@link #getCheckByName(String)} and {@link #getChannels()} (unless the channels are
+ * unknown, e.g. for read-only API keys). The results may be up to one refresh interval old.
+ * Checks which are not in the snapshot are looked up via the API. All other calls are passed on, and successful changes trigger a refresh.</p>
+ *
+ * <pre>{@code
+ * WarmStartManager manager = WarmStartManager.builder(
+ *         Healthchecks.manager("<api-key>"), Paths.get("/var/cache/project-a.hcas"))
+ *         .refreshInterval(Duration.ofMinutes(5))
+ *         .build();
+ * }</pre>
+ *
+ * @since 1.1.0
+ */
+public class WarmStartManager implements HealthchecksManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WarmStartManager.class);
+
+    private final HealthchecksManager delegate;
+    private final State state;
+
+    private WarmStartManager(HealthchecksManager delegate, State state) {
+        this.delegate = delegate;
+        this.state = state;
+    }
+
+    /**
+     * @param manager The manager of the project. <b>Must not be null.</b>
+     * @param path    The file which stores the snapshot. <b>Must not be null.</b>
+     *
+     * @return A new {@link Builder} (refresh interval: 1 minute).
+     */
+    public static Builder builder(HealthchecksManager manager, Path path) {
+        return new Builder(manager, path);
+    }
+
+    /**
+     * @return The current snapshot, or null if none has been loaded or fetched yet.
+     */
+    public AccountSnapshot getSnapshot() {
+        return state.snapshot.get();
+    }
+
+    /**
+     * <p>Fetches the checks and channels from the API and replaces the snapshot (and its file).
+     * If a refresh is already running, the next one starts once it has completed (it may have
+     * missed recent changes). Concurrent callers share that refresh.</p>
+     *
+     * @return The new snapshot, wrapped in a {@link CompletableFuture} object for async execution.
+     */
+    public CompletableFuture<AccountSnapshot> refresh() {
+        CompletableFuture<AccountSnapshot> result = new CompletableFuture<>();
+        if (!state.refresh.compareAndSet(null, result)) {
+            CompletableFuture<AccountSnapshot> running = state.refresh.get();
+            if (running != null)
+                return running.handle((snapshot, error) -> null).thenCompose(ignored -> refresh());
+            return refresh();
+        }
+
+        CompletableFuture<Check[]> checks = state.manager.getExistingChecks();
+        //Read-only keys may not list channels, the last known ones are kept in that case
+        CompletableFuture<Integration[]> channels = state.manager.getChannels().exceptionally(error -> {
+            LOG.debug("Could not refresh the channels, keeping the last known ones", error);
+            AccountSnapshot current = state.snapshot.get();
+            return current == null || current.getIntegrations() == null ? null
+                    : current.getIntegrations().toArray(new Integration[0]);
+        });
+        checks.thenCombine(channels, AccountSnapshot::of).whenComplete((snapshot, error) -> {
+            state.refresh.set(null);
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            state.snapshot.set(snapshot);
+            result.complete(snapshot);
+            //The file is written by the background thread
+            try {
+                state.scheduler.execute(() -> save(snapshot));
+            } catch (RejectedExecutionException e) {
+                LOG.debug("Not writing the snapshot, the manager has been closed");
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Check> getCheck(String key) {
+        AccountSnapshot snapshot = state.snapshot.get();
+        if (snapshot != null) {
+            for (CheckSnapshot check : snapshot.getChecks()) {
+                if (key.equals(check.getUuidOrUniqueKey()))
+                    return CompletableFuture.completedFuture(check.toCheck());
+            }
+        }
+        return delegate.getCheck(key);
+    }
+
+    @Override
+    public CompletableFuture<Check> getCheckByName(String name) {
+        AccountSnapshot snapshot = state.snapshot.get();
+        if (snapshot == null)
+            return delegate.getCheckByName(name);
+        for (CheckSnapshot check : snapshot.getChecks()) {
+            if (name.equals(check.getName()))
+                return CompletableFuture.completedFuture(check.toCheck());
+        }
+        //The check may have been created after the snapshot
+        return delegate.getCheckByName(name);
+    }
+
+    @Override
+    public CompletableFuture<Check[]> getExistingChecks(String... tags) {
+        AccountSnapshot snapshot = state.snapshot.get();
+        if (snapshot == null)
+            return delegate.getExistingChecks(tags);
+        return CompletableFuture.completedFuture(filter(snapshot, tags).stream()
+                .map(CheckSnapshot::toCheck)
+                .toArray(Check[]::new));
+    }
+
+    @Override
+    public CompletableFuture<CheckSnapshot[]> getExistingCheckSnapshots(String... tags) {
+        AccountSnapshot snapshot = state.snapshot.get();
+        if (snapshot == null)
+            return delegate.getExistingCheckSnapshots(tags);
+        return CompletableFuture.completedFuture(filter(snapshot, tags).toArray(new CheckSnapshot[0]));
+    }
+
+    @Override
+    public CompletableFuture<Check> createCheck(Check check) {
+        return refreshAfter(delegate.createCheck(check));
+    }
+
+    @Override
+    public CompletableFuture<Check> updateCheck(Check check) {
+        return refreshAfter(delegate.updateCheck(check));
+    }
+
+    @Override
+    public CompletableFuture<Check> pauseCheck(String uuid) {
+        return refreshAfter(delegate.pauseCheck(uuid));
+    }
+
+    @Override
+    public CompletableFuture<Check> deleteCheck(String uuid) {
+        return refreshAfter(delegate.deleteCheck(uuid));
+    }
+
+    @Override
+    public CompletableFuture<Ping[]> getPings(String uuid) {
+        return delegate.getPings(uuid);
+    }
+
+    @Override
+    public CompletableFuture<StatusFlip[]> getFlips(String key, long seconds) {
+        return delegate.getFlips(key, seconds);
+    }
+
+    @Override
+    public CompletableFuture<StatusFlip[]> getFlips(String key, long start, long end) {
+        return delegate.getFlips(key, start, end);
+    }
+
+    @Override
+    public CompletableFuture<Integration[]> getChannels() {
+        AccountSnapshot snapshot = state.snapshot.get();
+        if (snapshot == null || snapshot.getIntegrations() == null)
+            return delegate.getChannels();
+        return CompletableFuture.completedFuture(snapshot.getIntegrations().toArray(new Integration[0]));
+    }
+
+    @Override
+    public HealthchecksManager withTimeout(Duration timeout) {
+        return new WarmStartManager(delegate.withTimeout(timeout), state);
+    }
+
+    @Override
+    public HealthchecksManager withDeadline(Instant deadline) {
+        return new WarmStartManager(delegate.withDeadline(deadline), state);
+    }
+
+    @Override
+    public HealthchecksManager withExecutor(Executor executor) {
+        return new WarmStartManager(delegate.withExecutor(executor), state);
+    }
+
+    /**
+     * <p>Stops the background refreshes and closes the wrapped manager. A running refresh is
+     * completed and its snapshot written to the file, if this is possible within the timeout.</p>
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean closeGracefully(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        ScheduledFuture<?> task = state.task;
+        if (task != null)
+            task.cancel(false);
+        boolean drained = state.manager.closeGracefully(timeout);
+        state.scheduler.shutdown();
+        try {
+            return state.scheduler.awaitTermination(Math.max(0, deadline - System.nanoTime()),
+                    TimeUnit.NANOSECONDS) && drained;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static List<CheckSnapshot> filter(AccountSnapshot snapshot, String[] tags) {
+        if (tags.length == 0)
+            return snapshot.getChecks();
+        List<CheckSnapshot> result = new ArrayList<>();
+        for (CheckSnapshot check : snapshot.getChecks()) {
+            List<String> checkTags = check.getTags() == null ? new ArrayList<>()
+                    : Arrays.asList(check.getTags().split(" "));
+            if (checkTags.containsAll(Arrays.asList(tags)))
+                result.add(check);
+        }
+        return result;
+    }
+
+    private <T> CompletableFuture<T> refreshAfter(CompletableFuture<T> future) {
+        future.thenRun(() -> refresh().exceptionally(error -> {
+            LOG.warn("Could not refresh the snapshot after a change", error);
+            return null;
+        }));
+        return future;
+    }
+
+    private void save(AccountSnapshot snapshot) {
+        try {
+            snapshot.save(state.path);
+        } catch (IOException e) {
+            LOG.warn("Could not write the snapshot to {}", state.path, e);
+        }
+    }
+
+    private void start(long refreshMillis) {
+        try {
+            AccountSnapshot snapshot = AccountSnapshot.load(state.path);
+            state.snapshot.set(snapshot);
+            LOG.info("Loaded {} from {}", snapshot, state.path);
+        } catch (NoSuchFileException e) {
+            LOG.debug("There is no snapshot at {} yet", state.path);
+        } catch (IOException e) {
+            LOG.warn("Ignoring the snapshot at {}: {}", state.path, e.getMessage());
+        }
+
+        state.task = state.scheduler.scheduleWithFixedDelay(() -> refresh().exceptionally(error -> {
+            LOG.warn("Could not refresh the snapshot", error);
+            return null;
+        }), 0, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * <p>The state which is shared by a manager and its views (e.g. {@link #withTimeout(Duration)}).</p>
+     */
+    private static final class State {
+        private final HealthchecksManager manager;
+        private final Path path;
+        private final ScheduledExecutorService scheduler;
+        private final AtomicReference<AccountSnapshot> snapshot = new AtomicReference<>();
+        private final AtomicReference<CompletableFuture<AccountSnapshot>> refresh = new AtomicReference<>();
+        private volatile ScheduledFuture<?> task;
+
+        private State(HealthchecksManager manager, Path path) {
+            this.manager = manager;
+            this.path = path;
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "healthchecks-warm-start");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Builder for {@link WarmStartManager} objects.
+     */
+    public static final class Builder {
+
+        private final HealthchecksManager manager;
+        private final Path path;
+        private Duration refreshInterval = Duration.ofMinutes(1);
+
+        private Builder(HealthchecksManager manager, Path path) {
+            this.manager = Objects.requireNonNull(manager);
+            this.path = Objects.requireNonNull(path);
+        }
+
+        /**
+         * @param refreshInterval The time between two refreshes of the snapshot (default: 1 minute).
+         */
+        public Builder refreshInterval(Duration refreshInterval) {
+            if (refreshInterval.isNegative() || refreshInterval.isZero())
+                throw new IllegalArgumentException("The refresh interval must be positive!");
+            this.refreshInterval = refreshInterval;
+            return this;
+        }
+
+        /**
+         * <p>Loads the snapshot file (if there is a valid one) and starts the background refreshes.</p>
+         *
+         * @return A new {@link WarmStartManager}.
+         */
+        public WarmStartManager build() {
+            if (path.getParent() != null && !Files.isDirectory(path.getParent()))
+                throw new IllegalArgumentException("The directory of " + path + " does not exist!");
+            WarmStartManager manager = new WarmStartManager(this.manager, new State(this.manager, path));
+            manager.start(refreshInterval.toMillis());
+            return manager;
+        }
+    }
+}
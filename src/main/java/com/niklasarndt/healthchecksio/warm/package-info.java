@@ -0,0 +1,9 @@
+/**
+ * <p>Contains the {@link com.niklasarndt.healthchecksio.warm.WarmStartManager}, which persists
+ * the checks and channels of a project in an
+ * {@link com.niklasarndt.healthchecksio.warm.AccountSnapshot} file and serves reads from it
+ * right after a restart.</p>
+ *
+ * @since 1.1.0
+ */
+package com.niklasarndt.healthchecksio.warm;
@@ -0,0 +1,85 @@
+package com.niklasarndt.healthchecksio.watch;
+
+import com.niklasarndt.healthchecksio.model.CheckSnapshot;
+import java.util.Objects;
+
+/**
+ * <p>Describes the difference between two polls of the same check.</p>
+ *
+ * <p>If the check is new, {@link #getPrevious()} is {@code null}. If the check has been
+ * deleted, {@link #getCurrent()} is {@code null}.</p>
+ *
+ * @since 1.1.0
+ */
+public final class CheckChange {
+
+    private final String key;
+    private final CheckSnapshot previous;
+    private final CheckSnapshot current;
+
+    public CheckChange(String key, CheckSnapshot previous, CheckSnapshot current) {
+        this.key = Objects.requireNonNull(key);
+        this.previous = previous;
+        this.current = current;
+    }
+
+    /**
+     * @return The UUID or unique key of the check.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return The state of the check during the previous poll (or null if it is new).
+     */
+    public CheckSnapshot getPrevious() {
+        return previous;
+    }
+
+    /**
+     * @return The current state of the check (or null if it has been deleted).
+     */
+    public CheckSnapshot getCurrent() {
+        return current;
+    }
+
+    public boolean isAdded() {
+        return previous == null;
+    }
+
+    public boolean isRemoved() {
+        return current == null;
+    }
+
+    /**
+     * @return Whether the {@code status} of the check changed (e.g. from up to down).
+     */
+    public boolean isStatusChanged() {
+        return previous != null && current != null
+                && !Objects.equals(previous.getStatus(), current.getStatus());
+    }
+
+    /**
+     * @return Whether the check has just switched to the status {@code down}.
+     */
+    public boolean isDown() {
+        return isStatusChanged() && "down".equals(current.getStatus());
+    }
+
+    /**
+     * @return Whether the check has received new pings since the last poll.
+     */
+    public boolean isPinged() {
+        return previous != null && current != null
+                && (previous.getPings() != current.getPings()
+                || !Objects.equals(previous.getLastPing(), current.getLastPing()));
+    }
+
+    @Override
+    public String toString() {
+        return "CheckChange(key=" + key
+                + ", status=" + (previous == null ? null : previous.getStatus())
+                + " -> " + (current == null ? null : current.getStatus()) + ")";
+    }
+}
@@ -0,0 +1,21 @@
+package com.niklasarndt.healthchecksio.watch;
+
+/**
+ * <p>Receives {@link CheckChange}s from a {@link CheckWatcher}.</p>
+ *
+ * <p>Listeners are invoked on the polling thread of the watcher, so
+ * they should return quickly.</p>
+ *
+ * @since 1.1.0
+ */
+@FunctionalInterface
+public interface CheckListener {
+
+    /**
+     * <p>Called once for every check which has been added, removed or changed
+     * (status, last ping or number of pings) since the last poll.</p>
+     *
+     * @param change The detected change.
+     */
+    void onChange(CheckChange change);
+}
@@ -0,0 +1,262 @@
+package com.niklasarndt.healthchecksio.watch;
+
+import com.niklasarndt.healthchecksio.HealthchecksManager;
+import com.niklasarndt.healthchecksio.model.CheckSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Polls {@link HealthchecksManager#getExistingCheckSnapshots(String...)} on a single,
+ * shared schedule and notifies all registered {@link CheckListener}s about changes.</p>
+ *
+ * <p>Only checks whose status, last ping or number of pings changed are published. To detect
+ * this cheaply, the watcher keeps a hash of these fields per UUID (or unique key).</p>
+ *
+ * <p>The polling interval adapts to the activity of the account: Whenever a change is detected
+ * (or a check is in its grace period), the watcher polls with the minimum interval. Otherwise,
+ * the interval grows step by step up to the maximum interval. Failed requests back off as well.</p>
+ *
+ * <pre>{@code
+ * CheckWatcher watcher = new CheckWatcher(manager);
+ * watcher.addListener(change -> {
+ *     if (change.isDown())
+ *         alert(change.getCurrent().getName());
+ * });
+ * watcher.start();
+ * }</pre>
+ *
+ * @since 1.1.0
+ */
+public class CheckWatcher implements AutoCloseable {
+
+    /**
+     * The default minimum polling interval.
+     */
+    public static final Duration DEFAULT_MIN_INTERVAL = Duration.ofSeconds(15);
+    /**
+     * The default maximum polling interval.
+     */
+    public static final Duration DEFAULT_MAX_INTERVAL = Duration.ofMinutes(2);
+
+    private static final Logger LOG = LoggerFactory.getLogger(CheckWatcher.class);
+
+    private final HealthchecksManager manager;
+    private final String[] tags;
+    private final long minInterval;
+    private final long maxInterval;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+    private final List<CheckListener> listeners = new CopyOnWriteArrayList<>();
+
+    private Map<String, Entry> state;
+    private volatile long interval;
+    private volatile boolean running;
+    private ScheduledFuture<?> task;
+
+    /**
+     * <p>Creates a new watcher with the default intervals and an own (daemon) polling thread.</p>
+     *
+     * @param manager The manager which will be used to poll the checks. <b>Must not be null.</b>
+     * @param tags    <i>(optional)</i> Only watch checks which have all of these tags.
+     */
+    public CheckWatcher(HealthchecksManager manager, String... tags) {
+        this(manager, DEFAULT_MIN_INTERVAL, DEFAULT_MAX_INTERVAL, null, tags);
+    }
+
+    /**
+     * <p>Creates a new watcher.</p>
+     *
+     * @param manager     The manager which will be used to poll the checks. <b>Must not be null.</b>
+     * @param minInterval The interval which is used while the checks are changing.
+     * @param maxInterval The interval which is used if nothing happened for a while.
+     * @param scheduler   The executor which schedules the polls. If null, a new single-threaded
+     *                    daemon executor is created (and shut down by {@link #close()}).
+     * @param tags        <i>(optional)</i> Only watch checks which have all of these tags.
+     */
+    public CheckWatcher(HealthchecksManager manager, Duration minInterval, Duration maxInterval,
+                        ScheduledExecutorService scheduler, String... tags) {
+        this.manager = Objects.requireNonNull(manager);
+        this.tags = tags.clone();
+        this.minInterval = minInterval.toMillis();
+        this.maxInterval = maxInterval.toMillis();
+        if (this.minInterval <= 0 || this.maxInterval < this.minInterval)
+            throw new IllegalArgumentException("The intervals must be positive and min <= max!");
+
+        this.ownsScheduler = scheduler == null;
+        this.scheduler = scheduler != null ? scheduler
+                : Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "healthchecks-watcher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.interval = this.minInterval;
+    }
+
+    public void addListener(CheckListener listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    public void removeListener(CheckListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * <p>Starts polling (the first poll happens immediately). The first poll only records the
+     * current state of all checks, listeners will be notified about subsequent changes.</p>
+     */
+    public synchronized void start() {
+        if (running)
+            return;
+        running = true;
+        schedule(0);
+    }
+
+    /**
+     * <p>Stops polling. An already running poll will still complete.</p>
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (task != null)
+            task.cancel(false);
+        if (ownsScheduler)
+            scheduler.shutdown();
+    }
+
+    /**
+     * <p>Polls the checks once (independent of the schedule), notifies the listeners
+     * and returns the detected changes.</p>
+     *
+     * @return A list of all changes since the last poll, wrapped in a {@link CompletableFuture}
+     *         object for async execution. If the manager throws an exception instead of returning
+     *         a future, the returned future fails with it.
+     */
+    public CompletableFuture<List<CheckChange>> poll() {
+        CompletableFuture<CheckSnapshot[]> checks;
+        try {
+            checks = manager.getExistingCheckSnapshots(tags);
+        } catch (RuntimeException e) {
+            //Handled like a failed request, so the schedule goes on
+            checks = new CompletableFuture<>();
+            checks.completeExceptionally(e);
+        }
+        return checks.thenApply(this::update);
+    }
+
+    /**
+     * @return The interval which is used until the next poll.
+     */
+    public Duration getInterval() {
+        return Duration.ofMillis(interval);
+    }
+
+    /**
+     * @return All checks as of the last successful poll.
+     */
+    public synchronized Collection<CheckSnapshot> getChecks() {
+        if (state == null)
+            return Collections.emptyList();
+        List<CheckSnapshot> result = new ArrayList<>(state.size());
+        for (Entry entry : state.values())
+            result.add(entry.check);
+        return result;
+    }
+
+    private synchronized void schedule(long delay) {
+        if (!running)
+            return;
+        task = scheduler.schedule(() -> poll().whenComplete((changes, error) -> {
+            if (error != null) {
+                LOG.warn("Could not poll the checks from healthchecks.io", error);
+                interval = Math.min(maxInterval, interval * 2);
+            }
+            schedule(interval);
+        }), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private List<CheckChange> update(CheckSnapshot[] checks) {
+        List<CheckChange> changes = new ArrayList<>();
+        boolean active = false;
+
+        synchronized (this) {
+            Map<String, Entry> previous = state;
+            Map<String, Entry> next = new HashMap<>(checks.length * 4 / 3 + 1);
+
+            for (CheckSnapshot check : checks) {
+                String key = check.getUuidOrUniqueKey();
+                if (key == null)
+                    continue;
+
+                Entry old = previous == null ? null : previous.remove(key);
+                Entry entry = old != null && old.check == check ? old : new Entry(check);
+                next.put(key, entry);
+
+                if ("grace".equals(check.getStatus()) || "started".equals(check.getStatus()))
+                    active = true;
+
+                if (previous == null || (old != null && old.sameState(entry)))
+                    continue;
+                changes.add(new CheckChange(key, old == null ? null : old.check, check));
+            }
+
+            if (previous != null) {
+                for (Map.Entry<String, Entry> removed : previous.entrySet())
+                    changes.add(new CheckChange(removed.getKey(), removed.getValue().check, null));
+            }
+
+            state = next;
+            interval = active || !changes.isEmpty() ? minInterval
+                    : Math.min(maxInterval, interval + interval / 2);
+        }
+
+        LOG.debug("Polled {} checks, {} changed, next poll in {} ms",
+                checks.length, changes.size(), interval);
+
+        for (CheckChange change : changes) {
+            for (CheckListener listener : listeners) {
+                try {
+                    listener.onChange(change);
+                } catch (RuntimeException e) {
+                    LOG.warn("A check listener threw an exception", e);
+                }
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * A polled check together with the hash of the fields which are watched.
+     */
+    private static class Entry {
+        private final CheckSnapshot check;
+        private final int hash;
+
+        private Entry(CheckSnapshot check) {
+            this.check = check;
+            this.hash = Objects.hash(check.getStatus(), check.getLastPing(), check.getPings());
+        }
+
+        private boolean sameState(Entry other) {
+            if (check == other.check)
+                return true;
+            return hash == other.hash
+                    && check.getPings() == other.check.getPings()
+                    && Objects.equals(check.getStatus(), other.check.getStatus())
+                    && Objects.equals(check.getLastPing(), other.check.getLastPing());
+        }
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * <p>Contains the {@link com.niklasarndt.healthchecksio.watch.CheckWatcher}, which polls the
+ * Management API on a shared schedule and notifies listeners about changed checks.</p>
+ *
+ * @since 1.1.0
+ */
+package com.niklasarndt.healthchecksio.watch;
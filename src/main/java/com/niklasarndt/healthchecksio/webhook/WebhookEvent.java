@@ -0,0 +1,121 @@
+package com.niklasarndt.healthchecksio.webhook;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+
+/**
+ * <p>A status change of a check, as sent by a healthchecks.io webhook integration.</p>
+ *
+ * <p>Configure the webhook to send the placeholders {@code $CODE}, {@code $STATUS},
+ * {@code $NOW}, {@code $NAME} and {@code $TAGS}, e.g. as JSON body:</p>
+ *
+ * <pre>{@code
+ * {"code": "$CODE", "status": "$STATUS", "now": "$NOW", "name": "$NAME", "tags": "$TAGS"}
+ * }</pre>
+ *
+ * <p>or as query parameters ({@code ?code=$CODE&status=$STATUS&now=$NOW}). Only
+ * {@code code} (the UUID) and {@code status} are required.</p>
+ *
+ * @since 1.1.0
+ */
+public final class WebhookEvent {
+
+    private final String uuid;
+    private final String status;
+    private final Instant timestamp;
+    private final String name;
+    private final String tags;
+
+    public WebhookEvent(String uuid, String status, Instant timestamp, String name, String tags) {
+        this.uuid = Objects.requireNonNull(uuid);
+        this.status = Objects.requireNonNull(status);
+        this.timestamp = timestamp;
+        this.name = name;
+        this.tags = tags;
+    }
+
+    /**
+     * @param now The value of {@code $NOW} (ISO 8601 with offset).
+     *
+     * @return The parsed time or null if it is missing or invalid.
+     */
+    static Instant parseTimestamp(String now) {
+        if (now == null || now.isEmpty())
+            return null;
+        try {
+            return OffsetDateTime.parse(now).toInstant();
+        } catch (DateTimeParseException e) {
+            try {
+                return Instant.parse(now);
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @return The UUID of the check ({@code $CODE}).
+     */
+    public String getUuid() {
+        return uuid;
+    }
+
+    /**
+     * @return The new status of the check ({@code up} or {@code down}).
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * @return The time of the status change ({@code $NOW}) or null if it has not been sent.
+     */
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return The name of the check ({@code $NAME}) or null if it has not been sent.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The space-separated tags of the check ({@code $TAGS}) or null if they have not been sent.
+     */
+    public String getTags() {
+        return tags;
+    }
+
+    public boolean isUp() {
+        return "up".equals(status);
+    }
+
+    public boolean isDown() {
+        return "down".equals(status);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        WebhookEvent that = (WebhookEvent) o;
+        return uuid.equals(that.uuid) && status.equals(that.status)
+                && Objects.equals(timestamp, that.timestamp) && Objects.equals(name, that.name)
+                && Objects.equals(tags, that.tags);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(uuid, status, timestamp, name, tags);
+    }
+
+    @Override
+    public String toString() {
+        return "WebhookEvent(uuid=" + uuid + ", status=" + status + ", timestamp=" + timestamp
+                + ", name=" + name + ", tags=" + tags + ")";
+    }
+}
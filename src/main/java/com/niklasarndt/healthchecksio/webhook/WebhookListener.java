@@ -0,0 +1,20 @@
+package com.niklasarndt.healthchecksio.webhook;
+
+/**
+ * <p>Receives {@link WebhookEvent}s from a {@link WebhookReceiver}.</p>
+ *
+ * <p>Listeners are invoked on the server thread before healthchecks.io gets its response,
+ * so they should return quickly.</p>
+ *
+ * @since 1.1.0
+ */
+@FunctionalInterface
+public interface WebhookListener {
+
+    /**
+     * <p>Called once for every (de-duplicated) status change.</p>
+     *
+     * @param event The received event.
+     */
+    void onEvent(WebhookEvent event);
+}
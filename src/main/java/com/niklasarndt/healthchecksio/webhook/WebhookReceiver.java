@@ -0,0 +1,413 @@
+package com.niklasarndt.healthchecksio.webhook;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>An embedded HTTP server which receives status changes from a healthchecks.io webhook
+ * integration and dispatches them to {@link WebhookListener}s, instead of polling the
+ * Management API.</p>
+ *
+ * <p>Payloads are read with a streaming JSON parser (or as form/query parameters, see
+ * {@link WebhookEvent}), so no object tree is built per request. healthchecks.io retries
+ * failed deliveries, therefore events are de-duplicated: an event whose check, status and
+ * timestamp equal the last event of the same check is acknowledged, but not dispatched.</p>
+ *
+ * <p>If a secret is configured, every request must carry it, either as {@code token} query
+ * parameter or in the {@value #TOKEN_HEADER} header. Requests without it are rejected
+ * with {@code 403}. The receiver listens on the loopback interface by default (e.g. behind a
+ * reverse proxy), and a secret is required if it is bound to any other address.</p>
+ *
+ * <p>Listeners are called on a server thread after the response has been sent, so a slow
+ * listener does not delay the acknowledgement (and cause a retry by healthchecks.io), but it
+ * occupies one of the server threads until it returns.</p>
+ *
+ * <pre>{@code
+ * WebhookReceiver receiver = WebhookReceiver.builder()
+ *         .port(8788)
+ *         .bindAddress("0.0.0.0")
+ *         .secret("<random>")
+ *         .build();
+ * receiver.addListener(event -> {
+ *     if (event.isDown())
+ *         alert(event.getName());
+ * });
+ * manager.hasWebhookIntegration(null).get(); //verify that the webhook has been set up
+ * }</pre>
+ *
+ * @since 1.1.0
+ */
+public class WebhookReceiver implements AutoCloseable {
+
+    /**
+     * The default path of the receiver.
+     */
+    public static final String DEFAULT_PATH = "/healthchecks";
+    /**
+     * The header which can carry the secret.
+     */
+    public static final String TOKEN_HEADER = "X-Healthchecks-Token";
+
+    private static final Logger LOG = LoggerFactory.getLogger(WebhookReceiver.class);
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final int MAX_BODY = 64 * 1024;
+
+    private final String path;
+    private final byte[] secret;
+    private final int dedupeCapacity;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final List<WebhookListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, String> lastEvents;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private WebhookReceiver(Builder builder) throws IOException {
+        this.path = builder.path;
+        this.secret = builder.secret == null ? null : builder.secret.getBytes(StandardCharsets.UTF_8);
+        this.dedupeCapacity = builder.dedupeCapacity;
+        this.lastEvents = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > dedupeCapacity;
+            }
+        };
+
+        this.executor = Executors.newFixedThreadPool(builder.threads, runnable -> {
+            Thread thread = new Thread(runnable, "healthchecks-webhook");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(builder.bindAddress, builder.port), 64);
+        this.server.setExecutor(executor);
+        this.server.createContext(path, this::handle);
+        this.server.start();
+        LOG.info("Webhook receiver listening on {}", getUrl());
+    }
+
+    /**
+     * @return A new {@link Builder} with the default settings.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public void addListener(WebhookListener listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    public void removeListener(WebhookListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return The local URL of this receiver (without the secret).
+     */
+    public String getUrl() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort() + path;
+    }
+
+    /**
+     * @return The number of valid events (including duplicates).
+     */
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    public long getDuplicateCount() {
+        return duplicates.get();
+    }
+
+    /**
+     * @return The number of rejected requests (invalid payload or secret).
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * <p>Stops the server.</p>
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("POST") && !method.equals("GET") && !method.equals("PUT")) {
+                respond(exchange, 405, "method not allowed");
+                return;
+            }
+            if (!exchange.getRequestURI().getPath().equals(path)) {
+                respond(exchange, 404, "not found");
+                return;
+            }
+
+            Map<String, String> query;
+            try {
+                query = parseForm(exchange.getRequestURI().getRawQuery());
+            } catch (IllegalArgumentException e) {
+                //Malformed percent-encoding
+                rejected.incrementAndGet();
+                respond(exchange, 400, "invalid query");
+                return;
+            }
+            if (!isAuthorized(query.get("token"), exchange.getRequestHeaders().getFirst(TOKEN_HEADER))) {
+                rejected.incrementAndGet();
+                respond(exchange, 403, "forbidden");
+                return;
+            }
+
+            WebhookEvent event;
+            try {
+                event = parse(exchange, query);
+            } catch (IOException | IllegalArgumentException e) {
+                LOG.debug("Invalid webhook payload", e);
+                event = null;
+            }
+            if (event == null) {
+                rejected.incrementAndGet();
+                respond(exchange, 400, "invalid payload");
+                return;
+            }
+
+            received.incrementAndGet();
+            boolean duplicate = isDuplicate(event);
+            respond(exchange, 200, "OK");
+            if (duplicate)
+                duplicates.incrementAndGet();
+            else
+                dispatch(event);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private boolean isAuthorized(String token, String header) {
+        if (secret == null)
+            return true;
+        String provided = token != null ? token : header;
+        //Constant-time comparison
+        return provided != null && MessageDigest.isEqual(secret, provided.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean isDuplicate(WebhookEvent event) {
+        String state = event.getStatus() + "@" + event.getTimestamp();
+        synchronized (lastEvents) {
+            return state.equals(lastEvents.put(event.getUuid(), state));
+        }
+    }
+
+    private void dispatch(WebhookEvent event) {
+        for (WebhookListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                LOG.error("Webhook listener failed for {}", event, e);
+            }
+        }
+    }
+
+    /**
+     * Reads the event from the body (JSON or form) or, if there is none, from the query.
+     */
+    private static WebhookEvent parse(HttpExchange exchange, Map<String, String> query) throws IOException {
+        byte[] body = readBody(exchange.getRequestBody());
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+
+        Map<String, String> fields = query;
+        if (body.length > 0) {
+            if (contentType != null && contentType.startsWith("application/x-www-form-urlencoded"))
+                fields.putAll(parseForm(new String(body, StandardCharsets.UTF_8)));
+            else
+                parseJson(body, fields);
+        }
+
+        String uuid = first(fields, "code", "uuid");
+        String status = fields.get("status");
+        if (uuid == null || uuid.isEmpty() || status == null || status.isEmpty())
+            return null;
+        return new WebhookEvent(uuid, status, WebhookEvent.parseTimestamp(first(fields, "now", "timestamp")),
+                fields.get("name"), fields.get("tags"));
+    }
+
+    private static void parseJson(byte[] body, Map<String, String> fields) throws IOException {
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new IOException("Expected a JSON object");
+
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                token = parser.nextToken();
+                if (token.isScalarValue())
+                    fields.put(field, parser.getValueAsString());
+                else
+                    parser.skipChildren();
+            }
+            if (token != JsonToken.END_OBJECT)
+                throw new IOException("Malformed JSON object");
+        }
+    }
+
+    private static Map<String, String> parseForm(String form) throws UnsupportedEncodingException {
+        Map<String, String> result = new LinkedHashMap<>();
+        if (form == null || form.isEmpty())
+            return result;
+
+        for (String pair : form.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator <= 0)
+                continue;
+            result.put(URLDecoder.decode(pair.substring(0, separator), "UTF-8"),
+                    URLDecoder.decode(pair.substring(separator + 1), "UTF-8"));
+        }
+        return result;
+    }
+
+    private static String first(Map<String, String> fields, String... names) {
+        for (String name : names) {
+            String value = fields.get(name);
+            if (value != null)
+                return value;
+        }
+        return null;
+    }
+
+    private static byte[] readBody(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            if (output.size() + read > MAX_BODY)
+                throw new IOException("The payload is too large");
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+
+    private static void respond(HttpExchange exchange, int code, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * Builder for {@link WebhookReceiver} objects.
+     */
+    public static final class Builder {
+
+        private int port = 8788;
+        private String bindAddress = "127.0.0.1";
+        private String path = DEFAULT_PATH;
+        private String secret;
+        private int threads = 2;
+        private int dedupeCapacity = 10_000;
+
+        private Builder() {
+        }
+
+        /**
+         * @param port The port (default: 8788, 0 for a random port).
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * @param bindAddress The local address (default: 127.0.0.1). Any other address than a
+         *                    loopback address requires a {@link #secret(String) secret}.
+         */
+        public Builder bindAddress(String bindAddress) {
+            this.bindAddress = Objects.requireNonNull(bindAddress);
+            return this;
+        }
+
+        /**
+         * @param path The path of the webhook (default: {@value #DEFAULT_PATH}).
+         */
+        public Builder path(String path) {
+            if (!path.startsWith("/"))
+                throw new IllegalArgumentException("The path must start with a slash!");
+            this.path = path;
+            return this;
+        }
+
+        /**
+         * @param secret The token which every request must carry (null disables the check).
+         */
+        public Builder secret(String secret) {
+            this.secret = secret;
+            return this;
+        }
+
+        /**
+         * @param threads The number of server threads (default: 2).
+         */
+        public Builder threads(int threads) {
+            if (threads < 1)
+                throw new IllegalArgumentException("At least one thread is required!");
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * @param dedupeCapacity The number of checks whose last event is remembered
+         *                       for de-duplication (default: 10000).
+         */
+        public Builder dedupeCapacity(int dedupeCapacity) {
+            if (dedupeCapacity < 1)
+                throw new IllegalArgumentException("The capacity must be positive!");
+            this.dedupeCapacity = dedupeCapacity;
+            return this;
+        }
+
+        /**
+         * <p>Creates and starts the receiver.</p>
+         *
+         * @return The running receiver.
+         *
+         * @throws IOException           If the port could not be bound.
+         * @throws IllegalStateException If the receiver would be reachable from other hosts
+         *                               without a secret.
+         */
+        public WebhookReceiver build() throws IOException {
+            if (secret == null && !InetAddress.getByName(bindAddress).isLoopbackAddress())
+                throw new IllegalStateException("A secret is required to listen on " + bindAddress);
+            return new WebhookReceiver(this);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * <p>Contains the {@link com.niklasarndt.healthchecksio.webhook.WebhookReceiver}, a small embedded
+ * HTTP server which receives status changes from a healthchecks.io webhook integration, so they
+ * don't have to be polled via the Management API.</p>
+ *
+ * @since 1.1.0
+ */
+package com.niklasarndt.healthchecksio.webhook;
@@ -0,0 +1,174 @@
+package com.niklasarndt.healthchecksio;
+
+import com.niklasarndt.healthchecksio.util.HealthcheckUtils;
+import com.niklasarndt.healthchecksio.util.UserAgentInterceptor;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A {@link HealthchecksTransport} which sends requests via {@link HttpClient}, see
+ * {@link Healthchecks#jdkTransport(HealthchecksOptions, Executor)}.</p>
+ *
+ * <p>This class is only contained in the Java 11 part of the multi-release JAR.</p>
+ *
+ * @since 1.1.0
+ */
+final class JdkHttpTransport implements HealthchecksTransport {
+
+    //Set by the HttpClient itself, it rejects them in requests
+    private static final Set<String> RESTRICTED_HEADERS = new HashSet<>(Arrays.asList(
+            "connection", "content-length", "expect", "host", "upgrade"));
+
+    private final HttpClient client;
+    private final ExecutorService ownedExecutor;
+    private final Duration callTimeout;
+
+    JdkHttpTransport(HealthchecksOptions options, Executor executor) {
+        if (executor == null) {
+            AtomicInteger counter = new AtomicInteger();
+            this.ownedExecutor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "healthchecks-http-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor = ownedExecutor;
+        } else {
+            this.ownedExecutor = null;
+        }
+
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor);
+        if (options.getConnectTimeout() != null && !options.getConnectTimeout().isZero())
+            builder.connectTimeout(options.getConnectTimeout());
+        this.client = builder.build();
+        this.callTimeout = options.getCallTimeout();
+    }
+
+    @Override
+    public CompletableFuture<Response> send(Request request, Duration timeout, Instant deadline,
+                                            Executor executor) {
+        HttpRequest converted;
+        try {
+            Duration effective = timeout != null ? timeout : callTimeout;
+            if (deadline != null) {
+                Duration remaining = Duration.between(Instant.now(), deadline);
+                if (remaining.isNegative() || remaining.isZero())
+                    throw new InterruptedIOException("The deadline " + deadline + " has already passed");
+                if (effective == null || effective.isZero() || remaining.compareTo(effective) < 0)
+                    effective = remaining;
+            }
+            converted = convert(request, effective);
+        } catch (IOException | RuntimeException e) {
+            CompletableFuture<Response> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        long sentAt = System.currentTimeMillis();
+        CompletableFuture<HttpResponse<byte[]>> call = client.sendAsync(converted,
+                HttpResponse.BodyHandlers.ofByteArray());
+        CompletableFuture<Response> future = executor == null
+                ? call.thenApply(response -> convert(request, response, sentAt))
+                : call.thenApplyAsync(response -> convert(request, response, sentAt), task -> {
+                    try {
+                        executor.execute(task);
+                    } catch (RejectedExecutionException e) {
+                        task.run();
+                    }
+                });
+        return HealthcheckUtils.propagateCancellation(future, call);
+    }
+
+    @Override
+    public void close() {
+        if (ownedExecutor != null)
+            ownedExecutor.shutdown();
+        //HttpClient can be closed since Java 21, before it is released once it is unreachable
+        if (client instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) client).close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private static HttpRequest convert(Request request, Duration timeout) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.url().uri());
+        //Avoids the h2c upgrade of plain HTTP connections, HTTPS negotiates HTTP/2 via ALPN
+        if (!request.isHttps())
+            builder.version(HttpClient.Version.HTTP_1_1);
+        if (timeout != null && !timeout.isZero())
+            builder.timeout(timeout);
+
+        Headers headers = request.headers();
+        for (int i = 0; i < headers.size(); i++) {
+            if (!RESTRICTED_HEADERS.contains(headers.name(i).toLowerCase(Locale.ROOT)))
+                builder.header(headers.name(i), headers.value(i));
+        }
+        if (request.header("User-Agent") == null)
+            builder.header("User-Agent", UserAgentInterceptor.AGENT);
+
+        RequestBody body = request.body();
+        if (body == null) {
+            builder.method(request.method(), HttpRequest.BodyPublishers.noBody());
+        } else {
+            Buffer buffer = new Buffer();
+            body.writeTo(buffer);
+            if (body.contentType() != null && request.header("Content-Type") == null)
+                builder.header("Content-Type", body.contentType().toString());
+            builder.method(request.method(), HttpRequest.BodyPublishers.ofByteArray(buffer.readByteArray()));
+        }
+        return builder.build();
+    }
+
+    private static Response convert(Request request, HttpResponse<byte[]> response, long sentAt) {
+        Headers.Builder headers = new Headers.Builder();
+        for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+            //HTTP/2 pseudo headers (e.g. :status)
+            if (header.getKey().startsWith(":"))
+                continue;
+            for (String value : header.getValue())
+                headers.addUnsafeNonAscii(header.getKey(), value);
+        }
+        String type = response.headers().firstValue("Content-Type").orElse(null);
+
+        return new Response.Builder()
+                .request(request)
+                .protocol(response.version() == HttpClient.Version.HTTP_2 ? Protocol.HTTP_2 : Protocol.HTTP_1_1)
+                .code(response.statusCode())
+                //HttpClient does not expose reason phrases, just like OkHttp for HTTP/2
+                .message("")
+                .headers(headers.build())
+                .body(ResponseBody.create(response.body(), type == null ? null : MediaType.parse(type)))
+                .sentRequestAtMillis(sentAt)
+                .receivedResponseAtMillis(System.currentTimeMillis())
+                .build();
+    }
+}
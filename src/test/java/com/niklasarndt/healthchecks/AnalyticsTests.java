@@ -0,0 +1,124 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksClient;
+import com.niklasarndt.healthchecksio.HealthchecksManager;
+import com.niklasarndt.healthchecksio.analytics.DurationAnalytics;
+import com.niklasarndt.healthchecksio.analytics.DurationSketch;
+import com.niklasarndt.healthchecksio.model.Check;
+import com.niklasarndt.healthchecksio.model.Ping;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+
+public class AnalyticsTests {
+
+    private static final Instant NOW = Instant.parse("2021-06-05T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testSketch() throws IOException {
+        Random random = new Random(42);
+        double[] durations = new double[10_000];
+        DurationSketch first = new DurationSketch();
+        DurationSketch second = new DurationSketch();
+        for (int i = 0; i < durations.length; i++) {
+            durations[i] = Math.exp(random.nextGaussian() * 2 + 3);
+            (i % 2 == 0 ? first : second).add(durations[i]);
+        }
+        Arrays.sort(durations);
+
+        DurationSketch merged = first.copy().merge(second);
+        assertEquals(durations.length, merged.getCount());
+        for (double quantile : new double[]{0, 0.5, 0.9, 0.95, 0.99, 1}) {
+            double expected = durations[(int) (quantile * (durations.length - 1))];
+            assertEquals(expected, merged.getPercentile(quantile), expected * DurationSketch.RELATIVE_ACCURACY,
+                    "p" + quantile);
+        }
+        assertEquals(durations[0], merged.getMin());
+        assertEquals(durations[durations.length - 1], merged.getMax());
+        assertTrue(Double.isNaN(new DurationSketch().getPercentile(0.5)));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        merged.writeTo(new DataOutputStream(bytes));
+        assertTrue(bytes.size() < 4096);
+        assertEquals(merged, DurationSketch.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+
+    @Test
+    public void testRegressions() throws IOException {
+        DurationAnalytics analytics = DurationAnalytics.builder().build();
+        for (int day = 13; day >= 0; day--) {
+            //The backup job takes twice as long since last week
+            double backup = day >= 7 ? 60 : 120;
+            for (int run = 0; run < 24; run++) {
+                Instant timestamp = NOW.minus(Duration.ofDays(day)).minus(Duration.ofHours(run + 1));
+                analytics.record("backup", "prod nightly", timestamp, backup * (1 + run / 100.0));
+                analytics.record("cleanup", "prod", timestamp, 10);
+            }
+        }
+
+        Instant lastWeek = NOW.minus(Duration.ofDays(7));
+        assertEquals(133.2, analytics.getCheckPercentile("backup", 0.5, lastWeek, NOW), 133.2 * 0.01);
+        assertEquals(2.0, analytics.getCheckTrend("backup", 0.5, Duration.ofDays(7), NOW), 0.05);
+        assertEquals(Collections.singleton("backup"),
+                analytics.findRegressions(0.5, 1.5, Duration.ofDays(7), NOW).keySet());
+        assertEquals(24 * 7 * 2, analytics.getTagSketch("prod", lastWeek, NOW).getCount());
+        assertTrue(Double.isNaN(analytics.getCheckTrend("unknown", 0.5, Duration.ofDays(7), NOW)));
+
+        Path file = directory.resolve("durations.bin");
+        analytics.save(file);
+        DurationAnalytics loaded = DurationAnalytics.load(file);
+        assertEquals(analytics.getCheckSketch("backup", NOW.minus(Duration.ofDays(30)), NOW),
+                loaded.getCheckSketch("backup", NOW.minus(Duration.ofDays(30)), NOW));
+        assertEquals(analytics.getTags(), loaded.getTags());
+
+        //Old buckets are dropped after the retention period
+        DurationAnalytics shortLived = DurationAnalytics.builder().retention(Duration.ofDays(7)).build();
+        shortLived.merge(loaded);
+        assertTrue(shortLived.getCheckSketch("backup", NOW.minus(Duration.ofDays(30)), lastWeek).isEmpty());
+    }
+
+    @Test
+    public void testPings() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("timed");
+            HealthchecksClient client = Healthchecks.forUuid(server.getUrl(), uuid);
+            HealthchecksManager manager = Healthchecks.manager(server.getUrl(), "key");
+            DurationAnalytics analytics = DurationAnalytics.builder().build();
+
+            for (int i = 0; i < 3; i++) {
+                client.start().get().close();
+                client.success().get().close();
+            }
+            Check check = manager.getCheck(uuid).get();
+            Ping[] pings = manager.getPings(check).get();
+            assertNotNull(pings[0].getTimestamp());
+            assertTrue(Math.abs(pings[0].getTimestamp().getTime() - System.currentTimeMillis()) < 60_000);
+
+            assertEquals(3, analytics.update(manager, check).get());
+            //Pings which have been folded already are skipped
+            assertEquals(0, analytics.update(manager, check).get());
+            client.start().get().close();
+            client.success().get().close();
+            assertEquals(1, analytics.update(manager, check).get());
+            assertEquals(4, analytics.getCheckSketch(uuid, Instant.now().minus(Duration.ofDays(1)),
+                    Instant.now().plus(Duration.ofDays(1))).getCount());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.niklasarndt.healthchecks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.niklasarndt.healthchecksio.model.Check;
+import com.niklasarndt.healthchecksio.model.CheckSnapshot;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+public class CheckSnapshotTests {
+
+    private static Check createCheck() throws MalformedURLException {
+        Check check = new Check();
+        check.setName("backup");
+        check.setTags("cron debian");
+        check.setStatus("up");
+        check.setPings(3);
+        check.setLastPing(new Date(1600000000000L));
+        check.setPingUrl(new URL("https://hc-ping.com/0c8983c9-9d73-446f-adb5-0641fdacc9d4"));
+        check.setUnique(new String[]{"name"});
+        return check;
+    }
+
+    @Test
+    public void testCopy() throws MalformedURLException {
+        Check check = createCheck();
+        CheckSnapshot snapshot = CheckSnapshot.of(check);
+
+        assertEquals("backup", snapshot.getName());
+        assertEquals("0c8983c9-9d73-446f-adb5-0641fdacc9d4", snapshot.getUuid());
+        assertEquals(check.getUuid(), snapshot.getUuidOrUniqueKey());
+        assertEquals(check.getLastPing().toInstant(), snapshot.getLastPing());
+
+        //Mutating the source must not affect the snapshot
+        check.setName("changed");
+        check.getUnique()[0] = "tags";
+        assertEquals("backup", snapshot.getName());
+        assertEquals("name", snapshot.getUnique().get(0));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getUnique().add("x"));
+
+        assertEquals(CheckSnapshot.of(createCheck()), CheckSnapshot.of(snapshot.toCheck()));
+    }
+
+    @Test
+    public void testCopyOnWrite() throws MalformedURLException {
+        CheckSnapshot snapshot = CheckSnapshot.of(createCheck());
+        CheckSnapshot down = snapshot.withStatus("down");
+
+        assertEquals("up", snapshot.getStatus());
+        assertEquals("down", down.getStatus());
+        assertNotEquals(snapshot, down);
+        assertEquals(snapshot, down.withStatus("up"));
+        assertEquals(snapshot.hashCode(), down.withStatus("up").hashCode());
+
+        Set<CheckSnapshot> set = new HashSet<>();
+        set.add(snapshot);
+        assertTrue(set.contains(CheckSnapshot.of(createCheck())));
+        assertFalse(set.contains(down));
+    }
+
+    @Test
+    public void testLazyUrls() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Check check = mapper.readValue("{\"name\": \"backup\", "
+                + "\"ping_url\": \"https://hc-ping.com/0c8983c9-9d73-446f-adb5-0641fdacc9d4\", "
+                + "\"update_url\": \"https://healthchecks.io/api/v1/checks/0c8983c9-9d73-446f-adb5-0641fdacc9d4\", "
+                + "\"pause_url\": \"https://healthchecks.io/api/v1/checks/0c8983c9-9d73-446f-adb5-0641fdacc9d4/pause\"}",
+                Check.class);
+
+        assertEquals("0c8983c9-9d73-446f-adb5-0641fdacc9d4", check.getUuid());
+        assertEquals("/api/v1/checks/0c8983c9-9d73-446f-adb5-0641fdacc9d4/pause", check.getPauseUrl().getPath());
+        assertSame(check.getPingUrl(), check.getPingUrl());
+        assertEquals(createCheck().getPingUrl(), check.getPingUrl());
+
+        //The URLs are never sent to healthchecks.io
+        String json = mapper.writeValueAsString(check);
+        assertFalse(json.contains("url"), json);
+        assertFalse(json.contains("uuid"), json);
+
+        //Parsed URLs don't affect equality
+        Check other = mapper.readValue(mapper.writeValueAsString(check), Check.class);
+        other.setPingUrl(check.getPingUrl());
+        other.setUpdateUrl(check.getUpdateUrl());
+        other.setPauseUrl(check.getPauseUrl());
+        assertEquals(check, other);
+        other.setPingUrl(null);
+        assertNull(other.getUuid());
+        assertNotEquals(check, other);
+    }
+
+    @Test
+    public void testMalformedUrl() throws IOException {
+        Check check = new ObjectMapper().readValue("{\"name\": \"broken\", "
+                + "\"ping_url\": \"hc-ping.com/0c8983c9-9d73-446f-adb5-0641fdacc9d4\"}", Check.class);
+        assertEquals("0c8983c9-9d73-446f-adb5-0641fdacc9d4", check.getUuid());
+        //Malformed URLs are only reported on access
+        assertThrows(IllegalStateException.class, check::getPingUrl);
+
+        CheckSnapshot snapshot = CheckSnapshot.of(check);
+        assertEquals("0c8983c9-9d73-446f-adb5-0641fdacc9d4", snapshot.getUuid());
+        assertEquals("hc-ping.com/0c8983c9-9d73-446f-adb5-0641fdacc9d4", snapshot.getRawPingUrl());
+        assertThrows(IllegalStateException.class, snapshot::getPingUrl);
+    }
+}
@@ -0,0 +1,195 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.CircuitBreakerTransport;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksClient;
+import com.niklasarndt.healthchecksio.HealthchecksManager;
+import com.niklasarndt.healthchecksio.HealthchecksOptions;
+import com.niklasarndt.healthchecksio.HealthchecksPingKeyClient;
+import com.niklasarndt.healthchecksio.exception.CircuitOpenException;
+import com.niklasarndt.healthchecksio.model.Ping;
+import com.niklasarndt.healthchecksio.util.CircuitBreaker;
+import okhttp3.Response;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+
+public class CircuitBreakerTests {
+
+    @Test
+    public void testStates() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 0.5, 4, Duration.ofMinutes(1),
+                Duration.ofMillis(100), 2);
+
+        //Below the minimum number of calls, the failure rate is not evaluated
+        breaker.tryAcquire().onFailure();
+        breaker.tryAcquire().onFailure();
+        breaker.tryAcquire().onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(2.0 / 3, breaker.getFailureRate(), 0.001);
+        breaker.tryAcquire().onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire());
+
+        //Two probes are permitted, a failed one opens the circuit again
+        Thread.sleep(150);
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        assertTrue(first.isProbe());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+        assertNotNull(second);
+        assertNull(breaker.tryAcquire());
+        first.onSuccess();
+        second.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(150);
+        first = breaker.tryAcquire();
+        second = breaker.tryAcquire();
+        first.onSuccess();
+        second.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getCallCount());
+        assertEquals(2, breaker.getOpenedCount());
+        assertEquals(2, breaker.getRejectedCount());
+    }
+
+    @Test
+    public void testLateResults() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 0.5, 1, Duration.ofMinutes(1),
+                Duration.ofMillis(100), 1);
+
+        //A call which has been permitted before the circuit opened is not a probe
+        CircuitBreaker.Permit late = breaker.tryAcquire();
+        assertFalse(late.isProbe());
+        breaker.tryAcquire().onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Thread.sleep(150);
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+        assertTrue(probe.isProbe());
+        late.onSuccess();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        //A probe which is released does not block the next one
+        probe.onIgnored();
+        probe = breaker.tryAcquire();
+        assertNotNull(probe);
+        probe.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testTransport() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key");
+             CircuitBreakerTransport transport = CircuitBreakerTransport.builder(
+                     Healthchecks.okHttpTransport(HealthchecksOptions.DEFAULT))
+                     .minimumCalls(5)
+                     .openDuration(Duration.ofMillis(200))
+                     .halfOpenCalls(1)
+                     .outboxCapacity(2)
+                     .build()) {
+            String uuid = server.addCheck("breaker");
+            HealthchecksOptions options = HealthchecksOptions.builder().transport(transport).build();
+            HealthchecksClient client = Healthchecks.forUuid(server.getUrl(), uuid, options);
+            HealthchecksManager manager = Healthchecks.manager(server.getUrl(), "key", options);
+
+            server.setErrorRate(1);
+            for (int i = 0; i < 5; i++)
+                client.success().get().close();
+            CircuitBreaker breaker = transport.getBreakers().values().iterator().next();
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+            //Management calls fail fast, heartbeats are queued (only the newest one per check)
+            long requests = server.getRequestCount();
+            ExecutionException rejected = assertThrows(ExecutionException.class,
+                    () -> manager.getExistingChecks().get());
+            assertTrue(rejected.getCause() instanceof CircuitOpenException);
+            for (int i = 0; i < 2; i++) {
+                try (Response response = client.start().get()) {
+                    assertEquals(202, response.code());
+                    assertTrue(CircuitBreakerTransport.isQueued(response));
+                }
+            }
+            assertEquals(1, transport.getOutboxSize());
+            assertEquals(1, transport.getMergedCount());
+
+            //The check which has been queued the longest is dropped if the outbox is full
+            String second = server.addCheck("second");
+            String third = server.addCheck("third");
+            HealthchecksClient secondClient = Healthchecks.forUuid(server.getUrl(), second, options);
+            secondClient.start().get().close();
+            Healthchecks.forUuid(server.getUrl(), third, options).start().get().close();
+            assertEquals(requests, server.getRequestCount());
+            assertEquals(2, transport.getOutboxSize());
+            assertEquals(1, transport.getDroppedCount());
+
+            //The queued start is the probe and is sent before the live success of its check,
+            //the rest of the outbox is sent afterwards
+            server.setErrorRate(0);
+            Thread.sleep(250);
+            try (Response response = secondClient.success().get()) {
+                assertEquals(200, response.code());
+            }
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+            assertEquals("up", server.getStatus(second));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (transport.getReplayedCount() < 2 && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+            assertEquals(2, transport.getReplayedCount());
+            assertEquals(0, transport.getOutboxSize());
+            assertEquals(3, server.getPingCount());
+            assertEquals("started", server.getStatus(third));
+            assertEquals("new", server.getStatus(uuid));
+        }
+    }
+
+    @Test
+    public void testQueuedFailures() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key");
+             CircuitBreakerTransport transport = CircuitBreakerTransport.builder(
+                     Healthchecks.okHttpTransport(HealthchecksOptions.DEFAULT))
+                     .minimumCalls(2)
+                     .openDuration(Duration.ofMillis(200))
+                     .halfOpenCalls(1)
+                     .outboxCapacity(10)
+                     .build()) {
+            server.setPingKey("ping-key");
+            String uuid = server.addCheck("404");
+            String probe = server.addCheck("probe");
+            HealthchecksOptions options = HealthchecksOptions.builder().transport(transport).build();
+            HealthchecksPingKeyClient pingKeyClient = Healthchecks.forPingKey(server.getUrl(), "ping-key", options);
+            HealthchecksClient client = pingKeyClient.forSlug("404");
+
+            server.setErrorRate(1);
+            for (int i = 0; i < 2; i++)
+                client.success().get().close();
+            assertEquals(CircuitBreaker.State.OPEN, transport.getBreakers().values().iterator().next().getState());
+
+            //The failure is kept, only the newest success is sent after it. /ping-key/404 is
+            //the success ping of the slug 404, not an exit code
+            client.exitCode(3).get().close();
+            client.success().get().close();
+            client.success().get().close();
+            assertEquals(1, transport.getOutboxSize());
+            assertEquals(1, transport.getMergedCount());
+
+            server.setErrorRate(0);
+            Thread.sleep(250);
+            Healthchecks.forUuid(server.getUrl(), probe, options).success().get().close();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (transport.getReplayedCount() < 2 && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+            assertEquals(2, transport.getReplayedCount());
+            assertEquals(0, transport.getOutboxSize());
+            assertEquals("up", server.getStatus(uuid));
+            Ping[] pings = Healthchecks.manager(server.getUrl(), "key").getPings(uuid).get();
+            assertEquals(2, pings.length);
+            //Newest first
+            assertEquals("success", pings[0].getType());
+            assertEquals("fail", pings[1].getType());
+        }
+    }
+}
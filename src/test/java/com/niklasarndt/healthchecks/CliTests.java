@@ -0,0 +1,73 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.cli.HealthchecksCli;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+public class CliTests {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private int run(String... args) {
+        out.reset();
+        err.reset();
+        return HealthchecksCli.run(args, new ByteArrayInputStream("from stdin".getBytes(StandardCharsets.UTF_8)),
+                new PrintStream(out, true), new PrintStream(err, true));
+    }
+
+    @Test
+    public void testEvents() throws IOException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("cron");
+            String url = "--url=" + server.getUrl();
+
+            assertEquals(0, run(url, "--uuid=" + uuid, "start"));
+            assertEquals(0, run(url, "--uuid=" + uuid, "--body=-", "success"));
+            assertEquals("up", server.getStatus(uuid));
+            assertEquals(0, run(url, "--uuid=" + uuid, "--quiet", "exit-code", "4"));
+            assertEquals("", out.toString());
+            assertEquals("down", server.getStatus(uuid));
+
+            server.setPingKey("ping-key");
+            assertEquals(0, run(url, "--ping-key=ping-key", "--slug=cron", "success"));
+            assertEquals("up", server.getStatus(uuid));
+            assertEquals(4, server.getPingCount());
+
+            //Unknown checks and invalid arguments
+            assertEquals(1, run(url, "--uuid=unknown", "fail"));
+            assertTrue(err.toString().contains("404"));
+            assertEquals(2, run(url, "--uuid=" + uuid, "exit-code", "256"));
+            assertEquals(2, run(url, "--slug=cron", "success"));
+            assertEquals(2, run(url, "--uuid=" + uuid, "restart"));
+            assertEquals(2, run());
+            assertEquals(4, server.getPingCount());
+        }
+    }
+
+    @Test
+    public void testRun() throws IOException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("job");
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+
+            assertEquals(0, run("--url=" + server.getUrl(), "--uuid=" + uuid, "run", "--", java, "-version"));
+            assertEquals("up", server.getStatus(uuid));
+            assertEquals(2, server.getPingCount());
+            assertTrue(out.toString().contains("version"));
+
+            //The exit code of the command is passed through
+            assertNotEquals(0, run("--url=" + server.getUrl(), "--uuid=" + uuid, "run", java, "NoSuchClass"));
+            assertEquals("down", server.getStatus(uuid));
+            assertEquals(127, run("--url=" + server.getUrl(), "--uuid=" + uuid, "run", "/no/such/command"));
+            assertEquals(6, server.getPingCount());
+        }
+    }
+}
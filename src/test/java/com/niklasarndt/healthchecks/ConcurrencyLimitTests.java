@@ -0,0 +1,119 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.ConcurrencyLimitTransport;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksClient;
+import com.niklasarndt.healthchecksio.HealthchecksManager;
+import com.niklasarndt.healthchecksio.HealthchecksOptions;
+import com.niklasarndt.healthchecksio.exception.ConcurrencyLimitException;
+import com.niklasarndt.healthchecksio.model.Check;
+import com.niklasarndt.healthchecksio.util.AimdLimit;
+import com.niklasarndt.healthchecksio.util.VegasLimit;
+import okhttp3.Response;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class ConcurrencyLimitTests {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testLimits() {
+        AimdLimit aimd = new AimdLimit(10, 1, 20, 0.5);
+        //Without load, the limit does not grow
+        aimd.onSample(10 * MS, 1, false);
+        assertEquals(10, aimd.getLimit());
+        //About one step per round trip at full load
+        for (int i = 0; i < 11; i++)
+            aimd.onSample(10 * MS, 10, false);
+        assertEquals(11, aimd.getLimit());
+        aimd.onSample(10 * MS, 10, true);
+        assertEquals(5, aimd.getLimit());
+
+        VegasLimit vegas = new VegasLimit(10, 1, 100, 1000);
+        //Constant round-trip times under load: nothing is queued, the limit grows
+        for (int i = 0; i < 10; i++)
+            vegas.onSample(10 * MS, vegas.getLimit(), false);
+        assertTrue(vegas.getLimit() > 20, vegas.toString());
+        //Doubled round-trip times: half of the requests wait in a queue, the limit shrinks
+        int limit = vegas.getLimit();
+        for (int i = 0; i < 5; i++)
+            vegas.onSample(20 * MS, vegas.getLimit(), false);
+        assertTrue(vegas.getLimit() < limit, vegas.toString());
+        limit = vegas.getLimit();
+        vegas.onSample(10 * MS, limit, true);
+        assertTrue(vegas.getLimit() < limit, vegas.toString());
+    }
+
+    @Test
+    public void testTransport() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key");
+             ConcurrencyLimitTransport transport = ConcurrencyLimitTransport.builder(
+                     Healthchecks.okHttpTransport(HealthchecksOptions.DEFAULT))
+                     .limit(new AimdLimit(2, 1, 2, 0.5))
+                     .queueCapacity(2)
+                     .build()) {
+            String uuid = server.addCheck("limited");
+            HealthchecksOptions options = HealthchecksOptions.builder().transport(transport).build();
+            HealthchecksManager manager = Healthchecks.manager(server.getUrl(), "key", options);
+            HealthchecksClient client = Healthchecks.forUuid(server.getUrl(), uuid, options);
+            server.setLatency(Duration.ofMillis(200), Duration.ZERO);
+
+            //Two calls are sent, two are queued, the fifth is rejected right away
+            List<CompletableFuture<Check[]>> reads = new ArrayList<>();
+            for (int i = 0; i < 5; i++)
+                reads.add(manager.getExistingChecks());
+            assertEquals(2, transport.getInFlightCount());
+            assertEquals(2, transport.getQueuedCount());
+            ExecutionException rejected = assertThrows(ExecutionException.class, () -> reads.get(4).get());
+            assertTrue(rejected.getCause() instanceof ConcurrencyLimitException);
+
+            //A heartbeat takes the place of the last queued read
+            CompletableFuture<Response> heartbeat = client.success();
+            assertEquals(2, transport.getRejectedCount());
+            assertThrows(ExecutionException.class, () -> reads.get(3).get());
+            try (Response response = heartbeat.get()) {
+                assertEquals(200, response.code());
+            }
+            for (int i = 0; i < 3; i++)
+                assertEquals(1, reads.get(i).get().length);
+            assertEquals(0, transport.getQueuedCount());
+            assertEquals(2, transport.getLimit());
+        }
+    }
+
+    @Test
+    public void testDeadline() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key");
+             ConcurrencyLimitTransport transport = ConcurrencyLimitTransport.builder(
+                     Healthchecks.okHttpTransport(HealthchecksOptions.DEFAULT))
+                     .limit(new AimdLimit(1, 1, 1, 0.5))
+                     .build()) {
+            server.addCheck("limited");
+            HealthchecksOptions options = HealthchecksOptions.builder().transport(transport).build();
+            HealthchecksManager manager = Healthchecks.manager(server.getUrl(), "key", options);
+            server.setLatency(Duration.ofMillis(1000), Duration.ZERO);
+
+            //The queued read fails at its deadline, not once the running one completes
+            CompletableFuture<Check[]> running = manager.getExistingChecks();
+            CompletableFuture<Check[]> queued = manager.withDeadline(Instant.now().plusMillis(100))
+                    .getExistingChecks();
+            ExecutionException expired = assertThrows(ExecutionException.class,
+                    () -> queued.get(500, TimeUnit.MILLISECONDS));
+            assertTrue(expired.getCause() instanceof InterruptedIOException);
+            assertEquals(1, transport.getExpiredCount());
+            assertEquals(0, transport.getQueuedCount());
+            assertEquals(1, running.get().length);
+        }
+    }
+}
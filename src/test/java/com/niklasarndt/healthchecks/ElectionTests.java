@@ -0,0 +1,221 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.ElectedHealthchecksClient;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.cluster.FileLeaseBackend;
+import com.niklasarndt.healthchecksio.cluster.Lease;
+import com.niklasarndt.healthchecksio.cluster.LeaseBackend;
+import com.niklasarndt.healthchecksio.cluster.SenderElection;
+import okhttp3.Response;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ElectionTests {
+
+    private static final Duration TTL = Duration.ofMinutes(3);
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Entry point of the second process in {@link #testMultipleProcesses()}.
+     */
+    public static void main(String[] args) throws IOException {
+        SenderElection election = new SenderElection(new FileLeaseBackend(Paths.get(args[0])),
+                "check", args[1], TTL);
+        System.out.println(election.isLeader() ? "leader" : "standby");
+    }
+
+    @Test
+    public void testTakeover() throws IOException {
+        MutableClock clock = new MutableClock(Instant.parse("2021-06-04T12:00:00Z"));
+        SenderElection first = new SenderElection(new FileLeaseBackend(directory, clock),
+                "check", "node-1", TTL, clock);
+        SenderElection second = new SenderElection(new FileLeaseBackend(directory, clock),
+                "check", "node-2", TTL, clock);
+
+        assertTrue(first.isLeader());
+        assertFalse(second.isLeader());
+        clock.advance(Duration.ofMinutes(2));
+        //The leader renews after half of the ttl
+        assertTrue(first.isLeader());
+        clock.advance(Duration.ofMinutes(2));
+        assertFalse(second.isLeader());
+
+        //The leader stops pinging, the standby node takes over once the lease has expired
+        clock.advance(Duration.ofMinutes(2));
+        assertTrue(second.isLeader());
+        assertFalse(first.isLeader());
+        assertEquals("node-2", first.getLease().getHolder());
+
+        //A released lease can be taken over immediately
+        second.close();
+        SenderElection third = new SenderElection(new FileLeaseBackend(directory, clock),
+                "check", "node-3", TTL, clock);
+        assertTrue(third.isLeader());
+    }
+
+    @Test
+    public void testMultipleProcesses() throws IOException, InterruptedException {
+        SenderElection local = new SenderElection(new FileLeaseBackend(directory), "check", "local", TTL);
+        assertTrue(local.isLeader());
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                ElectionTests.class.getName(), directory.toString(), "remote")
+                .redirectError(new File(directory.toFile(), "stderr.log"))
+                .start();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            assertEquals("standby", reader.readLine());
+        }
+        assertEquals(0, process.waitFor());
+    }
+
+    @Test
+    public void testClient() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("clustered");
+            FileLeaseBackend backend = new FileLeaseBackend(directory);
+
+            ElectedHealthchecksClient leader = Healthchecks.forUuid(server.getUrl(), uuid)
+                    .withElection(new SenderElection(backend, uuid, "node-1", TTL));
+            ElectedHealthchecksClient standby = Healthchecks.forUuid(server.getUrl(), uuid)
+                    .withElection(new SenderElection(backend, uuid, "node-2", TTL));
+
+            for (int i = 0; i < 3; i++) {
+                try (Response response = leader.success().get()) {
+                    assertFalse(ElectedHealthchecksClient.isStandby(response));
+                }
+                try (Response response = standby.start().get()) {
+                    assertTrue(ElectedHealthchecksClient.isStandby(response));
+                    assertEquals("node-1", response.header(ElectedHealthchecksClient.STANDBY_HEADER));
+                }
+            }
+            assertEquals("up", server.getStatus(uuid));
+            assertEquals(3, leader.getForwardedCount());
+            assertEquals(3, standby.getStandbyCount());
+            assertEquals(3, Healthchecks.manager(server.getUrl(), "key").getPings(uuid).get().length);
+        }
+    }
+
+    @Test
+    public void testStandbyFailures() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("clustered");
+            FileLeaseBackend backend = new FileLeaseBackend(directory);
+
+            ElectedHealthchecksClient leader = Healthchecks.forUuid(server.getUrl(), uuid)
+                    .withElection(new SenderElection(backend, uuid, "node-1", TTL));
+            ElectedHealthchecksClient standby = Healthchecks.forUuid(server.getUrl(), uuid)
+                    .withElection(new SenderElection(backend, uuid, "node-2", TTL));
+            leader.success().get().close();
+
+            //Only successes are left to the leader, failures of a standby node are reported
+            try (Response response = standby.exitCode(0).get()) {
+                assertTrue(ElectedHealthchecksClient.isStandby(response));
+            }
+            try (Response response = standby.fail().get()) {
+                assertFalse(ElectedHealthchecksClient.isStandby(response));
+            }
+            assertEquals("down", server.getStatus(uuid));
+            leader.success().get().close();
+            try (Response response = standby.exitCode(3).get()) {
+                assertFalse(ElectedHealthchecksClient.isStandby(response));
+            }
+            assertEquals("down", server.getStatus(uuid));
+            assertEquals(2, standby.getForwardedCount());
+            assertEquals(1, standby.getStandbyCount());
+            assertEquals(4, server.getPingCount());
+        }
+    }
+
+    @Test
+    public void testUnreachableBackend() throws IOException {
+        MutableClock clock = new MutableClock(Instant.parse("2021-06-04T12:00:00Z"));
+        FileLeaseBackend files = new FileLeaseBackend(directory, clock);
+        AtomicBoolean reachable = new AtomicBoolean(true);
+        AtomicInteger calls = new AtomicInteger();
+        LeaseBackend backend = new LeaseBackend() {
+            @Override
+            public Lease acquire(String key, String nodeId, Duration ttl) throws IOException {
+                calls.incrementAndGet();
+                if (!reachable.get())
+                    throw new IOException("Unreachable");
+                return files.acquire(key, nodeId, ttl);
+            }
+
+            @Override
+            public void release(String key, String nodeId) throws IOException {
+                files.release(key, nodeId);
+            }
+        };
+        SenderElection other = new SenderElection(files, "check", "node-1", TTL, clock);
+        SenderElection election = new SenderElection(backend, "check", "node-2", TTL, clock);
+        assertTrue(other.isLeader());
+
+        //Without the backend, this node sends the heartbeats, but doesn't retry on every ping
+        clock.advance(Duration.ofMinutes(4));
+        reachable.set(false);
+        assertTrue(election.isLeader());
+        assertTrue(election.isLeader());
+        assertEquals(1, calls.get());
+
+        //After the backoff, the backend is asked again
+        clock.advance(Duration.ofSeconds(11));
+        assertTrue(election.isLeader());
+        assertEquals(2, calls.get());
+        reachable.set(true);
+        assertTrue(election.isLeader());
+        assertEquals(2, calls.get());
+        clock.advance(Duration.ofSeconds(11));
+        assertTrue(other.isLeader());
+        assertFalse(election.isLeader());
+        assertEquals(3, calls.get());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksClient;
+import com.niklasarndt.healthchecksio.HealthchecksManager;
+import com.niklasarndt.healthchecksio.HealthchecksOptions;
+import okhttp3.Response;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ExecutorTests {
+
+    @Test
+    public void testExecutors() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("executors");
+            AtomicInteger completions = new AtomicInteger();
+            Executor counting = runnable -> {
+                completions.incrementAndGet();
+                ForkJoinPool.commonPool().execute(runnable);
+            };
+
+            HealthchecksOptions options = HealthchecksOptions.builder().completionExecutor(counting).build();
+            try (Response response = Healthchecks.forUuid(server.getUrl(), uuid, options).success().get()) {
+                assertTrue(response.isSuccessful());
+            }
+            assertEquals(1, completions.get());
+
+            HealthchecksManager manager = Healthchecks.manager(server.getUrl(), "key");
+            assertNotNull(manager.getCheck(uuid).get());
+            assertEquals(1, completions.get());
+            //Per call
+            assertEquals("executors", manager.withExecutor(counting).getCheck(uuid).get().getName());
+            assertEquals(2, completions.get());
+
+            //A rejecting executor falls back to inline completion
+            try (Response response = Healthchecks.forUuid(server.getUrl(), uuid)
+                    .withExecutor(runnable -> {
+                        throw new RejectedExecutionException();
+                    }).success().get()) {
+                assertTrue(response.isSuccessful());
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultView() throws ExecutionException, InterruptedException {
+        //A client which only implements the required methods
+        List<CompletableFuture<Response>> calls = new ArrayList<>();
+        HealthchecksClient custom = new HealthchecksClient() {
+            private CompletableFuture<Response> call() {
+                CompletableFuture<Response> call = new CompletableFuture<>();
+                calls.add(call);
+                return call;
+            }
+
+            @Override
+            public CompletableFuture<Response> start(String body) {
+                return call();
+            }
+
+            @Override
+            public CompletableFuture<Response> success(String body) {
+                return call();
+            }
+
+            @Override
+            public CompletableFuture<Response> fail(String body) {
+                return call();
+            }
+
+            @Override
+            public CompletableFuture<Response> exitCode(int code, String body) {
+                return call();
+            }
+        };
+
+        AtomicInteger completions = new AtomicInteger();
+        CompletableFuture<Response> future = custom.withExecutor(runnable -> {
+            completions.incrementAndGet();
+            ForkJoinPool.commonPool().execute(runnable);
+        }).success();
+        calls.get(0).complete(null);
+        assertNull(future.get());
+        assertEquals(1, completions.get());
+
+        //Cancelling the returned future cancels the call
+        custom.withExecutor(ForkJoinPool.commonPool()).fail().cancel(true);
+        assertTrue(calls.get(1).isCancelled());
+    }
+}
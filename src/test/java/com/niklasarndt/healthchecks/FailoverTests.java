@@ -0,0 +1,188 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.FailoverHealthchecksClient;
+import com.niklasarndt.healthchecksio.HealthchecksClient;
+import okhttp3.Response;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class FailoverTests {
+
+    @Test
+    public void testFailover() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer primary = new StandInServer("key");
+             StandInServer secondary = new StandInServer("key")) {
+            String primaryUuid = primary.addCheck("job");
+            String secondaryUuid = secondary.addCheck("job");
+            FailoverHealthchecksClient client = FailoverHealthchecksClient.builder()
+                    .endpoint(primary.getUrl(), primaryUuid)
+                    .endpoint(secondary.getUrl(), secondaryUuid)
+                    .cooldown(Duration.ofMinutes(1))
+                    .build();
+
+            //Endpoints without samples are tried in order, a failing one is skipped until its cooldown has passed
+            primary.setErrorRate(1);
+            for (int i = 0; i < 5; i++) {
+                try (Response response = client.withTimeout(Duration.ofSeconds(5)).fail().get()) {
+                    assertTrue(response.isSuccessful());
+                }
+            }
+            assertEquals("down", secondary.getStatus(secondaryUuid));
+            FailoverHealthchecksClient.Endpoint first = client.getEndpoints().get(0);
+            assertFalse(first.isAvailable());
+            assertEquals(1, first.getRequestCount());
+            assertEquals(0, primary.getPingCount());
+            assertEquals(5, secondary.getPingCount());
+
+            //All endpoints failing, the unavailable one is tried last
+            primary.setErrorRate(0);
+            secondary.setErrorRate(1);
+            try (Response response = client.success().get()) {
+                assertEquals(200, response.code());
+            }
+            assertEquals(2, first.getRequestCount());
+            primary.setErrorRate(1);
+            try (Response response = client.success().get()) {
+                assertEquals(500, response.code());
+            }
+            assertTrue(client.closeGracefully(Duration.ofSeconds(5)));
+        }
+    }
+
+    @Test
+    public void testRanking() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer slow = new StandInServer("key");
+             StandInServer fast = new StandInServer("key")) {
+            String slowUuid = slow.addCheck("job");
+            String fastUuid = fast.addCheck("job");
+            slow.setLatency(Duration.ofMillis(100), Duration.ZERO);
+
+            //An endpoint which has not been tried yet is assumed to be slower than a known one
+            FailoverHealthchecksClient client = FailoverHealthchecksClient.builder()
+                    .endpoint(slow.getUrl(), slowUuid)
+                    .endpoint(fast.getUrl(), fastUuid)
+                    .build();
+            for (int i = 0; i < 3; i++)
+                client.success().get().close();
+            assertEquals(3, slow.getPingCount());
+            assertEquals(0, fast.getPingCount());
+            assertEquals(Duration.ZERO, client.getEndpoints().get(1).getLatency());
+
+            //Once it has been sampled, the faster endpoint is preferred
+            FailoverHealthchecksClient optimistic = FailoverHealthchecksClient.builder()
+                    .endpoint(slow.getUrl(), slowUuid)
+                    .endpoint(fast.getUrl(), fastUuid)
+                    .initialLatency(Duration.ofMillis(50))
+                    .build();
+            for (int i = 0; i < 10; i++)
+                optimistic.success().get().close();
+            assertEquals(1, optimistic.getEndpoints().get(0).getRequestCount());
+            assertEquals(9, optimistic.getEndpoints().get(1).getRequestCount());
+        }
+    }
+
+    @Test
+    public void testMirror() throws IOException, ExecutionException, InterruptedException, TimeoutException {
+        try (StandInServer primary = new StandInServer("key");
+             StandInServer secondary = new StandInServer("key")) {
+            String primaryUuid = primary.addCheck("job");
+            String secondaryUuid = secondary.addCheck("job");
+            HealthchecksClient client = FailoverHealthchecksClient.builder()
+                    .endpoint(primary.getUrl(), primaryUuid)
+                    .endpoint(secondary.getUrl(), secondaryUuid)
+                    .mirror(true)
+                    .build();
+
+            client.start().get().close();
+            client.exitCode(1).get().close();
+            assertEquals(2, primary.getPingCount());
+            assertEquals(2, secondary.getPingCount());
+            assertEquals("down", primary.getStatus(primaryUuid));
+            assertEquals("down", secondary.getStatus(secondaryUuid));
+
+            //One successful endpoint is enough
+            primary.setErrorRate(1);
+            try (Response response = client.success().get()) {
+                assertEquals(200, response.code());
+            }
+            assertEquals("up", secondary.getStatus(secondaryUuid));
+
+            //The first successful response is returned without waiting for a slow endpoint
+            primary.setErrorRate(0);
+            primary.setLatency(Duration.ofSeconds(2), Duration.ZERO);
+            try (Response response = client.withTimeout(Duration.ofSeconds(5)).success().get(1, TimeUnit.SECONDS)) {
+                assertEquals(200, response.code());
+            }
+
+            //All endpoints failing
+            primary.setLatency(Duration.ZERO, Duration.ZERO);
+            primary.setErrorRate(1);
+            secondary.setErrorRate(1);
+            assertThrows(ExecutionException.class, () -> client.success().get());
+            client.close();
+        }
+    }
+
+    @Test
+    public void testThrowingEndpoint() throws IOException, ExecutionException, InterruptedException {
+        //A client which fails before returning a future
+        HealthchecksClient broken = new HealthchecksClient() {
+            @Override
+            public CompletableFuture<Response> start(String body) {
+                throw new IllegalStateException("Broken");
+            }
+
+            @Override
+            public CompletableFuture<Response> success(String body) {
+                throw new IllegalStateException("Broken");
+            }
+
+            @Override
+            public CompletableFuture<Response> fail(String body) {
+                throw new IllegalStateException("Broken");
+            }
+
+            @Override
+            public CompletableFuture<Response> exitCode(int code, String body) {
+                throw new IllegalStateException("Broken");
+            }
+        };
+
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("job");
+            FailoverHealthchecksClient client = FailoverHealthchecksClient.builder()
+                    .endpoint("broken", broken)
+                    .endpoint(server.getUrl(), uuid)
+                    .cooldown(Duration.ofMinutes(1))
+                    .build();
+            try (Response response = client.success().get()) {
+                assertEquals(200, response.code());
+            }
+            assertFalse(client.getEndpoints().get(0).isAvailable());
+
+            HealthchecksClient mirror = FailoverHealthchecksClient.builder()
+                    .endpoint("broken", broken)
+                    .endpoint(server.getUrl(), uuid)
+                    .mirror(true)
+                    .build();
+            try (Response response = mirror.fail().get()) {
+                assertEquals(200, response.code());
+            }
+            assertEquals("down", server.getStatus(uuid));
+
+            HealthchecksClient allBroken = FailoverHealthchecksClient.builder()
+                    .endpoint("broken", broken)
+                    .mirror(true)
+                    .build();
+            ExecutionException e = assertThrows(ExecutionException.class, () -> allBroken.start().get());
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksClient;
+import com.niklasarndt.healthchecksio.HealthchecksOptions;
+import com.niklasarndt.healthchecksio.HealthchecksTransport;
+import com.niklasarndt.healthchecksio.HedgingTransport;
+import okhttp3.Request;
+import okhttp3.Response;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+public class HedgingTests {
+
+    @Test
+    public void testHedging() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key");
+             StallingTransport stalling = new StallingTransport(
+                     Healthchecks.okHttpTransport(HealthchecksOptions.DEFAULT));
+             HedgingTransport transport = HedgingTransport.builder(stalling)
+                     .initialDelay(Duration.ofMillis(50))
+                     .minimumDelay(Duration.ofMillis(50))
+                     .budget(0)
+                     .build()) {
+            String uuid = server.addCheck("hedging");
+            HealthchecksOptions options = HealthchecksOptions.builder().transport(transport).build();
+            HealthchecksClient client = Healthchecks.forUuid(server.getUrl(), uuid, options);
+
+            //The first call stalls, the hedge wins and the stalled call is cancelled
+            stalling.stallNext = true;
+            try (Response response = client.success().get()) {
+                assertEquals(200, response.code());
+            }
+            assertEquals(1, transport.getHedgedCount());
+            assertEquals(1, transport.getHedgeWinCount());
+            CompletableFuture<Response> stalled = stalling.stalled.get(0);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!stalled.isDone() && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+            assertTrue(stalled.isCancelled());
+            assertEquals(1, server.getPingCount());
+            assertEquals("up", server.getStatus(uuid));
+
+            //Fast calls are not hedged
+            for (int i = 0; i < 5; i++)
+                client.success().get().close();
+            assertEquals(1, transport.getHedgedCount());
+
+            //Without a budget, the saved hedges run out
+            server.setLatency(Duration.ofMillis(100), Duration.ZERO);
+            for (int i = 0; i < 10; i++)
+                client.success().get().close();
+            assertEquals(10, transport.getHedgedCount());
+            assertEquals(1, transport.getBudgetExhaustedCount());
+        }
+    }
+
+    @Test
+    public void testNoHedgedStart() throws IOException, InterruptedException {
+        try (StandInServer server = new StandInServer("key");
+             StallingTransport stalling = new StallingTransport(
+                     Healthchecks.okHttpTransport(HealthchecksOptions.DEFAULT));
+             HedgingTransport transport = HedgingTransport.builder(stalling)
+                     .initialDelay(Duration.ofMillis(10))
+                     .minimumDelay(Duration.ofMillis(10))
+                     .build()) {
+            String uuid = server.addCheck("start");
+            HealthchecksOptions options = HealthchecksOptions.builder().transport(transport).build();
+            HealthchecksClient client = Healthchecks.forUuid(server.getUrl(), uuid, options);
+
+            //A second start would restart the timer of the check, so a slow start is not hedged
+            stalling.stallNext = true;
+            CompletableFuture<Response> start = client.start();
+            Thread.sleep(200);
+            assertFalse(start.isDone());
+            assertEquals(0, transport.getHedgedCount());
+            assertEquals(0, server.getPingCount());
+            start.cancel(false);
+            assertTrue(stalling.stalled.get(0).isCancelled());
+
+            stalling.stallNext = true;
+            CompletableFuture<Response> fail = client.fail();
+            Thread.sleep(200);
+            assertFalse(fail.isDone());
+            assertEquals(0, transport.getHedgedCount());
+            fail.cancel(false);
+        }
+    }
+
+    @Test
+    public void testDelay() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key");
+             HedgingTransport transport = HedgingTransport.builder(
+                     Healthchecks.okHttpTransport(HealthchecksOptions.DEFAULT))
+                     .percentile(0.5)
+                     .minimumDelay(Duration.ofMillis(1))
+                     .build()) {
+            String uuid = server.addCheck("delay");
+            HealthchecksOptions options = HealthchecksOptions.builder().transport(transport).build();
+            HealthchecksClient client = Healthchecks.forUuid(server.getUrl(), uuid, options);
+            assertEquals(Duration.ofSeconds(1), transport.getHedgeDelay());
+
+            server.setLatency(Duration.ofMillis(20), Duration.ZERO);
+            for (int i = 0; i < 16; i++)
+                client.success().get().close();
+            Duration delay = transport.getHedgeDelay();
+            assertTrue(delay.toMillis() >= 20 && delay.toMillis() < 1000, delay.toString());
+            assertEquals(0, transport.getHedgedCount());
+        }
+    }
+
+    /**
+     * A transport which never completes the next call (until it is cancelled).
+     */
+    private static class StallingTransport implements HealthchecksTransport {
+
+        private final HealthchecksTransport delegate;
+        private final List<CompletableFuture<Response>> stalled = new ArrayList<>();
+        private volatile boolean stallNext;
+
+        private StallingTransport(HealthchecksTransport delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public CompletableFuture<Response> send(Request request, Duration timeout, Instant deadline,
+                                                Executor executor) {
+            if (!stallNext)
+                return delegate.send(request, timeout, deadline, executor);
+            stallNext = false;
+            CompletableFuture<Response> future = new CompletableFuture<>();
+            stalled.add(future);
+            return future;
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
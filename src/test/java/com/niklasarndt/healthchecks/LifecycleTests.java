@@ -0,0 +1,110 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksClient;
+import com.niklasarndt.healthchecksio.HealthchecksManager;
+import com.niklasarndt.healthchecksio.ShutdownHookClient;
+import okhttp3.Response;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class LifecycleTests {
+
+    /**
+     * Entry point of the batch job in {@link #testShutdownHook()}.
+     */
+    public static void main(String[] args) {
+        ShutdownHookClient client = Healthchecks.forUuid(args[0], args[1])
+                .withShutdownHook(Duration.ofSeconds(10));
+        client.start();
+        client.setExitCode(3);
+        //Exits without waiting for the start ping and without reporting the exit code
+        System.exit(3);
+    }
+
+    @Test
+    public void testClose() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("closed");
+            HealthchecksClient client = Healthchecks.forUuid(server.getUrl(), uuid);
+            HealthchecksManager manager = Healthchecks.manager(server.getUrl(), "key");
+            assertEquals(1, manager.getExistingChecks().get().length);
+
+            server.setLatency(Duration.ofMillis(200), Duration.ZERO);
+            CompletableFuture<Response> pending = client.success();
+            //Pending heartbeats are flushed
+            assertTrue(client.withTimeout(Duration.ofSeconds(5)).closeGracefully(Duration.ofSeconds(5)));
+            assertTrue(pending.get().isSuccessful());
+            pending.get().close();
+            ExecutionException closed = assertThrows(ExecutionException.class, () -> client.success().get());
+            assertTrue(closed.getCause() instanceof IllegalStateException);
+
+            //Calls which exceed the timeout are cancelled
+            CompletableFuture<?> slow = manager.getExistingChecks();
+            assertFalse(manager.closeGracefully(Duration.ofMillis(20)));
+            assertTrue(slow.isCompletedExceptionally());
+        }
+    }
+
+    @Test
+    public void testShutdownHook() throws IOException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("batch");
+            server.setLatency(Duration.ofMillis(100), Duration.ZERO);
+
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    LifecycleTests.class.getName(), server.getUrl(), uuid)
+                    .inheritIO()
+                    .start();
+            assertEquals(3, process.waitFor());
+
+            //The start ping has been flushed and the exit code has been delivered
+            assertEquals(2, server.getPingCount());
+            assertEquals("down", server.getStatus(uuid));
+        }
+    }
+
+    @Test
+    public void testMinimalImplementation() {
+        //Implementations written against 1.0 still compile and can be closed
+        HealthchecksClient client = new HealthchecksClient() {
+            @Override
+            public CompletableFuture<Response> start(String body) {
+                return new CompletableFuture<>();
+            }
+
+            @Override
+            public CompletableFuture<Response> success(String body) {
+                return new CompletableFuture<>();
+            }
+
+            @Override
+            public CompletableFuture<Response> fail(String body) {
+                return new CompletableFuture<>();
+            }
+
+            @Override
+            public CompletableFuture<Response> exitCode(int code, String body) {
+                return new CompletableFuture<>();
+            }
+        };
+        assertTrue(client.closeGracefully(Duration.ZERO));
+        client.close();
+        assertNotNull(client.withTimeout(Duration.ofSeconds(1)));
+
+        ShutdownHookClient hooked = client.withShutdownHook(Duration.ofSeconds(1));
+        assertThrows(IllegalArgumentException.class, () -> hooked.exitCode(256));
+        assertTrue(hooked.isArmed());
+        hooked.exitCode(0);
+        assertFalse(hooked.isArmed());
+        hooked.close();
+        assertFalse(hooked.unregister());
+    }
+}
@@ -0,0 +1,107 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksManagerPool;
+import com.niklasarndt.healthchecksio.HealthchecksOptions;
+import com.niklasarndt.healthchecksio.model.Check;
+import com.niklasarndt.healthchecksio.model.Integration;
+import com.niklasarndt.healthchecksio.util.RateLimiter;
+import okhttp3.OkHttpClient;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class ManagerPoolTests {
+
+    @Test
+    public void testManagerPool() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key", "read-only-key")) {
+            server.addChannel("4ec5a071-2d08-4baa-898a-eb4eb3cd6941", "Private Email", "email");
+            String uuid = server.addCheck("pooled");
+            Healthchecks.forUuid(server.getUrl(), uuid).fail().get().close();
+
+            try (HealthchecksManagerPool pool = HealthchecksManagerPool.builder()
+                    .hostUrl(server.getUrl())
+                    .requestsPerSecondPerKey(10)
+                    .build()) {
+                assertSame(pool.forKey("key"), pool.register("write", "key"));
+                pool.register("read", "read-only-key");
+
+                //The first request of a key is sent right away, the others wait for their permits
+                List<CompletableFuture<Integration[]>> delayed = new ArrayList<>();
+                for (int i = 0; i < 5; i++)
+                    delayed.add(pool.get("write").getChannels());
+                assertEquals(4, pool.getDelayedCount());
+                //A permit after the deadline is not reserved, the request fails right away
+                CompletableFuture<Integration[]> late = pool.get("write")
+                        .withDeadline(Instant.now().plusMillis(200)).getChannels();
+                assertTrue(late.isCompletedExceptionally());
+                ExecutionException e = assertThrows(ExecutionException.class, late::get);
+                assertTrue(e.getCause() instanceof InterruptedIOException);
+                for (CompletableFuture<Integration[]> future : delayed)
+                    assertEquals(1, future.get().length);
+
+                //Cross-project queries
+                Map<String, Check[]> down = pool.getDownChecks().get();
+                assertEquals(2, down.size());
+                assertTrue(down.get("write").length >= 1);
+                assertTrue(down.get("read")[0].isReadOnly());
+            }
+        }
+    }
+
+    @Test
+    public void testRejectedPermits() throws IOException, ExecutionException, InterruptedException {
+        RateLimiter limiter = new RateLimiter(1, 1);
+        assertEquals(0, limiter.reserve());
+        limiter.release();
+        assertEquals(0, limiter.reserve());
+
+        try (StandInServer server = new StandInServer("key", "other-key");
+             HealthchecksManagerPool pool = HealthchecksManagerPool.builder()
+                     .hostUrl(server.getUrl())
+                     .requestsPerSecondPerKey(1)
+                     .globalRequestsPerSecond(1)
+                     .build()) {
+            pool.register("first", "key");
+            pool.register("second", "other-key");
+            pool.get("second").getExistingChecks().get();
+
+            //The global limit rejects the call, so its per-key permit is released again
+            CompletableFuture<Check[]> rejected = pool.get("first")
+                    .withDeadline(Instant.now().plusMillis(200)).getExistingChecks();
+            assertTrue(rejected.isCompletedExceptionally());
+            //Otherwise, this call would have to wait a second for its per-key permit first
+            //and would then miss its deadline as well
+            assertEquals(0, pool.get("first").withDeadline(Instant.now().plusMillis(1500))
+                    .getExistingChecks().get().length);
+        }
+    }
+
+    @Test
+    public void testSharedClient() throws IOException, ExecutionException, InterruptedException {
+        OkHttpClient shared = new OkHttpClient();
+        try (StandInServer server = new StandInServer("key")) {
+            HealthchecksManagerPool pool = HealthchecksManagerPool.builder()
+                    .hostUrl(server.getUrl())
+                    .options(HealthchecksOptions.builder().httpClient(shared).build())
+                    .build();
+            pool.register("first", "key");
+            pool.get("first").getChannels().get();
+            assertEquals(1, shared.connectionPool().idleConnectionCount());
+
+            //The connections of the user's client are left alone
+            pool.close();
+            assertEquals(1, shared.connectionPool().idleConnectionCount());
+            shared.connectionPool().evictAll();
+        }
+    }
+}
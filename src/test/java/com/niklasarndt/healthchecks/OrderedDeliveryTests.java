@@ -0,0 +1,69 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksClient;
+import com.niklasarndt.healthchecksio.HeartbeatLanes;
+import com.niklasarndt.healthchecksio.model.Ping;
+import okhttp3.Response;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+public class OrderedDeliveryTests {
+
+    @Test
+    public void testOrderedDelivery() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("ordered");
+            HeartbeatLanes lanes = new HeartbeatLanes(8, 32);
+            HealthchecksClient client = lanes.ordered(Healthchecks.forUuid(server.getUrl(), uuid), uuid);
+
+            server.setLatency(Duration.ZERO, Duration.ofMillis(20));
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[20];
+            for (int i = 0; i < futures.length; i += 2) {
+                futures[i] = client.start();
+                futures[i + 1] = client.success();
+            }
+            CompletableFuture.allOf(futures).get();
+            assertEquals("up", server.getStatus(uuid));
+
+            Ping[] pings = Healthchecks.manager(server.getUrl(), "key").getPings(uuid).get();
+            for (int i = 0; i < pings.length; i++)
+                assertEquals(i % 2 == 0 ? "success" : "start", pings[i].getType());
+
+            HeartbeatLanes single = new HeartbeatLanes(1, 1);
+            CompletableFuture<Response> pending = single.submit(uuid, CompletableFuture::new);
+            ExecutionException rejected = assertThrows(ExecutionException.class,
+                    () -> single.submit(uuid, () -> client.success()).get());
+            assertTrue(rejected.getCause() instanceof RejectedExecutionException);
+            pending.cancel(true);
+            assertEquals(0, single.getPendingCount());
+        }
+    }
+
+    @Test
+    public void testCancelQueued() throws ExecutionException, InterruptedException {
+        HeartbeatLanes lanes = new HeartbeatLanes(1, 2);
+        CompletableFuture<Response> running = new CompletableFuture<>();
+        lanes.submit("check", () -> running);
+        CompletableFuture<Response> queued = lanes.submit("check", () -> {
+            fail("A cancelled call must not be started");
+            return null;
+        });
+        assertEquals(2, lanes.getPendingCount());
+
+        //Cancelling the queued call frees its place in the lane
+        queued.cancel(true);
+        assertEquals(1, lanes.getPendingCount());
+        CompletableFuture<Response> next = lanes.submit("check", () -> CompletableFuture.completedFuture(null));
+        assertFalse(next.isDone());
+        running.complete(null);
+        assertNull(next.get());
+        assertEquals(0, lanes.getPendingCount());
+    }
+}
@@ -0,0 +1,44 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksOptions;
+import com.niklasarndt.healthchecksio.HealthchecksPingKeyClient;
+import okhttp3.Response;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+public class PingKeyTests {
+
+    @Test
+    public void testPingKey() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            server.setPingKey("standin-ping-key");
+            String uuid = server.addCheck("Nightly Backup");
+            HealthchecksPingKeyClient client = Healthchecks.forPingKey(server.getUrl(),
+                    "standin-ping-key", HealthchecksOptions.DEFAULT);
+
+            try (Response response = client.start("nightly-backup").get()) {
+                assertEquals(200, response.code());
+            }
+            assertEquals("started", server.getStatus(uuid));
+            try (Response response = client.forSlug("nightly-backup").exitCode(0).get()) {
+                assertEquals(200, response.code());
+            }
+            assertEquals("up", server.getStatus(uuid));
+
+            try (Response response = client.fail("created-on-demand").get()) {
+                assertEquals(404, response.code());
+            }
+            try (Response response = client.withAutoCreate().fail("created-on-demand", "log").get()) {
+                assertEquals(201, response.code());
+            }
+            assertEquals("down", server.getStatus(server.getUuidBySlug("created-on-demand")));
+
+            assertThrows(IllegalArgumentException.class, () -> client.success("Not A Slug"));
+            assertThrows(IllegalArgumentException.class, () -> client.exitCode("nightly-backup", 256));
+        }
+    }
+}
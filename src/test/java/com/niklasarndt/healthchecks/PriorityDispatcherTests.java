@@ -0,0 +1,151 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksOptions;
+import com.niklasarndt.healthchecksio.PriorityDispatcher;
+import com.niklasarndt.healthchecksio.RequestPriority;
+import com.niklasarndt.healthchecksio.exception.ConcurrencyLimitException;
+import okhttp3.Response;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class PriorityDispatcherTests {
+
+    private final List<String> started = new ArrayList<>();
+    private final List<CompletableFuture<Response>> calls = new ArrayList<>();
+
+    private CompletableFuture<Response> submit(PriorityDispatcher dispatcher, RequestPriority priority,
+                                               String name) {
+        return dispatcher.dispatch(priority, () -> {
+            started.add(name);
+            CompletableFuture<Response> call = new CompletableFuture<>();
+            calls.add(call);
+            return call;
+        });
+    }
+
+    @Test
+    public void testPriorities() {
+        PriorityDispatcher dispatcher = PriorityDispatcher.builder()
+                .maxRequests(1)
+                .maxWait(Duration.ofHours(1))
+                .build();
+
+        submit(dispatcher, RequestPriority.READ, "read-1");
+        submit(dispatcher, RequestPriority.READ, "read-2");
+        submit(dispatcher, RequestPriority.WRITE, "write");
+        submit(dispatcher, RequestPriority.HEARTBEAT, "success");
+        //Alerts have their own budget and never wait for the shared limit
+        submit(dispatcher, RequestPriority.ALERT, "fail");
+        assertEquals(1, dispatcher.getQueuedCount(RequestPriority.READ));
+        assertEquals(1, dispatcher.getRunningCount(RequestPriority.ALERT));
+
+        for (int i = 0; i < 4; i++)
+            calls.get(i).complete(null);
+        assertEquals(Arrays.asList("read-1", "fail", "success", "write", "read-2"), started);
+        assertEquals(0, dispatcher.getRunningCount(RequestPriority.ALERT));
+    }
+
+    @Test
+    public void testStarvationAndCancellation() {
+        PriorityDispatcher dispatcher = PriorityDispatcher.builder()
+                .maxRequests(1)
+                .maxWait(Duration.ZERO)
+                .build();
+
+        submit(dispatcher, RequestPriority.HEARTBEAT, "success-1");
+        submit(dispatcher, RequestPriority.READ, "read");
+        CompletableFuture<Response> cancelled = submit(dispatcher, RequestPriority.WRITE, "write");
+        submit(dispatcher, RequestPriority.HEARTBEAT, "success-2");
+        cancelled.cancel(true);
+
+        //Every request waited longer than maxWait, so the oldest one goes first
+        calls.get(0).complete(null);
+        calls.get(1).complete(null);
+        assertEquals(Arrays.asList("success-1", "read", "success-2"), started);
+    }
+
+    @Test
+    public void testDefaultBudgets() {
+        PriorityDispatcher dispatcher = PriorityDispatcher.builder().build();
+
+        //A burst of heartbeats leaves room for the Management API
+        for (int i = 0; i < 16; i++)
+            submit(dispatcher, RequestPriority.HEARTBEAT, "success-" + i);
+        assertEquals(12, dispatcher.getRunningCount(RequestPriority.HEARTBEAT));
+        assertEquals(4, dispatcher.getQueuedCount(RequestPriority.HEARTBEAT));
+        submit(dispatcher, RequestPriority.READ, "read");
+        assertEquals(1, dispatcher.getRunningCount(RequestPriority.READ));
+    }
+
+    @Test
+    public void testDeadline() throws InterruptedException {
+        PriorityDispatcher dispatcher = PriorityDispatcher.builder()
+                .maxRequests(1)
+                .build();
+
+        submit(dispatcher, RequestPriority.READ, "read-1");
+        CompletableFuture<Response> expired = dispatcher.dispatch(RequestPriority.READ,
+                Instant.now().plusMillis(100), () -> {
+                    fail("An expired request must not be started");
+                    return null;
+                });
+        assertEquals(1, dispatcher.getQueuedCount(RequestPriority.READ));
+
+        //The request fails at its deadline, without waiting for the running one
+        ExecutionException e = assertThrows(ExecutionException.class, () -> expired.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof InterruptedIOException);
+        assertEquals(0, dispatcher.getQueuedCount(RequestPriority.READ));
+        assertEquals(1, dispatcher.getExpiredCount());
+
+        calls.get(0).complete(null);
+        assertEquals(Collections.singletonList("read-1"), started);
+    }
+
+    @Test
+    public void testQueueCapacity() {
+        PriorityDispatcher dispatcher = PriorityDispatcher.builder()
+                .maxRequests(1)
+                .queueCapacity(0)
+                .build();
+
+        //A request with free budget is started, even if nothing may be queued
+        CompletableFuture<Response> read = submit(dispatcher, RequestPriority.READ, "read-1");
+        assertFalse(read.isDone());
+        assertEquals(1, dispatcher.getRunningCount(RequestPriority.READ));
+        CompletableFuture<Response> rejected = submit(dispatcher, RequestPriority.READ, "read-2");
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(e.getCause() instanceof ConcurrencyLimitException);
+        //Alerts have their own budget, so they don't need a queue either
+        submit(dispatcher, RequestPriority.ALERT, "fail");
+        assertEquals(Arrays.asList("read-1", "fail"), started);
+        assertEquals(1, dispatcher.getRejectedCount());
+    }
+
+    @Test
+    public void testClientAndManager() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("prioritized");
+            HealthchecksOptions options = HealthchecksOptions.builder()
+                    .priorityDispatcher(PriorityDispatcher.builder().build())
+                    .build();
+
+            try (Response response = Healthchecks.forUuid(server.getUrl(), uuid, options).fail().get()) {
+                assertTrue(response.isSuccessful());
+            }
+            assertEquals(1, Healthchecks.manager(server.getUrl(), "key", options).getExistingChecks().get().length);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksClient;
+import com.niklasarndt.healthchecksio.relay.HeartbeatRelay;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+
+public class RelayTests {
+
+    @Test
+    public void testRelay() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("relayed");
+
+            try (HeartbeatRelay relay = HeartbeatRelay.builder()
+                    .port(0)
+                    .upstream(server.getUrl())
+                    .flushInterval(100)
+                    .build()) {
+                HealthchecksClient client = Healthchecks.forRelay(relay.getUrl(), uuid);
+
+                for (int i = 0; i < 20; i++)
+                    client.success().get().close();
+                while (relay.getForwardedCount() + relay.getCoalescedCount() < 20)
+                    Thread.sleep(10);
+                assertEquals("up", server.getStatus(uuid));
+
+                try (Response response = client.fail().get()) {
+                    assertTrue(response.isSuccessful());
+                }
+                //Paths which are not a heartbeat are rejected, only UUIDs are relayed
+                OkHttpClient http = new OkHttpClient();
+                for (String path : new String[]{uuid + "/unknown/start", "api/v1/checks", "my-slug/fail"}) {
+                    try (Response response = http.newCall(new Request.Builder()
+                            .url(relay.getUrl() + path).build()).execute()) {
+                        assertEquals(400, response.code());
+                    }
+                }
+
+                while (relay.getForwardedCount() + relay.getCoalescedCount() < 21)
+                    Thread.sleep(10);
+                assertEquals("down", server.getStatus(uuid));
+                assertEquals(21, relay.getForwardedCount() + relay.getCoalescedCount());
+            }
+        }
+    }
+
+    @Test
+    public void testBackpressure() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("slow");
+            server.setLatency(Duration.ofMillis(300), Duration.ZERO);
+
+            try (HeartbeatRelay relay = HeartbeatRelay.builder()
+                    .port(0)
+                    .upstream(server.getUrl())
+                    .connections(1)
+                    .queueCapacity(2)
+                    .build()) {
+                HealthchecksClient client = Healthchecks.forRelay(relay.getUrl(), uuid);
+
+                //The start stays queued while it is being forwarded, so the queue is full after the fail
+                try (Response response = client.start().get()) {
+                    assertEquals(200, response.code());
+                }
+                try (Response response = client.fail().get()) {
+                    assertEquals(200, response.code());
+                }
+                try (Response response = client.success("rejected").get()) {
+                    assertEquals(503, response.code());
+                }
+                assertEquals(2, relay.getQueueSize());
+
+                //The heartbeats of a check are forwarded in order
+                while (relay.getQueueSize() > 0)
+                    Thread.sleep(10);
+                assertEquals(2, relay.getForwardedCount());
+                assertEquals(2, server.getPingCount());
+                assertEquals("down", server.getStatus(uuid));
+            }
+        }
+    }
+
+    @Test
+    public void testClose() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("closed");
+            server.setLatency(Duration.ofMillis(200), Duration.ZERO);
+
+            HeartbeatRelay relay = HeartbeatRelay.builder()
+                    .port(0)
+                    .upstream(server.getUrl())
+                    .build();
+            HealthchecksClient client = Healthchecks.forRelay(relay.getUrl(), uuid);
+            client.start().get().close();
+            client.fail().get().close();
+
+            //Closing forwards the queued heartbeats before it returns
+            relay.close();
+            assertEquals(0, relay.getQueueSize());
+            assertEquals(2, relay.getForwardedCount());
+            assertEquals("down", server.getStatus(uuid));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecksio.model.CheckSnapshot;
+import com.niklasarndt.healthchecksio.schedule.CheckDeadline;
+import com.niklasarndt.healthchecksio.schedule.CheckSchedule;
+import com.niklasarndt.healthchecksio.schedule.CronExpression;
+import com.niklasarndt.healthchecksio.schedule.DeadlineIndex;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class ScheduleTests {
+
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+    @Test
+    public void testCronExpression() {
+        CronExpression weekdays = CronExpression.parse("30 3 * * mon-fri");
+        //Friday, 2021-06-04 12:00 UTC -> Monday 03:30
+        assertEquals(Instant.parse("2021-06-07T03:30:00Z"),
+                weekdays.next(Instant.parse("2021-06-04T12:00:00Z"), ZoneOffset.UTC));
+
+        CronExpression quarter = CronExpression.parse("*/15 * * * *");
+        assertEquals(Instant.parse("2021-06-04T12:15:00Z"),
+                quarter.next(Instant.parse("2021-06-04T12:00:00Z"), ZoneOffset.UTC));
+
+        //Day of month OR day of week if both are restricted
+        CronExpression either = CronExpression.parse("0 0 13 * 5");
+        assertEquals(Instant.parse("2021-06-11T00:00:00Z"),
+                either.next(Instant.parse("2021-06-08T00:00:00Z"), ZoneOffset.UTC));
+
+        assertEquals(CronExpression.parse("0 0 * * 0"), CronExpression.parse("@weekly"));
+        assertEquals(CronExpression.parse("0 0 * * 7"), CronExpression.parse("0 0 * * sun"));
+        assertNull(CronExpression.parse("0 0 30 2 *").next(Instant.now(), ZoneOffset.UTC));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("60 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("* * *"));
+    }
+
+    @Test
+    public void testTimeZones() {
+        CronExpression daily = CronExpression.parse("30 2 * * *");
+        //02:30 does not exist in Berlin on 2021-03-28 (DST gap), it is shifted to 03:30 CEST
+        assertEquals(Instant.parse("2021-03-28T01:30:00Z"),
+                daily.next(Instant.parse("2021-03-27T12:00:00Z"), BERLIN));
+        assertEquals(Instant.parse("2021-03-29T00:30:00Z"),
+                daily.next(Instant.parse("2021-03-28T12:00:00Z"), BERLIN));
+
+        CheckSnapshot check = CheckSnapshot.builder()
+                .schedule("0 8 * * *")
+                .timeZone("Europe/Berlin")
+                .graceTime(600)
+                .build();
+        CheckSchedule schedule = CheckSchedule.of(check);
+        assertTrue(schedule.isCron());
+        assertEquals(Instant.parse("2021-06-05T06:10:00Z"),
+                schedule.getGraceDeadline(Instant.parse("2021-06-04T07:00:00Z")));
+
+        CheckSchedule period = CheckSchedule.of(check.withSchedule(null).withTimeout(3600));
+        assertEquals(Instant.parse("2021-06-04T08:10:00Z"),
+                period.getGraceDeadline(Instant.parse("2021-06-04T07:00:00Z")));
+    }
+
+    @Test
+    public void testDeadlineIndex() throws InterruptedException {
+        Instant now = Instant.parse("2021-06-04T12:00:00Z");
+        List<CheckDeadline> fired = new CopyOnWriteArrayList<>();
+
+        try (DeadlineIndex index = new DeadlineIndex(Duration.ofMinutes(5), null,
+                Clock.fixed(now, ZoneOffset.UTC))) {
+            index.addListener(fired::add);
+
+            CheckSnapshot hourly = CheckSnapshot.builder()
+                    .readOnlyKey("hourly")
+                    .status("up")
+                    .timeout(3600)
+                    .graceTime(300)
+                    .build();
+            //Due in 3 minutes, i.e. within the warning
+            index.track(hourly.withLastPing(now.minus(Duration.ofMinutes(62))));
+            //Due in an hour
+            index.track(hourly.withReadOnlyKey("fresh").withLastPing(now));
+            //New checks have no deadline
+            assertNull(index.track(hourly.withReadOnlyKey("new").withStatus("new").withLastPing(now)));
+
+            for (int i = 0; i < 100 && fired.isEmpty(); i++)
+                Thread.sleep(10);
+            assertEquals(1, fired.size());
+            assertEquals("hourly", fired.get(0).getKey());
+            assertEquals(1, index.size());
+            assertEquals("fresh", index.peek().getKey());
+
+            //A ping moves the deadline and tracks the check again
+            CheckDeadline moved = index.ping("hourly", now);
+            assertEquals(now.plus(Duration.ofMinutes(65)), moved.getGraceDeadline());
+            assertEquals(2, index.size());
+            assertTrue(index.fireDue().isEmpty());
+
+            index.remove("fresh");
+            assertEquals("hourly", index.peek().getKey());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksClient;
+import com.niklasarndt.healthchecksio.HealthchecksManager;
+import com.niklasarndt.healthchecksio.exception.UnauthorizedException;
+import com.niklasarndt.healthchecksio.model.Check;
+import com.niklasarndt.healthchecksio.model.Integration;
+import com.niklasarndt.healthchecksio.model.Ping;
+import com.niklasarndt.healthchecksio.model.StatusFlip;
+import okhttp3.Response;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+public class StandInServerTests {
+
+    private static final String API_KEY = "standin-key";
+    private static final String READ_ONLY_KEY = "standin-read-only";
+
+    private StandInServer server;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        //A new server per test, so no test sees the checks or fault settings of another one
+        server = new StandInServer(API_KEY, READ_ONLY_KEY);
+        server.addChannel("4ec5a071-2d08-4baa-898a-eb4eb3cd6941", "Private Email", "email");
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void testClient() throws ExecutionException, InterruptedException {
+        String uuid = server.addCheck("client");
+        HealthchecksClient client = Healthchecks.forUuid(server.getUrl(), uuid);
+
+        try (Response response = client.start().get()) {
+            assertTrue(response.isSuccessful());
+        }
+        assertEquals("started", server.getStatus(uuid));
+
+        try (Response response = client.success("done").get()) {
+            assertTrue(response.isSuccessful());
+        }
+        assertEquals("up", server.getStatus(uuid));
+
+        try (Response response = client.exitCode(3).get()) {
+            assertTrue(response.isSuccessful());
+        }
+        assertEquals("down", server.getStatus(uuid));
+
+        try (Response response = Healthchecks.forUuid(server.getUrl(), "unknown").fail().get()) {
+            assertEquals(404, response.code());
+        }
+    }
+
+    @Test
+    public void testManager() throws ExecutionException, InterruptedException {
+        HealthchecksManager manager = Healthchecks.manager(server.getUrl(), API_KEY);
+
+        Check template = new Check();
+        template.setName("manager");
+        template.setTags("standin test");
+        Check created = manager.createCheck(template).get();
+        assertEquals("manager", created.getName());
+        assertNotNull(created.getUuid());
+
+        Healthchecks.forCheck(created).success().get().close();
+
+        Check fetched = manager.getCheck(created.getUuid()).get();
+        assertEquals(1, fetched.getPings());
+        assertEquals("up", fetched.getStatus());
+        assertEquals(fetched, manager.getCheckByName("manager").get());
+
+        fetched.setDescription("updated");
+        assertEquals("updated", manager.updateCheck(fetched).get().getDescription());
+
+        Check[] tagged = manager.getExistingChecks("standin").get();
+        assertEquals(1, tagged.length);
+
+        Ping[] pings = manager.getPings(created).get();
+        assertEquals(1, pings.length);
+        assertEquals("success", pings[0].getType());
+
+        StatusFlip[] flips = manager.getFlips(created).get();
+        assertEquals(1, flips.length);
+        assertTrue(flips[0].isUp());
+
+        Integration[] channels = manager.getChannels().get();
+        assertEquals(1, channels.length);
+        assertEquals("email", channels[0].getKind());
+
+        assertEquals("paused", manager.pauseCheck(created).get().getStatus());
+        manager.deleteCheck(created).get();
+        assertEquals(0, manager.getExistingChecks("standin").get().length);
+    }
+
+    @Test
+    public void testReadOnly() throws ExecutionException, InterruptedException {
+        server.addCheck("read-only");
+        HealthchecksManager manager = Healthchecks.manager(server.getUrl(), READ_ONLY_KEY);
+
+        Check check = manager.getCheckByName("read-only").get();
+        assertTrue(check.isReadOnly());
+        assertEquals(check, manager.getCheck(check).get());
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> manager.getChannels().get());
+        assertTrue(e.getCause() instanceof UnauthorizedException);
+    }
+
+    @Test
+    public void testFaultInjection() throws ExecutionException, InterruptedException {
+        String uuid = server.addCheck("faults");
+        HealthchecksClient client = Healthchecks.forUuid(server.getUrl(), uuid);
+
+        server.setErrorRate(1);
+        try (Response response = client.success().get()) {
+            assertEquals(500, response.code());
+        }
+        assertEquals(1, server.getInjectedErrorCount());
+
+        server.setErrorRate(0);
+        server.setRequestsPerSecond(1);
+        int throttled = 0;
+        for (int i = 0; i < 5; i++) {
+            try (Response response = client.success().get()) {
+                if (response.code() == 429)
+                    throttled++;
+            }
+        }
+        assertTrue(throttled > 0);
+        assertEquals(throttled, server.getThrottledCount());
+    }
+}
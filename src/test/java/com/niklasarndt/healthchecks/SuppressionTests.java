@@ -0,0 +1,102 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.SuppressingHealthchecksClient;
+import okhttp3.Response;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class SuppressionTests {
+
+    @Test
+    public void testSuppression() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("suppressed");
+            SuppressingHealthchecksClient client = Healthchecks.forUuid(server.getUrl(), uuid)
+                    .withSuppression(Duration.ofHours(1));
+
+            for (int i = 0; i < 50; i++) {
+                try (Response response = client.success().get()) {
+                    assertTrue(response.isSuccessful());
+                    assertEquals(i > 0, SuppressingHealthchecksClient.isSuppressed(response));
+                }
+            }
+            assertEquals(1, server.getPingCount());
+            assertEquals(49, client.getSuppressedCount());
+
+            //Other events pass through, and the next success is sent again
+            client.fail().get().close();
+            assertEquals("down", server.getStatus(uuid));
+            client.success().get().close();
+            client.success().get().close();
+            assertEquals("up", server.getStatus(uuid));
+            assertEquals(3, server.getPingCount());
+        }
+    }
+
+    @Test
+    public void testConcurrentSuccess() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("concurrent");
+            SuppressingHealthchecksClient client = Healthchecks.forUuid(server.getUrl(), uuid)
+                    .withSuppression(Duration.ofHours(1));
+            client.success().get().close();
+
+            //Whichever success ping wins after the fail, one of them is forwarded
+            client.fail().get().close();
+            List<CompletableFuture<Response>> pings = new ArrayList<>();
+            Thread[] threads = new Thread[8];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new Thread(() -> {
+                    CompletableFuture<Response> ping = client.success();
+                    synchronized (pings) {
+                        pings.add(ping);
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads)
+                thread.join();
+            for (CompletableFuture<Response> ping : pings)
+                ping.get().close();
+            assertEquals("up", server.getStatus(uuid));
+            assertEquals(2, client.getForwardedCount());
+            assertEquals(7, client.getSuppressedCount());
+        }
+    }
+
+    @Test
+    public void testInFlight() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("in-flight");
+            server.setLatency(Duration.ofMillis(300), Duration.ZERO);
+            SuppressingHealthchecksClient client = Healthchecks.forUuid(server.getUrl(), uuid)
+                    .withSuppression(Duration.ofHours(1));
+
+            //A tight loop sends one ping, even before its response has arrived
+            CompletableFuture<Response> first = client.success();
+            for (int i = 0; i < 10; i++) {
+                try (Response response = client.success().get()) {
+                    assertTrue(SuppressingHealthchecksClient.isSuppressed(response));
+                    assertEquals(server.getUrl() + uuid, response.request().url().toString());
+                }
+            }
+            first.get().close();
+            assertEquals(1, server.getPingCount());
+            assertEquals(10, client.getSuppressedCount());
+        }
+    }
+
+    @Test
+    public void testNegativeInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new SuppressingHealthchecksClient(
+                Healthchecks.forUuid("uuid"), Duration.ofSeconds(-1)));
+    }
+}
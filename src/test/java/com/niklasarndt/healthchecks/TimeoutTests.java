@@ -0,0 +1,100 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksClient;
+import com.niklasarndt.healthchecksio.HealthchecksManager;
+import com.niklasarndt.healthchecksio.HealthchecksOptions;
+import com.niklasarndt.healthchecksio.model.Check;
+import okhttp3.Response;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class TimeoutTests {
+
+    @Test
+    public void testTimeouts() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("timeouts");
+            HealthchecksClient client = Healthchecks.forUuid(server.getUrl(), uuid,
+                    HealthchecksOptions.builder().readTimeout(Duration.ofSeconds(5)).build());
+            HealthchecksManager manager = Healthchecks.manager(server.getUrl(), "key");
+
+            server.setLatency(Duration.ofMillis(500), Duration.ZERO);
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> client.withTimeout(Duration.ofMillis(100)).success().get());
+            assertTrue(e.getCause() instanceof InterruptedIOException);
+
+            e = assertThrows(ExecutionException.class, () -> manager
+                    .withDeadline(Instant.now().plusMillis(100)).getExistingChecks().get());
+            assertTrue(e.getCause() instanceof InterruptedIOException);
+
+            e = assertThrows(ExecutionException.class, () -> client
+                    .withDeadline(Instant.now().minusSeconds(1)).success().get());
+            assertTrue(e.getCause() instanceof InterruptedIOException);
+
+            CompletableFuture<Check[]> cancelled = manager.getExistingChecks();
+            assertTrue(cancelled.cancel(true));
+
+            try (Response response = client.withTimeout(Duration.ofSeconds(5)).success().get()) {
+                assertTrue(response.isSuccessful());
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultViews() throws ExecutionException, InterruptedException {
+        //A client which only implements the required methods, its calls never complete
+        List<CompletableFuture<Response>> calls = new ArrayList<>();
+        HealthchecksClient custom = new HealthchecksClient() {
+            private CompletableFuture<Response> call() {
+                CompletableFuture<Response> call = new CompletableFuture<>();
+                calls.add(call);
+                return call;
+            }
+
+            @Override
+            public CompletableFuture<Response> start(String body) {
+                return call();
+            }
+
+            @Override
+            public CompletableFuture<Response> success(String body) {
+                return call();
+            }
+
+            @Override
+            public CompletableFuture<Response> fail(String body) {
+                return call();
+            }
+
+            @Override
+            public CompletableFuture<Response> exitCode(int code, String body) {
+                return call();
+            }
+        };
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> custom.withTimeout(Duration.ofMillis(100)).success().get());
+        assertTrue(e.getCause() instanceof InterruptedIOException);
+        assertTrue(calls.get(0).isCancelled());
+
+        //Views can be combined, calls after the deadline are not started
+        e = assertThrows(ExecutionException.class, () -> custom.withTimeout(Duration.ofSeconds(5))
+                .withDeadline(Instant.now().minusSeconds(1)).fail().get());
+        assertTrue(e.getCause() instanceof InterruptedIOException);
+        assertEquals(1, calls.size());
+
+        CompletableFuture<Response> pending = custom.withDeadline(Instant.now().plusSeconds(5)).start();
+        pending.cancel(true);
+        assertTrue(calls.get(1).isCancelled());
+    }
+}
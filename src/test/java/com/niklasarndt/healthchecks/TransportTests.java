@@ -0,0 +1,72 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksClient;
+import com.niklasarndt.healthchecksio.HealthchecksManager;
+import com.niklasarndt.healthchecksio.HealthchecksOptions;
+import com.niklasarndt.healthchecksio.HealthchecksTransport;
+import com.niklasarndt.healthchecksio.model.Check;
+import com.niklasarndt.healthchecksio.model.Ping;
+import okhttp3.Response;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class TransportTests {
+
+    private static HealthchecksTransport create(String name) {
+        HealthchecksOptions options = HealthchecksOptions.builder()
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+        return name.equals("jdk") ? Healthchecks.jdkTransport(options, null) : Healthchecks.okHttpTransport(options);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"okhttp", "jdk"})
+    public void testTransport(String name) throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key");
+             HealthchecksTransport transport = create(name)) {
+            HealthchecksOptions options = HealthchecksOptions.builder().transport(transport).build();
+            HealthchecksManager manager = Healthchecks.manager(server.getUrl(), "key", options);
+
+            Check check = new Check();
+            check.setName(name);
+            String uuid = manager.createCheck(check).get().getUuid();
+            HealthchecksClient client = Healthchecks.forUuid(server.getUrl(), uuid, options);
+
+            try (Response response = client.success("via " + name).get()) {
+                assertEquals(200, response.code());
+                assertEquals("OK", response.body().string());
+            }
+            try (Response response = client.exitCode(2).get()) {
+                assertTrue(response.isSuccessful());
+            }
+            assertEquals("down", manager.getExistingChecks().get()[0].getStatus());
+
+            Ping[] pings = manager.getPings(uuid).get();
+            assertEquals(2, pings.length);
+            assertTrue(pings[0].getUserAgent().startsWith("healthchecksio-java:"));
+
+            //Timeouts and deadlines are applied per call
+            server.setLatency(Duration.ofMillis(500), Duration.ZERO);
+            CompletableFuture<Response> timedOut = client.withTimeout(Duration.ofMillis(50)).success();
+            ExecutionException timeout = assertThrows(ExecutionException.class, timedOut::get);
+            assertTrue(timeout.getCause() instanceof IOException);
+            ExecutionException deadline = assertThrows(ExecutionException.class,
+                    () -> client.withDeadline(Instant.now().minusSeconds(1)).success().get());
+            assertTrue(deadline.getCause() instanceof IOException);
+
+            //A shared transport stays usable after a client has been closed
+            assertTrue(client.closeGracefully(Duration.ofSeconds(5)));
+            server.setLatency(Duration.ZERO, Duration.ZERO);
+            assertEquals(1, manager.getExistingChecks().get().length);
+            manager.close();
+        }
+    }
+}
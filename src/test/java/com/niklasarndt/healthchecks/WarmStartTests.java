@@ -0,0 +1,103 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksManager;
+import com.niklasarndt.healthchecksio.model.Check;
+import com.niklasarndt.healthchecksio.model.Integration;
+import com.niklasarndt.healthchecksio.warm.AccountSnapshot;
+import com.niklasarndt.healthchecksio.warm.WarmStartManager;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class WarmStartTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testFormat() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            server.addCheck("plain");
+            server.addChannel("a1b2", "Private Email", "email");
+            HealthchecksManager manager = Healthchecks.manager(server.getUrl(), "key");
+            Check tagged = new Check();
+            tagged.setName("tagged");
+            tagged.setTags("prod backup");
+            tagged.setDescription("Nächtliches Backup");
+            manager.createCheck(tagged).get();
+
+            AccountSnapshot snapshot = AccountSnapshot.of(manager.getExistingChecks().get(),
+                    manager.getChannels().get());
+            byte[] bytes = snapshot.toBytes();
+            AccountSnapshot restored = AccountSnapshot.read(ByteBuffer.wrap(bytes));
+            assertEquals(snapshot.getCreatedAt(), restored.getCreatedAt());
+            assertEquals(snapshot.getChecks(), restored.getChecks());
+            assertEquals(snapshot.getIntegrations(), restored.getIntegrations());
+            assertNotNull(restored.getChecks().get(0).getUuid());
+
+            //Unknown channels are stored as such
+            AccountSnapshot readOnly = AccountSnapshot.of(new Check[0], null);
+            assertNull(AccountSnapshot.read(ByteBuffer.wrap(readOnly.toBytes())).getIntegrations());
+
+            //A flipped bit is detected by the checksum, other versions are rejected
+            bytes[bytes.length - 5] ^= 1;
+            IOException corrupt = assertThrows(IOException.class, () -> AccountSnapshot.read(ByteBuffer.wrap(bytes)));
+            assertTrue(corrupt.getMessage().contains("checksum"));
+            byte[] future = snapshot.toBytes();
+            future[7] = 2;
+            IOException version = assertThrows(IOException.class, () -> AccountSnapshot.read(ByteBuffer.wrap(future)));
+            assertEquals("Unsupported version 2", version.getMessage());
+            manager.close();
+        }
+    }
+
+    @Test
+    public void testWarmStart() throws IOException, ExecutionException, InterruptedException {
+        Path file = directory.resolve("project.hcas");
+        try (StandInServer server = new StandInServer("key")) {
+            server.addCheck("first");
+            server.addChannel("a1b2", "Private Email", "email");
+            Check tagged = new Check();
+            tagged.setName("second");
+            tagged.setTags("prod backup");
+
+            WarmStartManager manager = WarmStartManager.builder(Healthchecks.manager(server.getUrl(), "key"), file)
+                    .refreshInterval(Duration.ofHours(1))
+                    .build();
+            manager.createCheck(tagged).get();
+            manager.refresh().get();
+            assertEquals(2, manager.getSnapshot().getChecks().size());
+            manager.close();
+            assertTrue(Files.exists(file));
+
+            //After a restart, reads are served from the file while the API is slow
+            server.setLatency(Duration.ofSeconds(2), Duration.ZERO);
+            WarmStartManager restarted = WarmStartManager.builder(
+                    Healthchecks.manager(server.getUrl(), "key"), file).build();
+            CompletableFuture<Check[]> checks = restarted.getExistingChecks();
+            assertTrue(checks.isDone());
+            assertEquals(2, checks.get().length);
+            assertEquals("second", restarted.getExistingChecks("backup", "prod").get()[0].getName());
+            assertEquals(0, restarted.getExistingChecks("prod", "staging").get().length);
+            Integration[] channels = restarted.getChannels().get();
+            assertEquals("Private Email", channels[0].getName());
+            String uuid = checks.get()[0].getUuid();
+            assertEquals(uuid, restarted.getCheck(uuid).get().getUuid());
+
+            //Checks which are not in the snapshot are looked up via the API
+            server.setLatency(Duration.ZERO, Duration.ZERO);
+            server.addCheck("third");
+            assertEquals("third", restarted.getCheckByName("third").get().getName());
+            restarted.close();
+        }
+    }
+}
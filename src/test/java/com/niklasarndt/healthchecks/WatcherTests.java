@@ -0,0 +1,83 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksClient;
+import com.niklasarndt.healthchecksio.HealthchecksManager;
+import com.niklasarndt.healthchecksio.model.CheckSnapshot;
+import com.niklasarndt.healthchecksio.watch.CheckChange;
+import com.niklasarndt.healthchecksio.watch.CheckWatcher;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WatcherTests {
+
+    @Test
+    public void testWatcher() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            String uuid = server.addCheck("watched");
+            HealthchecksManager manager = Healthchecks.manager(server.getUrl(), "key");
+            HealthchecksClient client = Healthchecks.forUuid(server.getUrl(), uuid);
+
+            try (CheckWatcher watcher = new CheckWatcher(manager)) {
+                //Quiet polls back off, changes reset the interval to the minimum
+                assertTrue(watcher.poll().get().isEmpty());
+                assertTrue(watcher.getInterval().compareTo(CheckWatcher.DEFAULT_MIN_INTERVAL) > 0);
+                CheckSnapshot[] first = manager.getExistingCheckSnapshots().get();
+                //Unchanged listings are served from the cache (304 / identical payload)
+                assertSame(first[0], manager.getExistingCheckSnapshots().get()[0]);
+
+                client.fail().get().close();
+                List<CheckChange> changes = watcher.poll().get();
+                assertEquals(1, changes.size());
+                assertEquals(uuid, changes.get(0).getKey());
+                assertTrue(changes.get(0).isDown());
+                assertTrue(changes.get(0).isPinged());
+                assertEquals(CheckWatcher.DEFAULT_MIN_INTERVAL, watcher.getInterval());
+
+                assertTrue(watcher.poll().get().isEmpty());
+                assertTrue(watcher.getInterval().compareTo(CheckWatcher.DEFAULT_MIN_INTERVAL) > 0);
+            }
+        }
+    }
+
+    @Test
+    public void testThrowingManager() throws IOException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            server.addCheck("watched");
+            HealthchecksManager real = Healthchecks.manager(server.getUrl(), "key");
+            //The first two polls throw instead of returning a future
+            AtomicInteger polls = new AtomicInteger();
+            HealthchecksManager manager = (HealthchecksManager) Proxy.newProxyInstance(
+                    HealthchecksManager.class.getClassLoader(), new Class<?>[]{HealthchecksManager.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("getExistingCheckSnapshots")
+                                && polls.incrementAndGet() <= 2)
+                            throw new IllegalStateException("Broken");
+                        try {
+                            return method.invoke(real, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+
+            try (CheckWatcher watcher = new CheckWatcher(manager, Duration.ofMillis(50),
+                    Duration.ofMillis(200), null)) {
+                assertThrows(ExecutionException.class, () -> watcher.poll().get());
+                watcher.start();
+                long deadline = System.currentTimeMillis() + 5000;
+                while (watcher.getChecks().isEmpty() && System.currentTimeMillis() < deadline)
+                    Thread.sleep(10);
+                assertEquals(1, watcher.getChecks().size());
+                assertTrue(polls.get() >= 3);
+            }
+        }
+    }
+}
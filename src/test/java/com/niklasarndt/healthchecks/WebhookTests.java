@@ -0,0 +1,103 @@
+package com.niklasarndt.healthchecks;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksManager;
+import com.niklasarndt.healthchecksio.webhook.WebhookEvent;
+import com.niklasarndt.healthchecksio.webhook.WebhookReceiver;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+public class WebhookTests {
+
+    @Test
+    public void testWebhook() throws IOException, ExecutionException, InterruptedException {
+        try (StandInServer server = new StandInServer("key")) {
+            HealthchecksManager manager = Healthchecks.manager(server.getUrl(), "key");
+            assertFalse(manager.hasWebhookIntegration("Receiver").get());
+            server.addChannel("0d4f1b6e-2f0a-4d0c-9b1e-3c1f5a7c9e11", "Receiver", "webhook");
+            assertTrue(manager.hasWebhookIntegration("Receiver").get());
+            assertEquals(1, manager.getWebhookIntegrations().get().length);
+
+            try (WebhookReceiver receiver = WebhookReceiver.builder().port(0).bindAddress("127.0.0.1")
+                    .secret("secret").build()) {
+                List<WebhookEvent> events = new CopyOnWriteArrayList<>();
+                receiver.addListener(events::add);
+                OkHttpClient client = new OkHttpClient();
+
+                String json = "{\"code\": \"uuid-1\", \"status\": \"down\", "
+                        + "\"now\": \"2021-06-04T12:00:00+00:00\", \"name\": \"backup\", \"extra\": [1, 2]}";
+                for (int i = 0; i < 2; i++) {
+                    try (Response response = client.newCall(new Request.Builder()
+                            .url(receiver.getUrl() + "?token=secret")
+                            .post(RequestBody.create(json, MediaType.get("application/json")))
+                            .build()).execute()) {
+                        assertEquals(200, response.code());
+                    }
+                }
+                try (Response response = client.newCall(new Request.Builder()
+                        .url(receiver.getUrl() + "?code=uuid-1&status=up")
+                        .header(WebhookReceiver.TOKEN_HEADER, "secret")
+                        .build()).execute()) {
+                    assertEquals(200, response.code());
+                }
+                try (Response response = client.newCall(new Request.Builder()
+                        .url(receiver.getUrl() + "?token=wrong&code=uuid-1&status=up")
+                        .build()).execute()) {
+                    assertEquals(403, response.code());
+                }
+                try (Response response = client.newCall(new Request.Builder()
+                        .url(receiver.getUrl() + "?token=secret&status=up")
+                        .build()).execute()) {
+                    assertEquals(400, response.code());
+                }
+                //Malformed percent-encoding (OkHttp would escape it in the query)
+                HttpURLConnection connection = (HttpURLConnection) new URL(receiver.getUrl()
+                        + "?token=secret&code=%zz&status=up").openConnection();
+                assertEquals(400, connection.getResponseCode());
+                connection.disconnect();
+                try (Response response = client.newCall(new Request.Builder()
+                        .url(receiver.getUrl() + "?token=secret")
+                        .post(RequestBody.create("code=%zz&status=up",
+                                MediaType.get("application/x-www-form-urlencoded")))
+                        .build()).execute()) {
+                    assertEquals(400, response.code());
+                }
+
+                //Listeners are called after the response has been sent
+                long deadline = System.currentTimeMillis() + 5000;
+                while (events.size() < 2 && System.currentTimeMillis() < deadline)
+                    Thread.sleep(10);
+                assertEquals(2, events.size());
+                WebhookEvent down = events.get(0);
+                assertTrue(down.isDown());
+                assertEquals("backup", down.getName());
+                assertEquals(Instant.parse("2021-06-04T12:00:00Z"), down.getTimestamp());
+                assertTrue(events.get(1).isUp());
+                assertEquals(1, receiver.getDuplicateCount());
+                assertEquals(3, receiver.getRejectedCount());
+            }
+        }
+    }
+
+    @Test
+    public void testConfiguration() {
+        //Other hosts must not be able to send events without a secret
+        assertThrows(IllegalStateException.class,
+                () -> WebhookReceiver.builder().port(0).bindAddress("0.0.0.0").build());
+        assertThrows(IllegalArgumentException.class, () -> WebhookReceiver.builder().threads(0));
+        assertThrows(IllegalArgumentException.class, () -> WebhookReceiver.builder().dedupeCapacity(0));
+    }
+}
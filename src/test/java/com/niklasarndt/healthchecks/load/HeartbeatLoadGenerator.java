@@ -0,0 +1,246 @@
+package com.niklasarndt.healthchecks.load;
+
+import com.niklasarndt.healthchecks.standin.StandInServer;
+import com.niklasarndt.healthchecksio.Healthchecks;
+import com.niklasarndt.healthchecksio.HealthchecksClient;
+import com.niklasarndt.healthchecksio.HealthchecksManager;
+import com.niklasarndt.healthchecksio.HealthchecksOptions;
+import com.niklasarndt.healthchecksio.HealthchecksTransport;
+import com.niklasarndt.healthchecksio.model.Check;
+import okhttp3.Response;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Drives simulated checks through {@link HealthchecksClient} as fast as the configured
+ * concurrency allows and reports throughput, latency percentiles, allocation rate and
+ * thread counts.</p>
+ *
+ * <p>Without {@code --url}, an in-process {@link StandInServer} is started. Its threads are
+ * excluded from the allocation numbers, but it still competes for CPU; use a separate
+ * stand-in ({@code --url=http://host:port/}) for more accurate results.</p>
+ *
+ * <p>Options: {@code --checks=100 --concurrency=32 --duration=30 --warmup=5
+ * --mix=success:90,start:5,fail:4,exit:1 --url= --api-key=load-test --transport=okhttp}</p>
+ *
+ * <p>{@code --transport=jdk} sends the heartbeats via the {@code java.net.http.HttpClient}
+ * transport (Java 11+) instead of OkHttp, so both can be compared side by side.</p>
+ */
+public class HeartbeatLoadGenerator {
+
+    private static final String SERVER_THREAD = "standin-server";
+
+    private final Map<String, String> options;
+    private final Map<String, Integer> mix = new LinkedHashMap<>();
+    private final Recorder recorder = new Recorder(TimeUnit.MINUTES.toNanos(1), 3);
+    private final AtomicLong successful = new AtomicLong();
+    private final AtomicLong unsuccessful = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private int mixTotal;
+
+    private HeartbeatLoadGenerator(Map<String, String> options) {
+        this.options = options;
+        for (String entry : option("mix", "success:90,start:5,fail:4,exit:1").split(",")) {
+            String[] parts = entry.split(":");
+            mix.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+            mixTotal += Integer.parseInt(parts[1].trim());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("Invalid argument " + arg + ", expected --key=value");
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new HeartbeatLoadGenerator(options).run();
+    }
+
+    private String option(String key, String fallback) {
+        String value = options.get(key);
+        return value == null || value.isEmpty() ? fallback : value;
+    }
+
+    private int intOption(String key, int fallback) {
+        return Integer.parseInt(option(key, String.valueOf(fallback)));
+    }
+
+    private void run() throws Exception {
+        int checks = intOption("checks", 100);
+        int concurrency = intOption("concurrency", 32);
+        int duration = intOption("duration", 30);
+        int warmup = intOption("warmup", 5);
+        String apiKey = option("api-key", "load-test");
+
+        String transportName = option("transport", "okhttp");
+        HealthchecksTransport transport;
+        if (transportName.equals("jdk"))
+            transport = Healthchecks.jdkTransport(HealthchecksOptions.DEFAULT, null);
+        else if (transportName.equals("okhttp"))
+            transport = Healthchecks.okHttpTransport(HealthchecksOptions.DEFAULT);
+        else
+            throw new IllegalArgumentException("Unknown transport " + transportName + ", expected okhttp or jdk");
+        HealthchecksOptions clientOptions = HealthchecksOptions.builder().transport(transport).build();
+
+        StandInServer server = null;
+        String url = options.get("url");
+        if (url == null || url.isEmpty()) {
+            server = new StandInServer(apiKey);
+            url = server.getUrl();
+        }
+
+        try {
+            HealthchecksClient[] clients = createClients(url, apiKey, checks, clientOptions);
+            System.out.printf(Locale.ROOT, "Target: %s, transport: %s, checks: %d, concurrency: %d, mix: %s%n",
+                    url, transportName, checks, concurrency, mix);
+
+            System.out.printf(Locale.ROOT, "Warming up for %d s...%n", warmup);
+            drive(clients, concurrency, TimeUnit.SECONDS.toNanos(warmup));
+            recorder.reset();
+            successful.set(0);
+            unsuccessful.set(0);
+            failed.set(0);
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            threads.resetPeakThreadCount();
+            long allocatedBefore = allocatedBytes(threads);
+            long start = System.nanoTime();
+
+            drive(clients, concurrency, TimeUnit.SECONDS.toNanos(duration));
+
+            long elapsed = System.nanoTime() - start;
+            long allocated = allocatedBytes(threads) - allocatedBefore;
+            report(recorder.getIntervalHistogram(), elapsed, allocated, threads);
+        } finally {
+            transport.close();
+            if (server != null)
+                server.close();
+        }
+        //OkHttp's non-daemon threads would keep the JVM alive for another minute
+        System.exit(0);
+    }
+
+    private HealthchecksClient[] createClients(String url, String apiKey, int count,
+                                               HealthchecksOptions clientOptions) throws Exception {
+        HealthchecksManager manager = Healthchecks.manager(url, apiKey);
+        HealthchecksClient[] clients = new HealthchecksClient[count];
+
+        CompletableFuture<?>[] created = new CompletableFuture<?>[count];
+        for (int i = 0; i < count; i++) {
+            Check check = new Check();
+            check.setName("load-" + i);
+            check.setTags("load");
+            int index = i;
+            created[i] = manager.createCheck(check)
+                    .thenAccept(result -> clients[index] = Healthchecks.forUuid(url, result.getUuid(), clientOptions));
+        }
+        CompletableFuture.allOf(created).get();
+        return clients;
+    }
+
+    private void drive(HealthchecksClient[] clients, int concurrency, long duration)
+            throws InterruptedException {
+        Semaphore permits = new Semaphore(concurrency);
+        long end = System.nanoTime() + duration;
+
+        while (System.nanoTime() < end) {
+            permits.acquire();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            HealthchecksClient client = clients[random.nextInt(clients.length)];
+
+            long start = System.nanoTime();
+            send(client, random.nextInt(mixTotal)).whenComplete((response, error) -> {
+                recorder.recordValue(Math.min(System.nanoTime() - start, TimeUnit.MINUTES.toNanos(1)));
+                if (error != null) {
+                    failed.incrementAndGet();
+                } else {
+                    (response.isSuccessful() ? successful : unsuccessful).incrementAndGet();
+                    response.close();
+                }
+                permits.release();
+            });
+        }
+        permits.acquire(concurrency);
+    }
+
+    private CompletableFuture<Response> send(HealthchecksClient client, int roll) {
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll >= 0)
+                continue;
+
+            switch (entry.getKey()) {
+                case "start":
+                    return client.start();
+                case "fail":
+                    return client.fail("load test failure");
+                case "exit":
+                    return client.exitCode(ThreadLocalRandom.current().nextInt(256));
+                case "success":
+                    return client.success();
+                default:
+                    throw new IllegalArgumentException("Unknown event type " + entry.getKey()
+                            + ", expected success, start, fail or exit");
+            }
+        }
+        return client.success();
+    }
+
+    /**
+     * Sums up the allocations of all threads except the ones of the stand-in server.
+     */
+    private static long allocatedBytes(ThreadMXBean threads) {
+        if (!(threads instanceof com.sun.management.ThreadMXBean))
+            return -1;
+        com.sun.management.ThreadMXBean extended = (com.sun.management.ThreadMXBean) threads;
+
+        long total = 0;
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info == null || info.getThreadName().startsWith(SERVER_THREAD))
+                continue;
+            long allocated = extended.getThreadAllocatedBytes(info.getThreadId());
+            if (allocated > 0)
+                total += allocated;
+        }
+        return total;
+    }
+
+    private void report(Histogram histogram, long elapsedNanos, long allocated, ThreadMXBean threads) {
+        double seconds = elapsedNanos / 1e9;
+        long total = successful.get() + unsuccessful.get() + failed.get();
+
+        System.out.println("---------------------------------------------");
+        System.out.printf(Locale.ROOT, "Requests:    %d (%d successful, %d non-2xx, %d failed)%n",
+                total, successful.get(), unsuccessful.get(), failed.get());
+        System.out.printf(Locale.ROOT, "Throughput:  %.1f heartbeats/s%n", total / seconds);
+        System.out.printf(Locale.ROOT, "Latency:     p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, "
+                        + "p99.9 %.2f ms, max %.2f ms%n",
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+        if (allocated >= 0)
+            System.out.printf(Locale.ROOT, "Allocation:  %.1f MB/s (%.1f KB per heartbeat, "
+                            + "excluding stand-in threads)%n",
+                    allocated / seconds / 1024 / 1024, total == 0 ? 0 : allocated / 1024.0 / total);
+        System.out.printf(Locale.ROOT, "Threads:     %d live, %d peak%n",
+                threads.getThreadCount(), threads.getPeakThreadCount());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
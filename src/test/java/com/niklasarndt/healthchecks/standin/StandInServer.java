@@ -0,0 +1,602 @@
+package com.niklasarndt.healthchecks.standin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>An embedded, in-memory stand-in for a healthchecks.io instance. It implements the
+ * Pinging API ({@code /<uuid>}, {@code /<uuid>/start}, {@code /<uuid>/fail},
+ * {@code /<uuid>/<code>}, the same paths with {@code /<ping-key>/<slug>} and
+ * {@code ?create=1}) and the parts of the Management API used by this library
+ * ({@code /api/v1/checks}, {@code /pings}, {@code /flips}, {@code /channels}).</p>
+ *
+ * <p>Point clients and managers at {@link #getUrl()} via the {@code hostUrl} factories
+ * in {@link com.niklasarndt.healthchecksio.Healthchecks}. Latency, error injection and
+ * 429 throttling can be configured at any time to run throughput and resilience tests
+ * offline.</p>
+ */
+public class StandInServer implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssxxx").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter TIMESTAMP_MS =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSxxx").withZone(ZoneOffset.UTC);
+    private static final int MAX_PINGS = 100;
+
+    private final String apiKey;
+    private final String readOnlyKey;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, StoredCheck> checks = new ConcurrentHashMap<>();
+    private final List<ObjectNode> channels = new ArrayList<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong pings = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicInteger windowCount = new AtomicInteger();
+
+    private volatile long latencyMs;
+    private volatile long jitterMs;
+    private volatile double errorRate;
+    private volatile int requestsPerSecond;
+    private volatile String pingKey;
+
+    /**
+     * <p>Creates and starts a new server on a random local port.</p>
+     *
+     * @param apiKey      The API key with write access.
+     * @param readOnlyKey The read-only API key (may be null).
+     *
+     * @throws IOException If the server could not be bound.
+     */
+    public StandInServer(String apiKey, String readOnlyKey) throws IOException {
+        this.apiKey = apiKey;
+        this.readOnlyKey = readOnlyKey;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "standin-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    public StandInServer(String apiKey) throws IOException {
+        this(apiKey, null);
+    }
+
+    /**
+     * @return The base URL of this server (e.g. {@code http://127.0.0.1:12345/}).
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * <p>Sets a fixed latency (plus a random jitter of up to {@code jitter}) for every request.</p>
+     */
+    public void setLatency(Duration latency, Duration jitter) {
+        this.latencyMs = latency.toMillis();
+        this.jitterMs = jitter.toMillis();
+    }
+
+    /**
+     * @param errorRate The fraction of requests (0 to 1) which will fail with status 500.
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * @param requestsPerSecond The number of requests per second after which the server
+     *                          responds with status 429. 0 disables throttling.
+     */
+    public void setRequestsPerSecond(int requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    /**
+     * @param pingKey The ping key which enables {@code /<ping-key>/<slug>} URLs (null disables them).
+     */
+    public void setPingKey(String pingKey) {
+        this.pingKey = pingKey;
+    }
+
+    /**
+     * <p>Creates a new check without using the Management API.</p>
+     *
+     * @param name The name of the check.
+     *
+     * @return The UUID of the new check.
+     */
+    public String addCheck(String name) {
+        StoredCheck check = new StoredCheck();
+        check.name = name;
+        checks.put(check.uuid, check);
+        return check.uuid;
+    }
+
+    public synchronized void addChannel(String id, String name, String kind) {
+        ObjectNode channel = MAPPER.createObjectNode();
+        channel.put("id", id);
+        channel.put("name", name);
+        channel.put("kind", kind);
+        channels.add(channel);
+    }
+
+    /**
+     * @return The UUID of the check with this slug, or null if there is none.
+     */
+    public String getUuidBySlug(String slug) {
+        StoredCheck check = findBySlug(slug);
+        return check == null ? null : check.uuid;
+    }
+
+    /**
+     * @return The status of the check (e.g. new, up, down, started or paused).
+     */
+    public String getStatus(String uuid) {
+        StoredCheck check = checks.get(uuid);
+        return check == null ? null : check.status;
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getPingCount() {
+        return pings.get();
+    }
+
+    public long getThrottledCount() {
+        return throttled.get();
+    }
+
+    public long getInjectedErrorCount() {
+        return injectedErrors.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /* -----------------------------------------------
+                        REQUEST HANDLING
+       ----------------------------------------------- */
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requests.incrementAndGet();
+            byte[] body = readBody(exchange.getRequestBody());
+
+            long delay = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+            if (delay > 0)
+                Thread.sleep(delay);
+
+            if (isThrottled()) {
+                throttled.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                respond(exchange, 429, "rate limited");
+                return;
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                injectedErrors.incrementAndGet();
+                respond(exchange, 500, "injected error");
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            if (path.startsWith("/api/v1/"))
+                handleManagement(exchange, path.substring("/api/v1".length()), body);
+            else
+                handlePing(exchange, path, body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "interrupted");
+        } catch (RuntimeException e) {
+            respond(exchange, 500, String.valueOf(e));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private boolean isThrottled() {
+        int limit = requestsPerSecond;
+        if (limit <= 0)
+            return false;
+
+        long second = System.currentTimeMillis() / 1000;
+        long current = window.get();
+        if (current != second && window.compareAndSet(current, second))
+            windowCount.set(0);
+        return windowCount.incrementAndGet() > limit;
+    }
+
+    private void handlePing(HttpExchange exchange, String path, byte[] body) throws IOException {
+        String[] segments = path.substring(1).split("/");
+        String key = pingKey;
+        StoredCheck check;
+        int event = 1;
+        boolean created = false;
+
+        if (key != null && segments.length >= 2 && segments[0].equals(key)) {
+            event = 2;
+            check = findBySlug(segments[1]);
+            String query = exchange.getRequestURI().getQuery();
+            if (check == null && query != null && Arrays.asList(query.split("&")).contains("create=1")) {
+                synchronized (this) {
+                    check = findBySlug(segments[1]);
+                    if (check == null) {
+                        check = checks.get(addCheck(segments[1]));
+                        created = true;
+                    }
+                }
+            }
+        } else {
+            check = checks.get(segments[0]);
+        }
+        if (check == null) {
+            respond(exchange, 404, "not found");
+            return;
+        }
+
+        String type;
+        if (segments.length == event)
+            type = "success";
+        else if (segments.length > event + 1) {
+            respond(exchange, 400, "invalid url format");
+            return;
+        } else if (segments[event].equals("start"))
+            type = "start";
+        else if (segments[event].equals("fail"))
+            type = "fail";
+        else {
+            try {
+                int code = Integer.parseInt(segments[event]);
+                if (code < 0 || code > 255)
+                    throw new NumberFormatException();
+                type = code == 0 ? "success" : "fail";
+            } catch (NumberFormatException e) {
+                respond(exchange, 400, "invalid url format");
+                return;
+            }
+        }
+
+        pings.incrementAndGet();
+        check.ping(type, exchange.getRequestMethod(),
+                exchange.getRemoteAddress().getAddress().getHostAddress(),
+                exchange.getRequestHeaders().getFirst("User-Agent"));
+        respond(exchange, created ? 201 : 200, created ? "Created" : "OK");
+    }
+
+    private StoredCheck findBySlug(String slug) {
+        for (StoredCheck check : checks.values()) {
+            if (check.getSlug().equals(slug))
+                return check;
+        }
+        return null;
+    }
+
+    private void handleManagement(HttpExchange exchange, String path, byte[] body) throws IOException {
+        String key = exchange.getRequestHeaders().getFirst("X-Api-Key");
+        boolean readOnly = readOnlyKey != null && readOnlyKey.equals(key);
+        if (!readOnly && !apiKey.equals(key)) {
+            respond(exchange, 401, "wrong api key");
+            return;
+        }
+
+        String method = exchange.getRequestMethod();
+        List<String> segments = new ArrayList<>(Arrays.asList(path.substring(1).split("/")));
+        segments.removeIf(String::isEmpty);
+
+        if (segments.size() == 1 && segments.get(0).equals("channels")) {
+            if (readOnly) {
+                respond(exchange, 401, "read-only key");
+                return;
+            }
+            ObjectNode result = MAPPER.createObjectNode();
+            synchronized (this) {
+                result.putArray("channels").addAll(channels);
+            }
+            respondJson(exchange, 200, result);
+            return;
+        }
+        if (segments.isEmpty() || !segments.get(0).equals("checks")) {
+            respond(exchange, 404, "not found");
+            return;
+        }
+
+        if (segments.size() == 1) {
+            if (method.equals("GET"))
+                listChecks(exchange, readOnly);
+            else if (readOnly)
+                respond(exchange, 401, "read-only key");
+            else
+                createCheck(exchange, body);
+            return;
+        }
+
+        StoredCheck check = findCheck(segments.get(1), readOnly);
+        if (check == null) {
+            respond(exchange, 404, "not found");
+            return;
+        }
+
+        String action = segments.size() > 2 ? segments.get(2) : null;
+        if (action == null && method.equals("GET")) {
+            respondJson(exchange, 200, check.toJson(readOnly, getUrl()));
+        } else if ("flips".equals(action)) {
+            ObjectNode result = MAPPER.createObjectNode();
+            result.set("flips", check.flipsToJson());
+            respondJson(exchange, 200, result);
+        } else if (readOnly) {
+            respond(exchange, 401, "read-only key");
+        } else if (action == null && method.equals("DELETE")) {
+            checks.remove(check.uuid);
+            respondJson(exchange, 200, check.toJson(false, getUrl()));
+        } else if (action == null) {
+            check.update(MAPPER.readTree(body));
+            respondJson(exchange, 200, check.toJson(false, getUrl()));
+        } else if (action.equals("pause")) {
+            check.pause();
+            respondJson(exchange, 200, check.toJson(false, getUrl()));
+        } else if (action.equals("pings")) {
+            ObjectNode result = MAPPER.createObjectNode();
+            result.set("pings", check.pingsToJson());
+            respondJson(exchange, 200, result);
+        } else {
+            respond(exchange, 404, "not found");
+        }
+    }
+
+    private void listChecks(HttpExchange exchange, boolean readOnly) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        List<String> tags = new ArrayList<>();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                if (param.startsWith("tag="))
+                    tags.add(param.substring(4));
+            }
+        }
+
+        ObjectNode result = MAPPER.createObjectNode();
+        ArrayNode array = result.putArray("checks");
+        for (StoredCheck check : checks.values()) {
+            if (check.hasTags(tags))
+                array.add(check.toJson(readOnly, getUrl()));
+        }
+
+        byte[] bytes = MAPPER.writeValueAsBytes(result);
+        String etag = "\"" + Integer.toHexString(Arrays.hashCode(bytes)) + "\"";
+        exchange.getResponseHeaders().add("ETag", etag);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        respond(exchange, 200, bytes, "application/json");
+    }
+
+    private void createCheck(HttpExchange exchange, byte[] body) throws IOException {
+        StoredCheck check = new StoredCheck();
+        check.update(MAPPER.readTree(body));
+        checks.put(check.uuid, check);
+        respondJson(exchange, 201, check.toJson(false, getUrl()));
+    }
+
+    private StoredCheck findCheck(String key, boolean readOnly) {
+        if (!readOnly)
+            return checks.get(key);
+        for (StoredCheck check : checks.values()) {
+            if (check.uniqueKey.equals(key))
+                return check;
+        }
+        return null;
+    }
+
+    private static byte[] readBody(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = input.read(buffer)) != -1)
+            output.write(buffer, 0, read);
+        return output.toByteArray();
+    }
+
+    private static void respondJson(HttpExchange exchange, int code, JsonNode json) throws IOException {
+        respond(exchange, code, MAPPER.writeValueAsBytes(json), "application/json");
+    }
+
+    private static void respond(HttpExchange exchange, int code, String text) throws IOException {
+        respond(exchange, code, text.getBytes(StandardCharsets.UTF_8), "text/plain");
+    }
+
+    private static void respond(HttpExchange exchange, int code, byte[] bytes, String type) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", type);
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * The in-memory state of a single check.
+     */
+    private static class StoredCheck {
+        private final String uuid = UUID.randomUUID().toString();
+        private final String uniqueKey = Integer.toHexString(uuid.hashCode())
+                + Long.toHexString(ThreadLocalRandom.current().nextLong());
+        private final Deque<ObjectNode> pings = new ArrayDeque<>();
+        private final List<ObjectNode> flips = new ArrayList<>();
+
+        private String name = "";
+        private String tags = "";
+        private String desc = "";
+        private int timeout = 86400;
+        private int grace = 3600;
+        private String schedule;
+        private String tz = "UTC";
+        private String methods = "";
+        private boolean manualResume;
+        private String channels = "";
+        private volatile String status = "new";
+        private int nPings;
+        private Instant lastPing;
+        private Instant started;
+        private int lastDuration;
+
+        /**
+         * Derives the slug from the name, like healthchecks.io does.
+         */
+        private String getSlug() {
+            return name.toLowerCase().replaceAll("[^a-z0-9_\\s-]", "")
+                    .trim().replaceAll("[\\s-]+", "-");
+        }
+
+        private synchronized void ping(String type, String method, String address,
+                                       String userAgent) {
+            Instant now = Instant.now();
+            nPings++;
+
+            ObjectNode ping = MAPPER.createObjectNode();
+            ping.put("type", type);
+            ping.put("date", TIMESTAMP_MS.format(now));
+            ping.put("n", nPings);
+            ping.put("scheme", "http");
+            ping.put("remote_addr", address);
+            ping.put("method", method);
+            ping.put("ua", userAgent);
+
+            if (type.equals("start")) {
+                started = now;
+                status = status.equals("paused") && manualResume ? status : "started";
+            } else {
+                if (started != null) {
+                    Duration duration = Duration.between(started, now);
+                    ping.put("duration", duration.toNanos() / 1e9);
+                    lastDuration = (int) duration.getSeconds();
+                    started = null;
+                }
+                lastPing = now;
+                if (!status.equals("paused") || !manualResume)
+                    flip(type.equals("success") ? "up" : "down", now);
+            }
+
+            pings.addLast(ping);
+            if (pings.size() > MAX_PINGS)
+                pings.removeFirst();
+        }
+
+        private void flip(String next, Instant now) {
+            boolean wasUp = status.equals("up");
+            boolean wasDown = status.equals("down");
+            status = next;
+            if ((next.equals("up") && !wasUp) || (next.equals("down") && !wasDown)) {
+                ObjectNode flip = MAPPER.createObjectNode();
+                flip.put("timestamp", TIMESTAMP.format(now));
+                flip.put("up", next.equals("up") ? 1 : 0);
+                flips.add(flip);
+            }
+        }
+
+        private synchronized void pause() {
+            status = "paused";
+        }
+
+        private synchronized void update(JsonNode json) {
+            name = json.path("name").asText(name);
+            tags = json.path("tags").asText(tags);
+            desc = json.path("desc").asText(desc);
+            timeout = json.path("timeout").asInt(timeout);
+            grace = json.path("grace").asInt(grace);
+            schedule = json.has("schedule") ? json.get("schedule").asText() : schedule;
+            tz = json.path("tz").asText(tz);
+            methods = json.path("methods").asText(methods);
+            manualResume = json.path("manual_resume").asBoolean(manualResume);
+            channels = json.path("channels").asText(channels);
+        }
+
+        private boolean hasTags(List<String> required) {
+            List<String> own = Arrays.asList(tags.split(" "));
+            return own.containsAll(required);
+        }
+
+        private synchronized ObjectNode toJson(boolean readOnly, String url) {
+            ObjectNode json = MAPPER.createObjectNode();
+            json.put("name", name);
+            json.put("tags", tags);
+            json.put("desc", desc);
+            json.put("grace", grace);
+            json.put("n_pings", nPings);
+            json.put("status", status);
+            json.put("last_ping", lastPing == null ? null : TIMESTAMP.format(lastPing));
+            json.put("next_ping", lastPing == null || schedule != null ? null
+                    : TIMESTAMP.format(lastPing.plusSeconds(timeout)));
+            json.put("manual_resume", manualResume);
+            json.put("methods", methods);
+            json.put("last_duration", lastDuration);
+            if (schedule != null) {
+                json.put("schedule", schedule);
+                json.put("tz", tz);
+            } else {
+                json.put("timeout", timeout);
+            }
+
+            if (readOnly) {
+                json.put("unique_key", uniqueKey);
+            } else {
+                json.put("ping_url", url + uuid);
+                json.put("update_url", url + "api/v1/checks/" + uuid);
+                json.put("pause_url", url + "api/v1/checks/" + uuid + "/pause");
+                json.put("channels", channels);
+            }
+            return json;
+        }
+
+        private synchronized ArrayNode pingsToJson() {
+            ArrayNode array = MAPPER.createArrayNode();
+            //Newest pings first, like healthchecks.io
+            pings.descendingIterator().forEachRemaining(array::add);
+            return array;
+        }
+
+        private synchronized ArrayNode flipsToJson() {
+            ArrayNode array = MAPPER.createArrayNode();
+            flips.forEach(array::add);
+            return array;
+        }
+    }
+}